@@ -5,13 +5,27 @@ import com.google.gson.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
 
 /**
  * Abstract class for creating api.
@@ -29,11 +43,22 @@ public abstract class AbstractApi {
             "User-Agent", "jBTCEv2"
     );
     private static final Logger LOG = LoggerFactory.getLogger(DefaultConnector.class);
+    // only starts next attempts of async calls after backoff, thread is created on first use
+    private static final ScheduledExecutorService RETRY_SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "jbtce-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
     protected final Gson gson;
     protected final JsonParser parser;
     protected Connector connector;
     protected Map<String, String> headers;
     private ServerProvider serverProvider;
+    private volatile RetryPolicy retryPolicy = RetryPolicy.DEFAULT;
+    private final ThreadLocal<RetryPolicy> callRetryPolicy = new ThreadLocal<>();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final AtomicLongArray retriesHistogram = new AtomicLongArray(RetryStats.BUCKETS);
 
     /**
      * Create new abstract api instance with default gson
@@ -111,9 +136,77 @@ public abstract class AbstractApi {
         this.serverProvider = server;
     }
 
+    /**
+     * @return retry policy used by calls of this api
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Set retry policy for calls of this api
+     *
+     * @param retryPolicy retry policy
+     * @throws NullPointerException if policy is null
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = requireNonNull(retryPolicy, "Retry policy must be specified");
+    }
+
+    /**
+     * Execute api calls with custom retry policy. Policy is applied to calls made by current thread inside the supplier,
+     * ex. {@code api.withRetryPolicy(RetryPolicy.NO_RETRY, () -> api.getTicks(BTC_USD))}.
+     * Policy is taken when api method is called and passed along with the call, so it is kept if request is
+     * executed on another thread
+     *
+     * @param retryPolicy retry policy
+     * @param call        api calls
+     * @param <T>         result type
+     * @return call result
+     * @throws NullPointerException if policy or call is null
+     */
+    public <T> T withRetryPolicy(RetryPolicy retryPolicy, Supplier<T> call) {
+        requireNonNull(retryPolicy, "Retry policy must be specified");
+        requireNonNull(call, "Call must be specified");
+        RetryPolicy previous = callRetryPolicy.get();
+        callRetryPolicy.set(retryPolicy);
+        try {
+            return call.get();
+        } finally {
+            if (previous == null) {
+                callRetryPolicy.remove();
+            } else {
+                callRetryPolicy.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Retry policy for a call made by current thread.
+     * Api methods must take it on the calling thread and pass it to {@code processServerResponse} explicitly
+     *
+     * @return policy set by {@link #withRetryPolicy(RetryPolicy, Supplier)}, or api policy
+     */
+    protected RetryPolicy currentRetryPolicy() {
+        RetryPolicy policy = callRetryPolicy.get();
+        return policy != null ? policy : retryPolicy;
+    }
+
+    /**
+     * @return statistics of retries needed by calls of this api
+     */
+    public RetryStats getRetryStats() {
+        long[] histogram = new long[RetryStats.BUCKETS];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = retriesHistogram.get(i);
+        }
+        return new RetryStats(calls.sum(), failures.sum(), histogram);
+    }
+
     /**
      * Calls remote server and validates response.
-     * Retrieves remote server from server provider. If call was failed - tries to execute call on the next server.
+     * Retrieves remote server from server provider. If call was failed - tries to execute call on the next server, as long as retry policy allows.
+     * Call is treated as idempotent, retry policy of current thread is used.
      *
      * @param connectorCall function to apply to connector
      * @return json parsed response
@@ -124,19 +217,273 @@ public abstract class AbstractApi {
      * @see Connector
      */
     protected JsonElement processServerResponse(Function<Connector, String> connectorCall) throws BTCEException {
+        return execute(connectorCall.andThen(validateResponse()), currentRetryPolicy());
+    }
+
+    /**
+     * Calls remote server and parses response json straight from response stream.
+     * Retrieves remote server from server provider. If call was failed - tries to execute call on the next server, as long as retry policy allows.
+     * Call is treated as idempotent, retry policy of current thread is used.
+     *
+     * @param connectorCall streaming connector call, must pass provided handler to connector
+     * @return json parsed response
+     * @throws BTCEException            response is empty or not valid json
+     * @throws ServerProviderException  if no valid server found to execute request
+     * @throws IllegalArgumentException if connector is null
+     * @see ResponseHandler
+     */
+    protected JsonElement processServerResponse(BiFunction<Connector, ResponseHandler<JsonElement>, JsonElement> connectorCall) throws BTCEException {
+        return processServerResponse(connectorCall, this::parseResponse);
+    }
+
+    /**
+     * Calls remote server and handles response stream with custom handler.
+     * Retrieves remote server from server provider. If call was failed - tries to execute call on the next server, as long as retry policy allows.
+     * Call is treated as idempotent, retry policy of current thread is used.
+     *
+     * @param connectorCall streaming connector call, must pass provided handler to connector
+     * @param handler       response handler
+     * @param <T>           result type
+     * @return handler result
+     * @throws BTCEException            if handler rejected response
+     * @throws ServerProviderException  if no valid server found to execute request
+     * @throws IllegalArgumentException if connector is null
+     */
+    protected <T> T processServerResponse(BiFunction<Connector, ResponseHandler<T>, T> connectorCall, ResponseHandler<T> handler) throws BTCEException {
+        return processServerResponse(connectorCall, handler, currentRetryPolicy(), true);
+    }
+
+    /**
+     * Calls remote server and handles response stream with custom handler.
+     * Retrieves remote server from server provider. If idempotent call was failed - tries to execute call on the next
+     * server, as long as retry policy allows. Not idempotent call, ex. placing an order, is never sent twice, since
+     * failed call could have been executed by server.
+     *
+     * @param connectorCall streaming connector call, must pass provided handler to connector
+     * @param handler       response handler
+     * @param policy        retry policy, taken on the thread which called api method
+     * @param idempotent    true if call may be sent again
+     * @param <T>           result type
+     * @return handler result
+     * @throws BTCEException            if handler rejected response
+     * @throws ServerProviderException  if no valid server found to execute request
+     * @throws IllegalArgumentException if connector is null
+     * @see #currentRetryPolicy()
+     */
+    protected <T> T processServerResponse(BiFunction<Connector, ResponseHandler<T>, T> connectorCall, ResponseHandler<T> handler,
+                                          RetryPolicy policy, boolean idempotent) throws BTCEException {
+        requireNonNull(policy, "Retry policy must be specified");
+        return execute(connector -> connectorCall.apply(connector, handler), idempotent ? policy : RetryPolicy.NO_RETRY);
+    }
+
+    /**
+     * Asynchronous variant of {@link #processServerResponse(BiFunction, ResponseHandler, RetryPolicy, boolean)}.
+     * No thread waits for the response: next attempt is chained to the failed one and started after backoff delay.
+     * Returned future is completed exceptionally with {@link BTCEException} if all attempts failed or handler rejected
+     * response, with {@link ServerProviderException} if no valid server found
+     *
+     * @param asyncConnector async connector
+     * @param connectorCall  streaming connector call, must pass provided handler to connector
+     * @param handler        response handler
+     * @param policy         retry policy, taken on the thread which called api method
+     * @param idempotent     true if call may be sent again
+     * @param <T>            result type
+     * @return handler result future
+     * @throws IllegalArgumentException if connector is null
+     * @see AsyncConnector
+     */
+    protected <T> CompletableFuture<T> processServerResponseAsync(AsyncConnector asyncConnector,
+                                                                  BiFunction<AsyncConnector, ResponseHandler<T>, CompletableFuture<T>> connectorCall,
+                                                                  ResponseHandler<T> handler, RetryPolicy policy, boolean idempotent) {
+        checkArgument(asyncConnector != null, "Connector must be not null");
+        requireNonNull(policy, "Retry policy must be specified");
+        CompletableFuture<T> result = new CompletableFuture<>();
+        attempt(() -> connectorCall.apply(asyncConnector, handler), idempotent ? policy : RetryPolicy.NO_RETRY,
+                System.nanoTime(), 1, result);
+        return result;
+    }
+
+    /**
+     * Start asynchronous call. Exception thrown while preparing the call, ex. on invalid arguments, fails returned
+     * future instead of being thrown to the caller, so asynchronous methods report all errors the same way
+     *
+     * @param call call to start
+     * @param <T>  result type
+     * @return call future
+     */
+    protected static <T> CompletableFuture<T> startAsync(Supplier<CompletableFuture<T>> call) {
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    /**
+     * Start async attempt, on connection error chain the next one the same way {@link #execute(Function, RetryPolicy)} retries
+     *
+     * @param connectorCall call
+     * @param policy        retry policy
+     * @param start         first attempt start, nanos
+     * @param attempt       attempt number
+     * @param result        future to complete with call result
+     * @param <T>           result type
+     */
+    private <T> void attempt(Supplier<CompletableFuture<T>> connectorCall, RetryPolicy policy, long start, int attempt,
+                             CompletableFuture<T> result) {
+        String server = serverProvider == null ? null : serverProvider.getCurrentServer();
+        CompletableFuture<T> future;
+        try {
+            future = requireNonNull(connectorCall.get(), "Connector must return future");
+        } catch (RuntimeException e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+
+        future.whenComplete((response, error) -> {
+            if (error == null) {
+                recordCall(attempt - 1, true);
+                result.complete(response);
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (!(cause instanceof ConnectorException)) {
+                recordCall(attempt - 1, false);
+                result.completeExceptionally(cause);
+                return;
+            }
+
+            LOG.warn("Error processing request, attempt {} of {}", attempt, policy.getMaxAttempts(), cause);
+            long backoff = policy.backoff(attempt);
+            if (attempt >= policy.getMaxAttempts()
+                    || System.nanoTime() - start + TimeUnit.MILLISECONDS.toNanos(backoff) >= TimeUnit.MILLISECONDS.toNanos(policy.getDeadline())) {
+                recordCall(attempt - 1, false);
+                result.completeExceptionally(new BTCEException(String.format("Request failed after %d attempts", attempt), cause));
+                return;
+            }
+            Runnable next = () -> {
+                if (serverProvider != null) {
+                    try {
+                        serverProvider.nextMirror(server);
+                    } catch (RuntimeException ex) {
+                        recordCall(attempt - 1, false);
+                        result.completeExceptionally(ex);
+                        return;
+                    }
+                }
+                attempt(connectorCall, policy, start, attempt + 1, result);
+            };
+            if (backoff == 0) {
+                next.run();
+            } else {
+                RETRY_SCHEDULER.schedule(next, backoff, TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
+    /**
+     * Execute connector call, switching to the next mirror on connection errors.
+     * Attempts are limited by retry policy, delays between them grow exponentially
+     *
+     * @param connectorCall call
+     * @param policy        retry policy
+     * @param <T>           result type
+     * @return call result
+     * @throws BTCEException if all attempts failed, deadline exceeded or thread was interrupted
+     * @see RetryPolicy
+     */
+    private <T> T execute(Function<Connector, T> connectorCall, RetryPolicy policy) {
         checkArgument(connector != null, "Connector must be not null");
-        while (true) { // todo: not sure
+        long start = System.nanoTime();
+        long deadline = TimeUnit.MILLISECONDS.toNanos(policy.getDeadline());
+
+        int attempt = 1;
+        while (true) {
+            String server = serverProvider == null ? null : serverProvider.getCurrentServer();
             try {
-                return connectorCall
-                        .andThen(validateResponse())
-                        .apply(connector);
+                T result = connectorCall.apply(connector);
+                recordCall(attempt - 1, true);
+                return result;
             } catch (ConnectorException e) {
-                LOG.warn("Error processing request", e);
-                serverProvider.nextMirror();
+                LOG.warn("Error processing request, attempt {} of {}", attempt, policy.getMaxAttempts(), e);
+                long backoff = policy.backoff(attempt);
+                if (attempt >= policy.getMaxAttempts()
+                        || System.nanoTime() - start + TimeUnit.MILLISECONDS.toNanos(backoff) >= deadline) {
+                    recordCall(attempt - 1, false);
+                    throw new BTCEException(String.format("Request failed after %d attempts", attempt), e);
+                }
+                pause(backoff, attempt);
+                if (serverProvider != null) {
+                    try {
+                        serverProvider.nextMirror(server);
+                    } catch (RuntimeException ex) {
+                        recordCall(attempt - 1, false);
+                        throw ex;
+                    }
+                }
+                attempt++;
+            } catch (RuntimeException e) {
+                // handler or response validation error, not retried
+                recordCall(attempt - 1, false);
+                throw e;
             }
         }
     }
 
+    /**
+     * Wait before next attempt
+     *
+     * @param backoff delay in millis
+     * @param attempt failed attempt number
+     * @throws BTCEException if thread was interrupted
+     */
+    private void pause(long backoff, int attempt) {
+        if (backoff == 0) {
+            return;
+        }
+        try {
+            Thread.sleep(backoff);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            recordCall(attempt - 1, false);
+            throw new BTCEException("Interrupted while waiting to retry request", e);
+        }
+    }
+
+    private void recordCall(int retries, boolean success) {
+        calls.increment();
+        if (!success) {
+            failures.increment();
+        }
+        retriesHistogram.incrementAndGet(Math.min(retries, RetryStats.BUCKETS - 1));
+    }
+
+    /**
+     * Parse json from response stream
+     *
+     * @param response response body
+     * @return parsed json
+     * @throws IOException   on stream read errors
+     * @throws BTCEException if response is empty or not valid json
+     */
+    protected JsonElement parseResponse(InputStream response) throws IOException {
+        JsonElement element;
+        try {
+            element = parser.parse(new InputStreamReader(response, StandardCharsets.UTF_8));
+        } catch (JsonIOException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e);
+        } catch (JsonSyntaxException e) {
+            throw new BTCEException(String.format("Not a JSON Object: %s", e.getMessage()), e);
+        }
+
+        if (element.isJsonNull()) {
+            throw new BTCEException("Invalid server response. Null or empty response");
+        }
+        return element;
+    }
+
     /**
      * Validate response function
      *
@@ -0,0 +1,62 @@
+package com.isador.trade.jbtce;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous connector interface.
+ * Returned futures are completed exceptionally with {@link ConnectorException} on any connection exceptions.
+ *
+ * @author isador
+ * @see NioConnector
+ * @see AsyncConnectorAdapter
+ * @since 2.0.1
+ */
+public interface AsyncConnector {
+
+    /**
+     * GET request.
+     *
+     * @param url     url
+     * @param headers headers to include in request
+     * @param handler response body handler
+     * @param <T>     result type
+     * @return handler result future
+     */
+    <T> CompletableFuture<T> get(String url, Map<String, String> headers, ResponseHandler<T> handler);
+
+    /**
+     * POST request
+     *
+     * @param url     url
+     * @param body    request body to include
+     * @param headers headers to include
+     * @param handler response body handler
+     * @param <T>     result type
+     * @return handler result future
+     */
+    <T> CompletableFuture<T> post(String url, String body, Map<String, String> headers, ResponseHandler<T> handler);
+
+    /**
+     * GET request.
+     *
+     * @param url     url
+     * @param headers headers to include in request
+     * @return response as string future
+     */
+    default CompletableFuture<String> get(String url, Map<String, String> headers) {
+        return get(url, headers, DefaultConnector::readString);
+    }
+
+    /**
+     * POST request
+     *
+     * @param url     url
+     * @param body    request body to include
+     * @param headers headers to include
+     * @return response as string future
+     */
+    default CompletableFuture<String> post(String url, String body, Map<String, String> headers) {
+        return post(url, body, headers, DefaultConnector::readString);
+    }
+}
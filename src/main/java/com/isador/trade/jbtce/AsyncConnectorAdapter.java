@@ -0,0 +1,82 @@
+package com.isador.trade.jbtce;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Runs synchronous apis on top of {@link AsyncConnector}.
+ * Calling thread blocks until the response, while network io is done by async connector. Waiting thread may be
+ * interrupted. For calls not blocking any thread use async facades, ex.
+ * {@link com.isador.trade.jbtce.publicapi.AsyncPublicApiV3}, with async connector itself.
+ *
+ * @author isador
+ * @since 2.0.1
+ */
+public class AsyncConnectorAdapter implements Connector {
+
+    private final AsyncConnector connector;
+
+    /**
+     * Create new adapter
+     *
+     * @param connector async connector to execute requests
+     * @throws NullPointerException if connector is null
+     */
+    public AsyncConnectorAdapter(AsyncConnector connector) {
+        this.connector = requireNonNull(connector, "Connector must be specified");
+    }
+
+    /**
+     * @return underlying async connector
+     */
+    public AsyncConnector getConnector() {
+        return connector;
+    }
+
+    @Override
+    public String get(String url, Map<String, String> headers) throws ConnectorException {
+        return get(url, headers, DefaultConnector::readString);
+    }
+
+    @Override
+    public String post(String url, String body, Map<String, String> headers) throws ConnectorException {
+        return post(url, body, headers, DefaultConnector::readString);
+    }
+
+    @Override
+    public <T> T get(String url, Map<String, String> headers, ResponseHandler<T> handler) throws ConnectorException {
+        return join(connector.get(url, headers, handler));
+    }
+
+    @Override
+    public <T> T post(String url, String body, Map<String, String> headers, ResponseHandler<T> handler) throws ConnectorException {
+        return join(connector.post(url, body, headers, handler));
+    }
+
+    /**
+     * Wait for future and rethrow its failure as is
+     *
+     * @param future future
+     * @param <T>    result type
+     * @return future result
+     * @throws ConnectorException if request failed
+     * @throws BTCEException       if thread was interrupted while waiting, request is not retried then
+     */
+    private <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(false);
+            throw new BTCEException("Interrupted while waiting for response", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ConnectorException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.isador.trade.jbtce;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Request coalescing.
+ * Concurrent calls with the same key share one execution: the first caller executes the call,
+ * others wait for its result or failure. Results are not cached, next call after completion executes again.<br>
+ * All callers get the same result instance, so result must not be modified, or must be copied per caller.
+ *
+ * @param <K> call key type
+ * @param <V> result type
+ * @author isador
+ * @since 2.0.1
+ */
+public class Coalescer<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Execute call or join identical call in flight
+     *
+     * @param key  call key, equal keys mean identical calls
+     * @param call call
+     * @return call result
+     */
+    public V execute(K key, Supplier<V> call) {
+        requireNonNull(key, "Key must be specified");
+        requireNonNull(call, "Call must be specified");
+        calls.increment();
+
+        CompletableFuture<V> own = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, own);
+        if (running != null) {
+            coalesced.increment();
+            return join(running);
+        }
+
+        try {
+            V result = call.get();
+            own.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    /**
+     * @return all calls
+     */
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    /**
+     * @return calls which joined identical call in flight
+     */
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    /**
+     * @return share of calls served without own execution, [0, 1]
+     */
+    public double getCoalescingRatio() {
+        long total = calls.sum();
+        return total == 0 ? 0 : (double) coalesced.sum() / total;
+    }
+
+    private static <V> V join(CompletableFuture<V> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package com.isador.trade.jbtce;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 /**
  * Connector interface. Only two methods to implement
  * to call api.
+ * Streaming variants hand response body to {@link ResponseHandler} without building string first.
+ * By default they adapt string methods, implementations should override them to read from connection directly.
  *
  * @author isador
  * @since 2.0.1
@@ -31,4 +36,43 @@ public interface Connector {
      * @throws ConnectorException on any connection exceptions
      */
     String post(String url, String body, Map<String, String> headers) throws ConnectorException;
+
+    /**
+     * Streaming GET request.
+     *
+     * @param url     url
+     * @param headers headers to include in request
+     * @param handler response body handler
+     * @param <T>     result type
+     * @return handler result
+     * @throws ConnectorException on any connection exceptions, or if handler failed to read response
+     */
+    default <T> T get(String url, Map<String, String> headers, ResponseHandler<T> handler) throws ConnectorException {
+        String response = get(url, headers);
+        try {
+            return handler.handle(new ByteArrayInputStream(response == null ? new byte[0] : response.getBytes(StandardCharsets.UTF_8)));
+        } catch (IOException e) {
+            throw new ConnectorException(e);
+        }
+    }
+
+    /**
+     * Streaming POST request
+     *
+     * @param url     url
+     * @param body    request body to include
+     * @param headers headers to include
+     * @param handler response body handler
+     * @param <T>     result type
+     * @return handler result
+     * @throws ConnectorException on any connection exceptions, or if handler failed to read response
+     */
+    default <T> T post(String url, String body, Map<String, String> headers, ResponseHandler<T> handler) throws ConnectorException {
+        String response = post(url, body, headers);
+        try {
+            return handler.handle(new ByteArrayInputStream(response == null ? new byte[0] : response.getBytes(StandardCharsets.UTF_8)));
+        } catch (IOException e) {
+            throw new ConnectorException(e);
+        }
+    }
 }
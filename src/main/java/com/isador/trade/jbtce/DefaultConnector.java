@@ -3,14 +3,15 @@ package com.isador.trade.jbtce;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.io.PrintWriter;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * Default connector implementation.
@@ -23,19 +24,74 @@ public class DefaultConnector implements Connector {
 
     private static final Logger LOG = LoggerFactory.getLogger(DefaultConnector.class);
 
+    /**
+     * Read whole stream as UTF-8 string
+     *
+     * @param in input
+     * @return content
+     * @throws IOException ioe
+     */
+    static String readString(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Skip rest of stream, so connection can be kept alive
+     *
+     * @param in input
+     * @throws IOException ioe
+     */
+    static void drain(InputStream in) throws IOException {
+        byte[] buffer = new byte[4096];
+        while (in.read(buffer) != -1) {
+            // skip
+        }
+    }
+
+    /**
+     * Protect connection stream from being closed by response handler
+     *
+     * @param in connection stream
+     * @return stream which ignores close
+     */
+    static InputStream nonClosing(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public void close() {
+                // connector owns the stream
+            }
+        };
+    }
+
     @Override
     public String post(String url, String body, Map<String, String> headers) {
+        return post(url, body, headers, DefaultConnector::readString);
+    }
+
+    @Override
+    public String get(String url, Map<String, String> headers) throws ConnectorException {
+        return get(url, headers, DefaultConnector::readString);
+    }
+
+    @Override
+    public <T> T get(String url, Map<String, String> headers, ResponseHandler<T> handler) throws ConnectorException {
         try {
-            return call(url, "POST", headers, body);
+            return call(url, "GET", headers, null, handler);
         } catch (IOException e) {
             throw new ConnectorException(e);
         }
     }
 
     @Override
-    public String get(String url, Map<String, String> headers) throws ConnectorException {
+    public <T> T post(String url, String body, Map<String, String> headers, ResponseHandler<T> handler) throws ConnectorException {
         try {
-            return call(url, "GET", headers, null);
+            return call(url, "POST", headers, body, handler);
         } catch (IOException e) {
             throw new ConnectorException(e);
         }
@@ -48,10 +104,12 @@ public class DefaultConnector implements Connector {
      * @param method  request method
      * @param headers additional request headers
      * @param body    request body
-     * @return response as string
+     * @param handler response body handler
+     * @param <T>     result type
+     * @return handler result
      * @throws IOException ioe:)
      */
-    private String call(String url, String method, Map<String, String> headers, String body) throws IOException {
+    private <T> T call(String url, String method, Map<String, String> headers, String body, ResponseHandler<T> handler) throws IOException {
         LOG.debug("{}: '{}'", method, url);
         HttpURLConnection uc = (HttpURLConnection) new URL(url).openConnection();
         uc.setRequestMethod(method);
@@ -74,8 +132,9 @@ public class DefaultConnector implements Connector {
             }
         }
 
-        try (BufferedReader in = new BufferedReader(new InputStreamReader(uc.getInputStream()))) {
-            String response = in.lines().collect(Collectors.joining());
+        try (InputStream in = uc.getInputStream()) {
+            T response = handler.handle(nonClosing(in));
+            drain(in);
 
             LOG.debug("RESPONSE: '{}'", response);
             return response;
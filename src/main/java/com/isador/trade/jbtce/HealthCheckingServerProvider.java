@@ -0,0 +1,296 @@
+package com.isador.trade.jbtce;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Server provider which monitors all servers in background.
+ * Each server is probed periodically, round-trip latency and error rate are smoothed with exponentially weighted
+ * moving average. Servers are ranked after each probe: healthy ones by latency, then unhealthy ones by error rate.
+ * Current server is the head of precomputed ranking, so neither {@link #getCurrentServer()} nor {@link #nextMirror()}
+ * touch network.<br>
+ * Failed request counts as a full failure: server is unhealthy until successful probes bring its error rate
+ * back under the limit, so a server which fails requests but answers probes is not made current again by the next probe.<br>
+ * The first probe runs after probe interval, so subclass overriding {@link #probe(String)} is fully constructed.
+ * Until then servers are used in the specified order.
+ *
+ * @author isador
+ * @since 2.0.1
+ */
+public class HealthCheckingServerProvider extends ServerProvider implements Closeable {
+
+    public static final long DEFAULT_PROBE_INTERVAL = TimeUnit.SECONDS.toMillis(10);
+    public static final double DEFAULT_SMOOTHING = 0.3;
+    public static final double DEFAULT_MAX_ERROR_RATE = 0.5;
+
+    private static final Logger LOG = LoggerFactory.getLogger(HealthCheckingServerProvider.class);
+
+    private final Health[] servers;
+    private final double smoothing;
+    private final double maxErrorRate;
+    private final ScheduledExecutorService scheduler;
+    private volatile String[] ranking;
+
+    /**
+     * Create new provider with default probe settings
+     *
+     * @param servers servers, the first one is used as current until probes complete
+     */
+    public HealthCheckingServerProvider(String... servers) {
+        this(DEFAULT_PROBE_INTERVAL, DEFAULT_SMOOTHING, DEFAULT_MAX_ERROR_RATE, servers);
+    }
+
+    /**
+     * Create new provider and schedule probes of servers
+     *
+     * @param probeInterval delay between probes, in millis
+     * @param smoothing     weight of the newest probe in moving averages, (0, 1]
+     * @param maxErrorRate  server with higher smoothed error rate is considered unhealthy, (0, 1]
+     * @param servers       servers, the first one is used as current until probes complete
+     * @throws IllegalArgumentException if settings are invalid or no servers specified
+     */
+    public HealthCheckingServerProvider(long probeInterval, double smoothing, double maxErrorRate, String... servers) {
+        super(firstServer(servers), servers);
+        checkArgument(probeInterval > 0, "Invalid probe interval: %s", probeInterval);
+        checkArgument(smoothing > 0 && smoothing <= 1, "Invalid smoothing: %s", smoothing);
+        checkArgument(maxErrorRate > 0 && maxErrorRate <= 1, "Invalid max error rate: %s", maxErrorRate);
+        this.smoothing = smoothing;
+        this.maxErrorRate = maxErrorRate;
+
+        this.servers = Stream.of(servers)
+                .filter(Objects::nonNull)
+                .distinct()
+                .map(Health::new)
+                .toArray(Health[]::new);
+        this.ranking = Stream.of(this.servers).map(health -> health.server).toArray(String[]::new);
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "jbtce-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // not at once, probe() may be overridden by subclass which is not constructed yet
+        scheduler.scheduleWithFixedDelay(this::probeAll, probeInterval, probeInterval, TimeUnit.MILLISECONDS);
+    }
+
+    private static String firstServer(String[] servers) {
+        checkArgument(servers != null && Stream.of(servers).anyMatch(Objects::nonNull), "At least one server must be specified");
+        return Stream.of(servers).filter(Objects::nonNull).findFirst().get();
+    }
+
+    /**
+     * @return fastest healthy server
+     */
+    @Override
+    public String getCurrentServer() {
+        return ranking[0];
+    }
+
+    /**
+     * @return other servers, best first
+     */
+    @Override
+    public String[] getMirrors() {
+        String[] current = ranking;
+        return Arrays.copyOfRange(current, 1, current.length);
+    }
+
+    /**
+     * Count failure of server and switch to the next ranked one. Doesn't probe servers
+     *
+     * @param failedServer server where call was failed
+     * @throws ServerProviderException if there are no other servers
+     */
+    @Override
+    public void nextMirror(String failedServer) {
+        String[] current = ranking;
+        if (current.length < 2) {
+            throw new ServerProviderException("No valid server found");
+        }
+        if (failedServer != null && !failedServer.equals(current[0])) {
+            LOG.debug("Server '{}' is already switched to '{}'", failedServer, current[0]);
+            return;
+        }
+        health(current[0]).recordRequestFailure();
+        rank(current[0]);
+        LOG.debug("Switched from '{}' to '{}'", current[0], ranking[0]);
+    }
+
+    /**
+     * @return health of servers, best first
+     */
+    public List<ServerHealth> getHealth() {
+        return Stream.of(ranking)
+                .map(this::health)
+                .map(health -> health.snapshot(maxErrorRate))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Stop background probing
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Probe server
+     *
+     * @param server server
+     * @return round-trip time in millis, or negative value if server is not available
+     */
+    protected long probe(String server) {
+        long start = System.nanoTime();
+        return isServerReachable(server) ? TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) : -1;
+    }
+
+    /**
+     * Probe all servers and rebuild ranking
+     */
+    void probeAll() {
+        try {
+            for (Health health : servers) {
+                health.record(probe(health.server), smoothing);
+            }
+            rank(null);
+        } catch (RuntimeException e) {
+            LOG.error("Error probing servers", e);
+        }
+    }
+
+    /**
+     * Rebuild ranking
+     *
+     * @param demoted server to put after all other healthy ones, may be null
+     */
+    private synchronized void rank(String demoted) {
+        Comparator<Health> order = Comparator.<Health, Boolean>comparing(health -> !health.isHealthy(maxErrorRate))
+                .thenComparing(health -> health.isHealthy(maxErrorRate) && health.server.equals(demoted))
+                .thenComparingDouble(health -> health.isHealthy(maxErrorRate) ? health.latency : health.errorRate)
+                .thenComparingDouble(health -> health.latency);
+        ranking = Stream.of(servers)
+                .sorted(order)
+                .map(health -> health.server)
+                .toArray(String[]::new);
+    }
+
+    private Health health(String server) {
+        for (Health health : servers) {
+            if (health.server.equals(server)) {
+                return health;
+            }
+        }
+        throw new IllegalStateException("Unknown server: " + server);
+    }
+
+    /**
+     * Mutable server health, updated by probes and request failures
+     */
+    private static final class Health {
+
+        private final String server;
+        private volatile double latency = Double.MAX_VALUE;
+        private volatile double errorRate;
+        private volatile boolean probed;
+
+        Health(String server) {
+            this.server = server;
+        }
+
+        synchronized void record(long roundTrip, double smoothing) {
+            if (roundTrip >= 0) {
+                latency = latency == Double.MAX_VALUE ? roundTrip : latency + smoothing * (roundTrip - latency);
+                errorRate = probed ? errorRate * (1 - smoothing) : 0;
+            } else {
+                errorRate = probed ? errorRate + smoothing * (1 - errorRate) : 1;
+            }
+            probed = true;
+        }
+
+        /**
+         * Real request failed, server is probably down whatever probes say
+         */
+        synchronized void recordRequestFailure() {
+            errorRate = 1;
+            probed = true;
+        }
+
+        boolean isHealthy(double maxErrorRate) {
+            return !probed || errorRate <= maxErrorRate;
+        }
+
+        ServerHealth snapshot(double maxErrorRate) {
+            return new ServerHealth(server, latency == Double.MAX_VALUE ? -1 : latency, errorRate, isHealthy(maxErrorRate));
+        }
+    }
+
+    /**
+     * Server health snapshot
+     */
+    public static final class ServerHealth {
+
+        private final String server;
+        private final double latency;
+        private final double errorRate;
+        private final boolean healthy;
+
+        public ServerHealth(String server, double latency, double errorRate, boolean healthy) {
+            this.server = server;
+            this.latency = latency;
+            this.errorRate = errorRate;
+            this.healthy = healthy;
+        }
+
+        /**
+         * @return server
+         */
+        public String getServer() {
+            return server;
+        }
+
+        /**
+         * @return smoothed round-trip time in millis, -1 if server was never reached
+         */
+        public double getLatency() {
+            return latency;
+        }
+
+        /**
+         * @return smoothed share of failed probes and requests, [0, 1]
+         */
+        public double getErrorRate() {
+            return errorRate;
+        }
+
+        /**
+         * @return true if server may be used
+         */
+        public boolean isHealthy() {
+            return healthy;
+        }
+
+        @Override
+        public String toString() {
+            return "ServerHealth{" +
+                    "server='" + server + '\'' +
+                    ", latency=" + latency +
+                    ", errorRate=" + errorRate +
+                    ", healthy=" + healthy +
+                    '}';
+        }
+    }
+}
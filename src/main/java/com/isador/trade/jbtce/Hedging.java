@@ -0,0 +1,201 @@
+package com.isador.trade.jbtce;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Hedged requests.
+ * If primary call has not answered within a delay, the same call is sent to a mirror and the first answer wins,
+ * the other call is cancelled. Delay is a percentile of recently observed call latencies, so only the slowest
+ * calls are hedged.<br>
+ * Cancellation interrupts the losing thread, how fast it stops depends on connector.
+ *
+ * @author isador
+ * @since 2.0.1
+ */
+public class Hedging {
+
+    public static final double DEFAULT_PERCENTILE = 0.95;
+    public static final long DEFAULT_INITIAL_DELAY = 500;
+
+    private static final Logger LOG = LoggerFactory.getLogger(Hedging.class);
+    private static final int SAMPLES = 256;
+    private static final int MIN_SAMPLES = 16;
+
+    private final ExecutorService executor;
+    private final double percentile;
+    private final long initialDelay;
+    private final long[] samples = new long[SAMPLES];
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder hedgesFired = new LongAdder();
+    private final LongAdder hedgesWon = new LongAdder();
+    private int samplesCount;
+    private int nextSample;
+
+    /**
+     * Create new hedging with default percentile and initial delay
+     *
+     * @param executor executor to run calls on, must have at least two free threads per hedged call
+     */
+    public Hedging(ExecutorService executor) {
+        this(executor, DEFAULT_PERCENTILE, DEFAULT_INITIAL_DELAY);
+    }
+
+    /**
+     * Create new hedging
+     *
+     * @param executor     executor to run calls on, must have at least two free threads per hedged call
+     * @param percentile   latency percentile to wait before hedging, (0, 1)
+     * @param initialDelay delay used until enough latencies observed, in millis
+     * @throws IllegalArgumentException if percentile or delay is invalid
+     */
+    public Hedging(ExecutorService executor, double percentile, long initialDelay) {
+        this.executor = requireNonNull(executor, "Executor must be specified");
+        checkArgument(percentile > 0 && percentile < 1, "Invalid percentile: %s", percentile);
+        checkArgument(initialDelay >= 0, "Invalid initial delay: %s", initialDelay);
+        this.percentile = percentile;
+        this.initialDelay = initialDelay;
+    }
+
+    /**
+     * Execute call, hedging it if primary call is slow
+     *
+     * @param primary call to current server
+     * @param hedge   same call to mirror, null if there is no mirror
+     * @param <T>     result type
+     * @return first successful result
+     * @throws BTCEException if both calls failed or thread was interrupted
+     */
+    public <T> T execute(Supplier<T> primary, Supplier<T> hedge) throws BTCEException {
+        requireNonNull(primary, "Primary call must be specified");
+        calls.increment();
+        if (hedge == null) {
+            return timed(primary).get();
+        }
+
+        CompletionService<T> completion = new ExecutorCompletionService<>(executor);
+        Future<T> primaryFuture = completion.submit(() -> timed(primary).get());
+        Future<T> hedgeFuture = null;
+        try {
+            Future<T> done = completion.poll(getDelay(), TimeUnit.MILLISECONDS);
+            if (done == null) {
+                LOG.debug("Primary call is slow, hedging");
+                hedgesFired.increment();
+                hedgeFuture = completion.submit(() -> timed(hedge).get());
+                done = completion.take();
+                if (isFailed(done)) {
+                    done = completion.take();
+                }
+            }
+
+            if (done == hedgeFuture && !isFailed(done)) {
+                hedgesWon.increment();
+            }
+            return result(isFailed(done) ? primaryFuture : done);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BTCEException("Interrupted while waiting for response", e);
+        } finally {
+            primaryFuture.cancel(true);
+            if (hedgeFuture != null) {
+                hedgeFuture.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * @return current hedging delay in millis
+     */
+    public long getDelay() {
+        long[] sorted;
+        synchronized (samples) {
+            if (samplesCount < MIN_SAMPLES) {
+                return initialDelay;
+            }
+            sorted = Arrays.copyOf(samples, samplesCount);
+        }
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(percentile * sorted.length) - 1];
+    }
+
+    /**
+     * @return executed calls
+     */
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    /**
+     * @return calls where hedge was sent
+     */
+    public long getHedgesFired() {
+        return hedgesFired.sum();
+    }
+
+    /**
+     * @return calls answered by hedge
+     */
+    public long getHedgesWon() {
+        return hedgesWon.sum();
+    }
+
+    /**
+     * Wrap call to record its latency if succeeded
+     *
+     * @param call call
+     * @param <T>  result type
+     * @return timed call
+     */
+    private <T> Supplier<T> timed(Supplier<T> call) {
+        return () -> {
+            long start = System.nanoTime();
+            T result = call.get();
+            record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return result;
+        };
+    }
+
+    private void record(long latency) {
+        synchronized (samples) {
+            samples[nextSample] = latency;
+            nextSample = (nextSample + 1) % SAMPLES;
+            samplesCount = Math.min(samplesCount + 1, SAMPLES);
+        }
+    }
+
+    private static boolean isFailed(Future<?> future) throws InterruptedException {
+        try {
+            future.get();
+            return false;
+        } catch (ExecutionException | CancellationException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Get future result, rethrow call failure as is
+     *
+     * @param future completed future
+     * @param <T>    result type
+     * @return result
+     * @throws InterruptedException if interrupted
+     */
+    private static <T> T result(Future<T> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new BTCEException(e.getCause());
+        }
+    }
+}
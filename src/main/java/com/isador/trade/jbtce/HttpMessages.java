@@ -0,0 +1,149 @@
+package com.isador.trade.jbtce;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * HTTP/1.1 message helpers shared by socket based connectors
+ *
+ * @author isador
+ * @see PooledConnector
+ * @see NioConnector
+ * @since 2.0.1
+ */
+final class HttpMessages {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HttpMessages.class);
+    private static final String CRLF = "\r\n";
+
+    private HttpMessages() {
+    }
+
+    /**
+     * Parse url, only http and https are supported
+     *
+     * @param url url string
+     * @return url
+     * @throws IOException if url is malformed or protocol is not supported
+     */
+    static URL parseUrl(String url) throws IOException {
+        URL target = new URL(url);
+        String protocol = target.getProtocol();
+        if (!"http".equals(protocol) && !"https".equals(protocol)) {
+            throw new IOException("Unsupported protocol: " + protocol);
+        }
+        return target;
+    }
+
+    /**
+     * @param url url
+     * @return explicit port or protocol default one
+     */
+    static int port(URL url) {
+        return url.getPort() == -1 ? url.getDefaultPort() : url.getPort();
+    }
+
+    /**
+     * @param url url
+     * @return connection pool key, ex. {@code https://btc-e.com:443}
+     */
+    static String hostKey(URL url) {
+        return url.getProtocol() + "://" + url.getHost() + ":" + port(url);
+    }
+
+    /**
+     * Prepare raw request bytes: request line, headers and body
+     *
+     * @param url     target url
+     * @param method  request method
+     * @param headers request headers
+     * @param body    request body
+     * @return request bytes
+     */
+    static byte[] prepareRequest(URL url, String method, Map<String, String> headers, String body) {
+        String path = url.getFile().isEmpty() ? "/" : url.getFile();
+        StringBuilder head = new StringBuilder(256)
+                .append(method).append(' ').append(path).append(" HTTP/1.1").append(CRLF)
+                .append("Host: ").append(url.getHost());
+        if (url.getPort() != -1 && url.getPort() != url.getDefaultPort()) {
+            head.append(':').append(url.getPort());
+        }
+        head.append(CRLF);
+
+        boolean contentType = false;
+        if (headers != null && !headers.isEmpty()) {
+            LOG.debug("HEADERS:");
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                LOG.debug("'{}' - '{}'", header.getKey(), header.getValue());
+                head.append(header.getKey()).append(": ").append(header.getValue()).append(CRLF);
+                contentType |= "Content-Type".equalsIgnoreCase(header.getKey());
+            }
+        }
+
+        byte[] content = new byte[0];
+        if ("POST".equals(method)) {
+            if (body != null && !body.isEmpty()) {
+                LOG.debug("BODY: '{}'", body);
+                content = body.getBytes(StandardCharsets.UTF_8);
+            }
+            if (!contentType) {
+                head.append("Content-Type: application/x-www-form-urlencoded").append(CRLF);
+            }
+            head.append("Content-Length: ").append(content.length).append(CRLF);
+        }
+        head.append(CRLF);
+
+        byte[] headBytes = head.toString().getBytes(StandardCharsets.ISO_8859_1);
+        byte[] request = new byte[headBytes.length + content.length];
+        System.arraycopy(headBytes, 0, request, 0, headBytes.length);
+        System.arraycopy(content, 0, request, headBytes.length, content.length);
+        return request;
+    }
+
+    /**
+     * Parse status code from status line
+     *
+     * @param statusLine status line, ex. {@code HTTP/1.1 200 OK}
+     * @return status code
+     * @throws IOException if status line is malformed
+     */
+    static int parseStatus(String statusLine) throws IOException {
+        int start = statusLine.indexOf(' ');
+        if (!statusLine.startsWith("HTTP/") || start < 0 || statusLine.length() < start + 4) {
+            throw new IOException("Invalid status line: " + statusLine);
+        }
+        try {
+            return Integer.parseInt(statusLine.substring(start + 1, start + 4));
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid status line: " + statusLine, e);
+        }
+    }
+
+    /**
+     * Decide whether connection may be reused after response
+     *
+     * @param statusLine       response status line
+     * @param connectionHeader value of {@code Connection} header, may be null
+     * @return true if connection is persistent
+     */
+    static boolean isKeepAlive(String statusLine, String connectionHeader) {
+        return statusLine.startsWith("HTTP/1.1") ? !"close".equalsIgnoreCase(connectionHeader)
+                : "keep-alive".equalsIgnoreCase(connectionHeader);
+    }
+
+    /**
+     * Build exception for non successful response code
+     *
+     * @param status response status
+     * @param url    request url
+     * @return exception to throw
+     */
+    static IOException statusException(int status, String url) {
+        return new IOException(String.format("Server returned HTTP response code: %d for URL: %s", status, url));
+    }
+}
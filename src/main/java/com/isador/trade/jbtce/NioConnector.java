@@ -0,0 +1,1040 @@
+package com.isador.trade.jbtce;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLParameters;
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Non-blocking connector.
+ * Multiplexes requests over a few selector threads using persistent HTTP/1.1 connections,
+ * so number of requests in flight is not bound to number of threads. TLS is handled by {@link SSLEngine}.<br>
+ * Selector thread only moves bytes: response body is collected and passed to {@link ResponseHandler} on callback executor.
+ * Requests to one host are spread over at most {@code maxConnectionsPerHost} connections, the rest wait in queue.<br>
+ * Unlike blocking connectors, handler does not read from the socket: whole body is buffered in memory first,
+ * so a handler can't stop reading early and every response allocates its body buffer, sized by Content-Length
+ * when it is known. Streaming parsers still skip building json tree, but per poll allocation of the body remains.<br>
+ * Cancelling returned future aborts the request: waiting request is dropped, request in flight closes its connection.
+ *
+ * @author isador
+ * @see AsyncConnectorAdapter
+ * @since 2.0.1
+ */
+public class NioConnector implements AsyncConnector, Closeable {
+
+    public static final int DEFAULT_SELECTOR_THREADS = 1;
+
+    private static final Logger LOG = LoggerFactory.getLogger(NioConnector.class);
+    private static final long SELECT_TIMEOUT = 100;
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private final SelectorLoop[] loops;
+    private final Executor callbackExecutor;
+    private final int maxConnectionsPerHost;
+    private final SSLContext sslContext;
+
+    private volatile int connectTimeout = PooledConnector.DEFAULT_CONNECT_TIMEOUT;
+    private volatile int readTimeout = PooledConnector.DEFAULT_READ_TIMEOUT;
+    private volatile long idleTimeout = PooledConnector.DEFAULT_IDLE_TIMEOUT;
+    private volatile boolean closed;
+
+    /**
+     * Create new connector with one selector thread.
+     * Response handlers are executed in common fork join pool
+     */
+    public NioConnector() {
+        this(DEFAULT_SELECTOR_THREADS, PooledConnector.DEFAULT_MAX_CONNECTIONS_PER_HOST, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create new connector
+     *
+     * @param selectorThreads       number of selector threads
+     * @param maxConnectionsPerHost max open connections to one host
+     * @param callbackExecutor      executor to run response handlers on
+     * @throws IllegalArgumentException if any of limits is not positive
+     * @throws ConnectorException       if selector can't be opened
+     */
+    public NioConnector(int selectorThreads, int maxConnectionsPerHost, Executor callbackExecutor) {
+        checkArgument(selectorThreads > 0, "Invalid selector threads count: %s", selectorThreads);
+        checkArgument(maxConnectionsPerHost > 0, "Invalid max connections per host: %s", maxConnectionsPerHost);
+        this.callbackExecutor = requireNonNull(callbackExecutor, "Callback executor must be specified");
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+
+        try {
+            sslContext = SSLContext.getDefault();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+
+        loops = new SelectorLoop[selectorThreads];
+        try {
+            for (int i = 0; i < selectorThreads; i++) {
+                loops[i] = new SelectorLoop(i);
+            }
+        } catch (IOException e) {
+            close();
+            throw new ConnectorException(e);
+        }
+        Arrays.stream(loops).forEach(loop -> loop.thread.start());
+    }
+
+    @Override
+    public <T> CompletableFuture<T> get(String url, Map<String, String> headers, ResponseHandler<T> handler) {
+        return submit(url, "GET", headers, null, handler);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> post(String url, String body, Map<String, String> headers, ResponseHandler<T> handler) {
+        return submit(url, "POST", headers, body, handler);
+    }
+
+    /**
+     * @return connect timeout in millis
+     */
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * Set connect timeout, including TLS handshake
+     *
+     * @param connectTimeout timeout in millis
+     */
+    public void setConnectTimeout(int connectTimeout) {
+        checkArgument(connectTimeout > 0, "Invalid connect timeout: %s", connectTimeout);
+        this.connectTimeout = connectTimeout;
+    }
+
+    /**
+     * @return max time between two reads of one response, in millis
+     */
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * Set max time between two reads of one response
+     *
+     * @param readTimeout timeout in millis
+     */
+    public void setReadTimeout(int readTimeout) {
+        checkArgument(readTimeout > 0, "Invalid read timeout: %s", readTimeout);
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * @return time in millis after which unused connection is closed
+     */
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * Set time after which unused connection is closed
+     *
+     * @param idleTimeout timeout in millis
+     */
+    public void setIdleTimeout(long idleTimeout) {
+        checkArgument(idleTimeout > 0, "Invalid idle timeout: %s", idleTimeout);
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Stop selector threads. Pending requests are failed with {@link ConnectorException}
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Arrays.stream(loops)
+                .filter(Objects::nonNull)
+                .forEach(loop -> loop.selector.wakeup());
+    }
+
+    /**
+     * Submit request to selector loop responsible for the host
+     *
+     * @param url     url to call
+     * @param method  request method
+     * @param headers additional request headers
+     * @param body    request body
+     * @param handler response body handler
+     * @param <T>     result type
+     * @return handler result future
+     */
+    private <T> CompletableFuture<T> submit(String url, String method, Map<String, String> headers, String body, ResponseHandler<T> handler) {
+        LOG.debug("{}: '{}'", method, url);
+        Exchange exchange;
+        try {
+            if (closed) {
+                throw new IOException("Connector is closed");
+            }
+            URL target = HttpMessages.parseUrl(url);
+            exchange = new Exchange(url, target, HttpMessages.prepareRequest(target, method, headers, body), !"POST".equals(method));
+        } catch (IOException e) {
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new ConnectorException(e));
+            return failed;
+        }
+
+        String key = HttpMessages.hostKey(exchange.target);
+        SelectorLoop loop = loops[Math.floorMod(key.hashCode(), loops.length)];
+        loop.execute(() -> loop.host(key, exchange.target).submit(exchange));
+        if (closed) {
+            // loop may have run its last tasks before this one was queued, the exchange would never complete
+            exchange.fail(new IOException("Connector is closed"));
+        }
+
+        CompletableFuture<T> result = exchange.future.thenApplyAsync(response -> handle(response, handler), callbackExecutor);
+        result.whenComplete((response, error) -> {
+            if (result.isCancelled() && exchange.future.cancel(false)) {
+                loop.execute(() -> loop.host(key, exchange.target).abort(exchange));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Apply handler to collected response body
+     *
+     * @param body    response body
+     * @param handler handler
+     * @param <T>     result type
+     * @return handler result
+     */
+    private <T> T handle(ResponseBody body, ResponseHandler<T> handler) {
+        try {
+            T response = handler.handle(body.toInputStream());
+            LOG.debug("RESPONSE: '{}'", response);
+            return response;
+        } catch (IOException e) {
+            throw new ConnectorException(e);
+        }
+    }
+
+    /**
+     * Grow buffer keeping its content. Buffer must be in fill mode
+     *
+     * @param buffer  buffer
+     * @param minSize min new capacity
+     * @return new buffer
+     */
+    private static ByteBuffer enlarge(ByteBuffer buffer, int minSize) {
+        ByteBuffer enlarged = ByteBuffer.allocate(Math.max(minSize, buffer.capacity() * 2));
+        buffer.flip();
+        enlarged.put(buffer);
+        return enlarged;
+    }
+
+    /**
+     * One selector thread. All hosts, connections and their buffers are accessed only from this thread
+     */
+    private final class SelectorLoop implements Runnable {
+
+        private final Selector selector;
+        private final Thread thread;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final Map<String, HostState> hosts = new HashMap<>();
+
+        SelectorLoop(int id) throws IOException {
+            selector = Selector.open();
+            thread = new Thread(this, "jbtce-nio-" + id);
+            thread.setDaemon(true);
+        }
+
+        void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        HostState host(String key, URL url) {
+            return hosts.computeIfAbsent(key, k -> new HostState(this, url));
+        }
+
+        @Override
+        public void run() {
+            while (!closed) {
+                try {
+                    selector.select(SELECT_TIMEOUT);
+                    runTasks();
+
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        if (key.isValid()) {
+                            ((NioConnection) key.attachment()).onReady();
+                        }
+                    }
+
+                    long now = System.currentTimeMillis();
+                    hosts.values().forEach(host -> host.checkTimeouts(now));
+                } catch (IOException | RuntimeException e) {
+                    LOG.error("Selector loop error", e);
+                }
+            }
+            shutdown();
+        }
+
+        private void runTasks() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+
+        private void shutdown() {
+            runTasks();
+            hosts.values().forEach(HostState::closeAll);
+            try {
+                selector.close();
+            } catch (IOException e) {
+                LOG.debug("Error closing selector", e);
+            }
+        }
+    }
+
+    /**
+     * Connections and waiting requests of one host
+     */
+    private final class HostState {
+
+        private final SelectorLoop loop;
+        private final String host;
+        private final int port;
+        private final boolean secure;
+        private final Deque<NioConnection> idle = new ArrayDeque<>();
+        private final Set<NioConnection> connections = new HashSet<>();
+        private final Deque<Exchange> waiting = new ArrayDeque<>();
+        private boolean dispatching;
+
+        HostState(SelectorLoop loop, URL url) {
+            this.loop = loop;
+            this.host = url.getHost();
+            this.port = HttpMessages.port(url);
+            this.secure = "https".equals(url.getProtocol());
+        }
+
+        void submit(Exchange exchange) {
+            if (closed) {
+                exchange.fail(new IOException("Connector is closed"));
+                return;
+            }
+            waiting.add(exchange);
+            dispatch();
+        }
+
+        /**
+         * Start waiting requests on idle connections, open new connections while limit allows.
+         * Nothing is started once connector is closed, waiting requests are failed on loop shutdown
+         */
+        void dispatch() {
+            if (dispatching || closed) {
+                return;
+            }
+            dispatching = true;
+            try {
+                while (!waiting.isEmpty()) {
+                    if (waiting.peek().future.isDone()) {
+                        waiting.poll();
+                        continue;
+                    }
+                    NioConnection connection = idle.pollFirst();
+                    if (connection != null) {
+                        connection.start(waiting.poll(), true);
+                    } else if (connections.size() < maxConnectionsPerHost) {
+                        Exchange exchange = waiting.poll();
+                        try {
+                            connection = new NioConnection(this);
+                        } catch (IOException e) {
+                            exchange.fail(e);
+                            continue;
+                        }
+                        connections.add(connection);
+                        connection.connect(exchange);
+                    } else {
+                        return;
+                    }
+                }
+            } finally {
+                dispatching = false;
+            }
+        }
+
+        /**
+         * Abort cancelled request. Connection of request in flight is closed, since its response can't be skipped
+         *
+         * @param exchange cancelled request
+         */
+        void abort(Exchange exchange) {
+            if (waiting.remove(exchange)) {
+                return;
+            }
+            NioConnection connection = exchange.connection;
+            if (connection != null && connection.exchange == exchange) {
+                LOG.debug("Request to '{}' cancelled, closing connection", exchange.url);
+                connection.fail(new IOException("Request cancelled"));
+            }
+        }
+
+        void release(NioConnection connection) {
+            idle.addFirst(connection);
+            dispatch();
+        }
+
+        void closed(NioConnection connection) {
+            connections.remove(connection);
+            idle.remove(connection);
+            dispatch();
+        }
+
+        void checkTimeouts(long now) {
+            new ArrayList<>(connections).forEach(connection -> connection.checkTimeout(now));
+        }
+
+        void closeAll() {
+            new ArrayList<>(connections).forEach(connection -> connection.fail(new IOException("Connector is closed")));
+            waiting.forEach(exchange -> exchange.fail(new IOException("Connector is closed")));
+            waiting.clear();
+        }
+    }
+
+    /**
+     * Non-blocking connection state machine: connect, TLS handshake, write request, read response
+     */
+    private final class NioConnection {
+
+        private final HostState host;
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private SSLEngine engine;
+        private ByteBuffer netIn = ByteBuffer.allocate(16 * 1024);
+        private ByteBuffer netOut;
+        private ByteBuffer appIn;
+        private ByteBuffer request;
+        private Exchange exchange;
+        private ResponseParser parser;
+        private boolean handshaking;
+        private boolean reused;
+        private boolean open = true;
+        private long deadline;
+        private long lastUsed;
+
+        NioConnection(HostState host) throws IOException {
+            this.host = host;
+            this.channel = SocketChannel.open();
+            try {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                channel.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+                key = channel.register(host.loop.selector, 0, this);
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        void connect(Exchange exchange) {
+            this.exchange = exchange;
+            exchange.connection = this;
+            this.deadline = System.currentTimeMillis() + connectTimeout;
+            try {
+                if (channel.connect(new InetSocketAddress(host.host, host.port))) {
+                    onConnected();
+                } else {
+                    key.interestOps(SelectionKey.OP_CONNECT);
+                }
+            } catch (IOException | RuntimeException e) {
+                fail(e);
+            }
+        }
+
+        void onReady() {
+            try {
+                if (key.isConnectable()) {
+                    if (channel.finishConnect()) {
+                        onConnected();
+                    }
+                    return;
+                }
+                if (handshaking) {
+                    handshake();
+                    return;
+                }
+                if (key.isWritable() && request != null) {
+                    writeRequest();
+                }
+                if (key.isValid() && key.isReadable()) {
+                    read();
+                }
+            } catch (IOException | RuntimeException e) {
+                onError(e);
+            }
+        }
+
+        private void onConnected() throws IOException {
+            LOG.debug("Opened connection to '{}:{}'", host.host, host.port);
+            if (!host.secure) {
+                start(exchange, false);
+                return;
+            }
+
+            engine = sslContext.createSSLEngine(host.host, host.port);
+            engine.setUseClientMode(true);
+            SSLParameters parameters = engine.getSSLParameters();
+            parameters.setEndpointIdentificationAlgorithm("HTTPS");
+            engine.setSSLParameters(parameters);
+
+            netIn = ByteBuffer.allocate(engine.getSession().getPacketBufferSize());
+            netOut = ByteBuffer.allocate(engine.getSession().getPacketBufferSize());
+            appIn = ByteBuffer.allocate(engine.getSession().getApplicationBufferSize());
+
+            engine.beginHandshake();
+            handshaking = true;
+            handshake();
+        }
+
+        /**
+         * Drive TLS handshake as far as network allows
+         *
+         * @throws IOException on handshake errors
+         */
+        private void handshake() throws IOException {
+            if (!flush()) {
+                key.interestOps(SelectionKey.OP_WRITE);
+                return;
+            }
+            while (true) {
+                HandshakeStatus status = engine.getHandshakeStatus();
+                switch (status) {
+                    case NEED_TASK:
+                        runDelegatedTasks();
+                        break;
+                    case NEED_WRAP:
+                        wrap(EMPTY);
+                        if (!flush()) {
+                            key.interestOps(SelectionKey.OP_WRITE);
+                            return;
+                        }
+                        break;
+                    case FINISHED:
+                    case NOT_HANDSHAKING:
+                        handshaking = false;
+                        start(exchange, false);
+                        return;
+                    default: // NEED_UNWRAP, or NEED_UNWRAP_AGAIN on newer jdk
+                        if (!unwrap()) {
+                            key.interestOps(SelectionKey.OP_READ);
+                            return;
+                        }
+                }
+            }
+        }
+
+        /**
+         * Start exchange on connected connection
+         *
+         * @param exchange request
+         * @param reused   true if connection served requests before
+         */
+        void start(Exchange exchange, boolean reused) {
+            this.exchange = exchange;
+            exchange.connection = this;
+            this.reused = reused;
+            this.parser = new ResponseParser();
+            this.request = ByteBuffer.wrap(exchange.request);
+            this.deadline = System.currentTimeMillis() + readTimeout;
+            try {
+                writeRequest();
+            } catch (IOException | RuntimeException e) {
+                onError(e);
+            }
+        }
+
+        private void writeRequest() throws IOException {
+            if (engine == null) {
+                channel.write(request);
+            } else {
+                while (request.hasRemaining() && flush()) {
+                    wrap(request);
+                }
+                flush();
+            }
+
+            if (request.hasRemaining() || (netOut != null && netOut.position() > 0)) {
+                key.interestOps(SelectionKey.OP_WRITE);
+            } else {
+                request = null;
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+
+        private void read() throws IOException {
+            if (exchange == null) {
+                // Idle connection is readable only if server closed it
+                LOG.debug("Idle connection to '{}:{}' closed by server", host.host, host.port);
+                close();
+                return;
+            }
+
+            if (engine == null) {
+                int read = channel.read(netIn);
+                if (read < 0) {
+                    onEof();
+                } else if (read > 0) {
+                    deadline = System.currentTimeMillis() + readTimeout;
+                    netIn.flip();
+                    boolean done = parser.feed(netIn);
+                    netIn.clear();
+                    if (done) {
+                        complete();
+                    }
+                }
+                return;
+            }
+
+            while (true) {
+                boolean progress;
+                try {
+                    progress = unwrap();
+                } catch (EOFException e) {
+                    onEof();
+                    return;
+                }
+                serviceHandshake();
+                if (appIn.position() > 0) {
+                    deadline = System.currentTimeMillis() + readTimeout;
+                    appIn.flip();
+                    boolean done = parser.feed(appIn);
+                    appIn.clear();
+                    if (done) {
+                        complete();
+                        return;
+                    }
+                }
+                if (!progress) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Handle post-handshake TLS messages, ex. session tickets
+         *
+         * @throws IOException ioe
+         */
+        private void serviceHandshake() throws IOException {
+            HandshakeStatus status = engine.getHandshakeStatus();
+            while (status == HandshakeStatus.NEED_TASK || status == HandshakeStatus.NEED_WRAP) {
+                if (status == HandshakeStatus.NEED_TASK) {
+                    runDelegatedTasks();
+                } else {
+                    wrap(EMPTY);
+                    flush();
+                }
+                status = engine.getHandshakeStatus();
+            }
+        }
+
+        private void onEof() throws IOException {
+            if (parser != null && parser.eof()) {
+                complete();
+            } else if (parser != null && !parser.started && reused && exchange.canRetry()) {
+                retry();
+            } else {
+                throw new EOFException("Connection closed by server");
+            }
+        }
+
+        private void onError(Throwable e) {
+            if (exchange != null && reused && exchange.canRetry() && parser != null && !parser.started
+                    && e instanceof IOException && !(e instanceof SocketTimeoutException)) {
+                retry();
+            } else {
+                fail(e);
+            }
+        }
+
+        /**
+         * Server closed kept-alive connection before response started. Safe to resend idempotent request on a fresh connection
+         */
+        private void retry() {
+            LOG.debug("Stale connection to '{}:{}', reconnecting", host.host, host.port);
+            Exchange stale = exchange;
+            exchange = null;
+            stale.retried = true;
+            host.waiting.addFirst(stale);
+            close();
+        }
+
+        private void complete() {
+            Exchange completed = exchange;
+            ResponseParser response = parser;
+            exchange = null;
+            parser = null;
+
+            if (response.status >= 400) {
+                completed.fail(HttpMessages.statusException(response.status, completed.url));
+            } else {
+                completed.future.complete(response.body);
+            }
+
+            if (response.isKeepAlive() && !closed) {
+                lastUsed = System.currentTimeMillis();
+                host.release(this);
+            } else {
+                close();
+            }
+        }
+
+        void checkTimeout(long now) {
+            if (exchange != null && now > deadline) {
+                fail(new SocketTimeoutException(request != null || handshaking ? "Connect timed out" : "Read timed out"));
+            } else if (exchange == null && now - lastUsed > idleTimeout) {
+                close();
+            }
+        }
+
+        void fail(Throwable e) {
+            Exchange failed = exchange;
+            exchange = null;
+            close();
+            if (failed != null) {
+                failed.fail(e);
+            }
+        }
+
+        private void close() {
+            if (!open) {
+                return;
+            }
+            open = false;
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOG.debug("Error closing connection", e);
+            }
+            host.closed(this);
+        }
+
+        /**
+         * Write buffered network data
+         *
+         * @return true if nothing left to write
+         * @throws IOException ioe
+         */
+        private boolean flush() throws IOException {
+            if (netOut == null || netOut.position() == 0) {
+                return true;
+            }
+            netOut.flip();
+            channel.write(netOut);
+            netOut.compact();
+            return netOut.position() == 0;
+        }
+
+        private void wrap(ByteBuffer source) throws IOException {
+            SSLEngineResult result = engine.wrap(source, netOut);
+            switch (result.getStatus()) {
+                case BUFFER_OVERFLOW:
+                    if (netOut.position() == 0) {
+                        netOut = enlarge(netOut, engine.getSession().getPacketBufferSize());
+                    }
+                    break;
+                case CLOSED:
+                    throw new EOFException("TLS connection closed");
+                default:
+            }
+        }
+
+        /**
+         * Unwrap buffered network data, reading more from channel when needed
+         *
+         * @return true if any progress was made, false if more network data is needed
+         * @throws EOFException if connection was closed
+         * @throws IOException  on TLS errors
+         */
+        private boolean unwrap() throws IOException {
+            netIn.flip();
+            SSLEngineResult result;
+            try {
+                result = engine.unwrap(netIn, appIn);
+            } finally {
+                netIn.compact();
+            }
+
+            switch (result.getStatus()) {
+                case OK:
+                    return true;
+                case BUFFER_OVERFLOW:
+                    appIn = enlarge(appIn, engine.getSession().getApplicationBufferSize());
+                    return true;
+                case BUFFER_UNDERFLOW:
+                    if (!netIn.hasRemaining()) {
+                        netIn = enlarge(netIn, engine.getSession().getPacketBufferSize());
+                    }
+                    int read = channel.read(netIn);
+                    if (read < 0) {
+                        throw new EOFException("Connection closed by server");
+                    }
+                    return read > 0;
+                default:
+                    throw new EOFException("TLS connection closed");
+            }
+        }
+
+        private void runDelegatedTasks() {
+            Runnable task;
+            while ((task = engine.getDelegatedTask()) != null) {
+                task.run();
+            }
+        }
+    }
+
+    /**
+     * One request and its result
+     */
+    private static final class Exchange {
+
+        private final String url;
+        private final URL target;
+        private final byte[] request;
+        // POST may have been executed by server, even if connection was closed before response
+        private final boolean idempotent;
+        private final CompletableFuture<ResponseBody> future = new CompletableFuture<>();
+        private boolean retried;
+        // connection serving the request, accessed from selector thread only
+        private NioConnection connection;
+
+        Exchange(String url, URL target, byte[] request, boolean idempotent) {
+            this.url = url;
+            this.target = target;
+            this.request = request;
+            this.idempotent = idempotent;
+        }
+
+        boolean canRetry() {
+            return idempotent && !retried;
+        }
+
+        void fail(Throwable e) {
+            future.completeExceptionally(e instanceof ConnectorException ? e : new ConnectorException(e));
+        }
+    }
+
+    /**
+     * Collected response body, read by handler without copying
+     */
+    private static final class ResponseBody extends ByteArrayOutputStream {
+
+        ResponseBody(int size) {
+            super(size);
+        }
+
+        InputStream toInputStream() {
+            return new ByteArrayInputStream(buf, 0, count);
+        }
+    }
+
+    /**
+     * Incremental HTTP/1.1 response parser
+     */
+    private static final class ResponseParser {
+
+        private static final int STATUS_LINE = 0;
+        private static final int HEADERS = 1;
+        private static final int FIXED_BODY = 2;
+        private static final int CHUNK_SIZE = 3;
+        private static final int CHUNK_DATA = 4;
+        private static final int CHUNK_END = 5;
+        private static final int TRAILERS = 6;
+        private static final int UNTIL_EOF = 7;
+        private static final int DONE = 8;
+
+        private final StringBuilder line = new StringBuilder(64);
+        private static final int DEFAULT_BODY_SIZE = 1024;
+        // Content-Length is trusted for presizing only up to this size, larger bodies grow as they arrive
+        private static final int MAX_PRESIZED_BODY = 1024 * 1024;
+
+        private ResponseBody body = new ResponseBody(DEFAULT_BODY_SIZE);
+        private int state = STATUS_LINE;
+        private boolean started;
+        private String statusLine;
+        private int status;
+        private long contentLength;
+        private boolean chunked;
+        private String connection;
+        private long remaining;
+        private boolean delimitedByEof;
+
+        /**
+         * Consume bytes
+         *
+         * @param buffer bytes in read mode, heap buffer
+         * @return true if response is complete
+         * @throws IOException if response is malformed
+         */
+        boolean feed(ByteBuffer buffer) throws IOException {
+            started |= buffer.hasRemaining();
+            while (buffer.hasRemaining() && state != DONE) {
+                switch (state) {
+                    case FIXED_BODY:
+                    case CHUNK_DATA:
+                        int length = (int) Math.min(remaining, buffer.remaining());
+                        body.write(buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+                        buffer.position(buffer.position() + length);
+                        remaining -= length;
+                        if (remaining == 0) {
+                            state = state == FIXED_BODY ? DONE : CHUNK_END;
+                        }
+                        break;
+                    case UNTIL_EOF:
+                        body.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+                        buffer.position(buffer.limit());
+                        break;
+                    default:
+                        String next = readLine(buffer);
+                        if (next != null) {
+                            onLine(next);
+                        }
+                }
+            }
+            return state == DONE;
+        }
+
+        /**
+         * Connection was closed by server
+         *
+         * @return true if response is delimited by connection close and is complete now
+         */
+        boolean eof() {
+            if (state == UNTIL_EOF) {
+                state = DONE;
+                return true;
+            }
+            return false;
+        }
+
+        boolean isKeepAlive() {
+            return !delimitedByEof && HttpMessages.isKeepAlive(statusLine, connection);
+        }
+
+        private String readLine(ByteBuffer buffer) {
+            while (buffer.hasRemaining()) {
+                char c = (char) (buffer.get() & 0xFF);
+                if (c == '\n') {
+                    int length = line.length();
+                    if (length > 0 && line.charAt(length - 1) == '\r') {
+                        line.setLength(length - 1);
+                    }
+                    String result = line.toString();
+                    line.setLength(0);
+                    return result;
+                }
+                line.append(c);
+            }
+            return null;
+        }
+
+        private void onLine(String next) throws IOException {
+            switch (state) {
+                case STATUS_LINE:
+                    statusLine = next;
+                    status = HttpMessages.parseStatus(next);
+                    contentLength = -1;
+                    chunked = false;
+                    connection = null;
+                    state = HEADERS;
+                    break;
+                case HEADERS:
+                    if (next.isEmpty()) {
+                        onHeadersEnd();
+                    } else {
+                        onHeader(next);
+                    }
+                    break;
+                case CHUNK_SIZE:
+                    int extension = next.indexOf(';');
+                    try {
+                        remaining = Long.parseLong((extension < 0 ? next : next.substring(0, extension)).trim(), 16);
+                    } catch (NumberFormatException e) {
+                        throw new IOException("Invalid chunk size: " + next, e);
+                    }
+                    state = remaining == 0 ? TRAILERS : CHUNK_DATA;
+                    break;
+                case CHUNK_END:
+                    state = CHUNK_SIZE;
+                    break;
+                case TRAILERS:
+                    if (next.isEmpty()) {
+                        state = DONE;
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected parser state: " + state);
+            }
+        }
+
+        private void onHeader(String header) throws IOException {
+            int colon = header.indexOf(':');
+            if (colon <= 0) {
+                return;
+            }
+            String name = header.substring(0, colon).trim();
+            String value = header.substring(colon + 1).trim();
+            if ("Content-Length".equalsIgnoreCase(name)) {
+                try {
+                    contentLength = Long.parseLong(value);
+                } catch (NumberFormatException e) {
+                    throw new IOException("Invalid Content-Length: " + value, e);
+                }
+            } else if ("Transfer-Encoding".equalsIgnoreCase(name)) {
+                chunked = value.toLowerCase().contains("chunked");
+            } else if ("Connection".equalsIgnoreCase(name)) {
+                connection = value;
+            }
+        }
+
+        private void onHeadersEnd() {
+            if (status >= 100 && status < 200) { // 1xx informational responses have no body
+                state = STATUS_LINE;
+            } else if (status == 204 || status == 304) {
+                state = DONE;
+            } else if (chunked) {
+                state = CHUNK_SIZE;
+            } else if (contentLength >= 0) {
+                remaining = contentLength;
+                if (contentLength > DEFAULT_BODY_SIZE && body.size() == 0) {
+                    body = new ResponseBody((int) Math.min(contentLength, MAX_PRESIZED_BODY));
+                }
+                state = remaining == 0 ? DONE : FIXED_BODY;
+            } else {
+                delimitedByEof = true;
+                state = UNTIL_EOF;
+            }
+        }
+    }
+}
@@ -0,0 +1,779 @@
+package com.isador.trade.jbtce;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Connector with persistent HTTP/1.1 connections.
+ * Keeps a bounded pool of keep-alive sockets per host, so repeated calls to the same server
+ * don't pay TCP and TLS handshakes again. Idle connections are evicted after {@code idleTimeout}.
+ * If kept-alive connection was closed by server before the first response byte, GET is sent again on a fresh
+ * connection. POST is never sent twice, as server may have already executed it.
+ * Pure java, no additional dependencies.
+ *
+ * @author isador
+ * @since 2.0.1
+ */
+public class PooledConnector implements Connector, Closeable {
+
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 4;
+    public static final int DEFAULT_MAX_IN_FLIGHT = 16;
+    public static final long DEFAULT_IDLE_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+    public static final int DEFAULT_CONNECT_TIMEOUT = (int) TimeUnit.SECONDS.toMillis(10);
+    public static final int DEFAULT_READ_TIMEOUT = (int) TimeUnit.SECONDS.toMillis(30);
+
+    private static final Logger LOG = LoggerFactory.getLogger(PooledConnector.class);
+
+    private final ConcurrentMap<String, HostPool> pools = new ConcurrentHashMap<>();
+    private final int maxConnectionsPerHost;
+    private final long idleTimeout;
+    private final Semaphore inFlight;
+    private final SSLSocketFactory sslSocketFactory;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    private volatile int connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+    private volatile int readTimeout = DEFAULT_READ_TIMEOUT;
+    private volatile boolean closed;
+
+    /**
+     * Create new pooled connector with default limits
+     */
+    public PooledConnector() {
+        this(DEFAULT_MAX_CONNECTIONS_PER_HOST, DEFAULT_MAX_IN_FLIGHT, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    /**
+     * Create new pooled connector
+     *
+     * @param maxConnectionsPerHost max open connections to one host
+     * @param maxInFlight           max requests executed at the same time, over all hosts
+     * @param idleTimeout           time in millis after which unused connection is closed
+     * @throws IllegalArgumentException if any of limits is not positive
+     */
+    public PooledConnector(int maxConnectionsPerHost, int maxInFlight, long idleTimeout) {
+        checkArgument(maxConnectionsPerHost > 0, "Invalid max connections per host: %s", maxConnectionsPerHost);
+        checkArgument(maxInFlight > 0, "Invalid max in-flight requests: %s", maxInFlight);
+        checkArgument(idleTimeout > 0, "Invalid idle timeout: %s", idleTimeout);
+
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.idleTimeout = idleTimeout;
+        this.inFlight = new Semaphore(maxInFlight, true);
+        this.sslSocketFactory = (SSLSocketFactory) SSLSocketFactory.getDefault();
+    }
+
+    @Override
+    public String get(String url, Map<String, String> headers) throws ConnectorException {
+        return get(url, headers, DefaultConnector::readString);
+    }
+
+    @Override
+    public String post(String url, String body, Map<String, String> headers) throws ConnectorException {
+        return post(url, body, headers, DefaultConnector::readString);
+    }
+
+    @Override
+    public <T> T get(String url, Map<String, String> headers, ResponseHandler<T> handler) throws ConnectorException {
+        try {
+            return call(url, "GET", headers, null, handler);
+        } catch (IOException e) {
+            throw new ConnectorException(e);
+        }
+    }
+
+    @Override
+    public <T> T post(String url, String body, Map<String, String> headers, ResponseHandler<T> handler) throws ConnectorException {
+        try {
+            return call(url, "POST", headers, body, handler);
+        } catch (IOException e) {
+            throw new ConnectorException(e);
+        }
+    }
+
+    /**
+     * @return connect timeout in millis
+     */
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * Set connect timeout. Also used as max time to wait for a free connection.
+     *
+     * @param connectTimeout timeout in millis
+     */
+    public void setConnectTimeout(int connectTimeout) {
+        checkArgument(connectTimeout > 0, "Invalid connect timeout: %s", connectTimeout);
+        this.connectTimeout = connectTimeout;
+    }
+
+    /**
+     * @return socket read timeout in millis
+     */
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * Set socket read timeout
+     *
+     * @param readTimeout timeout in millis
+     */
+    public void setReadTimeout(int readTimeout) {
+        checkArgument(readTimeout > 0, "Invalid read timeout: %s", readTimeout);
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * @return current pool statistics
+     */
+    public PoolStats getStats() {
+        int idle = 0;
+        int leased = 0;
+        for (HostPool pool : pools.values()) {
+            idle += pool.idle.size();
+            leased += pool.leased.get();
+        }
+        return new PoolStats(requests.sum(), created.sum(), reused.sum(), evicted.sum(), leased, idle);
+    }
+
+    /**
+     * Close connections which were not used longer than idle timeout
+     */
+    public void closeIdleConnections() {
+        long now = System.currentTimeMillis();
+        pools.values().forEach(pool -> pool.evictExpired(now));
+    }
+
+    /**
+     * Close all idle connections. Leased connections are closed on return.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        pools.values().forEach(HostPool::closeAll);
+    }
+
+    /**
+     * Call method.
+     *
+     * @param url     url to call
+     * @param method  request method
+     * @param headers additional request headers
+     * @param body    request body
+     * @param handler response body handler
+     * @param <T>     result type
+     * @return handler result
+     * @throws IOException on connection errors and non successful response codes
+     */
+    private <T> T call(String url, String method, Map<String, String> headers, String body, ResponseHandler<T> handler) throws IOException {
+        LOG.debug("{}: '{}'", method, url);
+        if (closed) {
+            throw new IOException("Connector is closed");
+        }
+
+        URL target = HttpMessages.parseUrl(url);
+        byte[] request = HttpMessages.prepareRequest(target, method, headers, body);
+
+        requests.increment();
+        acquire(inFlight, "Too many requests in flight");
+        try {
+            HostPool pool = pools.computeIfAbsent(HttpMessages.hostKey(target), key -> new HostPool(target));
+            PooledConnection connection = pool.lease();
+            try {
+                // POST may change server state, e.g. place an order, so it is never sent twice
+                boolean idempotent = !"POST".equals(method);
+                Response response;
+                try {
+                    response = execute(connection, request, idempotent);
+                } catch (StaleConnectionException e) {
+                    // Server closed kept-alive connection before response started. Safe to retry idempotent request on a fresh one
+                    LOG.debug("Stale connection to '{}', reconnecting", pool.key);
+                    connection.close();
+                    connection = pool.connect();
+                    response = execute(connection, request, false);
+                }
+
+                if (response.status >= 400) {
+                    DefaultConnector.drain(response.body);
+                    throw HttpMessages.statusException(response.status, url);
+                }
+
+                T result = handler.handle(DefaultConnector.nonClosing(response.body));
+                // Rest of body must be consumed before connection goes back to pool
+                DefaultConnector.drain(response.body);
+                connection.reusable = response.keepAlive;
+
+                LOG.debug("RESPONSE: '{}'", result);
+                return result;
+            } finally {
+                pool.release(connection);
+            }
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    /**
+     * Send request over connection and read response head.
+     * Connection stays not reusable until response body is fully consumed.
+     *
+     * @param connection connection
+     * @param request    raw request
+     * @param retryable  request may be sent again if connection turns out to be stale
+     * @return response
+     * @throws StaleConnectionException if request is retryable and reused connection was closed or reset by server
+     *                                  before the first response byte. Read timeout is never treated as stale connection
+     * @throws IOException              on any other connection error
+     */
+    private Response execute(PooledConnection connection, byte[] request, boolean retryable) throws IOException {
+        connection.reusable = false;
+        boolean stale = retryable && connection.reused;
+        int first;
+        try {
+            connection.out.write(request);
+            connection.out.flush();
+            first = connection.in.read();
+        } catch (SocketTimeoutException e) {
+            throw e;
+        } catch (IOException e) {
+            if (stale) {
+                throw new StaleConnectionException(e);
+            }
+            throw e;
+        }
+        if (first == -1) {
+            if (stale) {
+                throw new StaleConnectionException(new EOFException("Connection closed by server"));
+            }
+            throw new EOFException("Connection closed by server");
+        }
+        String statusLine = readLine(connection.in, first);
+
+        int status = HttpMessages.parseStatus(statusLine);
+        Headers headers = readHeaders(connection.in);
+        while (status >= 100 && status < 200) { // 1xx informational responses have no body
+            statusLine = readLine(connection.in);
+            if (statusLine == null) {
+                throw new EOFException("Connection closed by server");
+            }
+            status = HttpMessages.parseStatus(statusLine);
+            headers = readHeaders(connection.in);
+        }
+
+        boolean keepAlive = HttpMessages.isKeepAlive(statusLine, headers.connection);
+
+        InputStream bodyStream;
+        if (status == 204 || status == 304) {
+            bodyStream = new FixedLengthInputStream(connection.in, 0);
+        } else if (headers.chunked) {
+            bodyStream = new ChunkedInputStream(connection.in);
+        } else if (headers.contentLength >= 0) {
+            bodyStream = new FixedLengthInputStream(connection.in, headers.contentLength);
+        } else {
+            bodyStream = connection.in;
+            keepAlive = false;
+        }
+
+        return new Response(status, bodyStream, keepAlive);
+    }
+
+    /**
+     * Read response headers, only those which are needed to delimit response body
+     *
+     * @param in input
+     * @return headers
+     * @throws IOException ioe
+     */
+    private Headers readHeaders(InputStream in) throws IOException {
+        Headers headers = new Headers();
+        String line;
+        while ((line = readLine(in)) != null && !line.isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon <= 0) {
+                continue;
+            }
+            String name = line.substring(0, colon).trim();
+            String value = line.substring(colon + 1).trim();
+            if ("Content-Length".equalsIgnoreCase(name)) {
+                try {
+                    headers.contentLength = Long.parseLong(value);
+                } catch (NumberFormatException e) {
+                    throw new IOException("Invalid Content-Length: " + value, e);
+                }
+            } else if ("Transfer-Encoding".equalsIgnoreCase(name)) {
+                headers.chunked = value.toLowerCase().contains("chunked");
+            } else if ("Connection".equalsIgnoreCase(name)) {
+                headers.connection = value;
+            }
+        }
+        if (line == null) {
+            throw new EOFException("Unexpected end of response headers");
+        }
+        return headers;
+    }
+
+    /**
+     * Read CRLF terminated ASCII line
+     *
+     * @param in input
+     * @return line without terminator, or null on end of stream
+     * @throws IOException ioe
+     */
+    private static String readLine(InputStream in) throws IOException {
+        return readLine(in, in.read());
+    }
+
+    /**
+     * Read CRLF terminated ASCII line
+     *
+     * @param in    input
+     * @param first first line byte, already read, or -1
+     * @return line without terminator, or null on end of stream
+     * @throws IOException ioe
+     */
+    private static String readLine(InputStream in, int first) throws IOException {
+        StringBuilder line = new StringBuilder(64);
+        int c = first;
+        for (; c != -1; c = in.read()) {
+            if (c == '\n') {
+                int length = line.length();
+                if (length > 0 && line.charAt(length - 1) == '\r') {
+                    line.setLength(length - 1);
+                }
+                return line.toString();
+            }
+            line.append((char) c);
+        }
+        return line.length() == 0 ? null : line.toString();
+    }
+
+    /**
+     * Acquire permit, waiting not longer than connect timeout
+     *
+     * @param semaphore semaphore
+     * @param message   exception message on timeout
+     * @throws IOException if no permit was acquired in time, or thread was interrupted
+     */
+    private void acquire(Semaphore semaphore, String message) throws IOException {
+        try {
+            if (!semaphore.tryAcquire(connectTimeout, TimeUnit.MILLISECONDS)) {
+                throw new IOException(message);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(message);
+        }
+    }
+
+    /**
+     * Pool statistics snapshot
+     */
+    public static final class PoolStats {
+
+        private final long requests;
+        private final long connectionsCreated;
+        private final long connectionsReused;
+        private final long connectionsEvicted;
+        private final int leased;
+        private final int idle;
+
+        public PoolStats(long requests, long connectionsCreated, long connectionsReused,
+                         long connectionsEvicted, int leased, int idle) {
+            this.requests = requests;
+            this.connectionsCreated = connectionsCreated;
+            this.connectionsReused = connectionsReused;
+            this.connectionsEvicted = connectionsEvicted;
+            this.leased = leased;
+            this.idle = idle;
+        }
+
+        /**
+         * @return total requests executed
+         */
+        public long getRequests() {
+            return requests;
+        }
+
+        /**
+         * @return connections opened
+         */
+        public long getConnectionsCreated() {
+            return connectionsCreated;
+        }
+
+        /**
+         * @return requests executed over already opened connection
+         */
+        public long getConnectionsReused() {
+            return connectionsReused;
+        }
+
+        /**
+         * @return connections closed due to idle timeout or pool shutdown
+         */
+        public long getConnectionsEvicted() {
+            return connectionsEvicted;
+        }
+
+        /**
+         * @return connections used by requests right now
+         */
+        public int getLeased() {
+            return leased;
+        }
+
+        /**
+         * @return connections waiting in pool for next request
+         */
+        public int getIdle() {
+            return idle;
+        }
+
+        @Override
+        public String toString() {
+            return "PoolStats{" +
+                    "requests=" + requests +
+                    ", connectionsCreated=" + connectionsCreated +
+                    ", connectionsReused=" + connectionsReused +
+                    ", connectionsEvicted=" + connectionsEvicted +
+                    ", leased=" + leased +
+                    ", idle=" + idle +
+                    '}';
+        }
+    }
+
+    /**
+     * Connections to one host
+     */
+    private final class HostPool {
+
+        private final String key;
+        private final String host;
+        private final int port;
+        private final boolean secure;
+        private final Semaphore permits = new Semaphore(maxConnectionsPerHost, true);
+        private final Deque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+        private final AtomicInteger leased = new AtomicInteger();
+
+        HostPool(URL url) {
+            this.key = HttpMessages.hostKey(url);
+            this.host = url.getHost();
+            this.port = HttpMessages.port(url);
+            this.secure = "https".equals(url.getProtocol());
+        }
+
+        /**
+         * Take most recently used idle connection or open new one
+         *
+         * @return connection
+         * @throws IOException if no permit acquired in time or connection failed
+         */
+        PooledConnection lease() throws IOException {
+            acquire(permits, "Timeout waiting for connection to " + key);
+            try {
+                long now = System.currentTimeMillis();
+                PooledConnection connection;
+                while ((connection = idle.pollFirst()) != null) {
+                    if (connection.isExpired(now, idleTimeout)) {
+                        evict(connection);
+                        continue;
+                    }
+                    reused.increment();
+                    connection.reused = true;
+                    break;
+                }
+                if (connection == null) {
+                    connection = connect();
+                }
+                leased.incrementAndGet();
+                return connection;
+            } catch (IOException | RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        /**
+         * Open new connection to host
+         *
+         * @return connection
+         * @throws IOException on connection errors
+         */
+        PooledConnection connect() throws IOException {
+            Socket socket = new Socket();
+            try {
+                socket.setTcpNoDelay(true);
+                socket.setKeepAlive(true);
+                socket.connect(new InetSocketAddress(host, port), connectTimeout);
+                socket.setSoTimeout(readTimeout);
+                if (secure) {
+                    SSLSocket sslSocket = (SSLSocket) sslSocketFactory.createSocket(socket, host, port, true);
+                    SSLParameters parameters = sslSocket.getSSLParameters();
+                    parameters.setEndpointIdentificationAlgorithm("HTTPS");
+                    sslSocket.setSSLParameters(parameters);
+                    sslSocket.startHandshake();
+                    socket = sslSocket;
+                }
+            } catch (IOException e) {
+                socket.close();
+                throw e;
+            }
+
+            created.increment();
+            LOG.debug("Opened connection to '{}'", key);
+            return new PooledConnection(socket);
+        }
+
+        /**
+         * Return connection to pool, or close it if it can't be reused
+         *
+         * @param connection connection
+         */
+        void release(PooledConnection connection) {
+            leased.decrementAndGet();
+            permits.release();
+
+            long now = System.currentTimeMillis();
+            if (!connection.reusable || closed || idle.size() >= maxConnectionsPerHost) {
+                connection.close();
+            } else {
+                connection.lastUsed = now;
+                connection.reused = false;
+                idle.offerFirst(connection);
+            }
+            evictExpired(now);
+        }
+
+        /**
+         * Close idle connections unused longer than idle timeout. Oldest connections are at the tail
+         *
+         * @param now current time millis
+         */
+        void evictExpired(long now) {
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            while (it.hasNext()) {
+                PooledConnection connection = it.next();
+                if (!connection.isExpired(now, idleTimeout)) {
+                    break;
+                }
+                if (idle.removeLastOccurrence(connection)) {
+                    evict(connection);
+                }
+            }
+        }
+
+        void closeAll() {
+            PooledConnection connection;
+            while ((connection = idle.pollFirst()) != null) {
+                evict(connection);
+            }
+        }
+
+        private void evict(PooledConnection connection) {
+            evicted.increment();
+            connection.close();
+        }
+    }
+
+    /**
+     * Socket with buffered streams
+     */
+    private static final class PooledConnection {
+
+        private final Socket socket;
+        private final InputStream in;
+        private final OutputStream out;
+        private volatile long lastUsed;
+        private boolean reused;
+        private boolean reusable;
+
+        PooledConnection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new BufferedInputStream(socket.getInputStream(), 8192);
+            this.out = new BufferedOutputStream(socket.getOutputStream(), 2048);
+            this.lastUsed = System.currentTimeMillis();
+        }
+
+        boolean isExpired(long now, long idleTimeout) {
+            return socket.isClosed() || now - lastUsed > idleTimeout;
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                LOG.debug("Error closing connection", e);
+            }
+        }
+    }
+
+    private static final class Headers {
+        private long contentLength = -1;
+        private boolean chunked;
+        private String connection;
+    }
+
+    private static final class Response {
+
+        private final int status;
+        private final InputStream body;
+        private final boolean keepAlive;
+
+        Response(int status, InputStream body, boolean keepAlive) {
+            this.status = status;
+            this.body = body;
+            this.keepAlive = keepAlive;
+        }
+    }
+
+    private static final class StaleConnectionException extends IOException {
+        StaleConnectionException(Throwable cause) {
+            super(cause);
+        }
+    }
+
+    /**
+     * Body delimited by Content-Length header
+     */
+    private static final class FixedLengthInputStream extends InputStream {
+
+        private final InputStream in;
+        private long remaining;
+
+        FixedLengthInputStream(InputStream in, long length) {
+            this.in = in;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int c = in.read();
+            if (c == -1) {
+                throw new EOFException("Unexpected end of response body");
+            }
+            remaining--;
+            return c;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = in.read(b, off, (int) Math.min(len, remaining));
+            if (read == -1) {
+                throw new EOFException("Unexpected end of response body");
+            }
+            remaining -= read;
+            return read;
+        }
+    }
+
+    /**
+     * Body with chunked transfer encoding
+     */
+    private static final class ChunkedInputStream extends InputStream {
+
+        private final InputStream in;
+        private long chunkRemaining;
+        private boolean started;
+        private boolean eof;
+
+        ChunkedInputStream(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!nextChunk()) {
+                return -1;
+            }
+            int c = in.read();
+            if (c == -1) {
+                throw new EOFException("Unexpected end of chunk");
+            }
+            chunkRemaining--;
+            return c;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (!nextChunk()) {
+                return -1;
+            }
+            int read = in.read(b, off, (int) Math.min(len, chunkRemaining));
+            if (read == -1) {
+                throw new EOFException("Unexpected end of chunk");
+            }
+            chunkRemaining -= read;
+            return read;
+        }
+
+        /**
+         * Move to next chunk if current one is consumed
+         *
+         * @return false if last chunk was read
+         * @throws IOException ioe
+         */
+        private boolean nextChunk() throws IOException {
+            if (eof) {
+                return false;
+            }
+            if (chunkRemaining > 0) {
+                return true;
+            }
+            if (chunkRemaining == 0 && started) {
+                readLine(in); // CRLF after chunk data
+            }
+            started = true;
+
+            String sizeLine = readLine(in);
+            if (sizeLine == null) {
+                throw new EOFException("Unexpected end of chunked body");
+            }
+            int extension = sizeLine.indexOf(';');
+            try {
+                chunkRemaining = Long.parseLong((extension < 0 ? sizeLine : sizeLine.substring(0, extension)).trim(), 16);
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid chunk size: " + sizeLine, e);
+            }
+            if (chunkRemaining == 0) {
+                String trailer;
+                while ((trailer = readLine(in)) != null && !trailer.isEmpty()) {
+                    // skip trailers
+                }
+                eof = true;
+                return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.isador.trade.jbtce;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Consumes response body directly from connection stream.
+ * Stream is valid only during {@link #handle(InputStream)} call and closed by connector afterwards.
+ *
+ * @param <T> result type
+ * @author isador
+ * @see Connector
+ * @since 2.0.1
+ */
+@FunctionalInterface
+public interface ResponseHandler<T> {
+
+    /**
+     * Handle response body
+     *
+     * @param response response body stream
+     * @return handled result
+     * @throws IOException on stream read errors. Will be wrapped into {@link ConnectorException}
+     */
+    T handle(InputStream response) throws IOException;
+}
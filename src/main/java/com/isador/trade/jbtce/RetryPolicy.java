@@ -0,0 +1,126 @@
+package com.isador.trade.jbtce;
+
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Immutable retry policy for failed server calls.
+ * Limits number of attempts and total call time, delays between attempts grow exponentially with random jitter.
+ *
+ * @author isador
+ * @see AbstractApi#setRetryPolicy(RetryPolicy)
+ * @since 2.0.1
+ */
+public final class RetryPolicy {
+
+    /**
+     * 3 attempts, backoff from 100ms up to 2s, 30s deadline
+     */
+    public static final RetryPolicy DEFAULT = new RetryPolicy(3, 100, TimeUnit.SECONDS.toMillis(2), TimeUnit.SECONDS.toMillis(30));
+
+    /**
+     * Single attempt, failure is reported immediately
+     */
+    public static final RetryPolicy NO_RETRY = new RetryPolicy(1, 0, 0, Long.MAX_VALUE);
+
+    private final int maxAttempts;
+    private final long initialBackoff;
+    private final long maxBackoff;
+    private final long deadline;
+
+    /**
+     * Create new retry policy
+     *
+     * @param maxAttempts    max attempts including the first one
+     * @param initialBackoff delay before first retry, in millis
+     * @param maxBackoff     max delay between attempts, in millis
+     * @param deadline       max total call time including delays, in millis
+     * @throws IllegalArgumentException if any of values is invalid
+     */
+    public RetryPolicy(int maxAttempts, long initialBackoff, long maxBackoff, long deadline) {
+        checkArgument(maxAttempts > 0, "Invalid max attempts: %s", maxAttempts);
+        checkArgument(initialBackoff >= 0, "Invalid initial backoff: %s", initialBackoff);
+        checkArgument(maxBackoff >= initialBackoff, "Max backoff %s is less than initial one %s", maxBackoff, initialBackoff);
+        checkArgument(deadline > 0, "Invalid deadline: %s", deadline);
+
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.deadline = deadline;
+    }
+
+    /**
+     * @return max attempts including the first one
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * @return delay before first retry, in millis
+     */
+    public long getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    /**
+     * @return max delay between attempts, in millis
+     */
+    public long getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    /**
+     * @return max total call time, in millis
+     */
+    public long getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * Calculate delay before next attempt.
+     * Exponential delay capped by max backoff, randomized within [delay/2, delay] so clients don't retry in lockstep
+     *
+     * @param failedAttempts attempts failed so far, starting from 1
+     * @return delay in millis
+     */
+    public long backoff(int failedAttempts) {
+        checkArgument(failedAttempts > 0, "Invalid failed attempts count: %s", failedAttempts);
+        int shift = Math.min(failedAttempts - 1, 30);
+        long delay = initialBackoff > maxBackoff >> shift ? maxBackoff : initialBackoff << shift;
+        return delay == 0 ? 0 : ThreadLocalRandom.current().nextLong(delay / 2, delay + 1);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        RetryPolicy that = (RetryPolicy) o;
+        return maxAttempts == that.maxAttempts &&
+                initialBackoff == that.initialBackoff &&
+                maxBackoff == that.maxBackoff &&
+                deadline == that.deadline;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(maxAttempts, initialBackoff, maxBackoff, deadline);
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy{" +
+                "maxAttempts=" + maxAttempts +
+                ", initialBackoff=" + initialBackoff +
+                ", maxBackoff=" + maxBackoff +
+                ", deadline=" + deadline +
+                '}';
+    }
+}
@@ -0,0 +1,70 @@
+package com.isador.trade.jbtce;
+
+import java.util.Arrays;
+
+/**
+ * Snapshot of api call retry statistics
+ *
+ * @author isador
+ * @see AbstractApi#getRetryStats()
+ * @since 2.0.1
+ */
+public final class RetryStats {
+
+    /**
+     * Number of histogram buckets. Last bucket counts calls with this or more retries
+     */
+    public static final int BUCKETS = 8;
+
+    private final long calls;
+    private final long failures;
+    private final long[] histogram;
+
+    public RetryStats(long calls, long failures, long[] histogram) {
+        this.calls = calls;
+        this.failures = failures;
+        this.histogram = Arrays.copyOf(histogram, BUCKETS);
+    }
+
+    /**
+     * @return finished calls, successful or not
+     */
+    public long getCalls() {
+        return calls;
+    }
+
+    /**
+     * @return calls failed after all attempts
+     */
+    public long getFailures() {
+        return failures;
+    }
+
+    /**
+     * @return total retries made by all calls, calls from the last bucket are counted as {@code BUCKETS - 1} retries
+     */
+    public long getRetries() {
+        long retries = 0;
+        for (int i = 1; i < BUCKETS; i++) {
+            retries += i * histogram[i];
+        }
+        return retries;
+    }
+
+    /**
+     * @param retries retries count
+     * @return calls which needed exactly this number of retries, or this and more for the last bucket
+     */
+    public long getCalls(int retries) {
+        return retries < 0 ? 0 : histogram[Math.min(retries, BUCKETS - 1)];
+    }
+
+    @Override
+    public String toString() {
+        return "RetryStats{" +
+                "calls=" + calls +
+                ", failures=" + failures +
+                ", histogram=" + Arrays.toString(histogram) +
+                '}';
+    }
+}
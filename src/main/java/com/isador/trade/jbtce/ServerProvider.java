@@ -10,13 +10,18 @@ import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static java.util.Objects.requireNonNull;
 
 /**
- * Implement mirror switching
+ * Implement mirror switching.
+ * Thread safe: current server and mirrors are kept in one immutable state replaced atomically.
  *
  * @author isador
  * @since 2.0.1
@@ -35,8 +40,9 @@ public class ServerProvider {
     private static final Logger LOG = LoggerFactory.getLogger(ServerProvider.class);
     private static final String TEST_URL_TEMPLATE = "%sapi/3/fee/btc_usd";
     private static final String API_VALIDATION_TEMPLATE = "^\\{\\\"btc_usd\\\"\\:(\\d+|\\d+\\.\\d+)\\}$";
-    private String currentServer;
-    private String[] mirrors;
+    private static final int PROBE_TIMEOUT = 10_000;
+    private final AtomicReference<State> state = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<State>> search = new AtomicReference<>();
 
     /**
      * Create new server provider with current server and mirrors
@@ -45,8 +51,7 @@ public class ServerProvider {
      * @param mirrors       mirrors
      */
     public ServerProvider(String currentServer, String... mirrors) {
-        this.currentServer = requireNonNull(currentServer, "Current server must be not null");
-        this.mirrors = validateMirrors(mirrors);
+        state.set(new State(requireNonNull(currentServer, "Current server must be not null"), validateMirrors(mirrors)));
     }
 
     /**
@@ -56,7 +61,7 @@ public class ServerProvider {
      * @param mirrors server list
      */
     public ServerProvider(String[] mirrors) {
-        this.mirrors = validateMirrors(mirrors);
+        state.set(new State(null, validateMirrors(mirrors)));
         nextMirror();
     }
 
@@ -93,14 +98,14 @@ public class ServerProvider {
      * @return server
      */
     public String getCurrentServer() {
-        return currentServer;
+        return state.get().currentServer;
     }
 
     /**
      * @return mirrors array
      */
     public String[] getMirrors() {
-        return mirrors;
+        return state.get().mirrors.clone();
     }
 
     /**
@@ -108,20 +113,93 @@ public class ServerProvider {
      * If found one - becomes current server. Old current server becomes mirror
      *
      * @throws ServerProviderException if no valid server found
+     * @see #nextMirror(String)
      */
     public void nextMirror() {
+        nextMirror(getCurrentServer());
+    }
+
+    /**
+     * Switch from failed server to the next reachable mirror.
+     * Does nothing if failed server is not current anymore, ex. other thread already switched it.
+     * Only one thread searches mirrors at a time, others wait for its result.
+     *
+     * @param failedServer server where call was failed
+     * @throws ServerProviderException if no valid server found
+     */
+    public void nextMirror(String failedServer) {
+        while (true) {
+            State observed = state.get();
+            if (failedServer != null && !failedServer.equals(observed.currentServer)) {
+                LOG.debug("Server '{}' is already switched to '{}'", failedServer, observed.currentServer);
+                return;
+            }
+
+            CompletableFuture<State> running = search.get();
+            if (running != null) {
+                await(running);
+                return;
+            }
+
+            CompletableFuture<State> own = new CompletableFuture<>();
+            if (!search.compareAndSet(null, own)) {
+                continue;
+            }
+            try {
+                if (state.get() != observed) { // other search finished meanwhile
+                    own.complete(state.get());
+                    continue;
+                }
+                State next = searchMirror(observed);
+                state.set(next);
+                own.complete(next);
+                return;
+            } catch (RuntimeException e) {
+                own.completeExceptionally(e);
+                throw e;
+            } finally {
+                search.set(null);
+            }
+        }
+    }
+
+    /**
+     * Find reachable mirror
+     *
+     * @param current current state
+     * @return new state with found mirror as current server
+     * @throws ServerProviderException if no valid server found
+     */
+    private State searchMirror(State current) {
         LOG.debug("Searching next mirror");
-        String newServer = Stream.of(mirrors)
-                .filter(mirror -> !mirror.equals(currentServer))
+        String newServer = Stream.of(current.mirrors)
+                .filter(mirror -> !mirror.equals(current.currentServer))
                 .filter(this::isServerReachable)
                 .findFirst()
                 .orElseThrow(() -> new ServerProviderException("No valid server found"));
-        mirrors = ArrayUtils.removeElement(mirrors, newServer);
-        if (currentServer != null) {
-            mirrors = ArrayUtils.add(mirrors, currentServer);
+        String[] mirrors = ArrayUtils.removeElement(current.mirrors, newServer);
+        if (current.currentServer != null) {
+            mirrors = ArrayUtils.add(mirrors, current.currentServer);
         }
 
-        currentServer = newServer;
+        return new State(newServer, mirrors);
+    }
+
+    /**
+     * Wait for other thread's search result
+     *
+     * @param running running search
+     * @throws ServerProviderException if search failed
+     */
+    private void await(CompletableFuture<State> running) {
+        try {
+            running.join();
+        } catch (CompletionException | CancellationException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ServerProviderException("No valid server found");
+        }
     }
 
     /**
@@ -131,7 +209,7 @@ public class ServerProvider {
      * @param server server
      * @return false if server is not available, or response doesn't match expected
      */
-    private boolean isServerReachable(String server) {
+    protected boolean isServerReachable(String server) {
         try {
             HttpURLConnection urlConnection = prepareConnection(new URL(String.format(TEST_URL_TEMPLATE, server)));
             urlConnection.connect();
@@ -155,6 +233,22 @@ public class ServerProvider {
     private HttpURLConnection prepareConnection(URL url) throws IOException {
         HttpURLConnection urlConnection = (HttpURLConnection) url.openConnection();
         AbstractApi.DEFAULT_HEADERS.forEach(urlConnection::setRequestProperty);
+        urlConnection.setConnectTimeout(PROBE_TIMEOUT);
+        urlConnection.setReadTimeout(PROBE_TIMEOUT);
         return urlConnection;
     }
+
+    /**
+     * Immutable mirrors state
+     */
+    private static final class State {
+
+        private final String currentServer;
+        private final String[] mirrors;
+
+        State(String currentServer, String[] mirrors) {
+            this.currentServer = currentServer;
+            this.mirrors = mirrors;
+        }
+    }
 }
@@ -0,0 +1,130 @@
+package com.isador.trade.jbtce.privateapi;
+
+import com.isador.trade.jbtce.AsyncConnector;
+import com.isador.trade.jbtce.BTCEException;
+import com.isador.trade.jbtce.constants.Pair;
+import com.isador.trade.jbtce.constants.Sort;
+import com.isador.trade.jbtce.constants.TradeType;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Asynchronous facade over {@link PrivateApi}.
+ * Requests are sent through {@link AsyncConnector}, so no thread waits for response. Returned future is completed
+ * with result, or exceptionally with {@link BTCEException}. Methods never throw: invalid arguments and orders
+ * rejected by validator fail the returned future too, with the exception the synchronous api would throw.<br>
+ * Calls are sent in nonce order by {@link NonceDispatcher} of the api, the next one when response of previous one
+ * is received. Key, order validator and retry policy of the api are used.
+ *
+ * @author isador
+ * @see PrivateApi
+ * @since 2.0.1
+ */
+public class AsyncPrivateApi {
+
+    private final PrivateApi api;
+    private final AsyncConnector connector;
+
+    /**
+     * Create new async private api
+     *
+     * @param api       api to take key, nonce dispatcher and retry policy from
+     * @param connector async connector to send requests with
+     * @throws NullPointerException if api or connector is null
+     */
+    public AsyncPrivateApi(PrivateApi api, AsyncConnector connector) {
+        this.api = requireNonNull(api, "Api must be specified");
+        this.connector = requireNonNull(connector, "Connector must be specified");
+    }
+
+    /**
+     * @return underlying synchronous api
+     */
+    public PrivateApi getApi() {
+        return api;
+    }
+
+    /**
+     * @return async connector
+     */
+    public AsyncConnector getConnector() {
+        return connector;
+    }
+
+    /**
+     * @return user info future
+     * @see PrivateApi#getUserInfo()
+     */
+    public CompletableFuture<UserInfo> getUserInfo() {
+        return api.getUserInfoAsync(connector);
+    }
+
+    /**
+     * @param pair   pair
+     * @param type   order type
+     * @param rate   the rate at which you need to buy/sell
+     * @param amount the amount you need to buy / sell
+     * @return trade result future
+     * @see PrivateApi#trade(Pair, TradeType, double, double)
+     */
+    public CompletableFuture<TradeResult> trade(Pair pair, TradeType type, double rate, double amount) {
+        return api.tradeAsync(connector, pair, type, rate, amount);
+    }
+
+    /**
+     * @param pair orders pair
+     * @return active orders future
+     * @see PrivateApi#getActiveOrders(Pair)
+     */
+    public CompletableFuture<List<Order>> getActiveOrders(Pair pair) {
+        return api.getActiveOrdersAsync(connector, pair);
+    }
+
+    /**
+     * @param fromNum transaction number from which to read
+     * @param count   transactions count
+     * @param fromId  from <code>transactionId</code> (inclusive)
+     * @param endId   end <code>transactionId</code> (inclusive)
+     * @param sort    <code>ASC</code> when using <code>since</code> or <code>end</code>
+     * @param since   list transactions after timestamp
+     * @param end     list transactions before this timestamp
+     * @return user transactions future
+     * @see PrivateApi#getTransactionsList(Long, Integer, Long, Long, Sort, LocalDateTime, LocalDateTime)
+     */
+    public CompletableFuture<List<Transaction>> getTransactionsList(Long fromNum, Integer count, Long fromId,
+                                                                    Long endId, Sort sort, LocalDateTime since,
+                                                                    LocalDateTime end) {
+        return api.getTransactionsListAsync(connector, fromNum, count, fromId, endId, sort, since, end);
+    }
+
+    /**
+     * @param fromNum trade number, from which the display starts
+     * @param count   the number of trades for display
+     * @param fromId  trade ID, from which the display starts
+     * @param endId   trade ID on which the display ends
+     * @param sort    Sorting
+     * @param since   the time to start the display
+     * @param end     the time to end the display
+     * @param pair    pair to be displayed
+     * @return trades future
+     * @see PrivateApi#getTradeHistory(Long, Integer, Long, Long, Sort, LocalDateTime, LocalDateTime, Pair)
+     */
+    public CompletableFuture<List<TradeHistory>> getTradeHistory(Long fromNum, Integer count, Long fromId,
+                                                                 Long endId, Sort sort, LocalDateTime since,
+                                                                 LocalDateTime end, Pair pair) {
+        return api.getTradeHistoryAsync(connector, fromNum, count, fromId, endId, sort, since, end, pair);
+    }
+
+    /**
+     * @param orderId id of cancelled order
+     * @return cancel order result future
+     * @see PrivateApi#cancelOrder(long)
+     */
+    public CompletableFuture<CancelOrderResult> cancelOrder(long orderId) {
+        return api.cancelOrderAsync(connector, orderId);
+    }
+}
@@ -0,0 +1,131 @@
+package com.isador.trade.jbtce.privateapi;
+
+import com.isador.trade.jbtce.BTCEException;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Lazy iterator over paged history, newest first.
+ * Pages are requested by <code>end_id</code> below the oldest id of previous page, so new records do not shift
+ * pages. Next page is prefetched on executor as soon as current one is received, at most two pages are held.
+ * Page shorter than page size is the last one, so page size must not exceed server limit of records per call.
+ *
+ * @param <T> history record type
+ * @author isador
+ * @since 2.0.1
+ */
+final class HistoryIterator<T> implements Iterator<T> {
+
+    /**
+     * Max records returned by server per call
+     */
+    static final int MAX_PAGE_SIZE = PrivateApi.MAX_HISTORY_PAGE_SIZE;
+
+    private final PageLoader<T> loader;
+    private final ToLongFunction<T> id;
+    private final int pageSize;
+    private final Executor executor;
+    private Iterator<T> page = Collections.emptyIterator();
+    private CompletableFuture<List<T>> next;
+
+    /**
+     * @param loader   page loader
+     * @param id       record id
+     * @param pageSize records per page, at most {@link #MAX_PAGE_SIZE}
+     * @param executor executor to prefetch pages on
+     * @throws IllegalArgumentException if page size is not in [1, {@link #MAX_PAGE_SIZE}]
+     */
+    HistoryIterator(PageLoader<T> loader, ToLongFunction<T> id, int pageSize, Executor executor) {
+        checkArgument(pageSize > 0 && pageSize <= MAX_PAGE_SIZE, "Invalid page size: %s, must be in [1, %s]",
+                pageSize, MAX_PAGE_SIZE);
+        this.loader = loader;
+        this.id = id;
+        this.pageSize = pageSize;
+        this.executor = requireNonNull(executor, "Executor must be specified");
+        next = load(null);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!page.hasNext()) {
+            if (next == null) {
+                return false;
+            }
+            List<T> records = await(next);
+            next = null;
+            if (records.size() >= pageSize) {
+                long endId = id.applyAsLong(records.get(records.size() - 1)) - 1;
+                if (endId > 0) {
+                    next = load(endId);
+                }
+            }
+            page = records.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.next();
+    }
+
+    /**
+     * @return sequential ordered stream, cancelling prefetch on close
+     */
+    Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    if (next != null) {
+                        next.cancel(false);
+                    }
+                });
+    }
+
+    private CompletableFuture<List<T>> load(Long endId) {
+        return CompletableFuture.supplyAsync(() -> {
+            List<T> records = new ArrayList<>(loader.load(endId, pageSize));
+            records.sort(Comparator.comparingLong(id).reversed());
+            return records;
+        }, executor);
+    }
+
+    private static <T> List<T> await(CompletableFuture<List<T>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new BTCEException(e.getCause());
+        }
+    }
+
+    /**
+     * History page request
+     *
+     * @param <T> history record type
+     */
+    @FunctionalInterface
+    interface PageLoader<T> {
+
+        /**
+         * @param endId last record id (inclusive), null for newest
+         * @param count records count
+         * @return records, empty if there are no more
+         * @throws BTCEException if was any error during execution
+         */
+        List<T> load(Long endId, int count) throws BTCEException;
+    }
+}
@@ -0,0 +1,116 @@
+package com.isador.trade.jbtce.privateapi;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Thread safe HmacSHA512 request signer.
+ * {@link Mac} is not thread safe, so every thread signs with its own clone of the initialized prototype mac,
+ * without locks. Ascii body is encoded and signature is hex encoded into per thread buffers.
+ *
+ * @author isador
+ * @since 2.0.1
+ */
+final class HmacSigner {
+
+    private static final String ALGORITHM = "HmacSHA512";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Mac prototype;
+    private final ThreadLocal<State> states;
+
+    /**
+     * @param secret api secret
+     * @throws NullPointerException     if secret is null
+     * @throws IllegalArgumentException if secret is empty
+     * @throws RuntimeException         if there is any exception during mac init.
+     */
+    HmacSigner(String secret) {
+        requireNonNull(secret, "Secret must be specified");
+        SecretKeySpec key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        try {
+            prototype = Mac.getInstance(ALGORITHM);
+            prototype.init(key);
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new RuntimeException(e);
+        }
+        states = ThreadLocal.withInitial(() -> new State(newMac(key)));
+    }
+
+    /**
+     * @param body request body
+     * @return hex encoded lower case signature
+     */
+    String sign(String body) {
+        State state = states.get();
+        Mac mac = state.mac;
+        byte[] bytes = state.encode(body);
+        if (bytes != null) {
+            mac.update(bytes, 0, body.length());
+        } else {
+            mac.update(body.getBytes(StandardCharsets.UTF_8));
+        }
+        return state.hex(mac.doFinal());
+    }
+
+    private Mac newMac(SecretKeySpec key) {
+        try {
+            return (Mac) prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            // provider without clone support, init new instance
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (NoSuchAlgorithmException | InvalidKeyException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+    }
+
+    /**
+     * Per thread mac and buffers
+     */
+    private static final class State {
+
+        private final Mac mac;
+        private final char[] hex;
+        private byte[] bytes = new byte[256];
+
+        State(Mac mac) {
+            this.mac = mac;
+            this.hex = new char[mac.getMacLength() * 2];
+        }
+
+        /**
+         * @return reused buffer with ascii body, null if body is not ascii
+         */
+        byte[] encode(String body) {
+            int length = body.length();
+            if (bytes.length < length) {
+                bytes = new byte[Math.max(length, bytes.length * 2)];
+            }
+            for (int i = 0; i < length; i++) {
+                char c = body.charAt(i);
+                if (c > 0x7F) {
+                    return null;
+                }
+                bytes[i] = (byte) c;
+            }
+            return bytes;
+        }
+
+        String hex(byte[] signature) {
+            for (int i = 0; i < signature.length; i++) {
+                hex[2 * i] = HEX[(signature[i] >> 4) & 0xF];
+                hex[2 * i + 1] = HEX[signature[i] & 0xF];
+            }
+            return new String(hex, 0, signature.length * 2);
+        }
+    }
+}
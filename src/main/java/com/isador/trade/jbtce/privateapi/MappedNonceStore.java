@@ -0,0 +1,189 @@
+package com.isador.trade.jbtce.privateapi;
+
+import com.isador.trade.jbtce.BTCEException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Persistent nonce source of one api key, backed by small memory mapped file.
+ * Nonces are reserved in blocks. Upper bound of reserved block is written to the file before first nonce
+ * of the block is returned, so after restart, even after crash, store continues above any nonce returned before
+ * and never goes back. Only block reservation touches the file and flushes it to disk, nonces of reserved block
+ * are returned from memory. Unused rest of the block is skipped on restart, unless store was closed.<br>
+ * File keeps two slots of (nonce, ~nonce), written in turns with single aligned long writes, so a torn write
+ * spoils only one slot and the other one keeps previous bound.<br>
+ * File is locked while store is open, one file serves one key of one process.
+ *
+ * @author isador
+ * @since 2.0.1
+ */
+public class MappedNonceStore implements NonceSource, Closeable {
+
+    public static final int DEFAULT_BLOCK_SIZE = 1000;
+
+    private static final Logger LOG = LoggerFactory.getLogger(MappedNonceStore.class);
+    private static final int SLOT_SIZE = 16;
+    private static final int FILE_SIZE = 2 * SLOT_SIZE;
+
+    private final int blockSize;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final AtomicLong nonce;
+    private volatile long reserved;
+    private int slot;
+    private volatile boolean closed;
+
+    /**
+     * Open store with default block size
+     *
+     * @param file store file, created if missing
+     * @throws BTCEException if file can't be opened or is locked by other store
+     */
+    public MappedNonceStore(Path file) {
+        this(file, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Open store. New store starts from current epoch second
+     *
+     * @param file      store file, created if missing
+     * @param blockSize nonces reserved at once
+     * @throws IllegalArgumentException if block size is not positive
+     * @throws BTCEException            if file can't be opened or is locked by other store
+     */
+    public MappedNonceStore(Path file, int blockSize) {
+        requireNonNull(file, "File must be specified");
+        checkArgument(blockSize > 0, "Invalid block size: %s", blockSize);
+        this.blockSize = blockSize;
+        try {
+            channel = FileChannel.open(file, CREATE, READ, WRITE);
+        } catch (IOException e) {
+            throw new BTCEException("Can't open nonce store " + file, e);
+        }
+        try {
+            FileLock lock = channel.tryLock();
+            if (lock == null) {
+                throw new BTCEException("Nonce store is locked by other process: " + file);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+        } catch (IOException | OverlappingFileLockException e) {
+            closeQuietly();
+            throw new BTCEException("Can't open nonce store " + file, e);
+        } catch (BTCEException e) {
+            closeQuietly();
+            throw e;
+        }
+
+        long first = 0;
+        for (int i = 0; i < 2; i++) {
+            long stored = readSlot(i);
+            if (stored > first) {
+                first = stored;
+                slot = i;
+            }
+        }
+        if (first == 0) {
+            first = System.currentTimeMillis() / 1000;
+        }
+        nonce = new AtomicLong(first);
+        reserve(first);
+        LOG.debug("Nonce store {} opened, next nonce {}", file, first);
+    }
+
+    /**
+     * @return next nonce
+     * @throws IllegalStateException if store is closed
+     */
+    @Override
+    public long next() {
+        long next = nonce.getAndIncrement();
+        // close() marks store closed before reading the counter, so a nonce taken before the mark
+        // is below the recorded restart point, and one taken after it is never returned
+        checkState(!closed, "Nonce store is closed");
+        if (next >= reserved) {
+            reserve(next);
+        }
+        return next;
+    }
+
+    @Override
+    public void advance(long nonce) {
+        this.nonce.accumulateAndGet(nonce, Math::max);
+    }
+
+    /**
+     * @return upper bound (exclusive) of reserved nonces
+     */
+    public long getReserved() {
+        return reserved;
+    }
+
+    /**
+     * Record next nonce, so restart skips nothing, flush and unlock file
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        // both slots, restart takes the greater one
+        long next = Math.min(nonce.get(), reserved);
+        writeSlot(next);
+        writeSlot(next);
+        buffer.force();
+        closeQuietly();
+    }
+
+    /**
+     * Reserve block from nonce, if it is not reserved yet
+     *
+     * @param from first nonce of block
+     */
+    private synchronized void reserve(long from) {
+        checkState(!closed, "Nonce store is closed");
+        if (from < reserved) {
+            return;
+        }
+        long bound = from + blockSize;
+        writeSlot(bound);
+        buffer.force();
+        reserved = bound;
+    }
+
+    private long readSlot(int index) {
+        long value = buffer.getLong(index * SLOT_SIZE);
+        long check = buffer.getLong(index * SLOT_SIZE + 8);
+        return value == ~check ? value : 0;
+    }
+
+    private void writeSlot(long value) {
+        slot ^= 1;
+        buffer.putLong(slot * SLOT_SIZE, value);
+        buffer.putLong(slot * SLOT_SIZE + 8, ~value);
+    }
+
+    private void closeQuietly() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOG.debug("Error closing nonce store", e);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.isador.trade.jbtce.privateapi;
+
+import com.isador.trade.jbtce.BTCEException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Ordered tapi call pipeline of one api key.
+ * Calls may be submitted from any thread. They are queued and sent one by one in submission order,
+ * each with the next nonce of {@link NonceSource}, so server receives nonces strictly in order. Next call is sent
+ * only after previous one has completed.<br>
+ * Calls are started on the dispatcher's own sender thread, so they don't depend on state of submitting threads,
+ * ex. interrupt status. The thread is started on demand and stops when pipeline is idle. Asynchronous calls
+ * don't hold the thread while waiting for response.<br>
+ * Idempotent call rejected with "invalid nonce" error is retried at once, with the nonce server expects.
+ * Other calls, ex. placing an order, fail with that error, since rejected request may be a resend of a request
+ * server has already executed.
+ *
+ * @author isador
+ * @since 2.0.1
+ */
+public class NonceDispatcher {
+
+    public static final int DEFAULT_MAX_RETRIES = 3;
+
+    private static final Logger LOG = LoggerFactory.getLogger(NonceDispatcher.class);
+    // invalid nonce parameter; on key:1498047062, you sent:'1', you should send:1498047063
+    private static final Pattern INVALID_NONCE = Pattern.compile("invalid nonce.*?you should send:\\s*'?(\\d+)",
+            Pattern.CASE_INSENSITIVE);
+
+    private final NonceSource nonces;
+    private final int maxRetries;
+    private final ExecutorService sender;
+    private CompletableFuture<?> tail = CompletableFuture.completedFuture(null);
+
+    /**
+     * @param nonces nonce source
+     */
+    public NonceDispatcher(NonceSource nonces) {
+        this(nonces, DEFAULT_MAX_RETRIES);
+    }
+
+    /**
+     * @param nonces     nonce source
+     * @param maxRetries max retries of idempotent call on invalid nonce
+     * @throws IllegalArgumentException if max retries is negative
+     */
+    public NonceDispatcher(NonceSource nonces, int maxRetries) {
+        this.nonces = requireNonNull(nonces, "Nonce source must be specified");
+        checkArgument(maxRetries >= 0, "Invalid max retries: %s", maxRetries);
+        this.maxRetries = maxRetries;
+        // at most one thread, started on demand
+        this.sender = new ThreadPoolExecutor(0, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "jbtce-nonce-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return nonce source
+     */
+    public NonceSource getNonceSource() {
+        return nonces;
+    }
+
+    /**
+     * Queue idempotent call
+     *
+     * @param call call to execute with nonce
+     * @param <T>  result type
+     * @return call result future, completed exceptionally if call failed
+     */
+    public <T> CompletableFuture<T> submit(NonceCall<T> call) {
+        return submit(call, true);
+    }
+
+    /**
+     * Queue call
+     *
+     * @param call       call to execute with nonce
+     * @param idempotent true if call may be sent again on invalid nonce
+     * @param <T>        result type
+     * @return call result future, completed exceptionally if call failed
+     */
+    public <T> CompletableFuture<T> submit(NonceCall<T> call, boolean idempotent) {
+        requireNonNull(call, "Call must be specified");
+        return submitAsync(nonce -> CompletableFuture.completedFuture(call.call(nonce)), idempotent);
+    }
+
+    /**
+     * Queue asynchronous call. Next call is sent when future returned by this one completes
+     *
+     * @param call       call to start with nonce
+     * @param idempotent true if call may be sent again on invalid nonce
+     * @param <T>        result type
+     * @return call result future, completed exceptionally if call failed
+     */
+    public <T> CompletableFuture<T> submitAsync(AsyncNonceCall<T> call, boolean idempotent) {
+        requireNonNull(call, "Call must be specified");
+        synchronized (this) {
+            CompletableFuture<T> result = tail.handle((r, e) -> null)
+                    .thenComposeAsync(ignored -> attempt(call, idempotent, 0), sender);
+            tail = result;
+            return result;
+        }
+    }
+
+    /**
+     * Queue idempotent call and wait for its result
+     *
+     * @param call call to execute with nonce
+     * @param <T>  result type
+     * @return call result
+     * @throws BTCEException if call failed, or thread was interrupted while waiting
+     */
+    public <T> T execute(NonceCall<T> call) throws BTCEException {
+        return execute(call, true);
+    }
+
+    /**
+     * Queue call and wait for its result.
+     * Interrupt of waiting thread doesn't cancel queued call
+     *
+     * @param call       call to execute with nonce
+     * @param idempotent true if call may be sent again on invalid nonce
+     * @param <T>        result type
+     * @return call result
+     * @throws BTCEException if call failed, or thread was interrupted while waiting
+     */
+    public <T> T execute(NonceCall<T> call, boolean idempotent) throws BTCEException {
+        try {
+            return submit(call, idempotent).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BTCEException("Interrupted while waiting for response", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new BTCEException(e.getCause());
+        }
+    }
+
+    /**
+     * Send call with next nonce. Only one call is in flight at a time, so nonces are taken in order
+     */
+    private <T> CompletableFuture<T> attempt(AsyncNonceCall<T> call, boolean idempotent, int attempt) {
+        long nonce = nonces.next();
+        CompletableFuture<T> future;
+        try {
+            future = requireNonNull(call.call(nonce), "Call must return future");
+        } catch (RuntimeException | Error e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        return future.handle((result, error) -> {
+            if (error == null) {
+                return CompletableFuture.completedFuture(result);
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+            long expected = cause instanceof BTCEException ? expectedNonce(cause.getMessage()) : -1;
+            if (expected < 0 || !idempotent || attempt >= maxRetries) {
+                CompletableFuture<T> failed = new CompletableFuture<>();
+                failed.completeExceptionally(cause);
+                return failed;
+            }
+            LOG.debug("Nonce {} rejected, retrying with {}", nonce, expected);
+            nonces.advance(expected);
+            return CompletableFuture.<Void>completedFuture(null)
+                    .thenComposeAsync(ignored -> attempt(call, idempotent, attempt + 1), sender);
+        }).thenCompose(f -> f);
+    }
+
+    /**
+     * @param message server error message
+     * @return nonce server expects, -1 if it is not invalid nonce error
+     */
+    static long expectedNonce(String message) {
+        if (message == null) {
+            return -1;
+        }
+        Matcher matcher = INVALID_NONCE.matcher(message);
+        return matcher.find() ? Long.parseLong(matcher.group(1)) : -1;
+    }
+
+    /**
+     * Tapi call taking nonce
+     *
+     * @param <T> result type
+     */
+    @FunctionalInterface
+    public interface NonceCall<T> {
+
+        /**
+         * @param nonce request nonce
+         * @return result
+         * @throws BTCEException if call failed
+         */
+        T call(long nonce) throws BTCEException;
+    }
+
+    /**
+     * Asynchronous tapi call taking nonce
+     *
+     * @param <T> result type
+     */
+    @FunctionalInterface
+    public interface AsyncNonceCall<T> {
+
+        /**
+         * @param nonce request nonce
+         * @return result future, completed exceptionally with {@link BTCEException} if call failed
+         */
+        CompletableFuture<T> call(long nonce);
+    }
+}
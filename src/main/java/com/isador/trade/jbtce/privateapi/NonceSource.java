@@ -0,0 +1,24 @@
+package com.isador.trade.jbtce.privateapi;
+
+/**
+ * Source of tapi nonces of one api key.
+ * Server accepts only nonces greater than the last one it has seen for the key.
+ *
+ * @author isador
+ * @since 2.0.1
+ * @see NonceDispatcher
+ */
+public interface NonceSource {
+
+    /**
+     * @return next nonce, greater than any returned before
+     */
+    long next();
+
+    /**
+     * Move source forward, so next nonce is not less than specified one. Never moves source back
+     *
+     * @param nonce minimal next nonce
+     */
+    void advance(long nonce);
+}
@@ -0,0 +1,234 @@
+package com.isador.trade.jbtce.privateapi;
+
+import com.isador.trade.jbtce.BTCEException;
+import com.isador.trade.jbtce.constants.Pair;
+import com.isador.trade.jbtce.constants.TradeType;
+import com.isador.trade.jbtce.publicapi.BTCEInfo;
+import com.isador.trade.jbtce.publicapi.PairInfo;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Local pre-trade check of orders against pair limits from server info: price range, min amount and
+ * decimal places of the rate. Order which would be rejected by server is rejected locally, without signed round trip.
+ * Info is taken from supplier on every check, so it should be cached, ex. {@code new OrderValidator(cachingApi::getInfo, Mode.ROUND)}.
+ * Pairs missing in info are not checked.
+ *
+ * @author isador
+ * @since 2.0.1
+ */
+public class OrderValidator {
+
+    /**
+     * Decimal places of order amount accepted by server
+     */
+    public static final int AMOUNT_DECIMAL_PLACES = 8;
+
+    // max distance in ulps between scaled value and integer, for value to fit decimal places
+    private static final int TOLERANCE_ULPS = 4;
+    private static final double[] POWERS = new double[19];
+
+    static {
+        POWERS[0] = 1;
+        for (int i = 1; i < POWERS.length; i++) {
+            POWERS[i] = POWERS[i - 1] * 10;
+        }
+    }
+
+    /**
+     * What to do with rate or amount having too many decimal places
+     */
+    public enum Mode {
+        /**
+         * Reject order
+         */
+        REJECT,
+        /**
+         * Round rate to the side not worse for the order (down for buy, up for sell) and amount down
+         */
+        ROUND
+    }
+
+    private final Supplier<BTCEInfo> info;
+    private final Mode mode;
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder rounded = new LongAdder();
+    private volatile Limits limits;
+
+    /**
+     * @param info server info supplier
+     * @param mode decimal places handling
+     * @throws NullPointerException if info or mode is null
+     */
+    public OrderValidator(Supplier<BTCEInfo> info, Mode mode) {
+        this.info = requireNonNull(info, "Info must be specified");
+        this.mode = requireNonNull(mode, "Mode must be specified");
+    }
+
+    /**
+     * Check order
+     *
+     * @param pair   pair
+     * @param type   order type
+     * @param rate   order rate
+     * @param amount order amount
+     * @return order to send, with rounded rate and amount if mode is {@link Mode#ROUND}
+     * @throws BTCEException if order breaks pair limits, or info can't be loaded
+     */
+    public Result validate(Pair pair, TradeType type, double rate, double amount) throws BTCEException {
+        PairInfo pairInfo = limits().get(pair);
+        if (pairInfo == null) {
+            return new Result(rate, amount, false);
+        }
+
+        double validRate = round(rate, pairInfo.getDecimalPlaces(), type == TradeType.SELL);
+        double validAmount = round(amount, AMOUNT_DECIMAL_PLACES, false);
+        boolean adjusted = validRate != rate || validAmount != amount;
+        if (adjusted && mode == Mode.REJECT) {
+            throw reject(validRate != rate
+                    ? "Invalid rate " + rate + ", max decimal places: " + pairInfo.getDecimalPlaces()
+                    : "Invalid amount " + amount + ", max decimal places: " + AMOUNT_DECIMAL_PLACES);
+        }
+        if (validRate < pairInfo.getMinPrice() || validRate > pairInfo.getMaxPrice()) {
+            throw reject("Invalid rate " + validRate + ", must be in [" + pairInfo.getMinPrice()
+                    + ", " + pairInfo.getMaxPrice() + "]");
+        }
+        if (validAmount < pairInfo.getMinAmount()) {
+            throw reject("Invalid amount " + validAmount + ", min amount: " + pairInfo.getMinAmount());
+        }
+        if (adjusted) {
+            rounded.increment();
+        }
+        return new Result(validRate, validAmount, adjusted);
+    }
+
+    /**
+     * @return decimal places handling
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return orders rejected locally
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return orders sent with rounded rate or amount
+     */
+    public long getRoundedCount() {
+        return rounded.sum();
+    }
+
+    /**
+     * @return round trips saved: orders rejected locally plus rounded orders, which server would reject
+     */
+    public long getSavedRoundTrips() {
+        return rejected.sum() + rounded.sum();
+    }
+
+    private BTCEException reject(String message) {
+        rejected.increment();
+        return new BTCEException(message);
+    }
+
+    /**
+     * Pair limits are indexed by pair ordinal and rebuilt only when supplier returns new info
+     */
+    private Limits limits() {
+        BTCEInfo current = requireNonNull(info.get(), "Info must be specified");
+        Limits cached = limits;
+        if (cached == null || cached.info != current) {
+            cached = new Limits(current);
+            limits = cached;
+        }
+        return cached;
+    }
+
+    /**
+     * @param value  positive value
+     * @param places decimal places
+     * @param up     round up, otherwise down
+     * @return value with at most places decimal places, the same value if it already fits
+     */
+    static double round(double value, int places, boolean up) {
+        double power = POWERS[Math.min(Math.max(places, 0), POWERS.length - 1)];
+        double scaled = value * power;
+        double nearest = Math.rint(scaled);
+        if (Math.abs(scaled - nearest) <= TOLERANCE_ULPS * Math.ulp(scaled)) {
+            return value;
+        }
+        return (up ? Math.ceil(scaled) : Math.floor(scaled)) / power;
+    }
+
+    /**
+     * Checked order
+     */
+    public static final class Result {
+
+        private final double rate;
+        private final double amount;
+        private final boolean rounded;
+
+        Result(double rate, double amount, boolean rounded) {
+            this.rate = rate;
+            this.amount = amount;
+            this.rounded = rounded;
+        }
+
+        /**
+         * @return rate to send
+         */
+        public double getRate() {
+            return rate;
+        }
+
+        /**
+         * @return amount to send
+         */
+        public double getAmount() {
+            return amount;
+        }
+
+        /**
+         * @return true if rate or amount was rounded
+         */
+        public boolean isRounded() {
+            return rounded;
+        }
+
+        @Override
+        public String toString() {
+            return "Result{" +
+                    "rate=" + rate +
+                    ", amount=" + amount +
+                    ", rounded=" + rounded +
+                    '}';
+        }
+    }
+
+    private static final class Limits {
+
+        private final BTCEInfo info;
+        private final PairInfo[] byPair = new PairInfo[Pair.values().length];
+
+        private Limits(BTCEInfo info) {
+            this.info = info;
+            for (PairInfo pairInfo : info.getPairInfoList()) {
+                if (pairInfo.getPair() != null && !pairInfo.isHidden()) {
+                    byPair[pairInfo.getPair().ordinal()] = pairInfo;
+                }
+            }
+        }
+
+        private PairInfo get(Pair pair) {
+            return byPair[pair.ordinal()];
+        }
+    }
+}
@@ -12,20 +12,17 @@ import com.isador.trade.jbtce.privateapi.deserializer.FundsDeserializer;
 import com.isador.trade.jbtce.privateapi.deserializer.OrderStatusDeserializer;
 import com.isador.trade.jbtce.privateapi.deserializer.TransactionStatusDeserializer;
 import com.isador.trade.jbtce.privateapi.deserializer.TransactionTypeDeserializer;
-import org.apache.commons.codec.binary.Hex;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-import java.nio.charset.Charset;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
@@ -39,9 +36,17 @@ import static java.util.stream.Collectors.joining;
  */
 public class PrivateApi extends AbstractApi {
 
+    /**
+     * Max records returned by server per history call
+     */
+    public static final int MAX_HISTORY_PAGE_SIZE = 1000;
+
     private static final String PRIVATE_API_URL = "tapi";
-    private static final AtomicLong nonce = new AtomicLong(System.currentTimeMillis() / 1000);
-    private final Mac mac;
+    // one per key, so calls of unrelated keys don't wait for each other
+    private static final ConcurrentMap<String, NonceDispatcher> DEFAULT_DISPATCHERS = new ConcurrentHashMap<>();
+    private final HmacSigner signer;
+    private final NonceDispatcher dispatcher;
+    private volatile OrderValidator orderValidator;
 
     /**
      * Create new private api instance using default serverProvider and connector
@@ -56,7 +61,7 @@ public class PrivateApi extends AbstractApi {
     }
 
     /**
-     * Create new private api instance
+     * Create new private api instance, sharing nonce dispatcher with other instances of the same key
      *
      * @param key            api key
      * @param secret         api secret
@@ -65,8 +70,30 @@ public class PrivateApi extends AbstractApi {
      * @throws NullPointerException if key or secret is null
      * @throws RuntimeException     if there is any exception during mac init.
      */
-    @SuppressWarnings("unchecked")
     public PrivateApi(String key, String secret, ServerProvider serverProvider, Connector connector) {
+        this(key, secret, serverProvider, connector, defaultDispatcher(key));
+    }
+
+    private static NonceDispatcher defaultDispatcher(String key) {
+        requireNonNull(key, "Key must be specified");
+        return DEFAULT_DISPATCHERS.computeIfAbsent(key, k -> new NonceDispatcher(new SequentialNonceSource()));
+    }
+
+    /**
+     * Create new private api instance.
+     * Calls are sent through dispatcher in nonce order, all instances of one key must share the dispatcher
+     *
+     * @param key            api key
+     * @param secret         api secret
+     * @param serverProvider server provider implementation
+     * @param connector      connector implementation
+     * @param dispatcher     nonce dispatcher of the key
+     * @throws NullPointerException if key, secret or dispatcher is null
+     * @throws RuntimeException     if there is any exception during mac init.
+     */
+    @SuppressWarnings("unchecked")
+    public PrivateApi(String key, String secret, ServerProvider serverProvider, Connector connector,
+                      NonceDispatcher dispatcher) {
         super(serverProvider, connector, new Builder()
                 .put(LocalDateTime.class, new LocalDateTimeDeserializer())
                 .put(Funds.class, new FundsDeserializer())
@@ -79,19 +106,29 @@ public class PrivateApi extends AbstractApi {
         requireNonNull(key, "Key must be specified");
         requireNonNull(secret, "Secret must be specified");
 
-        // Init mac
-        try {
-            String alg = "HmacSHA512";
-            mac = Mac.getInstance(alg);
-            mac.init(new SecretKeySpec(secret.getBytes(Charset.forName("UTF-8")), alg));
-        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
-            throw new RuntimeException(e);
-        }
+        signer = new HmacSigner(secret);
+        this.dispatcher = requireNonNull(dispatcher, "Dispatcher must be specified");
 
         // Init headers
         headers.put("Key", key);
     }
 
+    /**
+     * @return order validator, null if orders are not checked locally
+     */
+    public OrderValidator getOrderValidator() {
+        return orderValidator;
+    }
+
+    /**
+     * Check orders locally against pair limits before sending
+     *
+     * @param orderValidator validator, null to disable
+     */
+    public void setOrderValidator(OrderValidator orderValidator) {
+        this.orderValidator = orderValidator;
+    }
+
     /**
      * Returns information about the user’s current balance, API-key privileges, the number of open orders and Server Time.<br>
      * To use this method you need a privilege of the key info.<br>
@@ -101,7 +138,7 @@ public class PrivateApi extends AbstractApi {
      * @see UserInfo
      */
     public UserInfo getUserInfo() throws BTCEException {
-        JsonElement response = call("getInfo", null);
+        JsonElement response = call("getInfo", null, true);
         return gson.fromJson(response, UserInfo.class);
     }
 
@@ -110,28 +147,49 @@ public class PrivateApi extends AbstractApi {
      * To use this method you need an API key privilege to trade.<br>
      * You can only create limit orders using this method, but you can emulate market orders using rate parameters. E.g. using rate=0.1 you can sell at the best market price.<br>
      * Each pair has a different limit on the minimum / maximum amounts, the minimum amount and the number of digits after the decimal point. All limitations can be obtained using the info method in PublicAPI v3.<br>
+     * If order validator is set, order is checked locally before sending.<br>
      *
      * @param pair   pair
      * @param type   order type
      * @param rate   the rate at which you need to buy/sell
      * @param amount the amount you need to buy / sell
      * @return tradeResult
-     * @throws BTCEException if was any error during execution
+     * @throws BTCEException if was any error during execution, or order was rejected by validator
      * @see TradeResult
+     * @see #setOrderValidator(OrderValidator)
      */
     public TradeResult trade(Pair pair, TradeType type, double rate, double amount) throws BTCEException {
+        JsonElement response = call("Trade", tradeParameters(pair, type, rate, amount), false);
+        return gson.fromJson(response, TradeResult.class);
+    }
+
+    /**
+     * Check order and prepare trade parameters
+     *
+     * @param pair   pair
+     * @param type   order type
+     * @param rate   the rate at which you need to buy/sell
+     * @param amount the amount you need to buy / sell
+     * @return trade parameters, with rate and amount adjusted by validator
+     * @throws BTCEException if order was rejected by validator
+     */
+    private Map<String, Object> tradeParameters(Pair pair, TradeType type, double rate, double amount) throws BTCEException {
         requireNonNull(pair, "Invalid trade pair");
         requireNonNull(type, "Invalid trade type");
         checkArgument(rate > 0, "Invalid trade rate: %s", rate);
         checkArgument(amount > 0, "Invalid trade amount: %s", amount);
 
-        Map<String, Object> map = ImmutableMap.of("pair", pair.getName(),
+        OrderValidator validator = orderValidator;
+        if (validator != null) {
+            OrderValidator.Result order = validator.validate(pair, type, rate, amount);
+            rate = order.getRate();
+            amount = order.getAmount();
+        }
+
+        return ImmutableMap.of("pair", pair.getName(),
                 "type", type.name().toLowerCase(),
                 "rate", rate,
                 "amount", amount);
-
-        JsonElement response = call("Trade", map);
-        return gson.fromJson(response, TradeResult.class);
     }
 
     /**
@@ -145,13 +203,7 @@ public class PrivateApi extends AbstractApi {
      */
     public List<Order> getActiveOrders(Pair pair) throws BTCEException {
         Map<String, Object> map = new ParametersBuilder().pair(pair).build();
-        JsonObject response = (JsonObject) call("ActiveOrders", map);
-
-        // stupid orders return format
-        return response.entrySet().stream()
-                .peek(e -> e.getValue().getAsJsonObject().addProperty("id", e.getKey()))
-                .map(e -> gson.fromJson(e.getValue(), Order.class))
-                .collect(Collectors.toList());
+        return toList(call("ActiveOrders", map, true), Order.class);
     }
 
     /**
@@ -187,13 +239,7 @@ public class PrivateApi extends AbstractApi {
                 .active(active)
                 .build();
 
-        JsonObject response = (JsonObject) call("OrderList", map);
-
-        // stupid orders return format
-        return response.entrySet().stream()
-                .peek(e -> e.getValue().getAsJsonObject().addProperty("id", e.getKey()))
-                .map(e -> gson.fromJson(e.getValue(), Order.class))
-                .collect(Collectors.toList());
+        return toList(call("OrderList", map, true), Order.class);
     }
 
     /**
@@ -213,7 +259,14 @@ public class PrivateApi extends AbstractApi {
     public List<Transaction> getTransactionsList(Long fromNum, Integer count, Long fromId,
                                                  Long endId, Sort sort, LocalDateTime since,
                                                  LocalDateTime end) throws BTCEException {
-        Map<String, Object> map = new ParametersBuilder()
+        return toList(call("TransHistory", transactionsParameters(fromNum, count, fromId, endId, sort, since, end), true),
+                Transaction.class);
+    }
+
+    private Map<String, Object> transactionsParameters(Long fromNum, Integer count, Long fromId,
+                                                       Long endId, Sort sort, LocalDateTime since,
+                                                       LocalDateTime end) {
+        return new ParametersBuilder()
                 .from(fromNum)
                 .count(count)
                 .fromId(fromId)
@@ -222,13 +275,6 @@ public class PrivateApi extends AbstractApi {
                 .since(since)
                 .end(end)
                 .build();
-
-        JsonObject response = (JsonObject) call("TransHistory", map);
-        LocalDateTime.parse("2007-12-03T00:00:00");
-        return response.entrySet().stream()
-                .peek(e -> e.getValue().getAsJsonObject().addProperty("id", e.getKey()))
-                .map(e -> gson.fromJson(e.getValue(), Transaction.class))
-                .collect(Collectors.toList());
     }
 
     /**
@@ -258,7 +304,14 @@ public class PrivateApi extends AbstractApi {
     public List<TradeHistory> getTradeHistory(Long fromNum, Integer count, Long fromId,
                                               Long endId, Sort sort, LocalDateTime since,
                                               LocalDateTime end, Pair pair) throws BTCEException {
-        Map<String, Object> map = new ParametersBuilder()
+        return toList(call("TradeHistory", tradeHistoryParameters(fromNum, count, fromId, endId, sort, since, end, pair), true),
+                TradeHistory.class);
+    }
+
+    private Map<String, Object> tradeHistoryParameters(Long fromNum, Integer count, Long fromId,
+                                                       Long endId, Sort sort, LocalDateTime since,
+                                                       LocalDateTime end, Pair pair) {
+        return new ParametersBuilder()
                 .from(fromNum)
                 .count(count)
                 .fromId(fromId)
@@ -268,12 +321,73 @@ public class PrivateApi extends AbstractApi {
                 .end(end)
                 .pair(pair)
                 .build();
+    }
 
-        JsonObject response = (JsonObject) call("TradeHistory", map);
-        return response.entrySet().stream()
-                .peek(e -> e.getValue().getAsJsonObject().addProperty("id", e.getKey()))
-                .map(e -> gson.fromJson(e.getValue(), TradeHistory.class))
-                .collect(Collectors.toList());
+    /**
+     * Lazily page through trade history, newest first.<br>
+     * Pages of <code>pageSize</code> trades are requested on demand, next page is prefetched on executor while
+     * current one is consumed, so at most two pages are held in memory.
+     * <pre>
+     * {@code
+     * // sync trades after last synced one
+     * try (Stream<TradeHistory> trades = api.streamTradeHistory(lastId + 1, BTC_USD, 1000, executor)) {
+     *     trades.forEach(store::save);
+     * }
+     * }
+     * </pre>
+     *
+     * @param fromId   trade ID, from which the display starts (inclusive), null for all trades
+     * @param pair     pair to be displayed, null for all pairs
+     * @param pageSize trades per call, at most 1000
+     * @param executor executor to prefetch pages on
+     * @return lazy stream of trades. Stream throws {@link BTCEException} if page request failed
+     * @throws IllegalArgumentException if page size is not in [1, 1000]
+     */
+    public Stream<TradeHistory> streamTradeHistory(Long fromId, Pair pair, int pageSize, Executor executor) {
+        return tradeHistoryIterator(fromId, pair, pageSize, executor).stream();
+    }
+
+    /**
+     * Lazily page through trade history, newest first
+     *
+     * @param fromId   trade ID, from which the display starts (inclusive), null for all trades
+     * @param pair     pair to be displayed, null for all pairs
+     * @param pageSize trades per call, at most 1000
+     * @param executor executor to prefetch pages on
+     * @return lazy iterator of trades. Iterator throws {@link BTCEException} if page request failed
+     * @throws IllegalArgumentException if page size is not in [1, 1000]
+     * @see #streamTradeHistory(Long, Pair, int, Executor)
+     */
+    public Iterator<TradeHistory> iterateTradeHistory(Long fromId, Pair pair, int pageSize, Executor executor) {
+        return tradeHistoryIterator(fromId, pair, pageSize, executor);
+    }
+
+    /**
+     * Lazily page through transactions history, newest first
+     *
+     * @param fromId   transaction ID, from which the display starts (inclusive), null for all transactions
+     * @param pageSize transactions per call, at most 1000
+     * @param executor executor to prefetch pages on
+     * @return lazy stream of transactions. Stream throws {@link BTCEException} if page request failed
+     * @throws IllegalArgumentException if page size is not in [1, 1000]
+     * @see #streamTradeHistory(Long, Pair, int, Executor)
+     */
+    public Stream<Transaction> streamTransactions(Long fromId, int pageSize, Executor executor) {
+        return transactionsIterator(fromId, pageSize, executor).stream();
+    }
+
+    /**
+     * Lazily page through transactions history, newest first
+     *
+     * @param fromId   transaction ID, from which the display starts (inclusive), null for all transactions
+     * @param pageSize transactions per call, at most 1000
+     * @param executor executor to prefetch pages on
+     * @return lazy iterator of transactions. Iterator throws {@link BTCEException} if page request failed
+     * @throws IllegalArgumentException if page size is not in [1, 1000]
+     * @see #streamTradeHistory(Long, Pair, int, Executor)
+     */
+    public Iterator<Transaction> iterateTransactions(Long fromId, int pageSize, Executor executor) {
+        return transactionsIterator(fromId, pageSize, executor);
     }
 
     /**
@@ -288,25 +402,208 @@ public class PrivateApi extends AbstractApi {
         checkArgument(orderId > 0, "Invalid oderId: %s", orderId);
 
         Map<String, Object> map = ImmutableMap.of("order_id", orderId);
-        JsonElement response = call("CancelOrder", map);
+        JsonElement response = call("CancelOrder", map, false);
         return gson.fromJson(response, CancelOrderResult.class);
     }
 
     /**
-     * Call tapi method with specified parameters
+     * Asynchronous {@link #getUserInfo()} through async connector
+     *
+     * @param asyncConnector async connector
+     * @return user info future
+     * @see AsyncPrivateApi
+     */
+    CompletableFuture<UserInfo> getUserInfoAsync(AsyncConnector asyncConnector) {
+        return startAsync(() -> callAsync(asyncConnector, "getInfo", null, true)
+                .thenApply(response -> gson.fromJson(response, UserInfo.class)));
+    }
+
+    /**
+     * Asynchronous {@link #trade(Pair, TradeType, double, double)} through async connector
+     *
+     * @param asyncConnector async connector
+     * @param pair           pair
+     * @param type           order type
+     * @param rate           the rate at which you need to buy/sell
+     * @param amount         the amount you need to buy / sell
+     * @return trade result future, completed exceptionally with {@link BTCEException} if order was rejected by validator,
+     * or with {@link NullPointerException} or {@link IllegalArgumentException} if arguments are invalid
+     * @see AsyncPrivateApi
+     */
+    CompletableFuture<TradeResult> tradeAsync(AsyncConnector asyncConnector, Pair pair, TradeType type, double rate, double amount) {
+        return startAsync(() -> callAsync(asyncConnector, "Trade", tradeParameters(pair, type, rate, amount), false)
+                .thenApply(response -> gson.fromJson(response, TradeResult.class)));
+    }
+
+    /**
+     * Asynchronous {@link #getActiveOrders(Pair)} through async connector
+     *
+     * @param asyncConnector async connector
+     * @param pair           orders pair
+     * @return active orders future
+     * @see AsyncPrivateApi
+     */
+    CompletableFuture<List<Order>> getActiveOrdersAsync(AsyncConnector asyncConnector, Pair pair) {
+        return startAsync(() -> callAsync(asyncConnector, "ActiveOrders", new ParametersBuilder().pair(pair).build(), true)
+                .thenApply(response -> toList(response, Order.class)));
+    }
+
+    /**
+     * Asynchronous {@link #getTransactionsList(Long, Integer, Long, Long, Sort, LocalDateTime, LocalDateTime)} through async connector
+     *
+     * @param asyncConnector async connector
+     * @param fromNum        transaction number from which to read
+     * @param count          transactions count
+     * @param fromId         from <code>transactionId</code> (inclusive)
+     * @param endId          end <code>transactionId</code> (inclusive)
+     * @param sort           <code>ASC</code> when using <code>since</code> or <code>end</code>
+     * @param since          list transactions after timestamp
+     * @param end            list transactions before this timestamp
+     * @return user transactions future
+     * @see AsyncPrivateApi
+     */
+    CompletableFuture<List<Transaction>> getTransactionsListAsync(AsyncConnector asyncConnector, Long fromNum, Integer count,
+                                                                  Long fromId, Long endId, Sort sort,
+                                                                  LocalDateTime since, LocalDateTime end) {
+        return startAsync(() -> callAsync(asyncConnector, "TransHistory",
+                transactionsParameters(fromNum, count, fromId, endId, sort, since, end), true)
+                .thenApply(response -> toList(response, Transaction.class)));
+    }
+
+    /**
+     * Asynchronous {@link #getTradeHistory(Long, Integer, Long, Long, Sort, LocalDateTime, LocalDateTime, Pair)} through async connector
+     *
+     * @param asyncConnector async connector
+     * @param fromNum        trade number, from which the display starts
+     * @param count          the number of trades for display
+     * @param fromId         trade ID, from which the display starts
+     * @param endId          trade ID on which the display ends
+     * @param sort           Sorting
+     * @param since          the time to start the display
+     * @param end            the time to end the display
+     * @param pair           pair to be displayed
+     * @return trades future
+     * @see AsyncPrivateApi
+     */
+    CompletableFuture<List<TradeHistory>> getTradeHistoryAsync(AsyncConnector asyncConnector, Long fromNum, Integer count,
+                                                               Long fromId, Long endId, Sort sort,
+                                                               LocalDateTime since, LocalDateTime end, Pair pair) {
+        return startAsync(() -> callAsync(asyncConnector, "TradeHistory",
+                tradeHistoryParameters(fromNum, count, fromId, endId, sort, since, end, pair), true)
+                .thenApply(response -> toList(response, TradeHistory.class)));
+    }
+
+    /**
+     * Asynchronous {@link #cancelOrder(long)} through async connector
+     *
+     * @param asyncConnector async connector
+     * @param orderId        id of cancelled order
+     * @return cancel order result future, completed exceptionally with {@link IllegalArgumentException} if order id is invalid
+     * @see AsyncPrivateApi
+     */
+    CompletableFuture<CancelOrderResult> cancelOrderAsync(AsyncConnector asyncConnector, long orderId) {
+        return startAsync(() -> {
+            checkArgument(orderId > 0, "Invalid oderId: %s", orderId);
+            Map<String, Object> map = ImmutableMap.of("order_id", orderId);
+            return callAsync(asyncConnector, "CancelOrder", map, false)
+                    .thenApply(response -> gson.fromJson(response, CancelOrderResult.class));
+        });
+    }
+
+    /**
+     * @return nonce dispatcher
+     */
+    public NonceDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    private HistoryIterator<TradeHistory> tradeHistoryIterator(Long fromId, Pair pair, int pageSize, Executor executor) {
+        return new HistoryIterator<>((endId, count) -> historyPage(() ->
+                getTradeHistory(null, count, fromId, endId, Sort.DESC, null, null, pair)),
+                TradeHistory::getId, pageSize, executor);
+    }
+
+    private HistoryIterator<Transaction> transactionsIterator(Long fromId, int pageSize, Executor executor) {
+        return new HistoryIterator<>((endId, count) -> historyPage(() ->
+                getTransactionsList(null, count, fromId, endId, Sort.DESC, null, null)),
+                Transaction::getId, pageSize, executor);
+    }
+
+    private static <T> List<T> historyPage(Supplier<List<T>> call) {
+        try {
+            return call.get();
+        } catch (BTCEException e) {
+            if (isEmptyHistory(e)) {
+                return Collections.emptyList();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Server reports empty history as error, e.g. "no trades"
+     *
+     * @param e history call error
+     * @return true if error means there are no records to return
+     */
+    public static boolean isEmptyHistory(BTCEException e) {
+        return e.getMessage() != null && e.getMessage().startsWith("no ");
+    }
+
+    /**
+     * Call tapi method with specified parameters through nonce dispatcher.
+     * Retry policy of the calling thread is passed along, since dispatcher sends the call from its own thread
      *
      * @param method               tapi method
      * @param additionalParameters method parameters
+     * @param idempotent           true for read only methods, which may be sent again on connection or nonce errors
      * @return parsed json as JsonElement
      * @throws BTCEException if there was an error executing method, invalid json returned, or smth else
      */
-    private JsonElement call(String method, Map<String, Object> additionalParameters) throws BTCEException {
-        String body = getBody(method, additionalParameters);
+    private JsonElement call(String method, Map<String, Object> additionalParameters, boolean idempotent) throws BTCEException {
+        RetryPolicy policy = currentRetryPolicy();
+        return dispatcher.execute(nonce -> call(method, additionalParameters, nonce, policy, idempotent), idempotent);
+    }
+
+    private JsonElement call(String method, Map<String, Object> additionalParameters, long nonce,
+                             RetryPolicy policy, boolean idempotent) throws BTCEException {
+        String body = getBody(method, additionalParameters, nonce);
         Map<String, String> headers = getHeaders(body);
 
-        JsonObject response = processServerResponse(connector -> connector.post(createUrl(PRIVATE_API_URL), body, headers))
-                .getAsJsonObject();
+        return checkResponse(processServerResponse((connector, handler) -> connector.post(createUrl(PRIVATE_API_URL), body, headers, handler),
+                this::parseResponse, policy, idempotent));
+    }
+
+    /**
+     * Call tapi method through nonce dispatcher and async connector.
+     * Dispatcher sends next call when response of this one is received, no thread waits for it
+     *
+     * @param asyncConnector       async connector
+     * @param method               tapi method
+     * @param additionalParameters method parameters
+     * @param idempotent           true for read only methods, which may be sent again on connection or nonce errors
+     * @return parsed json future, completed exceptionally with {@link BTCEException} if there was an error executing method
+     */
+    private CompletableFuture<JsonElement> callAsync(AsyncConnector asyncConnector, String method,
+                                                     Map<String, Object> additionalParameters, boolean idempotent) {
+        RetryPolicy policy = currentRetryPolicy();
+        return dispatcher.submitAsync(nonce -> {
+            String body = getBody(method, additionalParameters, nonce);
+            Map<String, String> headers = getHeaders(body);
+            return processServerResponseAsync(asyncConnector, (connector, handler) -> connector.post(createUrl(PRIVATE_API_URL), body, headers, handler),
+                    this::parseResponse, policy, idempotent).thenApply(this::checkResponse);
+        }, idempotent);
+    }
 
+    /**
+     * Check tapi response for error
+     *
+     * @param json response
+     * @return response "return" field
+     * @throws BTCEException if server returned error
+     */
+    private JsonElement checkResponse(JsonElement json) throws BTCEException {
+        JsonObject response = json.getAsJsonObject();
         if (get(response, "success").getAsByte() == 0) {
             throw new BTCEException(get(response, "error").getAsString());
         }
@@ -314,16 +611,33 @@ public class PrivateApi extends AbstractApi {
         return get(response, "return");
     }
 
+    /**
+     * Convert tapi records object, mapping record id to record, to records list
+     *
+     * @param response response records object
+     * @param type     record type
+     * @param <T>      record type
+     * @return records list
+     */
+    private <T> List<T> toList(JsonElement response, Class<T> type) {
+        // stupid orders return format
+        return response.getAsJsonObject().entrySet().stream()
+                .peek(e -> e.getValue().getAsJsonObject().addProperty("id", e.getKey()))
+                .map(e -> gson.fromJson(e.getValue(), type))
+                .collect(Collectors.toList());
+    }
+
     /**
      * Prepare request body
      *
      * @param method               tapi method
      * @param additionalParameters filters/etc.
+     * @param nonce                request nonce
      * @return prepared request body
      */
-    private String getBody(String method, Map<String, Object> additionalParameters) {
+    private String getBody(String method, Map<String, Object> additionalParameters, long nonce) {
         Map<String, Object> parameters = new HashMap<>();
-        parameters.put("nonce", nonce.getAndIncrement());
+        parameters.put("nonce", nonce);
         parameters.put("method", method);
 
         if (additionalParameters != null) {
@@ -337,15 +651,14 @@ public class PrivateApi extends AbstractApi {
 
     /**
      * Prepare request headers map.
-     * Singing request body with key\secret pair
+     * Singing request body with key\secret pair. Thread safe
      *
      * @param body request body
      * @return headers for request
      */
     private Map<String, String> getHeaders(String body) {
-        mac.update(body.getBytes(Charset.forName("UTF-8")));
         Map<String, String> headers = new HashMap<>(this.headers);
-        headers.put("Sign", Hex.encodeHexString(mac.doFinal()));
+        headers.put("Sign", signer.sign(body));
 
         return headers;
     }
@@ -0,0 +1,216 @@
+package com.isador.trade.jbtce.privateapi;
+
+import com.google.common.collect.ImmutableList;
+import com.isador.trade.jbtce.BTCEException;
+import com.isador.trade.jbtce.Connector;
+import com.isador.trade.jbtce.DefaultConnector;
+import com.isador.trade.jbtce.ServerProvider;
+import com.isador.trade.jbtce.constants.Pair;
+import com.isador.trade.jbtce.constants.Sort;
+import com.isador.trade.jbtce.constants.TradeType;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Pool of {@link PrivateApi}s of several api keys of one account.
+ * Server limits request rate and orders nonces per key, so every key has its own nonce sequence, signer and
+ * {@link NonceDispatcher}, and calls of different keys do not wait for each other.<br>
+ * Read only calls are spread across keys round robin. Order mutating calls are spread the same way, or, if pool
+ * pins pairs, always sent with the key of the order pair, so orders of one pair are placed in call order.
+ *
+ * @author isador
+ * @since 2.0.1
+ */
+public class PrivateApiPool {
+
+    private final List<PrivateApi> apis;
+    private final boolean pinPairs;
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * Create new pool using default serverProvider and connector, not pinning pairs
+     *
+     * @param keys api key to secret map
+     * @throws NullPointerException     if keys are null
+     * @throws IllegalArgumentException if keys are empty
+     */
+    public PrivateApiPool(Map<String, String> keys) {
+        this(keys, new ServerProvider(), new DefaultConnector(), false);
+    }
+
+    /**
+     * Create new pool
+     *
+     * @param keys           api key to secret map
+     * @param serverProvider server provider implementation
+     * @param connector      connector implementation
+     * @param pinPairs       send order mutating calls of one pair with one key
+     * @throws NullPointerException     if keys are null
+     * @throws IllegalArgumentException if keys are empty
+     */
+    public PrivateApiPool(Map<String, String> keys, ServerProvider serverProvider, Connector connector, boolean pinPairs) {
+        this(createApis(keys, serverProvider, connector), pinPairs);
+    }
+
+    /**
+     * Create new pool of apis. Apis must use different keys
+     *
+     * @param apis     apis
+     * @param pinPairs send order mutating calls of one pair with one key
+     * @throws NullPointerException     if apis are null
+     * @throws IllegalArgumentException if apis are empty
+     */
+    public PrivateApiPool(List<PrivateApi> apis, boolean pinPairs) {
+        requireNonNull(apis, "Apis must be specified");
+        checkArgument(!apis.isEmpty(), "Apis must be specified");
+        this.apis = ImmutableList.copyOf(apis);
+        this.pinPairs = pinPairs;
+    }
+
+    /**
+     * @return pool size
+     */
+    public int size() {
+        return apis.size();
+    }
+
+    /**
+     * @param index api index
+     * @return api of index
+     */
+    public PrivateApi getApi(int index) {
+        return apis.get(index);
+    }
+
+    /**
+     * @param pair order pair
+     * @return api, which sends order mutating calls of the pair
+     */
+    public PrivateApi getApi(Pair pair) {
+        requireNonNull(pair, "Pair must be specified");
+        return pinPairs ? apis.get(pair.ordinal() % apis.size()) : nextApi();
+    }
+
+    /**
+     * Set one order validator to all apis of the pool
+     *
+     * @param orderValidator validator, null to disable
+     * @see PrivateApi#setOrderValidator(OrderValidator)
+     */
+    public void setOrderValidator(OrderValidator orderValidator) {
+        apis.forEach(api -> api.setOrderValidator(orderValidator));
+    }
+
+    /**
+     * @return user info
+     * @throws BTCEException if was any error during execution
+     * @see PrivateApi#getUserInfo()
+     */
+    public UserInfo getUserInfo() throws BTCEException {
+        return nextApi().getUserInfo();
+    }
+
+    /**
+     * @param pair   pair
+     * @param type   order type
+     * @param rate   the rate at which you need to buy/sell
+     * @param amount the amount you need to buy / sell
+     * @return tradeResult
+     * @throws BTCEException if was any error during execution
+     * @see PrivateApi#trade(Pair, TradeType, double, double)
+     */
+    public TradeResult trade(Pair pair, TradeType type, double rate, double amount) throws BTCEException {
+        return getApi(pair).trade(pair, type, rate, amount);
+    }
+
+    /**
+     * @param pair orders pair
+     * @return list of active orders
+     * @throws BTCEException if was any error during execution
+     * @see PrivateApi#getActiveOrders(Pair)
+     */
+    public List<Order> getActiveOrders(Pair pair) throws BTCEException {
+        return nextApi().getActiveOrders(pair);
+    }
+
+    /**
+     * @param fromNum transaction number from which to read
+     * @param count   transactions count
+     * @param fromId  from <code>transactionId</code> (inclusive)
+     * @param endId   end <code>transactionId</code> (inclusive)
+     * @param sort    <code>ASC</code> when using <code>since</code> or <code>end</code>
+     * @param since   list transactions after timestamp
+     * @param end     list transactions before this timestamp
+     * @return list of user transactions
+     * @throws BTCEException if was any error during execution
+     * @see PrivateApi#getTransactionsList(Long, Integer, Long, Long, Sort, LocalDateTime, LocalDateTime)
+     */
+    public List<Transaction> getTransactionsList(Long fromNum, Integer count, Long fromId,
+                                                 Long endId, Sort sort, LocalDateTime since,
+                                                 LocalDateTime end) throws BTCEException {
+        return nextApi().getTransactionsList(fromNum, count, fromId, endId, sort, since, end);
+    }
+
+    /**
+     * @param fromNum trade number, from which the display starts
+     * @param count   the number of trades for display
+     * @param fromId  trade ID, from which the display starts
+     * @param endId   trade ID on which the display ends
+     * @param sort    Sorting
+     * @param since   the time to start the display
+     * @param end     the time to end the display
+     * @param pair    pair to be displayed
+     * @return list of trades
+     * @throws BTCEException if was any error during execution
+     * @see PrivateApi#getTradeHistory(Long, Integer, Long, Long, Sort, LocalDateTime, LocalDateTime, Pair)
+     */
+    public List<TradeHistory> getTradeHistory(Long fromNum, Integer count, Long fromId,
+                                              Long endId, Sort sort, LocalDateTime since,
+                                              LocalDateTime end, Pair pair) throws BTCEException {
+        return nextApi().getTradeHistory(fromNum, count, fromId, endId, sort, since, end, pair);
+    }
+
+    /**
+     * Cancel order with any key
+     *
+     * @param orderId id of cancelled order
+     * @return cancel order result
+     * @throws BTCEException if was any error during execution
+     * @see PrivateApi#cancelOrder(long)
+     */
+    public CancelOrderResult cancelOrder(long orderId) throws BTCEException {
+        return nextApi().cancelOrder(orderId);
+    }
+
+    /**
+     * Cancel order with the key of order pair
+     *
+     * @param pair    order pair
+     * @param orderId id of cancelled order
+     * @return cancel order result
+     * @throws BTCEException if was any error during execution
+     * @see PrivateApi#cancelOrder(long)
+     */
+    public CancelOrderResult cancelOrder(Pair pair, long orderId) throws BTCEException {
+        return getApi(pair).cancelOrder(orderId);
+    }
+
+    private PrivateApi nextApi() {
+        return apis.get(Math.floorMod(next.getAndIncrement(), apis.size()));
+    }
+
+    private static List<PrivateApi> createApis(Map<String, String> keys, ServerProvider serverProvider, Connector connector) {
+        requireNonNull(keys, "Keys must be specified");
+        List<PrivateApi> apis = new ArrayList<>(keys.size());
+        keys.forEach((key, secret) -> apis.add(new PrivateApi(key, secret, serverProvider, connector,
+                new NonceDispatcher(new SequentialNonceSource()))));
+        return apis;
+    }
+}
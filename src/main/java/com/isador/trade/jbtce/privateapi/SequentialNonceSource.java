@@ -0,0 +1,42 @@
+package com.isador.trade.jbtce.privateapi;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * In memory nonce source, counting from initial nonce.
+ *
+ * @author isador
+ * @since 2.0.1
+ */
+public class SequentialNonceSource implements NonceSource {
+
+    private final AtomicLong nonce;
+
+    /**
+     * Create new nonce source starting from current epoch second
+     */
+    public SequentialNonceSource() {
+        this(System.currentTimeMillis() / 1000);
+    }
+
+    /**
+     * @param first first nonce
+     * @throws IllegalArgumentException if first nonce is not positive
+     */
+    public SequentialNonceSource(long first) {
+        checkArgument(first > 0, "Invalid nonce: %s", first);
+        nonce = new AtomicLong(first);
+    }
+
+    @Override
+    public long next() {
+        return nonce.getAndIncrement();
+    }
+
+    @Override
+    public void advance(long nonce) {
+        this.nonce.accumulateAndGet(nonce, Math::max);
+    }
+}
@@ -0,0 +1,131 @@
+package com.isador.trade.jbtce.privateapi.store;
+
+import com.isador.trade.jbtce.constants.Currency;
+import com.isador.trade.jbtce.constants.Pair;
+import com.isador.trade.jbtce.constants.TradeType;
+import com.isador.trade.jbtce.privateapi.TradeHistory;
+import com.isador.trade.jbtce.privateapi.Transaction;
+import com.isador.trade.jbtce.privateapi.TransactionStatus;
+import com.isador.trade.jbtce.privateapi.TransactionType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Record codecs of history store.
+ * Enums are stored by name, so adding or reordering constants doesn't break stored records. Times are stored as
+ * epoch seconds in UTC, the way {@link com.isador.trade.jbtce.LocalDateTimeDeserializer} reads them.
+ *
+ * @author isador
+ * @since 2.0.1
+ */
+final class Codecs {
+
+    static final RecordCodec<TradeHistory> TRADES = new RecordCodec<TradeHistory>() {
+        @Override
+        public void write(TradeHistory trade, ByteBuffer buffer) {
+            buffer.putLong(trade.getId());
+            buffer.putLong(toEpoch(trade.getTimestamp()));
+            buffer.putLong(trade.getOrderId());
+            buffer.putDouble(trade.getAmount());
+            buffer.putDouble(trade.getRate());
+            buffer.put((byte) (trade.isYourOrder() ? 1 : 0));
+            putString(buffer, trade.getType() == null ? null : trade.getType().name());
+            putString(buffer, trade.getPair() == null ? null : trade.getPair().name());
+        }
+
+        @Override
+        public TradeHistory read(ByteBuffer buffer) {
+            long id = buffer.getLong();
+            LocalDateTime timestamp = fromEpoch(buffer.getLong());
+            long orderId = buffer.getLong();
+            double amount = buffer.getDouble();
+            double rate = buffer.getDouble();
+            int yourOrder = buffer.get();
+            String type = getString(buffer);
+            String pair = getString(buffer);
+            return new TradeHistory(pair == null ? null : Pair.valueOf(pair), type == null ? null : TradeType.valueOf(type),
+                    amount, rate, orderId, yourOrder, timestamp, id);
+        }
+
+        @Override
+        public long id(TradeHistory trade) {
+            return trade.getId();
+        }
+
+        @Override
+        public long timestamp(TradeHistory trade) {
+            return toEpoch(trade.getTimestamp());
+        }
+    };
+
+    static final RecordCodec<Transaction> TRANSACTIONS = new RecordCodec<Transaction>() {
+        @Override
+        public void write(Transaction transaction, ByteBuffer buffer) {
+            buffer.putLong(transaction.getId());
+            buffer.putLong(toEpoch(transaction.getTimestamp()));
+            buffer.putDouble(transaction.getAmount());
+            putString(buffer, transaction.getType() == null ? null : transaction.getType().name());
+            putString(buffer, transaction.getStatus() == null ? null : transaction.getStatus().name());
+            putString(buffer, transaction.getCurrency() == null ? null : transaction.getCurrency().name());
+            putString(buffer, transaction.getDescription());
+        }
+
+        @Override
+        public Transaction read(ByteBuffer buffer) {
+            long id = buffer.getLong();
+            LocalDateTime timestamp = fromEpoch(buffer.getLong());
+            double amount = buffer.getDouble();
+            String type = getString(buffer);
+            String status = getString(buffer);
+            String currency = getString(buffer);
+            String description = getString(buffer);
+            return new Transaction(type == null ? null : TransactionType.valueOf(type), amount,
+                    currency == null ? null : Currency.valueOf(currency),
+                    status == null ? null : TransactionStatus.valueOf(status), timestamp, id, description);
+        }
+
+        @Override
+        public long id(Transaction transaction) {
+            return transaction.getId();
+        }
+
+        @Override
+        public long timestamp(Transaction transaction) {
+            return toEpoch(transaction.getTimestamp());
+        }
+    };
+
+    private Codecs() {
+    }
+
+    static long toEpoch(LocalDateTime time) {
+        return time == null ? Long.MIN_VALUE : time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime fromEpoch(long epochSeconds) {
+        return epochSeconds == Long.MIN_VALUE ? null : LocalDateTime.ofEpochSecond(epochSeconds, 0, ZoneOffset.UTC);
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putShort((short) -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) Math.min(bytes.length, Short.MAX_VALUE));
+        buffer.put(bytes, 0, Math.min(bytes.length, Short.MAX_VALUE));
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
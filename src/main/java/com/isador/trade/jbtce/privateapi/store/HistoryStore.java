@@ -0,0 +1,230 @@
+package com.isador.trade.jbtce.privateapi.store;
+
+import com.isador.trade.jbtce.BTCEException;
+import com.isador.trade.jbtce.constants.Pair;
+import com.isador.trade.jbtce.constants.Sort;
+import com.isador.trade.jbtce.privateapi.PrivateApi;
+import com.isador.trade.jbtce.privateapi.TradeHistory;
+import com.isador.trade.jbtce.privateapi.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Local mirror of account trade and transaction history.
+ * Records are kept in append only binary logs of memory mapped segment files, indexed by id and by timestamp.
+ * {@link #sync(PrivateApi)} requests only records newer than the last stored id, page by page in id order, and
+ * appends them, so interrupted sync is continued by the next one. Queries are served locally.
+ * <pre>
+ * try (HistoryStore store = new HistoryStore(Paths.get("history"))) {
+ *     store.sync(api);
+ *     List&lt;TradeHistory&gt; trades = store.getTrades(BTC_USD, from, to);
+ * }
+ * </pre>
+ *
+ * @author isador
+ * @since 2.0.1
+ */
+public class HistoryStore implements Closeable {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024;
+    public static final int DEFAULT_PAGE_SIZE = PrivateApi.MAX_HISTORY_PAGE_SIZE;
+
+    private static final Logger LOG = LoggerFactory.getLogger(HistoryStore.class);
+
+    private final SegmentedLog<TradeHistory> trades;
+    private final SegmentedLog<Transaction> transactions;
+    private final int pageSize;
+
+    /**
+     * Open store with default segment and page sizes
+     *
+     * @param directory store directory, created if missing
+     * @throws BTCEException if store can't be opened
+     */
+    public HistoryStore(Path directory) {
+        this(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Open store
+     *
+     * @param directory   store directory, created if missing
+     * @param segmentSize segment file size
+     * @param pageSize    records requested per sync call, at most {@link PrivateApi#MAX_HISTORY_PAGE_SIZE}
+     * @throws IllegalArgumentException if segment size is not positive, or page size is not in
+     *                                  [1, {@link PrivateApi#MAX_HISTORY_PAGE_SIZE}]
+     * @throws BTCEException            if store can't be opened
+     */
+    public HistoryStore(Path directory, int segmentSize, int pageSize) {
+        requireNonNull(directory, "Directory must be specified");
+        checkArgument(segmentSize > 0, "Invalid segment size: %s", segmentSize);
+        // page shorter than page size ends sync, so it must not exceed server limit
+        checkArgument(pageSize > 0 && pageSize <= PrivateApi.MAX_HISTORY_PAGE_SIZE,
+                "Invalid page size: %s, must be in [1, %s]", pageSize, PrivateApi.MAX_HISTORY_PAGE_SIZE);
+        this.pageSize = pageSize;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new BTCEException("Can't create history store " + directory, e);
+        }
+        trades = new SegmentedLog<>(directory, "trades", segmentSize, Codecs.TRADES);
+        try {
+            transactions = new SegmentedLog<>(directory, "transactions", segmentSize, Codecs.TRANSACTIONS);
+        } catch (BTCEException e) {
+            trades.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Fetch trades and transactions newer than stored ones
+     *
+     * @param api api of the account
+     * @return records added
+     * @throws BTCEException if was any error during execution. Records fetched before error are kept
+     */
+    public int sync(PrivateApi api) throws BTCEException {
+        requireNonNull(api, "Api must be specified");
+        int added = sync(trades, TradeHistory::getId, fromId ->
+                api.getTradeHistory(null, pageSize, fromId, null, Sort.ASC, null, null, null));
+        added += sync(transactions, Transaction::getId, fromId ->
+                api.getTransactionsList(null, pageSize, fromId, null, Sort.ASC, null, null));
+        trades.force();
+        transactions.force();
+        LOG.debug("History synced, {} records added", added);
+        return added;
+    }
+
+    /**
+     * @param id trade id
+     * @return stored trade, null if there is no such trade
+     */
+    public TradeHistory getTrade(long id) {
+        return trades.get(id);
+    }
+
+    /**
+     * @param pair pair, null for all pairs
+     * @param from min trade time (inclusive), null for no limit
+     * @param to   max trade time (exclusive), null for no limit
+     * @return stored trades of time range, ordered by time
+     */
+    public List<TradeHistory> getTrades(Pair pair, LocalDateTime from, LocalDateTime to) {
+        return trades.query(lower(from), upper(to), trade -> pair == null || pair == trade.getPair());
+    }
+
+    /**
+     * @param id transaction id
+     * @return stored transaction, null if there is no such transaction
+     */
+    public Transaction getTransaction(long id) {
+        return transactions.get(id);
+    }
+
+    /**
+     * @param from min transaction time (inclusive), null for no limit
+     * @param to   max transaction time (exclusive), null for no limit
+     * @return stored transactions of time range, ordered by time
+     */
+    public List<Transaction> getTransactions(LocalDateTime from, LocalDateTime to) {
+        return transactions.query(lower(from), upper(to), transaction -> true);
+    }
+
+    /**
+     * @return last stored trade id, 0 if there are no trades
+     */
+    public long getLastTradeId() {
+        return trades.getLastId();
+    }
+
+    /**
+     * @return last stored transaction id, 0 if there are no transactions
+     */
+    public long getLastTransactionId() {
+        return transactions.getLastId();
+    }
+
+    /**
+     * @return stored trades count
+     */
+    public int getTradesCount() {
+        return trades.size();
+    }
+
+    /**
+     * @return stored transactions count
+     */
+    public int getTransactionsCount() {
+        return transactions.size();
+    }
+
+    @Override
+    public void close() {
+        trades.close();
+        transactions.close();
+    }
+
+    private <T> int sync(SegmentedLog<T> log, ToLongFunction<T> id, PageLoader<T> loader) {
+        int added = 0;
+        while (true) {
+            List<T> page = new ArrayList<>(page(loader, log.getLastId() + 1));
+            page.sort(Comparator.comparingLong(id));
+            int pageAdded = 0;
+            for (T record : page) {
+                if (log.append(record)) {
+                    pageAdded++;
+                }
+            }
+            added += pageAdded;
+            if (page.size() < pageSize) {
+                return added;
+            }
+            if (pageAdded == 0) {
+                LOG.warn("Full page of stored records returned, sync stopped");
+                return added;
+            }
+        }
+    }
+
+    /**
+     * Server reports empty history as error, see {@link PrivateApi#isEmptyHistory(BTCEException)}
+     */
+    private static <T> List<T> page(PageLoader<T> loader, long fromId) {
+        try {
+            return loader.load(fromId);
+        } catch (BTCEException e) {
+            if (PrivateApi.isEmptyHistory(e)) {
+                return Collections.emptyList();
+            }
+            throw e;
+        }
+    }
+
+    private static long lower(LocalDateTime from) {
+        return from == null ? Long.MIN_VALUE : Codecs.toEpoch(from);
+    }
+
+    private static long upper(LocalDateTime to) {
+        return to == null ? Long.MAX_VALUE : Codecs.toEpoch(to);
+    }
+
+    @FunctionalInterface
+    private interface PageLoader<T> {
+
+        List<T> load(long fromId) throws BTCEException;
+    }
+}
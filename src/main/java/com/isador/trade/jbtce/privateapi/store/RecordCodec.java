@@ -0,0 +1,38 @@
+package com.isador.trade.jbtce.privateapi.store;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Binary format of stored history record.
+ *
+ * @param <T> record type
+ * @author isador
+ * @since 2.0.1
+ */
+interface RecordCodec<T> {
+
+    /**
+     * @param record record
+     * @param buffer buffer to write record to
+     * @throws java.nio.BufferOverflowException if buffer is too small
+     */
+    void write(T record, ByteBuffer buffer);
+
+    /**
+     * @param buffer buffer positioned at record
+     * @return record
+     */
+    T read(ByteBuffer buffer);
+
+    /**
+     * @param record record
+     * @return record id
+     */
+    long id(T record);
+
+    /**
+     * @param record record
+     * @return record time, epoch seconds
+     */
+    long timestamp(T record);
+}
@@ -0,0 +1,292 @@
+package com.isador.trade.jbtce.privateapi.store;
+
+import com.isador.trade.jbtce.BTCEException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Append only log of history records on memory mapped segment files.
+ * Record is stored as <code>[int length][int crc32][payload]</code>. Length is written last, and mapped pages may
+ * reach disk in any order on power loss, so scan stops at the first record whose checksum doesn't match its payload.
+ * That record and the ones after it are ignored and overwritten. Zero length marks end of segment data.<br>
+ * Records are appended in growing id order, log keeps in memory id index and timestamp index of record positions,
+ * rebuilt by segment scan on open.
+ *
+ * @param <T> record type
+ * @author isador
+ * @since 2.0.1
+ */
+final class SegmentedLog<T> implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SegmentedLog.class);
+    // length and checksum
+    private static final int HEADER = 8;
+
+    private final Path directory;
+    private final String name;
+    private final int segmentSize;
+    private final RecordCodec<T> codec;
+    private final List<FileChannel> channels = new ArrayList<>();
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private ByteBuffer scratch = ByteBuffer.allocate(256);
+    private final CRC32 crc = new CRC32();
+    private int tail;
+
+    // id index, in record order
+    private long[] ids = new long[1024];
+    private long[] positions = new long[1024];
+    private int size;
+
+    // timestamp index, records ordered by time
+    private long[] times = new long[1024];
+    private int[] byTime = new int[1024];
+
+    /**
+     * @param directory   store directory
+     * @param name        segment files prefix
+     * @param segmentSize segment file size
+     * @param codec       record codec
+     * @throws BTCEException if segments can't be opened
+     */
+    SegmentedLog(Path directory, String name, int segmentSize, RecordCodec<T> codec) {
+        this.directory = directory;
+        this.name = name;
+        this.segmentSize = segmentSize;
+        this.codec = codec;
+        try {
+            for (int index = 0; Files.exists(segmentFile(index)); index++) {
+                openSegment(index);
+                scan(index);
+            }
+            if (segments.isEmpty()) {
+                openSegment(0);
+            }
+        } catch (IOException e) {
+            close();
+            throw new BTCEException("Can't open history log " + directory.resolve(name), e);
+        }
+    }
+
+    /**
+     * Append record, if its id is greater than last one
+     *
+     * @param record record
+     * @return true if record was appended
+     * @throws BTCEException if new segment can't be created
+     */
+    synchronized boolean append(T record) {
+        long id = codec.id(record);
+        if (size > 0 && id <= ids[size - 1]) {
+            return false;
+        }
+        ByteBuffer payload = encode(record);
+        int length = payload.remaining();
+        int checksum = checksum(payload);
+        if (HEADER + length + 4 > segmentSize) {
+            throw new BTCEException("Record is too big: " + length);
+        }
+        if (tail + HEADER + length + 4 > segmentSize) {
+            try {
+                openSegment(segments.size());
+            } catch (IOException e) {
+                throw new BTCEException("Can't create history log segment", e);
+            }
+            tail = 0;
+        }
+        MappedByteBuffer segment = segments.get(segments.size() - 1);
+        ByteBuffer target = segment.duplicate();
+        target.position(tail + HEADER);
+        target.put(payload);
+        // end marker, overwrites remains of ignored records
+        target.putInt(0);
+        segment.putInt(tail + 4, checksum);
+        // commit
+        segment.putInt(tail, length);
+        index(id, codec.timestamp(record), position(segments.size() - 1, tail));
+        tail += HEADER + length;
+        return true;
+    }
+
+    /**
+     * @return last record id, 0 if log is empty
+     */
+    synchronized long getLastId() {
+        return size == 0 ? 0 : ids[size - 1];
+    }
+
+    /**
+     * @return records count
+     */
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @param id record id
+     * @return record, null if there is no such record
+     */
+    synchronized T get(long id) {
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        return index < 0 ? null : read(positions[index]);
+    }
+
+    /**
+     * @param from   min timestamp (inclusive), epoch seconds
+     * @param to     max timestamp (exclusive), epoch seconds
+     * @param filter record filter
+     * @return records of time range, ordered by time
+     */
+    synchronized List<T> query(long from, long to, Predicate<? super T> filter) {
+        List<T> result = new ArrayList<>();
+        for (int i = lowerBound(from); i < size && times[i] < to; i++) {
+            T record = read(positions[byTime[i]]);
+            if (filter.test(record)) {
+                result.add(record);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Flush segments to disk
+     */
+    synchronized void force() {
+        segments.forEach(MappedByteBuffer::force);
+    }
+
+    @Override
+    public synchronized void close() {
+        segments.forEach(MappedByteBuffer::force);
+        for (FileChannel channel : channels) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOG.debug("Error closing history log segment", e);
+            }
+        }
+        channels.clear();
+    }
+
+    private void openSegment(int index) throws IOException {
+        FileChannel channel = FileChannel.open(segmentFile(index), CREATE, READ, WRITE);
+        channels.add(channel);
+        segments.add(channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+    }
+
+    private void scan(int index) {
+        MappedByteBuffer segment = segments.get(index);
+        int offset = 0;
+        while (offset + HEADER <= segmentSize) {
+            int length = segment.getInt(offset);
+            if (length <= 0 || offset + HEADER + length > segmentSize) {
+                break;
+            }
+            ByteBuffer payload = segment.duplicate();
+            payload.limit(offset + HEADER + length).position(offset + HEADER);
+            if (checksum(payload) != segment.getInt(offset + 4)) {
+                LOG.warn("Corrupted record at {} in {} segment {}, ignoring rest of segment", offset, name, index);
+                break;
+            }
+            T record = read(position(index, offset));
+            long id = codec.id(record);
+            if (size > 0 && id <= ids[size - 1]) {
+                LOG.warn("Out of order record {} in {} segment {}", id, name, index);
+            } else {
+                index(id, codec.timestamp(record), position(index, offset));
+            }
+            offset += HEADER + length;
+        }
+        tail = offset;
+    }
+
+    private ByteBuffer encode(T record) {
+        while (true) {
+            scratch.clear();
+            try {
+                codec.write(record, scratch);
+                scratch.flip();
+                return scratch;
+            } catch (BufferOverflowException e) {
+                scratch = ByteBuffer.allocate(scratch.capacity() * 2);
+            }
+        }
+    }
+
+    private T read(long position) {
+        ByteBuffer buffer = segments.get((int) (position >>> 32)).duplicate();
+        buffer.position((int) position + HEADER);
+        return codec.read(buffer);
+    }
+
+    /**
+     * @param payload record payload, position is not changed
+     * @return payload crc32
+     */
+    private int checksum(ByteBuffer payload) {
+        crc.reset();
+        crc.update(payload.duplicate());
+        return (int) crc.getValue();
+    }
+
+    private void index(long id, long timestamp, long position) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            positions = Arrays.copyOf(positions, size * 2);
+            times = Arrays.copyOf(times, size * 2);
+            byTime = Arrays.copyOf(byTime, size * 2);
+        }
+        ids[size] = id;
+        positions[size] = position;
+
+        // records mostly come in time order, insertion is append
+        int at = size;
+        while (at > 0 && times[at - 1] > timestamp) {
+            at--;
+        }
+        System.arraycopy(times, at, times, at + 1, size - at);
+        System.arraycopy(byTime, at, byTime, at + 1, size - at);
+        times[at] = timestamp;
+        byTime[at] = size;
+        size++;
+    }
+
+    private int lowerBound(long timestamp) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (times[mid] < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private Path segmentFile(int index) {
+        return directory.resolve(String.format("%s-%06d.seg", name, index));
+    }
+
+    private static long position(int segment, int offset) {
+        return ((long) segment << 32) | offset;
+    }
+}
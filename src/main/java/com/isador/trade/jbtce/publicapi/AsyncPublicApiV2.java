@@ -0,0 +1,87 @@
+package com.isador.trade.jbtce.publicapi;
+
+import com.isador.trade.jbtce.AsyncConnector;
+import com.isador.trade.jbtce.BTCEException;
+import com.isador.trade.jbtce.constants.Pair;
+
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Asynchronous facade over {@link PublicApiV2}.
+ * Requests are sent through {@link AsyncConnector}, so no thread waits for response. Returned future is completed
+ * with result, or exceptionally with {@link BTCEException}.
+ * Methods never throw: invalid arguments fail the returned future too, with the exception the synchronous api would throw.
+ *
+ * @author isador
+ * @see PublicApiV2
+ * @since 2.0.1
+ */
+public class AsyncPublicApiV2 {
+
+    private final PublicApiV2 api;
+    private final AsyncConnector connector;
+
+    /**
+     * Create new async public v2 api
+     *
+     * @param api       api to take server provider, headers and retry policy from
+     * @param connector async connector to send requests with
+     * @throws NullPointerException if api or connector is null
+     */
+    public AsyncPublicApiV2(PublicApiV2 api, AsyncConnector connector) {
+        this.api = requireNonNull(api, "Api must be specified");
+        this.connector = requireNonNull(connector, "Connector must be specified");
+    }
+
+    /**
+     * @return underlying synchronous api
+     */
+    public PublicApiV2 getApi() {
+        return api;
+    }
+
+    /**
+     * @return async connector
+     */
+    public AsyncConnector getConnector() {
+        return connector;
+    }
+
+    /**
+     * @param pair pair
+     * @return pair info future
+     * @see PublicApiV2#getTick(Pair)
+     */
+    public CompletableFuture<Tick> getTick(Pair pair) {
+        return api.getTickAsync(connector, pair);
+    }
+
+    /**
+     * @param pair pair
+     * @return trades array future
+     * @see PublicApiV2#getTrades(Pair)
+     */
+    public CompletableFuture<Trade[]> getTrades(Pair pair) {
+        return api.getTradesAsync(connector, pair);
+    }
+
+    /**
+     * @param pair pair
+     * @return depth future
+     * @see PublicApiV2#getDepth(Pair)
+     */
+    public CompletableFuture<Depth> getDepth(Pair pair) {
+        return api.getDepthAsync(connector, pair);
+    }
+
+    /**
+     * @param pair pair
+     * @return pair commission future
+     * @see PublicApiV2#getFee(Pair)
+     */
+    public CompletableFuture<Double> getFee(Pair pair) {
+        return api.getFeeAsync(connector, pair);
+    }
+}
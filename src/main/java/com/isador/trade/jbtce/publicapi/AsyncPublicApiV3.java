@@ -0,0 +1,119 @@
+package com.isador.trade.jbtce.publicapi;
+
+import com.isador.trade.jbtce.AsyncConnector;
+import com.isador.trade.jbtce.BTCEException;
+import com.isador.trade.jbtce.constants.Pair;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Asynchronous facade over {@link PublicApiV3}.
+ * Requests are sent through {@link AsyncConnector}, ex. {@link com.isador.trade.jbtce.NioConnector}, so no thread
+ * waits for response. Returned future is completed with result, or exceptionally with {@link BTCEException}.
+ * Methods never throw: invalid arguments fail the returned future too, with the exception the synchronous api would throw.<br>
+ * Server provider, headers and retry policy of the api are used, retries are chained to failed attempts.
+ * Calls are neither hedged nor coalesced.
+ *
+ * @author isador
+ * @see PublicApiV3
+ * @since 2.0.1
+ */
+public class AsyncPublicApiV3 {
+
+    private final PublicApiV3 api;
+    private final AsyncConnector connector;
+
+    /**
+     * Create new async public v3 api
+     *
+     * @param api       api to take server provider, headers and retry policy from
+     * @param connector async connector to send requests with
+     * @throws NullPointerException if api or connector is null
+     */
+    public AsyncPublicApiV3(PublicApiV3 api, AsyncConnector connector) {
+        this.api = requireNonNull(api, "Api must be specified");
+        this.connector = requireNonNull(connector, "Connector must be specified");
+    }
+
+    /**
+     * @return underlying synchronous api
+     */
+    public PublicApiV3 getApi() {
+        return api;
+    }
+
+    /**
+     * @return async connector
+     */
+    public AsyncConnector getConnector() {
+        return connector;
+    }
+
+    /**
+     * @return info holder future
+     * @see PublicApiV3#getInfo()
+     */
+    public CompletableFuture<BTCEInfo> getInfo() {
+        return api.getInfoAsync(connector);
+    }
+
+    /**
+     * @param pairs pairs
+     * @return commission mapped on pair future
+     * @see PublicApiV3#getFees(Pair...)
+     */
+    public CompletableFuture<Map<Pair, Double>> getFees(Pair... pairs) {
+        return api.getFeesAsync(connector, pairs);
+    }
+
+    /**
+     * @param pairs pairs
+     * @return ticks mapped to pair future
+     * @see PublicApiV3#getTicks(Pair...)
+     */
+    public CompletableFuture<Map<Pair, Tick>> getTicks(Pair... pairs) {
+        return api.getTicksAsync(connector, pairs);
+    }
+
+    /**
+     * @param pairs pairs
+     * @return depths mapped to pair future
+     * @see PublicApiV3#getDepths(Pair...)
+     */
+    public CompletableFuture<Map<Pair, Depth>> getDepths(Pair... pairs) {
+        return api.getDepthsAsync(connector, null, pairs);
+    }
+
+    /**
+     * @param limit retrieve count
+     * @param pairs pairs
+     * @return depths mapped to pair future
+     * @see PublicApiV3#getDepths(Integer, Pair...)
+     */
+    public CompletableFuture<Map<Pair, Depth>> getDepths(Integer limit, Pair... pairs) {
+        return api.getDepthsAsync(connector, limit, pairs);
+    }
+
+    /**
+     * @param pairs pairs
+     * @return trades mapped to pair future
+     * @see PublicApiV3#getTrades(Pair...)
+     */
+    public CompletableFuture<Map<Pair, List<Trade>>> getTrades(Pair... pairs) {
+        return api.getTradesAsync(connector, null, pairs);
+    }
+
+    /**
+     * @param limit retrieve count
+     * @param pairs pairs
+     * @return trades mapped to pair future
+     * @see PublicApiV3#getTrades(Integer, Pair...)
+     */
+    public CompletableFuture<Map<Pair, List<Trade>>> getTrades(Integer limit, Pair... pairs) {
+        return api.getTradesAsync(connector, limit, pairs);
+    }
+}
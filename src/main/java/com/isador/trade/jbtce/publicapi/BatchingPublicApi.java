@@ -0,0 +1,244 @@
+package com.isador.trade.jbtce.publicapi;
+
+import com.isador.trade.jbtce.BTCEException;
+import com.isador.trade.jbtce.constants.Pair;
+
+import java.io.Closeable;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Micro-batching facade for {@link PublicApiV3}.
+ * Single pair requests of the same method and limit, made within a short window, are combined
+ * into one multi pair call, ex. {@code api/3/ticker/btc_usd-ltc_usd}. Response is split back to waiting callers,
+ * every caller gets its own depth and trade list objects.
+ * Batch is sent when window expires or batch reaches max size, whichever comes first.
+ *
+ * @author isador
+ * @since 2.0.1
+ */
+public class BatchingPublicApi implements Closeable {
+
+    public static final long DEFAULT_MAX_WAIT = 5;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 20;
+
+    private final PublicApiV3 api;
+    private final long maxWait;
+    private final int maxBatchSize;
+    private final Executor executor;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, Batch<?>> pending = new HashMap<>();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    /**
+     * Create new batching api with default window and batch size
+     *
+     * @param api      api to execute combined calls
+     * @param executor executor to execute combined calls on
+     */
+    public BatchingPublicApi(PublicApiV3 api, Executor executor) {
+        this(api, DEFAULT_MAX_WAIT, DEFAULT_MAX_BATCH_SIZE, executor);
+    }
+
+    /**
+     * Create new batching api
+     *
+     * @param api          api to execute combined calls
+     * @param maxWait      max time first request of a batch waits for others, in millis
+     * @param maxBatchSize max pairs in one call
+     * @param executor     executor to execute combined calls on
+     * @throws IllegalArgumentException if window or batch size is invalid
+     */
+    public BatchingPublicApi(PublicApiV3 api, long maxWait, int maxBatchSize, Executor executor) {
+        this.api = requireNonNull(api, "Api must be specified");
+        this.executor = requireNonNull(executor, "Executor must be specified");
+        checkArgument(maxWait >= 0, "Invalid max wait: %s", maxWait);
+        checkArgument(maxBatchSize > 0, "Invalid max batch size: %s", maxBatchSize);
+        this.maxWait = maxWait;
+        this.maxBatchSize = maxBatchSize;
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "jbtce-batching");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @param pair pair
+     * @return tick future
+     * @see PublicApiV3#getTicks(Pair...)
+     */
+    public CompletableFuture<Tick> getTick(Pair pair) {
+        return submit("ticker", pair, api::getTicks, UnaryOperator.identity());
+    }
+
+    /**
+     * @param limit retrieve count, may be null
+     * @param pair  pair
+     * @return depth future
+     * @see PublicApiV3#getDepths(Integer, Pair...)
+     */
+    public CompletableFuture<Depth> getDepth(Integer limit, Pair pair) {
+        return submit("depth?" + limit, pair, pairs -> api.getDepths(limit, pairs), PublicApiV3::copyDepth);
+    }
+
+    /**
+     * @param limit retrieve count, may be null
+     * @param pair  pair
+     * @return trades future
+     * @see PublicApiV3#getTrades(Integer, Pair...)
+     */
+    public CompletableFuture<List<Trade>> getTrades(Integer limit, Pair pair) {
+        return submit("trades?" + limit, pair, pairs -> api.getTrades(limit, pairs), ArrayList::new);
+    }
+
+    /**
+     * @return single pair requests submitted
+     */
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    /**
+     * @return combined calls executed
+     */
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    /**
+     * Send pending batches and stop batching timer
+     */
+    @Override
+    public void close() {
+        List<Batch<?>> remaining;
+        synchronized (pending) {
+            remaining = new ArrayList<>(pending.values());
+            pending.clear();
+        }
+        scheduler.shutdownNow();
+        remaining.forEach(this::dispatch);
+    }
+
+    /**
+     * Add request to pending batch of the same call
+     *
+     * @param key  call key, method and limit
+     * @param pair requested pair
+     * @param call combined call
+     * @param copy copies result for every waiting caller, identity for immutable results
+     * @param <T>  result type
+     * @return result future
+     */
+    private <T> CompletableFuture<T> submit(String key, Pair pair, Function<Pair[], Map<Pair, T>> call, UnaryOperator<T> copy) {
+        requireNonNull(pair, "Pair must be specified");
+        requests.increment();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Batch<T> full = null;
+        synchronized (pending) {
+            if (scheduler.isShutdown()) {
+                result.completeExceptionally(new BTCEException("Batching api is closed"));
+                return result;
+            }
+
+            @SuppressWarnings("unchecked")
+            Batch<T> batch = (Batch<T>) pending.get(key);
+            if (batch == null) {
+                batch = new Batch<>(key, call, copy);
+                pending.put(key, batch);
+                Batch<T> scheduled = batch;
+                batch.timer = scheduler.schedule(() -> flush(scheduled), maxWait, TimeUnit.MILLISECONDS);
+            }
+            batch.add(pair, result);
+            if (batch.size() >= maxBatchSize) {
+                pending.remove(key);
+                batch.timer.cancel(false);
+                full = batch;
+            }
+        }
+
+        if (full != null) {
+            dispatch(full);
+        }
+        return result;
+    }
+
+    private void flush(Batch<?> batch) {
+        synchronized (pending) {
+            if (!pending.remove(batch.key, batch)) {
+                return; // already sent as full batch
+            }
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(Batch<?> batch) {
+        batches.increment();
+        try {
+            executor.execute(batch::execute);
+        } catch (RejectedExecutionException e) {
+            batch.fail(new BTCEException("Batch rejected by executor", e));
+        }
+    }
+
+    /**
+     * Requests waiting for one combined call
+     *
+     * @param <T> result type
+     */
+    private static final class Batch<T> {
+
+        private final String key;
+        private final Function<Pair[], Map<Pair, T>> call;
+        private final UnaryOperator<T> copy;
+        private final Map<Pair, List<CompletableFuture<T>>> waiting = new LinkedHashMap<>();
+        private ScheduledFuture<?> timer;
+
+        Batch(String key, Function<Pair[], Map<Pair, T>> call, UnaryOperator<T> copy) {
+            this.key = key;
+            this.call = call;
+            this.copy = copy;
+        }
+
+        void add(Pair pair, CompletableFuture<T> result) {
+            waiting.computeIfAbsent(pair, p -> new ArrayList<>(1)).add(result);
+        }
+
+        int size() {
+            return waiting.size();
+        }
+
+        void execute() {
+            Map<Pair, T> response;
+            try {
+                response = call.apply(waiting.keySet().toArray(new Pair[waiting.size()]));
+            } catch (RuntimeException e) {
+                fail(e);
+                return;
+            }
+
+            waiting.forEach((pair, results) -> {
+                T value = response.get(pair);
+                results.forEach(result -> {
+                    if (value == null) {
+                        result.completeExceptionally(new BTCEException(String.format("Invalid server response. \"%s\" field missed.", pair.getName())));
+                    } else {
+                        result.complete(copy.apply(value));
+                    }
+                });
+            });
+        }
+
+        void fail(Throwable e) {
+            waiting.values().forEach(results -> results.forEach(result -> result.completeExceptionally(e)));
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.isador.trade.jbtce.publicapi;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.isador.trade.jbtce.BTCEException;
+import com.isador.trade.jbtce.constants.Pair;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Caching facade for rarely changing {@link PublicApiV3} data: info and fees.
+ * Entry older than ttl is refreshed on executor on next access, while callers keep getting previous value, so only
+ * the very first call of an entry waits for the server. If refresh fails previous value is kept and refresh is
+ * retried on next access. Fees of several pairs missing in cache are loaded with one call.
+ *
+ * @author isador
+ * @since 2.0.1
+ */
+public class CachingPublicApi {
+
+    public static final long DEFAULT_TTL = TimeUnit.MINUTES.toMillis(10);
+
+    private static final String INFO_KEY = "info";
+
+    private final PublicApiV3 api;
+    private final LoadingCache<String, BTCEInfo> info;
+    private final LoadingCache<Pair, Double> fees;
+
+    /**
+     * Create new caching api with default ttl
+     *
+     * @param api      api to load data with
+     * @param executor executor to refresh entries on
+     */
+    public CachingPublicApi(PublicApiV3 api, Executor executor) {
+        this(api, DEFAULT_TTL, executor);
+    }
+
+    /**
+     * Create new caching api
+     *
+     * @param api      api to load data with
+     * @param ttl      entry age to refresh it after, in millis
+     * @param executor executor to refresh entries on
+     * @throws IllegalArgumentException if ttl is not positive
+     */
+    public CachingPublicApi(PublicApiV3 api, long ttl, Executor executor) {
+        this(api, ttl, executor, Ticker.systemTicker());
+    }
+
+    CachingPublicApi(PublicApiV3 api, long ttl, Executor executor, Ticker ticker) {
+        this.api = requireNonNull(api, "Api must be specified");
+        requireNonNull(executor, "Executor must be specified");
+        checkArgument(ttl > 0, "Invalid ttl: %s", ttl);
+
+        info = CacheBuilder.newBuilder()
+                .refreshAfterWrite(ttl, TimeUnit.MILLISECONDS)
+                .ticker(ticker)
+                .recordStats()
+                .build(CacheLoader.asyncReloading(new CacheLoader<String, BTCEInfo>() {
+                    @Override
+                    public BTCEInfo load(String key) {
+                        return api.getInfo();
+                    }
+                }, executor));
+        fees = CacheBuilder.newBuilder()
+                .refreshAfterWrite(ttl, TimeUnit.MILLISECONDS)
+                .ticker(ticker)
+                .recordStats()
+                .build(CacheLoader.asyncReloading(new CacheLoader<Pair, Double>() {
+                    @Override
+                    public Double load(Pair pair) {
+                        return api.getFees(pair).get(pair);
+                    }
+
+                    @Override
+                    public Map<Pair, Double> loadAll(Iterable<? extends Pair> pairs) {
+                        Pair[] array = Iterables.toArray(pairs, Pair.class);
+                        return api.getFees(array);
+                    }
+                }, executor));
+    }
+
+    /**
+     * @return underlying api
+     */
+    public PublicApiV3 getApi() {
+        return api;
+    }
+
+    /**
+     * @return cached info
+     * @throws BTCEException if info is not cached and was any error during loading
+     * @see PublicApiV3#getInfo()
+     */
+    public BTCEInfo getInfo() throws BTCEException {
+        try {
+            return info.get(INFO_KEY);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    /**
+     * @param pairs pairs
+     * @return cached fees mapped on pair
+     * @throws BTCEException if fees are not cached and was any error during loading
+     * @see PublicApiV3#getFees(Pair...)
+     */
+    public Map<Pair, Double> getFees(Pair... pairs) throws BTCEException {
+        requireNonNull(pairs, "Pairs must be specified");
+        try {
+            return fees.getAll(Arrays.asList(pairs));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    /**
+     * Drop cached info, next call loads it again
+     */
+    public void invalidateInfo() {
+        info.invalidateAll();
+    }
+
+    /**
+     * Drop cached fees, next call loads them again
+     */
+    public void invalidateFees() {
+        fees.invalidateAll();
+    }
+
+    /**
+     * @return info cache hits, misses and loads
+     */
+    public CacheStats getInfoStats() {
+        return info.stats();
+    }
+
+    /**
+     * @return fees cache hits, misses and loads
+     */
+    public CacheStats getFeesStats() {
+        return fees.stats();
+    }
+
+    private static RuntimeException unwrap(Exception e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        return new BTCEException(cause);
+    }
+}
@@ -0,0 +1,80 @@
+package com.isador.trade.jbtce.publicapi;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.isador.trade.jbtce.constants.Pair;
+import com.isador.trade.jbtce.publicapi.Depth.SimpleOrder;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Streaming parser of v3 depth response.
+ * Reads tokens straight into {@link Depth} objects, without building json tree.
+ * Primitive {@link OrderBook}s are not filled here, but by {@link OrderBookScanner}.
+ *
+ * @author isador
+ * @since 2.0.1
+ */
+final class DepthStreamParser extends PairStreamParser<Depth> {
+
+    /**
+     * @param pairs requested pairs
+     */
+    DepthStreamParser(Pair... pairs) {
+        super(JsonToken.BEGIN_OBJECT, pairs);
+    }
+
+    @Override
+    Depth readValue(Pair pair, JsonReader reader) throws IOException {
+        return readDepth(reader);
+    }
+
+    private Depth readDepth(JsonReader reader) throws IOException {
+        SimpleOrder[] asks = null;
+        SimpleOrder[] bids = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("asks".equals(name)) {
+                asks = readOrders(reader);
+            } else if ("bids".equals(name)) {
+                bids = readOrders(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return new Depth(asks, bids);
+    }
+
+    private SimpleOrder[] readOrders(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+
+        SimpleOrder[] orders = new SimpleOrder[16];
+        int size = 0;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            reader.beginArray();
+            double price = reader.nextDouble();
+            double amount = reader.nextDouble();
+            while (reader.hasNext()) {
+                reader.skipValue();
+            }
+            reader.endArray();
+
+            if (size == orders.length) {
+                orders = Arrays.copyOf(orders, size * 2);
+            }
+            orders[size++] = new SimpleOrder(price, amount);
+        }
+        reader.endArray();
+
+        return size == orders.length ? orders : Arrays.copyOf(orders, size);
+    }
+}
@@ -0,0 +1,284 @@
+package com.isador.trade.jbtce.publicapi;
+
+import com.isador.trade.jbtce.publicapi.Depth.SimpleOrder;
+
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkElementIndex;
+
+/**
+ * Order book holder.
+ * Alternative to {@link Depth} backed by primitive price/amount arrays instead of one object per level.
+ * Book is filled in place and its arrays are reused, so repeated polls into the same book do not allocate
+ * once arrays have grown to depth size. Queries do not allocate either.<br>
+ * Books are filled by {@link PublicApiV3#getOrderBooks(Integer, java.util.Map)} or copied from {@link Depth}.
+ * Book is not thread safe, it must not be read while being filled.
+ *
+ * @author isador
+ * @since 2.0.1
+ */
+public final class OrderBook {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final Side asks;
+    private final Side bids;
+
+    /**
+     * Create empty book
+     */
+    public OrderBook() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create empty book
+     *
+     * @param capacity initial levels capacity of each side
+     * @throws IllegalArgumentException if capacity is negative
+     */
+    public OrderBook(int capacity) {
+        checkArgument(capacity >= 0, "Invalid capacity: %s", capacity);
+        asks = new Side(true, capacity);
+        bids = new Side(false, capacity);
+    }
+
+    /**
+     * @return Sell orders, best (lowest) price first
+     */
+    public Side getAsks() {
+        return asks;
+    }
+
+    /**
+     * @return Buy orders, best (highest) price first
+     */
+    public Side getBids() {
+        return bids;
+    }
+
+    /**
+     * @return lowest sell price, NaN if there are no asks
+     */
+    public double bestAsk() {
+        return asks.best();
+    }
+
+    /**
+     * @return highest buy price, NaN if there are no bids
+     */
+    public double bestBid() {
+        return bids.best();
+    }
+
+    /**
+     * Convert book to depth. Allocates order objects
+     *
+     * @return depth
+     */
+    public Depth toDepth() {
+        return new Depth(asks.toOrders(), bids.toOrders());
+    }
+
+    /**
+     * Refill book with levels of other book, keeping allocated arrays
+     *
+     * @param book source book
+     * @return this book
+     */
+    public OrderBook copyFrom(OrderBook book) {
+        asks.copyFrom(book.asks);
+        bids.copyFrom(book.bids);
+        return this;
+    }
+
+    /**
+     * Refill book with depth orders, keeping allocated arrays
+     *
+     * @param depth source depth
+     * @return this book
+     */
+    public OrderBook copyFrom(Depth depth) {
+        asks.copyFrom(depth.getAsks());
+        bids.copyFrom(depth.getBids());
+        return this;
+    }
+
+    /**
+     * Remove all levels, keeping allocated arrays
+     */
+    void clear() {
+        asks.clear();
+        bids.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "OrderBook{" +
+                "asks=" + asks +
+                ", bids=" + bids +
+                '}';
+    }
+
+    /**
+     * Price level consumer
+     */
+    @FunctionalInterface
+    public interface LevelConsumer {
+
+        /**
+         * @param price  level price
+         * @param amount level amount
+         */
+        void accept(double price, double amount);
+    }
+
+    /**
+     * One side of order book. Levels are kept in server order, best price first
+     */
+    public static final class Side {
+
+        private final boolean asks;
+        private double[] prices;
+        private double[] amounts;
+        private int size;
+
+        private Side(boolean asks, int capacity) {
+            this.asks = asks;
+            prices = new double[capacity];
+            amounts = new double[capacity];
+        }
+
+        /**
+         * @return levels count
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @return true if side has no levels
+         */
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        /**
+         * @param level level index, 0 is the best
+         * @return level price
+         * @throws IndexOutOfBoundsException if there is no such level
+         */
+        public double getPrice(int level) {
+            checkElementIndex(level, size);
+            return prices[level];
+        }
+
+        /**
+         * @param level level index, 0 is the best
+         * @return level amount
+         * @throws IndexOutOfBoundsException if there is no such level
+         */
+        public double getAmount(int level) {
+            checkElementIndex(level, size);
+            return amounts[level];
+        }
+
+        /**
+         * @return best price, NaN if side is empty
+         */
+        public double best() {
+            return size == 0 ? Double.NaN : prices[0];
+        }
+
+        /**
+         * @param levels levels count
+         * @return cumulative amount of the best levels
+         */
+        public double getVolume(int levels) {
+            double volume = 0;
+            for (int i = 0, n = Math.min(levels, size); i < n; i++) {
+                volume += amounts[i];
+            }
+            return volume;
+        }
+
+        /**
+         * @param price limit price
+         * @return cumulative amount of levels with price at limit or better,
+         * i.e. not higher for asks and not lower for bids
+         */
+        public double getVolumeTo(double price) {
+            double volume = 0;
+            for (int i = 0; i < size && (asks ? prices[i] <= price : prices[i] >= price); i++) {
+                volume += amounts[i];
+            }
+            return volume;
+        }
+
+        /**
+         * Iterate levels, best first
+         *
+         * @param consumer level consumer
+         */
+        public void forEach(LevelConsumer consumer) {
+            for (int i = 0; i < size; i++) {
+                consumer.accept(prices[i], amounts[i]);
+            }
+        }
+
+        /**
+         * Remove all levels, keeping allocated arrays
+         */
+        void clear() {
+            size = 0;
+        }
+
+        /**
+         * Append level after the current worst one, used by {@link OrderBookScanner}
+         */
+        void add(double price, double amount) {
+            ensureCapacity(size + 1);
+            prices[size] = price;
+            amounts[size] = amount;
+            size++;
+        }
+
+        private void copyFrom(Side side) {
+            ensureCapacity(side.size);
+            System.arraycopy(side.prices, 0, prices, 0, side.size);
+            System.arraycopy(side.amounts, 0, amounts, 0, side.size);
+            size = side.size;
+        }
+
+        private void copyFrom(SimpleOrder[] orders) {
+            clear();
+            if (orders != null) {
+                for (SimpleOrder order : orders) {
+                    add(order.getPrice(), order.getAmount());
+                }
+            }
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > prices.length) {
+                int newCapacity = Math.max(Math.max(DEFAULT_CAPACITY, prices.length * 2), capacity);
+                prices = Arrays.copyOf(prices, newCapacity);
+                amounts = Arrays.copyOf(amounts, newCapacity);
+            }
+        }
+
+        SimpleOrder[] toOrders() {
+            SimpleOrder[] orders = new SimpleOrder[size];
+            for (int i = 0; i < size; i++) {
+                orders[i] = new SimpleOrder(prices[i], amounts[i]);
+            }
+            return orders;
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(toOrders());
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package com.isador.trade.jbtce.publicapi;
+
+import com.isador.trade.jbtce.BTCEException;
+import com.isador.trade.jbtce.constants.Pair;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Allocation-free scanner of v3 depth response.
+ * Fills caller-owned {@link OrderBook}s straight from response bytes: pair names are matched as bytes
+ * and prices are parsed without intermediate strings. Scanner buffers are reused, so once books have grown
+ * to depth size repeated scans do not allocate. Only error messages and numbers which can not be parsed
+ * exactly by the fast path allocate.<br>
+ * Scanner is not thread safe, use one per thread.
+ *
+ * @author isador
+ * @since 2.0.1
+ */
+final class OrderBookScanner {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final Pair[] PAIRS = Pair.values();
+    private static final byte[][] NAMES = new byte[PAIRS.length][];
+    private static final byte[] ASKS = bytes("asks");
+    private static final byte[] BIDS = bytes("bids");
+    private static final byte[] SUCCESS = bytes("success");
+    private static final byte[] ERROR = bytes("error");
+
+    // Integer mantissa below 2^53 and power of ten up to 1e22 are exact doubles,
+    // so one multiplication or division gives correctly rounded result
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        for (int i = 0; i < PAIRS.length; i++) {
+            NAMES[i] = bytes(PAIRS[i].getName());
+        }
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final boolean[] found = new boolean[PAIRS.length];
+    private byte[] token = new byte[64];
+    private int tokenLength;
+    private InputStream in;
+    private int pos;
+    private int limit;
+
+    /**
+     * Scan depth response into order books. Books are refilled in place.
+     * If scanning fails, books may be left partially filled
+     *
+     * @param response response body
+     * @param books    books to fill, mapped to requested pair
+     * @return filled books
+     * @throws IOException   on read errors
+     * @throws BTCEException if server returned error or response is not valid
+     */
+    Map<Pair, OrderBook> scan(InputStream response, Map<Pair, OrderBook> books) throws IOException {
+        in = response;
+        pos = 0;
+        limit = 0;
+        Arrays.fill(found, false);
+        try {
+            read(books);
+        } finally {
+            in = null;
+        }
+        return books;
+    }
+
+    private void read(Map<Pair, OrderBook> books) throws IOException {
+        int c = peek();
+        if (c == -1) {
+            throw new BTCEException("Invalid server response. Null or empty response");
+        }
+        if (c != '{') {
+            throw malformed("object expected");
+        }
+
+        boolean failed = false;
+        String error = null;
+
+        expect('{');
+        if (!consume('}')) {
+            do {
+                readString();
+                expect(':');
+                int index = requested();
+                OrderBook book = index < 0 ? null : books.get(PAIRS[index]);
+                if (book != null && peek() == '{') {
+                    readBook(book);
+                    found[index] = true;
+                } else if (tokenEquals(SUCCESS)) {
+                    failed = readNumber() == 0;
+                } else if (tokenEquals(ERROR) && peek() == '"') {
+                    readString();
+                    error = new String(token, 0, tokenLength, StandardCharsets.UTF_8);
+                } else {
+                    skipValue();
+                }
+            } while (consume(','));
+            expect('}');
+        }
+
+        if (failed) {
+            if (error == null) {
+                throw new BTCEException("Invalid server response. \"error\" field missed.");
+            }
+            throw new BTCEException(error);
+        }
+        for (Pair pair : PAIRS) {
+            if (!found[pair.ordinal()] && books.containsKey(pair)) {
+                throw new BTCEException(String.format("Invalid server response. \"%s\" field missed.", pair.getName()));
+            }
+        }
+    }
+
+    private void readBook(OrderBook book) throws IOException {
+        book.clear();
+
+        expect('{');
+        if (!consume('}')) {
+            do {
+                readString();
+                expect(':');
+                if (tokenEquals(ASKS)) {
+                    readLevels(book.getAsks());
+                } else if (tokenEquals(BIDS)) {
+                    readLevels(book.getBids());
+                } else {
+                    skipValue();
+                }
+            } while (consume(','));
+            expect('}');
+        }
+    }
+
+    private void readLevels(OrderBook.Side side) throws IOException {
+        if (peek() != '[') {
+            skipValue(); // null
+            return;
+        }
+
+        expect('[');
+        if (!consume(']')) {
+            do {
+                expect('[');
+                double price = readNumber();
+                expect(',');
+                double amount = readNumber();
+                while (consume(',')) {
+                    skipValue();
+                }
+                expect(']');
+                side.add(price, amount);
+            } while (consume(','));
+            expect(']');
+        }
+    }
+
+    /**
+     * @return index of pair named as current token, -1 if there is no such pair
+     */
+    private int requested() {
+        for (int i = 0; i < NAMES.length; i++) {
+            if (tokenEquals(NAMES[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private double readNumber() throws IOException {
+        if (peek() == '"') {
+            readString();
+        } else {
+            readLiteral();
+        }
+        return parseNumber();
+    }
+
+    /**
+     * Parse current token as number.
+     * Fast path handles up to 15-16 significant digits with small exponent, which covers prices and amounts
+     *
+     * @return parsed number
+     */
+    private double parseNumber() {
+        int i = 0;
+        boolean negative = false;
+        if (i < tokenLength && (token[i] == '-' || token[i] == '+')) {
+            negative = token[i++] == '-';
+        }
+
+        long mantissa = 0;
+        int scale = 0;
+        int digits = 0;
+        boolean exact = true;
+        for (; i < tokenLength && isDigit(token[i]); i++, digits++) {
+            exact &= append(mantissa, token[i]);
+            mantissa = mantissa * 10 + token[i] - '0';
+        }
+        if (i < tokenLength && token[i] == '.') {
+            for (i++; i < tokenLength && isDigit(token[i]); i++, digits++, scale--) {
+                exact &= append(mantissa, token[i]);
+                mantissa = mantissa * 10 + token[i] - '0';
+            }
+        }
+        if (digits == 0) {
+            throw malformed("number expected");
+        }
+        if (i < tokenLength && (token[i] == 'e' || token[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < tokenLength && (token[i] == '-' || token[i] == '+')) {
+                negativeExponent = token[i++] == '-';
+            }
+            int exponent = 0;
+            int start = i;
+            for (; i < tokenLength && isDigit(token[i]); i++) {
+                exponent = Math.min(exponent * 10 + token[i] - '0', 1000);
+            }
+            if (i == start) {
+                throw malformed("number expected");
+            }
+            scale += negativeExponent ? -exponent : exponent;
+        }
+        if (i != tokenLength) {
+            throw malformed("number expected");
+        }
+
+        if (!exact || Math.abs(scale) >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(new String(token, 0, tokenLength, StandardCharsets.US_ASCII));
+        }
+        double value = scale < 0 ? mantissa / POWERS_OF_TEN[-scale] : mantissa * POWERS_OF_TEN[scale];
+        return negative ? -value : value;
+    }
+
+    /**
+     * @return true if digit may be appended to mantissa keeping it exact
+     */
+    private static boolean append(long mantissa, byte digit) {
+        return mantissa <= (MAX_EXACT_MANTISSA - (digit - '0')) / 10;
+    }
+
+    private void skipValue() throws IOException {
+        int c = peek();
+        if (c == '"') {
+            readString();
+        } else if (c == '{' || c == '[') {
+            pos++;
+            int level = 1;
+            while (level > 0) {
+                c = next();
+                if (c == -1) {
+                    throw malformed("unexpected end of response");
+                } else if (c == '"') {
+                    pos--;
+                    readString();
+                } else if (c == '{' || c == '[') {
+                    level++;
+                } else if (c == '}' || c == ']') {
+                    level--;
+                }
+            }
+        } else {
+            readLiteral();
+            if (tokenLength == 0) {
+                throw malformed("value expected");
+            }
+        }
+    }
+
+    /**
+     * Read string into token. Escaped characters are kept as is, without decoding
+     */
+    private void readString() throws IOException {
+        expect('"');
+        tokenLength = 0;
+        while (true) {
+            int c = next();
+            if (c == -1) {
+                throw malformed("unterminated string");
+            }
+            if (c == '"') {
+                return;
+            }
+            if (c == '\\') {
+                c = next();
+                if (c == -1) {
+                    throw malformed("unterminated string");
+                }
+            }
+            appendToken((byte) c);
+        }
+    }
+
+    /**
+     * Read number or literal into token
+     */
+    private void readLiteral() throws IOException {
+        peek();
+        tokenLength = 0;
+        while (pos < limit || fill()) {
+            byte c = buffer[pos];
+            if (c == ',' || c == '}' || c == ']' || isWhitespace(c)) {
+                return;
+            }
+            appendToken(c);
+            pos++;
+        }
+    }
+
+    private void appendToken(byte c) {
+        if (tokenLength == token.length) {
+            token = Arrays.copyOf(token, tokenLength * 2);
+        }
+        token[tokenLength++] = c;
+    }
+
+    private boolean tokenEquals(byte[] name) {
+        if (tokenLength != name.length) {
+            return false;
+        }
+        for (int i = 0; i < tokenLength; i++) {
+            if (token[i] != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void expect(char c) throws IOException {
+        if (!consume(c)) {
+            throw malformed(String.format("'%s' expected", c));
+        }
+    }
+
+    private boolean consume(char c) throws IOException {
+        if (peek() == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return next not whitespace byte without consuming it, -1 at the end of response
+     */
+    private int peek() throws IOException {
+        while (pos < limit || fill()) {
+            byte c = buffer[pos];
+            if (!isWhitespace(c)) {
+                return c & 0xFF;
+            }
+            pos++;
+        }
+        return -1;
+    }
+
+    /**
+     * @return next byte, -1 at the end of response
+     */
+    private int next() throws IOException {
+        if (pos < limit || fill()) {
+            return buffer[pos++] & 0xFF;
+        }
+        return -1;
+    }
+
+    private boolean fill() throws IOException {
+        pos = 0;
+        limit = Math.max(in.read(buffer, 0, buffer.length), 0);
+        return limit > 0;
+    }
+
+    private static boolean isDigit(byte c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isWhitespace(byte c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    private static BTCEException malformed(String reason) {
+        return new BTCEException(String.format("Not a JSON Object: %s", reason));
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,126 @@
+package com.isador.trade.jbtce.publicapi;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import com.isador.trade.jbtce.BTCEException;
+import com.isador.trade.jbtce.ResponseHandler;
+import com.isador.trade.jbtce.constants.Pair;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Base streaming parser of v3 multi pair response.
+ * Reads tokens straight into result objects, without building json tree.
+ * Values of not requested pairs are skipped.
+ *
+ * @param <T> pair value type
+ * @author isador
+ * @since 2.0.1
+ */
+abstract class PairStreamParser<T> implements ResponseHandler<Map<Pair, T>> {
+
+    private final JsonToken valueToken;
+    private final Pair[] pairs;
+
+    /**
+     * @param valueToken first token of pair value
+     * @param pairs      requested pairs
+     */
+    PairStreamParser(JsonToken valueToken, Pair... pairs) {
+        this.valueToken = valueToken;
+        this.pairs = pairs == null ? new Pair[0] : pairs;
+    }
+
+    @Override
+    public Map<Pair, T> handle(InputStream response) throws IOException {
+        return parse(new InputStreamReader(response, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parse response
+     *
+     * @param response response body
+     * @return value mapped to requested pair
+     * @throws IOException   on read errors
+     * @throws BTCEException if server returned error or response is not valid
+     */
+    Map<Pair, T> parse(Reader response) throws IOException {
+        JsonReader reader = new JsonReader(response);
+        reader.setLenient(true);
+        try {
+            return read(reader);
+        } catch (MalformedJsonException | IllegalStateException | NumberFormatException e) {
+            throw new BTCEException(String.format("Not a JSON Object: %s", e.getMessage()), e);
+        }
+    }
+
+    /**
+     * Read value of requested pair
+     *
+     * @param pair   pair
+     * @param reader reader positioned at value
+     * @return pair value
+     * @throws IOException on read errors
+     */
+    abstract T readValue(Pair pair, JsonReader reader) throws IOException;
+
+    private Map<Pair, T> read(JsonReader reader) throws IOException {
+        try {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                throw new BTCEException(String.format("Not a JSON Object: unexpected %s", reader.peek()));
+            }
+        } catch (EOFException e) {
+            throw new BTCEException("Invalid server response. Null or empty response", e);
+        }
+
+        Map<Pair, T> values = new EnumMap<>(Pair.class);
+        boolean failed = false;
+        String error = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            Pair pair = requested(name);
+            if (pair != null && reader.peek() == valueToken) {
+                values.put(pair, readValue(pair, reader));
+            } else if ("success".equals(name)) {
+                failed = reader.nextInt() == 0;
+            } else if ("error".equals(name) && reader.peek() == JsonToken.STRING) {
+                error = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (failed) {
+            if (error == null) {
+                throw new BTCEException("Invalid server response. \"error\" field missed.");
+            }
+            throw new BTCEException(error);
+        }
+        for (Pair pair : pairs) {
+            if (!values.containsKey(pair)) {
+                throw new BTCEException(String.format("Invalid server response. \"%s\" field missed.", pair.getName()));
+            }
+        }
+        return values;
+    }
+
+    private Pair requested(String name) {
+        for (Pair pair : pairs) {
+            if (pair.getName().equals(name)) {
+                return pair;
+            }
+        }
+        return null;
+    }
+}
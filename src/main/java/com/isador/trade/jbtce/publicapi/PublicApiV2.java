@@ -10,6 +10,7 @@ import com.isador.trade.jbtce.constants.TradeType;
 import com.isador.trade.jbtce.publicapi.Depth.SimpleOrder;
 
 import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
 
 import static java.util.Objects.requireNonNull;
 
@@ -102,6 +103,66 @@ public class PublicApiV2 extends AbstractApi {
         return obj.get("trade").getAsDouble();
     }
 
+    /**
+     * Asynchronous {@link #getTick(Pair)} through async connector
+     *
+     * @param asyncConnector async connector
+     * @param pair           pair
+     * @return pair info future, completed exceptionally with {@link NullPointerException} if pair is null
+     * @see AsyncPublicApiV2
+     */
+    CompletableFuture<Tick> getTickAsync(AsyncConnector asyncConnector, Pair pair) {
+        return startAsync(() -> {
+            checkPair(pair);
+            return callAsync(asyncConnector, pair, "ticker").thenApply(obj -> gson.fromJson(obj.getAsJsonObject().get("ticker"), Tick.class));
+        });
+    }
+
+    /**
+     * Asynchronous {@link #getTrades(Pair)} through async connector
+     *
+     * @param asyncConnector async connector
+     * @param pair           pair
+     * @return trades array future, completed exceptionally with {@link NullPointerException} if pair is null
+     * @see AsyncPublicApiV2
+     */
+    CompletableFuture<Trade[]> getTradesAsync(AsyncConnector asyncConnector, Pair pair) {
+        return startAsync(() -> {
+            checkPair(pair);
+            return callAsync(asyncConnector, pair, "trades").thenApply(obj -> gson.fromJson(obj, Trade[].class));
+        });
+    }
+
+    /**
+     * Asynchronous {@link #getDepth(Pair)} through async connector
+     *
+     * @param asyncConnector async connector
+     * @param pair           pair
+     * @return depth future, completed exceptionally with {@link NullPointerException} if pair is null
+     * @see AsyncPublicApiV2
+     */
+    CompletableFuture<Depth> getDepthAsync(AsyncConnector asyncConnector, Pair pair) {
+        return startAsync(() -> {
+            checkPair(pair);
+            return callAsync(asyncConnector, pair, "depth").thenApply(obj -> gson.fromJson(obj, Depth.class));
+        });
+    }
+
+    /**
+     * Asynchronous {@link #getFee(Pair)} through async connector
+     *
+     * @param asyncConnector async connector
+     * @param pair           pair
+     * @return pair commission future, completed exceptionally with {@link NullPointerException} if pair is null
+     * @see AsyncPublicApiV2
+     */
+    CompletableFuture<Double> getFeeAsync(AsyncConnector asyncConnector, Pair pair) {
+        return startAsync(() -> {
+            checkPair(pair);
+            return callAsync(asyncConnector, pair, "fee").thenApply(obj -> obj.getAsJsonObject().get("trade").getAsDouble());
+        });
+    }
+
     /**
      * Call api method with pair specified
      *
@@ -112,8 +173,31 @@ public class PublicApiV2 extends AbstractApi {
      */
     private JsonElement call(Pair pair, String methodName) throws BTCEException {
         String preparedUrlPath = String.format(PUBLIC_API_URL_TEMPLATE, pair.getName(), methodName);
-        JsonElement response = processServerResponse(connector -> connector.get(createUrl(preparedUrlPath), headers));
+        return checkResponse(processServerResponse((connector, handler) -> connector.get(createUrl(preparedUrlPath), headers, handler)));
+    }
 
+    /**
+     * Call api method with pair specified through async connector
+     *
+     * @param asyncConnector async connector
+     * @param pair           pair
+     * @param methodName     api v2 method
+     * @return parsed response future, completed exceptionally with {@link BTCEException} if there is error in response
+     */
+    private CompletableFuture<JsonElement> callAsync(AsyncConnector asyncConnector, Pair pair, String methodName) {
+        String preparedUrlPath = String.format(PUBLIC_API_URL_TEMPLATE, pair.getName(), methodName);
+        return processServerResponseAsync(asyncConnector, (connector, handler) -> connector.get(createUrl(preparedUrlPath), headers, handler),
+                this::parseResponse, currentRetryPolicy(), true).thenApply(this::checkResponse);
+    }
+
+    /**
+     * Check api response for error
+     *
+     * @param response parsed response
+     * @return response json array or object
+     * @throws BTCEException if there is error in response(json contains 'error' field)
+     */
+    private JsonElement checkResponse(JsonElement response) throws BTCEException {
         if (response.isJsonArray()) {
             return response.getAsJsonArray();
         }
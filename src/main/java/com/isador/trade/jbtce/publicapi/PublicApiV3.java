@@ -11,12 +11,18 @@ import com.isador.trade.jbtce.constants.TradeType;
 import com.isador.trade.jbtce.publicapi.Depth.SimpleOrder;
 
 import java.time.LocalDateTime;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
+import static java.util.Objects.requireNonNull;
 import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 
@@ -29,6 +35,11 @@ import static java.util.stream.Collectors.toMap;
 public class PublicApiV3 extends AbstractApi {
 
     private static final String PUBLIC_API_TEMPLATE = "api/3/%s/%s";
+    private static final ThreadLocal<OrderBookScanner> SCANNERS = ThreadLocal.withInitial(OrderBookScanner::new);
+
+    private final Coalescer<String, Object> coalescer = new Coalescer<>();
+    private volatile Hedging hedging;
+    private volatile boolean coalescing;
 
     /**
      * Create new public v3 api using default server provider and connector
@@ -49,6 +60,48 @@ public class PublicApiV3 extends AbstractApi {
                 BTCEInfo.class, new BtceInfoDeserializer()));
     }
 
+    /**
+     * @return hedging used by latency critical methods, null if disabled
+     */
+    public Hedging getHedging() {
+        return hedging;
+    }
+
+    /**
+     * Enable hedged requests for {@link #getTicks(Pair...)} and {@link #getDepths(Integer, Pair...)}.
+     * Slow call to current server is repeated on the best ranked other server, the first answer is used
+     *
+     * @param hedging hedging, null to disable
+     */
+    public void setHedging(Hedging hedging) {
+        this.hedging = hedging;
+    }
+
+    /**
+     * @return true if concurrent identical calls share one request
+     */
+    public boolean isCoalescing() {
+        return coalescing;
+    }
+
+    /**
+     * Enable request coalescing. Concurrent calls of the same method with the same limit and pair set
+     * share one in-flight request and one response parse. Every caller still gets its own result objects
+     *
+     * @param coalescing true to enable
+     * @see #getCoalescer()
+     */
+    public void setCoalescing(boolean coalescing) {
+        this.coalescing = coalescing;
+    }
+
+    /**
+     * @return coalescer with calls statistics
+     */
+    public Coalescer<String, Object> getCoalescer() {
+        return coalescer;
+    }
+
     /**
      * This method provides all the information about currently active pairs, whether the pair is hidden
      *
@@ -69,10 +122,7 @@ public class PublicApiV3 extends AbstractApi {
      * @throws BTCEException if was any error during execution
      */
     public Map<Pair, Double> getFees(Pair... pairs) throws BTCEException {
-        JsonObject json = call("fee", null, pairs);
-
-        return Stream.of(pairs)
-                .collect(toMap(identity(), pair -> json.get(pair.getName()).getAsDouble()));
+        return toFees(call("fee", null, pairs), pairs);
     }
 
     /**
@@ -83,10 +133,7 @@ public class PublicApiV3 extends AbstractApi {
      * @throws BTCEException if was any error during execution
      */
     public Map<Pair, Tick> getTicks(Pair... pairs) throws BTCEException {
-        JsonObject json = call("ticker", null, pairs);
-
-        return Stream.of(pairs)
-                .collect(toMap(identity(), pair -> gson.fromJson(json.get(pair.getName()), Tick.class)));
+        return toTicks(hedgedCall("ticker", null, pairs), pairs);
     }
 
     /**
@@ -108,12 +155,51 @@ public class PublicApiV3 extends AbstractApi {
      * @param pairs pairs
      * @return depth mapped to pair
      * @throws BTCEException if was any error during execution
+     * @see #getOrderBooks(Integer, Map)
      */
     public Map<Pair, Depth> getDepths(Integer limit, Pair... pairs) throws BTCEException {
-        JsonObject json = call("depth", limit, pairs);
+        Map<Pair, Depth> depths = fetch("depth", limit, pairs, true, new DepthStreamParser(pairs));
+        // coalesced callers share parsed depths, each one gets its own copy
+        return coalescing ? copy(depths) : depths;
+    }
 
-        return Stream.of(pairs)
-                .collect(toMap(identity(), pair -> gson.fromJson(json.get(pair.getName()), Depth.class)));
+    /**
+     * Provides the information about active orders on the pair as primitive order books.
+     * New books are created on every call, poll into the same books with {@link #getOrderBooks(Integer, Map)}.
+     *
+     * @param limit retrieve count
+     * @param pairs pairs
+     * @return order book mapped to pair
+     * @throws BTCEException if was any error during execution
+     * @see #getOrderBooks(Integer, Map)
+     */
+    public Map<Pair, OrderBook> getOrderBooks(Integer limit, Pair... pairs) throws BTCEException {
+        Map<Pair, OrderBook> books = new EnumMap<>(Pair.class);
+        if (pairs != null) {
+            for (Pair pair : pairs) {
+                books.put(pair, new OrderBook());
+            }
+        }
+        return getOrderBooks(limit, books);
+    }
+
+    /**
+     * Provides the information about active orders on the pair, filling caller-owned order books in place.
+     * Requested pairs are the keys of books map. Books and parsing buffers are reused, so polling
+     * into the same books does not allocate per order once books have grown to depth size.<br>
+     * Call is neither hedged nor coalesced, since books are mutated. Books must not be read during the call,
+     * if call fails they may be left partially filled.
+     *
+     * @param limit retrieve count
+     * @param books books to fill, mapped to pair
+     * @return filled books
+     * @throws BTCEException if was any error during execution
+     */
+    public Map<Pair, OrderBook> getOrderBooks(Integer limit, Map<Pair, OrderBook> books) throws BTCEException {
+        requireNonNull(books, "Books must be specified");
+        String preparedUrlPath = prepareUrl("depth", limit, books.keySet().toArray(new Pair[books.size()]));
+        return processServerResponse((connector, handler) -> connector.get(createUrl(preparedUrlPath), headers, handler),
+                response -> SCANNERS.get().scan(response, books));
     }
 
     /**
@@ -137,12 +223,148 @@ public class PublicApiV3 extends AbstractApi {
      * @throws BTCEException if was any error during execution
      */
     public Map<Pair, List<Trade>> getTrades(Integer limit, Pair... pairs) throws BTCEException {
-        JsonObject json = call("trades", limit, pairs);
+        return toTrades(call("trades", limit, pairs), pairs);
+    }
+
+    /**
+     * Provides the trades newer than last seen ones, newest first.
+     * Parsing of pair trades stops at the first already seen trade, older trades are not deserialized.
+     * Call is neither hedged nor coalesced, since result depends on last seen ids.
+     *
+     * @param limit    retrieve count
+     * @param lastTids last seen trade id mapped to pair, null id to get all trades of the pair
+     * @return new trades mapped to pair
+     * @throws BTCEException if was any error during execution
+     * @see com.isador.trade.jbtce.publicapi.feed.TradeFeed
+     */
+    public Map<Pair, List<Trade>> getTradesAfter(Integer limit, Map<Pair, Long> lastTids) throws BTCEException {
+        requireNonNull(lastTids, "Last trade ids must be specified");
+        TradeStreamParser parser = new TradeStreamParser(lastTids);
+        String preparedUrlPath = prepareUrl("trades", limit, lastTids.keySet().toArray(new Pair[lastTids.size()]));
+        return processServerResponse((connector, handler) -> connector.get(createUrl(preparedUrlPath), headers, handler), parser);
+    }
+
+    /**
+     * Asynchronous {@link #getInfo()} through async connector
+     *
+     * @param asyncConnector async connector
+     * @return info holder future
+     * @see AsyncPublicApiV3
+     */
+    CompletableFuture<BTCEInfo> getInfoAsync(AsyncConnector asyncConnector) {
+        return startAsync(() -> callAsync(asyncConnector, "info", null).thenApply(json -> gson.fromJson(json, BTCEInfo.class)));
+    }
 
+    /**
+     * Asynchronous {@link #getFees(Pair...)} through async connector
+     *
+     * @param asyncConnector async connector
+     * @param pairs          pairs
+     * @return commission mapped on pair future
+     * @see AsyncPublicApiV3
+     */
+    CompletableFuture<Map<Pair, Double>> getFeesAsync(AsyncConnector asyncConnector, Pair... pairs) {
+        return startAsync(() -> callAsync(asyncConnector, "fee", null, pairs).thenApply(json -> toFees(json, pairs)));
+    }
+
+    /**
+     * Asynchronous {@link #getTicks(Pair...)} through async connector. Call is not hedged
+     *
+     * @param asyncConnector async connector
+     * @param pairs          pairs
+     * @return tick mapped to pair future
+     * @see AsyncPublicApiV3
+     */
+    CompletableFuture<Map<Pair, Tick>> getTicksAsync(AsyncConnector asyncConnector, Pair... pairs) {
+        return startAsync(() -> callAsync(asyncConnector, "ticker", null, pairs).thenApply(json -> toTicks(json, pairs)));
+    }
+
+    /**
+     * Asynchronous {@link #getDepths(Integer, Pair...)} through async connector. Call is not hedged
+     *
+     * @param asyncConnector async connector
+     * @param limit          retrieve count
+     * @param pairs          pairs
+     * @return depth mapped to pair future
+     * @see AsyncPublicApiV3
+     */
+    CompletableFuture<Map<Pair, Depth>> getDepthsAsync(AsyncConnector asyncConnector, Integer limit, Pair... pairs) {
+        return startAsync(() -> fetchAsync(asyncConnector, "depth", limit, pairs, new DepthStreamParser(pairs)));
+    }
+
+    /**
+     * Asynchronous {@link #getTrades(Integer, Pair...)} through async connector
+     *
+     * @param asyncConnector async connector
+     * @param limit          retrieve count
+     * @param pairs          pairs
+     * @return trades collection mapped to pair future
+     * @see AsyncPublicApiV3
+     */
+    CompletableFuture<Map<Pair, List<Trade>>> getTradesAsync(AsyncConnector asyncConnector, Integer limit, Pair... pairs) {
+        return startAsync(() -> callAsync(asyncConnector, "trades", limit, pairs).thenApply(json -> toTrades(json, pairs)));
+    }
+
+    /**
+     * Maintenance method. Converts fee response
+     *
+     * @param json  response
+     * @param pairs requested pairs
+     * @return commission mapped on pair
+     */
+    private Map<Pair, Double> toFees(JsonObject json, Pair[] pairs) {
+        return Stream.of(pairs)
+                .collect(toMap(identity(), pair -> json.get(pair.getName()).getAsDouble()));
+    }
+
+    /**
+     * Maintenance method. Converts ticker response
+     *
+     * @param json  response
+     * @param pairs requested pairs
+     * @return tick mapped to pair
+     */
+    private Map<Pair, Tick> toTicks(JsonObject json, Pair[] pairs) {
+        return Stream.of(pairs)
+                .collect(toMap(identity(), pair -> gson.fromJson(json.get(pair.getName()), Tick.class)));
+    }
+
+    /**
+     * Maintenance method. Converts trades response
+     *
+     * @param json  response
+     * @param pairs requested pairs
+     * @return trades collection mapped to pair
+     */
+    private Map<Pair, List<Trade>> toTrades(JsonObject json, Pair[] pairs) {
         return Stream.of(pairs)
                 .collect(toMap(identity(), pair -> toTradeList(pair, json.get(pair.getName()).getAsJsonArray())));
     }
 
+    /**
+     * Maintenance method. Copy depths map and order arrays, orders are immutable
+     *
+     * @param depths depths mapped to pair
+     * @return copy
+     */
+    private static Map<Pair, Depth> copy(Map<Pair, Depth> depths) {
+        Map<Pair, Depth> copy = new EnumMap<>(Pair.class);
+        depths.forEach((pair, depth) -> copy.put(pair, copyDepth(depth)));
+        return copy;
+    }
+
+    /**
+     * Maintenance method. Copy depth order arrays, orders are immutable
+     *
+     * @param depth depth, may be null
+     * @return copy
+     */
+    static Depth copyDepth(Depth depth) {
+        return depth == null ? null
+                : new Depth(depth.getAsks() == null ? null : depth.getAsks().clone(),
+                depth.getBids() == null ? null : depth.getBids().clone());
+    }
+
     /**
      * Maintenance method. Converts json element to list of trades
      *
@@ -187,9 +409,132 @@ public class PublicApiV3 extends AbstractApi {
      * @throws BTCEException if was any error during execution
      */
     private JsonObject call(String method, Integer limit, Pair... pairs) throws BTCEException {
+        return checkResponse(fetch(method, limit, pairs, false, this::parseResponse));
+    }
+
+    /**
+     * Call api method, hedging slow call on another server if hedging is enabled.
+     *
+     * @param method api method
+     * @param limit  limit (if supported)
+     * @param pairs  pairs array
+     * @return json response
+     * @throws BTCEException if was any error during execution
+     * @see Hedging
+     */
+    private JsonObject hedgedCall(String method, Integer limit, Pair... pairs) throws BTCEException {
+        return checkResponse(fetch(method, limit, pairs, true, this::parseResponse));
+    }
+
+    /**
+     * Fetch api method response.
+     * Call is hedged if requested and hedging is enabled, shared with concurrent identical calls if coalescing is enabled
+     *
+     * @param method  api method
+     * @param limit   limit (if supported)
+     * @param pairs   pairs array
+     * @param hedged  true if call may be hedged
+     * @param handler response handler
+     * @param <T>     result type
+     * @return handler result
+     * @throws BTCEException if was any error during execution
+     */
+    private <T> T fetch(String method, Integer limit, Pair[] pairs, boolean hedged, ResponseHandler<T> handler) throws BTCEException {
         String preparedUrlPath = prepareUrl(method, limit, pairs);
-        JsonObject response = processServerResponse(connector -> connector.get(createUrl(preparedUrlPath), headers))
-                .getAsJsonObject();
+        // call may run on hedging or coalescing thread, so policy of the calling thread is passed explicitly
+        RetryPolicy policy = currentRetryPolicy();
+        Supplier<T> call = () -> processServerResponse((connector, h) -> connector.get(createUrl(preparedUrlPath), headers, h),
+                handler, policy, true);
+
+        Hedging currentHedging = hedged ? hedging : null;
+        if (currentHedging != null && getServerProvider().getMirrors().length > 0) {
+            // server of the latest primary attempt, hedge goes to the best ranked other one
+            AtomicReference<String> primaryServer = new AtomicReference<>();
+            Supplier<T> primary = () -> processServerResponse((connector, h) -> {
+                String server = getServerProvider().getCurrentServer();
+                primaryServer.set(server);
+                return connector.get(server + preparedUrlPath, headers, h);
+            }, handler, policy, true);
+            Supplier<T> hedge = () -> processServerResponse((connector, h) ->
+                    connector.get(hedgeServer(primaryServer.get()) + preparedUrlPath, headers, h), handler, RetryPolicy.NO_RETRY, true);
+            call = () -> currentHedging.execute(primary, hedge);
+        }
+
+        if (!coalescing) {
+            return call.get();
+        }
+
+        String pairsKey = pairs == null ? "" : Stream.of(pairs)
+                .map(String::valueOf)
+                .distinct()
+                .sorted()
+                .collect(joining("-"));
+        @SuppressWarnings("unchecked")
+        // calls with different retry policies are not identical
+        T result = (T) coalescer.execute(method + '/' + pairsKey + '?' + limit + '#' + policy, (Supplier<Object>) call);
+        return result;
+    }
+
+    /**
+     * Call api method through async connector.
+     *
+     * @param asyncConnector async connector
+     * @param method         api method
+     * @param limit          limit (if supported)
+     * @param pairs          pairs array
+     * @return json response future, completed exceptionally with {@link BTCEException} if server returned error
+     */
+    private CompletableFuture<JsonObject> callAsync(AsyncConnector asyncConnector, String method, Integer limit, Pair... pairs) {
+        return fetchAsync(asyncConnector, method, limit, pairs, this::parseResponse).thenApply(this::checkResponse);
+    }
+
+    /**
+     * Fetch api method response through async connector. Call is neither hedged nor coalesced
+     *
+     * @param asyncConnector async connector
+     * @param method         api method
+     * @param limit          limit (if supported)
+     * @param pairs          pairs array
+     * @param handler        response handler
+     * @param <T>            result type
+     * @return handler result future
+     */
+    private <T> CompletableFuture<T> fetchAsync(AsyncConnector asyncConnector, String method, Integer limit, Pair[] pairs,
+                                                ResponseHandler<T> handler) {
+        String preparedUrlPath = prepareUrl(method, limit, pairs);
+        return processServerResponseAsync(asyncConnector, (connector, h) -> connector.get(createUrl(preparedUrlPath), headers, h),
+                handler, currentRetryPolicy(), true);
+    }
+
+    /**
+     * Choose server for hedged call. Current server and mirrors are ordered by rank, if server provider ranks them
+     *
+     * @param primaryServer server used by primary call, null if primary call has not started yet
+     * @return best ranked server, other than primary one
+     * @throws BTCEException if there is no other server
+     */
+    private String hedgeServer(String primaryServer) {
+        ServerProvider serverProvider = getServerProvider();
+        String current = serverProvider.getCurrentServer();
+        String primary = primaryServer == null ? current : primaryServer;
+        if (!current.equals(primary)) {
+            return current;
+        }
+        return Stream.of(serverProvider.getMirrors())
+                .filter(mirror -> !mirror.equals(primary))
+                .findFirst()
+                .orElseThrow(() -> new BTCEException("No server to send hedged call to"));
+    }
+
+    /**
+     * Check api response for error
+     *
+     * @param json response
+     * @return response json object
+     * @throws BTCEException if server returned error
+     */
+    private JsonObject checkResponse(JsonElement json) throws BTCEException {
+        JsonObject response = json.getAsJsonObject();
 
         if (response.has("success") && response.get("success").getAsByte() == 0) {
             throw new BTCEException(get(response, "error").getAsString());
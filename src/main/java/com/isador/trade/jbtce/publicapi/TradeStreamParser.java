@@ -0,0 +1,101 @@
+package com.isador.trade.jbtce.publicapi;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.isador.trade.jbtce.LocalDateTimeDeserializer;
+import com.isador.trade.jbtce.constants.Pair;
+import com.isador.trade.jbtce.constants.TradeType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming parser of v3 trades response.
+ * Server returns trades newest first, so parsing of pair trades stops at the first already seen trade id:
+ * older trades are skipped without creating {@link Trade} objects.
+ *
+ * @author isador
+ * @since 2.0.1
+ */
+final class TradeStreamParser extends PairStreamParser<List<Trade>> {
+
+    private final Map<Pair, Long> lastTids;
+
+    /**
+     * @param lastTids last seen trade id mapped to requested pair, null id means no trades seen
+     */
+    TradeStreamParser(Map<Pair, Long> lastTids) {
+        super(JsonToken.BEGIN_ARRAY, lastTids.keySet().toArray(new Pair[lastTids.size()]));
+        this.lastTids = lastTids;
+    }
+
+    @Override
+    List<Trade> readValue(Pair pair, JsonReader reader) throws IOException {
+        Long lastTid = lastTids.get(pair);
+        List<Trade> trades = new ArrayList<>();
+
+        reader.beginArray();
+        while (reader.hasNext()) {
+            Trade trade = readTrade(pair, reader, lastTid == null ? Long.MIN_VALUE : lastTid);
+            if (trade == null) {
+                break;
+            }
+            trades.add(trade);
+        }
+        while (reader.hasNext()) {
+            reader.skipValue();
+        }
+        reader.endArray();
+
+        return trades;
+    }
+
+    /**
+     * Read trade
+     *
+     * @param pair    pair
+     * @param reader  reader positioned at trade
+     * @param lastTid last seen trade id
+     * @return trade, null if trade was already seen
+     * @throws IOException on read errors
+     */
+    private Trade readTrade(Pair pair, JsonReader reader, long lastTid) throws IOException {
+        String type = null;
+        double price = 0;
+        double amount = 0;
+        long tid = 0;
+        long timestamp = 0;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "type":
+                    type = reader.nextString();
+                    break;
+                case "price":
+                    price = reader.nextDouble();
+                    break;
+                case "amount":
+                    amount = reader.nextDouble();
+                    break;
+                case "tid":
+                    tid = reader.nextLong();
+                    break;
+                case "timestamp":
+                    timestamp = reader.nextLong();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (tid <= lastTid) {
+            return null;
+        }
+        return new Trade(LocalDateTimeDeserializer.deserialize(timestamp), price, amount, tid,
+                pair.getSec(), pair.getPrim(), TradeType.parse(type));
+    }
+}
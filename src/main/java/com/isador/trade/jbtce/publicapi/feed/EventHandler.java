@@ -0,0 +1,22 @@
+package com.isador.trade.jbtce.publicapi.feed;
+
+/**
+ * Consumer of ring buffer events
+ *
+ * @param <E> event type
+ * @author isador
+ * @since 2.0.1
+ * @see RingBuffer
+ */
+@FunctionalInterface
+public interface EventHandler<E> {
+
+    /**
+     * Handle event. Event slot is reused by producer once all handlers passed it, so it must not be kept
+     *
+     * @param event      event slot
+     * @param sequence   event sequence
+     * @param endOfBatch true if it is the last published event at the moment
+     */
+    void onEvent(E event, long sequence, boolean endOfBatch);
+}
@@ -0,0 +1,70 @@
+package com.isador.trade.jbtce.publicapi.feed;
+
+import com.isador.trade.jbtce.publicapi.feed.RingBuffer.Sequence;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Ring buffer consumer loop.
+ * Waits for published events and passes them to handler in batches, then advances its sequence,
+ * releasing slots to producer. Handler failures are logged and the event is skipped.
+ *
+ * @param <E> event type
+ * @author isador
+ * @since 2.0.1
+ * @see RingBuffer#addHandler(EventHandler)
+ */
+public final class EventProcessor<E> implements Runnable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EventProcessor.class);
+
+    private final RingBuffer<E> ringBuffer;
+    private final EventHandler<? super E> handler;
+    private final Sequence sequence;
+    private volatile boolean running = true;
+
+    EventProcessor(RingBuffer<E> ringBuffer, EventHandler<? super E> handler, Sequence sequence) {
+        this.ringBuffer = ringBuffer;
+        this.handler = handler;
+        this.sequence = sequence;
+    }
+
+    @Override
+    public void run() {
+        try {
+            long next = sequence.get() + 1;
+            while (running) {
+                long available = ringBuffer.waitFor(next, this);
+                for (; next <= available; next++) {
+                    try {
+                        handler.onEvent(ringBuffer.get(next), next, next == available);
+                    } catch (RuntimeException e) {
+                        LOG.warn("Event handler failed on sequence {}", next, e);
+                    }
+                }
+                sequence.setOrdered(available);
+            }
+        } finally {
+            ringBuffer.removeGatingSequence(sequence);
+        }
+    }
+
+    /**
+     * Stop processing. Producer no longer waits for this consumer
+     */
+    public void halt() {
+        running = false;
+        ringBuffer.removeGatingSequence(sequence);
+    }
+
+    /**
+     * @return last processed sequence
+     */
+    public long getSequence() {
+        return sequence.get();
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+}
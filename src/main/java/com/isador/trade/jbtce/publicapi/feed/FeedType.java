@@ -0,0 +1,13 @@
+package com.isador.trade.jbtce.publicapi.feed;
+
+/**
+ * Market data stream type
+ *
+ * @author isador
+ * @since 2.0.1
+ */
+public enum FeedType {
+    TICKER,
+    DEPTH,
+    TRADES
+}
@@ -0,0 +1,340 @@
+package com.isador.trade.jbtce.publicapi.feed;
+
+import com.isador.trade.jbtce.constants.Pair;
+import com.isador.trade.jbtce.publicapi.Depth;
+import com.isador.trade.jbtce.publicapi.PublicApiV3;
+import com.isador.trade.jbtce.publicapi.Tick;
+import com.isador.trade.jbtce.publicapi.Trade;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Market data poller on top of {@link PublicApiV3}.
+ * Subscriptions are made per pair and {@link FeedType}. All subscribed pairs of one type which are due for poll
+ * are requested together in multi pair calls, pairs which are due soon join the same call.<br>
+ * Poll interval adapts per pair and type: it is halved when data has changed since previous poll and grown
+ * by half when it has not, within [min interval, max interval]. Failed polls are retried after current interval.<br>
+ * Updates are delivered to {@link Subscriber}s with backpressure. Ticks and depths are conflated, subscriber
+ * which has not requested more gets only the latest snapshot. Trades are buffered, trades subscription fails
+ * if its buffer overflows. Trades subscribers get trades made after the first poll of the pair, oldest first.
+ * Trades are polled through a {@link TradeFeed}, so trades request limit follows trade rate, and polls which
+ * may have missed trades are counted by {@link #getTradeGaps()}.<br>
+ * Subscriber gets no signals before its {@link Subscriber#onSubscribe(Subscription)} has returned.
+ *
+ * @author isador
+ * @since 2.0.1
+ */
+public class MarketDataPoller implements Closeable {
+
+    public static final long DEFAULT_MIN_INTERVAL = 250;
+    public static final long DEFAULT_MAX_INTERVAL = 5000;
+    public static final int DEFAULT_MAX_PAIRS = 10;
+    public static final int TRADES_BUFFER = 1024;
+
+    private static final Logger LOG = LoggerFactory.getLogger(MarketDataPoller.class);
+
+    private final PublicApiV3 api;
+    private final long minInterval;
+    private final long maxInterval;
+    private final int maxPairs;
+    private final Executor executor;
+    private final ScheduledExecutorService scheduler;
+    private final TradeFeed tradeFeed;
+    private final Map<FeedType, Map<Pair, Topic<?>>> topics = new EnumMap<>(FeedType.class);
+    private final LongAdder requests = new LongAdder();
+
+    /**
+     * Create new poller with default intervals
+     *
+     * @param api      api
+     * @param executor executor to execute calls and deliver updates on
+     */
+    public MarketDataPoller(PublicApiV3 api, Executor executor) {
+        this(api, DEFAULT_MIN_INTERVAL, DEFAULT_MAX_INTERVAL, DEFAULT_MAX_PAIRS, executor);
+    }
+
+    /**
+     * Create new poller
+     *
+     * @param api         api
+     * @param minInterval min poll interval, in millis
+     * @param maxInterval max poll interval, in millis
+     * @param maxPairs    max pairs in one call
+     * @param executor    executor to execute calls and deliver updates on
+     * @throws IllegalArgumentException if intervals or pairs count are invalid
+     */
+    public MarketDataPoller(PublicApiV3 api, long minInterval, long maxInterval, int maxPairs, Executor executor) {
+        this.api = requireNonNull(api, "Api must be specified");
+        this.executor = requireNonNull(executor, "Executor must be specified");
+        checkArgument(minInterval > 0 && minInterval <= maxInterval, "Invalid intervals: %s, %s", minInterval, maxInterval);
+        checkArgument(maxPairs > 0, "Invalid max pairs: %s", maxPairs);
+        this.minInterval = minInterval;
+        this.maxInterval = maxInterval;
+        this.maxPairs = maxPairs;
+        this.tradeFeed = new TradeFeed(api, TradeFeed.DEFAULT_MIN_LIMIT, TradeFeed.MAX_LIMIT);
+        for (FeedType type : FeedType.values()) {
+            topics.put(type, new EnumMap<>(Pair.class));
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "jbtce-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long tick = Math.max(1, minInterval / 4);
+        scheduler.scheduleWithFixedDelay(this::pollDue, 0, tick, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param pair       pair
+     * @param subscriber ticks subscriber
+     */
+    public void subscribeTicks(Pair pair, Subscriber<? super Tick> subscriber) {
+        subscribe(FeedType.TICKER, pair, subscriber);
+    }
+
+    /**
+     * @param pair       pair
+     * @param subscriber depths subscriber
+     */
+    public void subscribeDepth(Pair pair, Subscriber<? super Depth> subscriber) {
+        subscribe(FeedType.DEPTH, pair, subscriber);
+    }
+
+    /**
+     * @param pair       pair
+     * @param subscriber trades subscriber
+     */
+    public void subscribeTrades(Pair pair, Subscriber<? super Trade> subscriber) {
+        subscribe(FeedType.TRADES, pair, subscriber);
+    }
+
+    /**
+     * @param type stream type
+     * @param pair pair
+     * @return current poll interval in millis, -1 if there are no subscriptions
+     */
+    public synchronized long getInterval(FeedType type, Pair pair) {
+        Topic<?> topic = topics.get(type).get(pair);
+        return topic == null ? -1 : topic.interval;
+    }
+
+    /**
+     * @return api calls executed
+     */
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    /**
+     * @return trades polls where some trades may have been missed, see {@link TradeFeed#getGaps()}
+     */
+    public long getTradeGaps() {
+        return tradeFeed.getGaps();
+    }
+
+    /**
+     * Stop polling and complete all subscriptions
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        List<Topic<?>> closed = new ArrayList<>();
+        synchronized (this) {
+            topics.values().forEach(typeTopics -> {
+                closed.addAll(typeTopics.values());
+                typeTopics.clear();
+            });
+        }
+        closed.forEach(topic -> topic.subscriptions.forEach(PollSubscription::complete));
+    }
+
+    private <T> void subscribe(FeedType type, Pair pair, Subscriber<? super T> subscriber) {
+        requireNonNull(pair, "Pair must be specified");
+        requireNonNull(subscriber, "Subscriber must be specified");
+
+        Topic<T> topic;
+        PollSubscription<T> subscription;
+        boolean closed;
+        synchronized (this) {
+            @SuppressWarnings("unchecked")
+            Topic<T> existing = (Topic<T>) topics.get(type).get(pair);
+            topic = existing != null ? existing : new Topic<>(type, pair);
+            subscription = new PollSubscription<>(subscriber, type == FeedType.TRADES ? TRADES_BUFFER : 1, executor,
+                    cancelled -> unsubscribe(topic, cancelled));
+            closed = scheduler.isShutdown();
+            if (!closed) {
+                topic.subscriptions.add(subscription);
+                topics.get(type).put(pair, topic);
+            }
+        }
+
+        // subscription may be polled or completed by close() already, signals are held until it is started
+        subscriber.onSubscribe(subscription);
+        T last = topic.last;
+        if (closed) {
+            subscription.complete();
+        } else if (last != null) {
+            subscription.offer(last);
+        }
+        subscription.start();
+    }
+
+    private synchronized void unsubscribe(Topic<?> topic, PollSubscription<?> subscription) {
+        topic.subscriptions.remove(subscription);
+        if (topic.subscriptions.isEmpty()) {
+            topics.get(topic.type).remove(topic.pair, topic);
+        }
+    }
+
+    /**
+     * Scheduler tick. Collect due topics of each type and poll them in chunks
+     */
+    private void pollDue() {
+        long now = now();
+        for (FeedType type : FeedType.values()) {
+            List<Topic<?>> due = new ArrayList<>();
+            synchronized (this) {
+                Collection<Topic<?>> typeTopics = topics.get(type).values();
+                if (typeTopics.stream().noneMatch(topic -> !topic.inFlight && topic.nextPoll <= now)) {
+                    continue;
+                }
+                // pairs due within a half of their interval join the call
+                for (Topic<?> topic : typeTopics) {
+                    if (!topic.inFlight && topic.nextPoll - topic.interval / 2 <= now) {
+                        topic.inFlight = true;
+                        due.add(topic);
+                    }
+                }
+            }
+
+            for (int from = 0; from < due.size(); from += maxPairs) {
+                List<Topic<?>> chunk = due.subList(from, Math.min(from + maxPairs, due.size()));
+                try {
+                    executor.execute(() -> poll(type, chunk));
+                } catch (RejectedExecutionException e) {
+                    LOG.warn("Poll rejected by executor", e);
+                    finish(chunk, now);
+                }
+            }
+        }
+    }
+
+    private void poll(FeedType type, List<Topic<?>> chunk) {
+        Pair[] pairs = chunk.stream().map(topic -> topic.pair).toArray(Pair[]::new);
+        try {
+            requests.increment();
+            switch (type) {
+                case TICKER:
+                    publishSnapshots(chunk, api.getTicks(pairs));
+                    break;
+                case DEPTH:
+                    publishSnapshots(chunk, api.getDepths(pairs));
+                    break;
+                case TRADES:
+                    // pair may have been polled by previous subscriptions, its new topic starts over
+                    chunk.stream().filter(topic -> !topic.primed).forEach(topic -> tradeFeed.reset(topic.pair));
+                    long gaps = tradeFeed.getGaps();
+                    publishTrades(chunk, tradeFeed.poll(Arrays.asList(pairs)));
+                    if (tradeFeed.getGaps() > gaps) {
+                        LOG.warn("Trades of {} may have been missed, limit raised to {}", Arrays.toString(pairs),
+                                tradeFeed.getLimit());
+                    }
+                    break;
+            }
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to poll {} of {}", type, Arrays.toString(pairs), e);
+        } finally {
+            finish(chunk, now());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void publishSnapshots(List<Topic<?>> chunk, Map<Pair, ?> snapshots) {
+        for (Topic<?> topic : chunk) {
+            Object snapshot = snapshots.get(topic.pair);
+            boolean changed = snapshot != null && !sameSnapshot(topic.last, snapshot);
+            adapt(topic, changed);
+            if (changed) {
+                Topic<Object> objectTopic = (Topic<Object>) topic;
+                objectTopic.last = snapshot;
+                objectTopic.subscriptions.forEach(subscription -> subscription.offer(snapshot));
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void publishTrades(List<Topic<?>> chunk, Map<Pair, List<Trade>> trades) {
+        for (Topic<?> topic : chunk) {
+            List<Trade> pairTrades = trades.getOrDefault(topic.pair, Collections.emptyList());
+            boolean first = !topic.primed;
+            topic.primed = true;
+            adapt(topic, !first && !pairTrades.isEmpty());
+            if (first) {
+                continue;
+            }
+            Topic<Trade> tradeTopic = (Topic<Trade>) topic;
+            for (Trade trade : pairTrades) {
+                tradeTopic.subscriptions.forEach(subscription -> subscription.offer(trade));
+            }
+        }
+    }
+
+    private void adapt(Topic<?> topic, boolean changed) {
+        synchronized (this) {
+            topic.interval = changed
+                    ? Math.max(minInterval, topic.interval / 2)
+                    : Math.min(maxInterval, topic.interval + topic.interval / 2);
+        }
+    }
+
+    private synchronized void finish(List<Topic<?>> chunk, long now) {
+        for (Topic<?> topic : chunk) {
+            topic.inFlight = false;
+            topic.nextPoll = now + topic.interval;
+        }
+    }
+
+    private static boolean sameSnapshot(Object last, Object snapshot) {
+        if (last instanceof Depth && snapshot instanceof Depth) {
+            Depth lastDepth = (Depth) last;
+            Depth depth = (Depth) snapshot;
+            return Arrays.equals(lastDepth.getAsks(), depth.getAsks()) && Arrays.equals(lastDepth.getBids(), depth.getBids());
+        }
+        return Objects.equals(last, snapshot);
+    }
+
+    private static long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    /**
+     * Polled stream of one pair
+     *
+     * @param <T> update type
+     */
+    private final class Topic<T> {
+
+        private final FeedType type;
+        private final Pair pair;
+        private final List<PollSubscription<T>> subscriptions = new CopyOnWriteArrayList<>();
+        private volatile T last;
+        private boolean primed;
+        private long interval = minInterval;
+        private long nextPoll = now();
+        private boolean inFlight;
+
+        Topic(FeedType type, Pair pair) {
+            this.type = type;
+            this.pair = pair;
+        }
+    }
+}
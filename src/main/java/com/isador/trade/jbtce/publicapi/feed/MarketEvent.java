@@ -0,0 +1,226 @@
+package com.isador.trade.jbtce.publicapi.feed;
+
+import com.isador.trade.jbtce.constants.Pair;
+import com.isador.trade.jbtce.constants.TradeType;
+import com.isador.trade.jbtce.publicapi.Depth;
+import com.isador.trade.jbtce.publicapi.OrderBook;
+import com.isador.trade.jbtce.publicapi.Tick;
+import com.isador.trade.jbtce.publicapi.Trade;
+
+import java.time.LocalDateTime;
+
+/**
+ * Mutable, reusable market data event slot for {@link RingBuffer}.
+ * Holds tick, trade or order book update of one pair in primitive fields, depth is copied into reused
+ * {@link OrderBook}. Fields of other types keep stale values and must be ignored.
+ *
+ * @author isador
+ * @since 2.0.1
+ */
+public final class MarketEvent {
+
+    private final OrderBook book = new OrderBook();
+    private FeedType type;
+    private Pair pair;
+    private double last;
+    private double buy;
+    private double sell;
+    private double high;
+    private double low;
+    private double avg;
+    private double vol;
+    private double volCur;
+    private LocalDateTime updated;
+    private long tid;
+    private double price;
+    private double amount;
+    private TradeType side;
+    private LocalDateTime date;
+
+    /**
+     * Fill with tick
+     *
+     * @param pair pair
+     * @param tick tick
+     */
+    public void setTick(Pair pair, Tick tick) {
+        type = FeedType.TICKER;
+        this.pair = pair;
+        last = tick.getLast();
+        buy = tick.getBuy();
+        sell = tick.getSell();
+        high = tick.getHigh();
+        low = tick.getLow();
+        avg = tick.getAvg();
+        vol = tick.getVol();
+        volCur = tick.getVolCur();
+        updated = tick.getUpdated();
+    }
+
+    /**
+     * Fill with depth, copying orders into event order book
+     *
+     * @param pair  pair
+     * @param depth depth
+     */
+    public void setDepth(Pair pair, Depth depth) {
+        type = FeedType.DEPTH;
+        this.pair = pair;
+        book.copyFrom(depth);
+    }
+
+    /**
+     * Fill with order book, copying levels into event order book
+     *
+     * @param pair pair
+     * @param book order book
+     */
+    public void setOrderBook(Pair pair, OrderBook book) {
+        type = FeedType.DEPTH;
+        this.pair = pair;
+        this.book.copyFrom(book);
+    }
+
+    /**
+     * Fill with trade
+     *
+     * @param pair  pair
+     * @param trade trade
+     */
+    public void setTrade(Pair pair, Trade trade) {
+        type = FeedType.TRADES;
+        this.pair = pair;
+        tid = trade.getId();
+        price = trade.getPrice();
+        amount = trade.getAmount();
+        side = trade.getType();
+        date = trade.getDate();
+    }
+
+    /**
+     * @return update type
+     */
+    public FeedType getType() {
+        return type;
+    }
+
+    /**
+     * @return pair
+     */
+    public Pair getPair() {
+        return pair;
+    }
+
+    /**
+     * @return tick last price
+     */
+    public double getLast() {
+        return last;
+    }
+
+    /**
+     * @return tick buy price
+     */
+    public double getBuy() {
+        return buy;
+    }
+
+    /**
+     * @return tick sell price
+     */
+    public double getSell() {
+        return sell;
+    }
+
+    /**
+     * @return tick max price
+     */
+    public double getHigh() {
+        return high;
+    }
+
+    /**
+     * @return tick min price
+     */
+    public double getLow() {
+        return low;
+    }
+
+    /**
+     * @return tick average price
+     */
+    public double getAvg() {
+        return avg;
+    }
+
+    /**
+     * @return tick trade volume
+     */
+    public double getVol() {
+        return vol;
+    }
+
+    /**
+     * @return tick trade volume in currency
+     */
+    public double getVolCur() {
+        return volCur;
+    }
+
+    /**
+     * @return tick last update time
+     */
+    public LocalDateTime getUpdated() {
+        return updated;
+    }
+
+    /**
+     * @return depth order book, reused by next depth update of this slot
+     */
+    public OrderBook getOrderBook() {
+        return book;
+    }
+
+    /**
+     * @return trade id
+     */
+    public long getTid() {
+        return tid;
+    }
+
+    /**
+     * @return trade price
+     */
+    public double getPrice() {
+        return price;
+    }
+
+    /**
+     * @return trade amount
+     */
+    public double getAmount() {
+        return amount;
+    }
+
+    /**
+     * @return trade type
+     */
+    public TradeType getSide() {
+        return side;
+    }
+
+    /**
+     * @return trade date
+     */
+    public LocalDateTime getDate() {
+        return date;
+    }
+
+    @Override
+    public String toString() {
+        return "MarketEvent{" +
+                "type=" + type +
+                ", pair=" + pair +
+                '}';
+    }
+}
@@ -0,0 +1,105 @@
+package com.isador.trade.jbtce.publicapi.feed;
+
+import com.isador.trade.jbtce.constants.Pair;
+import com.isador.trade.jbtce.publicapi.Depth;
+import com.isador.trade.jbtce.publicapi.Tick;
+import com.isador.trade.jbtce.publicapi.Trade;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.function.Consumer;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Bridge from {@link MarketDataPoller} subscriptions to {@link RingBuffer} of {@link MarketEvent}s.
+ * Every update is copied into next ring slot, so consumers share the slot instead of getting own copies.
+ * Subscribers request unbounded demand, producer backpressure is the ring buffer itself.
+ * Publishing is serialized, poller may deliver updates of different pairs concurrently.
+ * <pre>
+ * RingBuffer&lt;MarketEvent&gt; ring = new RingBuffer&lt;&gt;(1024, MarketEvent::new);
+ * MarketEventSink sink = new MarketEventSink(ring);
+ * poller.subscribeTicks(Pair.BTC_USD, sink.ticks(Pair.BTC_USD));
+ * </pre>
+ *
+ * @author isador
+ * @since 2.0.1
+ */
+public final class MarketEventSink {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MarketEventSink.class);
+
+    private final RingBuffer<MarketEvent> ringBuffer;
+
+    /**
+     * @param ringBuffer target ring buffer
+     */
+    public MarketEventSink(RingBuffer<MarketEvent> ringBuffer) {
+        this.ringBuffer = requireNonNull(ringBuffer, "Ring buffer must be specified");
+    }
+
+    /**
+     * @param pair pair
+     * @return ticks subscriber
+     */
+    public Subscriber<Tick> ticks(Pair pair) {
+        requireNonNull(pair, "Pair must be specified");
+        return new SinkSubscriber<Tick>() {
+            @Override
+            public void onNext(Tick tick) {
+                publish(event -> event.setTick(pair, tick));
+            }
+        };
+    }
+
+    /**
+     * @param pair pair
+     * @return depths subscriber
+     */
+    public Subscriber<Depth> depths(Pair pair) {
+        requireNonNull(pair, "Pair must be specified");
+        return new SinkSubscriber<Depth>() {
+            @Override
+            public void onNext(Depth depth) {
+                publish(event -> event.setDepth(pair, depth));
+            }
+        };
+    }
+
+    /**
+     * @param pair pair
+     * @return trades subscriber
+     */
+    public Subscriber<Trade> trades(Pair pair) {
+        requireNonNull(pair, "Pair must be specified");
+        return new SinkSubscriber<Trade>() {
+            @Override
+            public void onNext(Trade trade) {
+                publish(event -> event.setTrade(pair, trade));
+            }
+        };
+    }
+
+    private void publish(Consumer<MarketEvent> translator) {
+        synchronized (ringBuffer) {
+            ringBuffer.publishEvent(translator);
+        }
+    }
+
+    private abstract static class SinkSubscriber<T> implements Subscriber<T> {
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            LOG.warn("Market data subscription failed", throwable);
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
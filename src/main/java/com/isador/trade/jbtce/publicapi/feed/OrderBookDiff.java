@@ -0,0 +1,108 @@
+package com.isador.trade.jbtce.publicapi.feed;
+
+import com.isador.trade.jbtce.constants.Pair;
+import com.isador.trade.jbtce.constants.TradeType;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+
+/**
+ * Level changes between two consecutive order book snapshots of one pair.
+ * Changes are kept in primitive arrays, asks first, each side in book order.
+ *
+ * @author isador
+ * @since 2.0.1
+ */
+public final class OrderBookDiff {
+
+    private final Pair pair;
+    private final Change[] changes;
+    private final boolean[] asks;
+    private final double[] prices;
+    private final double[] amounts;
+
+    OrderBookDiff(Pair pair, Change[] changes, boolean[] asks, double[] prices, double[] amounts) {
+        this.pair = pair;
+        this.changes = changes;
+        this.asks = asks;
+        this.prices = prices;
+        this.amounts = amounts;
+    }
+
+    /**
+     * @return pair
+     */
+    public Pair getPair() {
+        return pair;
+    }
+
+    /**
+     * @return changes count
+     */
+    public int size() {
+        return changes.length;
+    }
+
+    /**
+     * @return true if book has not changed
+     */
+    public boolean isEmpty() {
+        return changes.length == 0;
+    }
+
+    /**
+     * @param index change index
+     * @return change type
+     */
+    public Change getChange(int index) {
+        checkElementIndex(index, changes.length);
+        return changes[index];
+    }
+
+    /**
+     * @param index change index
+     * @return {@link TradeType#SELL} for asks, {@link TradeType#BUY} for bids
+     */
+    public TradeType getSide(int index) {
+        checkElementIndex(index, changes.length);
+        return asks[index] ? TradeType.SELL : TradeType.BUY;
+    }
+
+    /**
+     * @param index change index
+     * @return level price
+     */
+    public double getPrice(int index) {
+        checkElementIndex(index, changes.length);
+        return prices[index];
+    }
+
+    /**
+     * @param index change index
+     * @return new level amount, 0 for deleted level
+     */
+    public double getAmount(int index) {
+        checkElementIndex(index, changes.length);
+        return amounts[index];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("OrderBookDiff{pair=").append(pair).append(", changes=[");
+        for (int i = 0; i < changes.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(changes[i]).append(' ').append(getSide(i)).append(' ').append(prices[i]).append('@').append(amounts[i]);
+        }
+        return sb.append("]}").toString();
+    }
+
+    /**
+     * Level change type
+     */
+    public enum Change {
+        INSERT,
+        UPDATE,
+        DELETE
+    }
+}
@@ -0,0 +1,133 @@
+package com.isador.trade.jbtce.publicapi.feed;
+
+import com.isador.trade.jbtce.constants.Pair;
+import com.isador.trade.jbtce.publicapi.Depth;
+import com.isador.trade.jbtce.publicapi.OrderBook;
+import com.isador.trade.jbtce.publicapi.feed.OrderBookDiff.Change;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Incremental order book engine.
+ * Keeps previous snapshot per pair and turns each new full snapshot into level inserts, updates and deletes.
+ * Both sides are compared in a single linear merge, which relies on server order of levels:
+ * asks by ascending price, bids by descending price. The first snapshot of a pair is diffed against empty book.<br>
+ * Snapshots limited by depth size report levels falling off the tail as deleted.
+ *
+ * @author isador
+ * @since 2.0.1
+ */
+public class OrderBookDiffer {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Map<Pair, OrderBook> snapshots = new EnumMap<>(Pair.class);
+    private final OrderBook incoming = new OrderBook();
+    private Change[] changes = new Change[INITIAL_CAPACITY];
+    private boolean[] asks = new boolean[INITIAL_CAPACITY];
+    private double[] prices = new double[INITIAL_CAPACITY];
+    private double[] amounts = new double[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Diff new snapshot against previous one and remember it
+     *
+     * @param pair pair
+     * @param book new snapshot, copied
+     * @return changes, empty if book has not changed
+     */
+    public synchronized OrderBookDiff update(Pair pair, OrderBook book) {
+        requireNonNull(pair, "Pair must be specified");
+        requireNonNull(book, "Book must be specified");
+
+        OrderBook previous = snapshots.computeIfAbsent(pair, p -> new OrderBook());
+        size = 0;
+        merge(previous.getAsks(), book.getAsks(), true);
+        merge(previous.getBids(), book.getBids(), false);
+        previous.copyFrom(book);
+
+        return new OrderBookDiff(pair, Arrays.copyOf(changes, size), Arrays.copyOf(asks, size),
+                Arrays.copyOf(prices, size), Arrays.copyOf(amounts, size));
+    }
+
+    /**
+     * Diff new snapshot against previous one and remember it
+     *
+     * @param pair  pair
+     * @param depth new snapshot
+     * @return changes, empty if depth has not changed
+     */
+    public synchronized OrderBookDiff update(Pair pair, Depth depth) {
+        requireNonNull(depth, "Depth must be specified");
+        return update(pair, incoming.copyFrom(depth));
+    }
+
+    /**
+     * @param pair pair
+     * @return copy of last snapshot, null if there were no updates of pair
+     */
+    public synchronized OrderBook getSnapshot(Pair pair) {
+        OrderBook snapshot = snapshots.get(pair);
+        return snapshot == null ? null : new OrderBook(0).copyFrom(snapshot);
+    }
+
+    /**
+     * Forget snapshot of pair, next update will be diffed against empty book
+     *
+     * @param pair pair
+     */
+    public synchronized void reset(Pair pair) {
+        snapshots.remove(pair);
+    }
+
+    /**
+     * Linear merge of one side
+     *
+     * @param previous previous levels
+     * @param current  new levels
+     * @param ask      true for asks side
+     */
+    private void merge(OrderBook.Side previous, OrderBook.Side current, boolean ask) {
+        int i = 0;
+        int j = 0;
+        while (i < previous.size() || j < current.size()) {
+            if (j == current.size() || i < previous.size() && before(previous.getPrice(i), current.getPrice(j), ask)) {
+                add(Change.DELETE, ask, previous.getPrice(i++), 0);
+            } else if (i == previous.size() || before(current.getPrice(j), previous.getPrice(i), ask)) {
+                add(Change.INSERT, ask, current.getPrice(j), current.getAmount(j++));
+            } else {
+                if (Double.compare(previous.getAmount(i), current.getAmount(j)) != 0) {
+                    add(Change.UPDATE, ask, current.getPrice(j), current.getAmount(j));
+                }
+                i++;
+                j++;
+            }
+        }
+    }
+
+    private void add(Change change, boolean ask, double price, double amount) {
+        if (size == changes.length) {
+            int capacity = size * 2;
+            changes = Arrays.copyOf(changes, capacity);
+            asks = Arrays.copyOf(asks, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            amounts = Arrays.copyOf(amounts, capacity);
+        }
+        changes[size] = change;
+        asks[size] = ask;
+        prices[size] = price;
+        amounts[size] = amount;
+        size++;
+    }
+
+    /**
+     * @return true if price a goes before price b in book order
+     */
+    private static boolean before(double a, double b, boolean ask) {
+        return ask ? a < b : a > b;
+    }
+}
@@ -0,0 +1,168 @@
+package com.isador.trade.jbtce.publicapi.feed;
+
+import com.isador.trade.jbtce.BTCEException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Subscription with bounded buffer of not yet requested updates.
+ * With capacity of one, buffer is conflating: new update replaces the pending one, which suits snapshots.
+ * Otherwise overflow fails subscription, so slow subscriber never silently misses updates.<br>
+ * Updates are delivered on executor, one drain at a time, after subscription is started.
+ *
+ * @param <T> update type
+ * @author isador
+ * @since 2.0.1
+ */
+final class PollSubscription<T> implements Subscription {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PollSubscription.class);
+
+    private final Subscriber<? super T> subscriber;
+    private final int capacity;
+    private final Executor executor;
+    private final Consumer<PollSubscription<T>> onCancel;
+    private final Deque<T> buffer = new ArrayDeque<>();
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+    private volatile boolean started;
+    private volatile boolean cancelled;
+    private Throwable error;
+    private boolean completed;
+
+    /**
+     * @param subscriber subscriber
+     * @param capacity   buffer capacity, 1 to conflate
+     * @param executor   delivery executor
+     * @param onCancel   called once when subscription is cancelled or terminated
+     */
+    PollSubscription(Subscriber<? super T> subscriber, int capacity, Executor executor, Consumer<PollSubscription<T>> onCancel) {
+        this.subscriber = subscriber;
+        this.capacity = capacity;
+        this.executor = executor;
+        this.onCancel = onCancel;
+    }
+
+    @Override
+    public void request(long n) {
+        if (n <= 0) {
+            fail(new IllegalArgumentException("Non-positive request: " + n));
+            return;
+        }
+        requested.accumulateAndGet(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+        drain();
+    }
+
+    @Override
+    public void cancel() {
+        if (!cancelled) {
+            cancelled = true;
+            onCancel.accept(this);
+        }
+    }
+
+    /**
+     * @param item next update
+     */
+    void offer(T item) {
+        synchronized (buffer) {
+            if (capacity == 1) {
+                buffer.clear();
+            } else if (buffer.size() == capacity) {
+                error = new BTCEException("Subscriber is too slow, buffer of " + capacity + " updates overflowed");
+            }
+            if (error == null) {
+                buffer.add(item);
+            }
+        }
+        drain();
+    }
+
+    /**
+     * Start delivery. Called once subscriber's onSubscribe has returned, updates and terminal signals
+     * offered before are held until then
+     */
+    void start() {
+        started = true;
+        drain();
+    }
+
+    /**
+     * Complete subscription after pending updates are delivered
+     */
+    void complete() {
+        synchronized (buffer) {
+            completed = true;
+        }
+        drain();
+    }
+
+    private void fail(Throwable e) {
+        synchronized (buffer) {
+            error = e;
+        }
+        drain();
+    }
+
+    private void drain() {
+        if (!started) {
+            return;
+        }
+        if (wip.getAndIncrement() == 0) {
+            try {
+                executor.execute(this::drainLoop);
+            } catch (RejectedExecutionException e) {
+                LOG.warn("Delivery rejected by executor", e);
+                wip.set(0);
+            }
+        }
+    }
+
+    private void drainLoop() {
+        int missed = 1;
+        do {
+            while (!cancelled && requested.get() > 0) {
+                T item;
+                synchronized (buffer) {
+                    item = buffer.poll();
+                }
+                if (item == null) {
+                    break;
+                }
+                if (requested.get() != Long.MAX_VALUE) {
+                    requested.decrementAndGet();
+                }
+                try {
+                    subscriber.onNext(item);
+                } catch (RuntimeException e) {
+                    LOG.warn("Subscriber failed, cancelling subscription", e);
+                    cancel();
+                }
+            }
+
+            Throwable terminalError;
+            boolean terminalComplete;
+            synchronized (buffer) {
+                terminalError = error;
+                terminalComplete = completed && buffer.isEmpty();
+            }
+            if (!cancelled && (terminalError != null || terminalComplete)) {
+                cancel();
+                if (terminalError != null) {
+                    subscriber.onError(terminalError);
+                } else {
+                    subscriber.onComplete();
+                }
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+}
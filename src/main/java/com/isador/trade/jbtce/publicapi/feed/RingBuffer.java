@@ -0,0 +1,182 @@
+package com.isador.trade.jbtce.publicapi.feed;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Single producer, multi consumer ring buffer of pre-allocated mutable events.
+ * Producer claims a sequence, fills the event slot in place and publishes it. Every consumer
+ * ({@link EventProcessor}) sees every event, in order, and tracks its own sequence. Producer waits when it would
+ * overwrite a slot not yet passed by the slowest consumer, consumers wait on the published cursor.
+ * No locks and no allocation per event.<br>
+ * Only one thread may publish at a time.
+ *
+ * @param <E> event type
+ * @author isador
+ * @since 2.0.1
+ */
+public final class RingBuffer<E> {
+
+    private final Object[] slots;
+    private final int mask;
+    private final Sequence cursor = new Sequence(-1);
+    private final List<Sequence> gatingSequences = new CopyOnWriteArrayList<>();
+    private long claimed = -1;
+    private long cachedGating = -1;
+
+    /**
+     * Create new ring buffer
+     *
+     * @param size    slots count, power of two
+     * @param factory slot factory
+     * @throws IllegalArgumentException if size is not a power of two
+     */
+    public RingBuffer(int size, Supplier<E> factory) {
+        checkArgument(size > 0 && Integer.bitCount(size) == 1, "Size must be a power of two: %s", size);
+        requireNonNull(factory, "Factory must be specified");
+        slots = new Object[size];
+        mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            slots[i] = factory.get();
+        }
+    }
+
+    /**
+     * @return slots count
+     */
+    public int getSize() {
+        return slots.length;
+    }
+
+    /**
+     * @return last published sequence, -1 if nothing published
+     */
+    public long getCursor() {
+        return cursor.get();
+    }
+
+    /**
+     * Add consumer. Consumer sees events published after it was added
+     *
+     * @param handler event handler
+     * @return processor to run on consumer thread
+     */
+    public EventProcessor<E> addHandler(EventHandler<? super E> handler) {
+        requireNonNull(handler, "Handler must be specified");
+        Sequence sequence = new Sequence(cursor.get());
+        gatingSequences.add(sequence);
+        return new EventProcessor<>(this, handler, sequence);
+    }
+
+    /**
+     * Claim next sequence, waiting while its slot is not passed by all consumers
+     *
+     * @return claimed sequence
+     */
+    public long next() {
+        long next = claimed + 1;
+        long wrapPoint = next - slots.length;
+        if (wrapPoint > cachedGating) {
+            long gating;
+            while (wrapPoint > (gating = minGatingSequence(claimed))) {
+                LockSupport.parkNanos(1);
+            }
+            cachedGating = gating;
+        }
+        claimed = next;
+        return next;
+    }
+
+    /**
+     * @param sequence claimed or published sequence
+     * @return event slot
+     */
+    @SuppressWarnings("unchecked")
+    public E get(long sequence) {
+        return (E) slots[(int) sequence & mask];
+    }
+
+    /**
+     * Make claimed event visible to consumers
+     *
+     * @param sequence claimed sequence
+     */
+    public void publish(long sequence) {
+        cursor.setOrdered(sequence);
+    }
+
+    /**
+     * Claim, fill and publish event
+     *
+     * @param translator fills event slot in place
+     */
+    public void publishEvent(Consumer<? super E> translator) {
+        long sequence = next();
+        try {
+            translator.accept(get(sequence));
+        } finally {
+            publish(sequence);
+        }
+    }
+
+    /**
+     * Sequence barrier. Wait until sequence is published
+     *
+     * @param sequence  awaited sequence
+     * @param processor waiting processor
+     * @return last published sequence, not less than awaited one unless processor was halted
+     */
+    long waitFor(long sequence, EventProcessor<?> processor) {
+        int spins = 0;
+        long available;
+        while ((available = cursor.get()) < sequence && processor.isRunning()) {
+            if (spins < 100) {
+                spins++;
+            } else if (spins < 200) {
+                spins++;
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(1000);
+            }
+        }
+        return available;
+    }
+
+    void removeGatingSequence(Sequence sequence) {
+        gatingSequences.remove(sequence);
+    }
+
+    private long minGatingSequence(long defaultSequence) {
+        long min = defaultSequence;
+        for (Sequence sequence : gatingSequences) {
+            min = Math.min(min, sequence.get());
+        }
+        return min;
+    }
+
+    /**
+     * Sequence padded against false sharing with neighbour sequences
+     */
+    static final class Sequence extends AtomicLong {
+
+        private static final long serialVersionUID = 1L;
+
+        @SuppressWarnings("unused")
+        private long p1, p2, p3, p4, p5, p6, p7;
+
+        Sequence(long initial) {
+            super(initial);
+        }
+
+        void setOrdered(long value) {
+            lazySet(value);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.isador.trade.jbtce.publicapi.feed;
+
+/**
+ * Receiver of market data updates.
+ * Follows {@code java.util.concurrent.Flow.Subscriber} contract: nothing is delivered until requested
+ * through {@link Subscription#request(long)}, signals are never concurrent.
+ *
+ * @param <T> update type
+ * @author isador
+ * @since 2.0.1
+ */
+public interface Subscriber<T> {
+
+    /**
+     * Called once, before any other signal
+     *
+     * @param subscription subscription to request updates or cancel
+     */
+    void onSubscribe(Subscription subscription);
+
+    /**
+     * @param item next update
+     */
+    void onNext(T item);
+
+    /**
+     * Terminal failure, no more signals follow
+     *
+     * @param throwable failure
+     */
+    void onError(Throwable throwable);
+
+    /**
+     * Publisher was closed, no more signals follow
+     */
+    void onComplete();
+}
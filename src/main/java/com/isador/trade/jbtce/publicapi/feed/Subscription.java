@@ -0,0 +1,23 @@
+package com.isador.trade.jbtce.publicapi.feed;
+
+/**
+ * Link between publisher and {@link Subscriber}.
+ * Follows {@code java.util.concurrent.Flow.Subscription} contract.
+ *
+ * @author isador
+ * @since 2.0.1
+ */
+public interface Subscription {
+
+    /**
+     * Request more updates
+     *
+     * @param n updates count, must be positive
+     */
+    void request(long n);
+
+    /**
+     * Stop receiving updates
+     */
+    void cancel();
+}
@@ -0,0 +1,173 @@
+package com.isador.trade.jbtce.publicapi.feed;
+
+import com.isador.trade.jbtce.BTCEException;
+import com.isador.trade.jbtce.constants.Pair;
+import com.isador.trade.jbtce.publicapi.PublicApiV3;
+import com.isador.trade.jbtce.publicapi.Trade;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Incremental trade feed.
+ * Remembers the highest trade id seen per pair and delivers only newer trades, parsing stops at the first
+ * already seen one. The first poll delivers trades which are currently returned by server.<br>
+ * Request limit follows observed trade rate: it is kept at twice the smoothed count of new trades per poll,
+ * and doubled when a poll returned only new trades, since older new trades may have been cut off by the limit.
+ *
+ * @author isador
+ * @since 2.0.1
+ */
+public class TradeFeed {
+
+    public static final int DEFAULT_MIN_LIMIT = 20;
+    public static final int MAX_LIMIT = 2000;
+
+    private static final double RATE_WEIGHT = 0.3;
+    private static final int HEADROOM = 2;
+
+    private final PublicApiV3 api;
+    private final int minLimit;
+    private final int maxLimit;
+    private final Map<Pair, Long> lastTids = new EnumMap<>(Pair.class);
+    // pairs polled at least once, their returned trades are all new even if no trade was seen yet
+    private final Set<Pair> polled = EnumSet.noneOf(Pair.class);
+    private double rate;
+    private int limit;
+    private long gaps;
+
+    /**
+     * Create new trade feed with default limits
+     *
+     * @param api   api
+     * @param pairs pairs
+     */
+    public TradeFeed(PublicApiV3 api, Pair... pairs) {
+        this(api, DEFAULT_MIN_LIMIT, MAX_LIMIT, pairs);
+    }
+
+    /**
+     * Create new trade feed
+     *
+     * @param api      api
+     * @param minLimit min request limit
+     * @param maxLimit max request limit
+     * @param pairs    pairs
+     * @throws IllegalArgumentException if limits are invalid or no pairs specified
+     */
+    public TradeFeed(PublicApiV3 api, int minLimit, int maxLimit, Pair... pairs) {
+        this(api, minLimit, maxLimit);
+        checkArgument(pairs != null && pairs.length > 0, "Pairs must be specified");
+        for (Pair pair : pairs) {
+            lastTids.put(requireNonNull(pair, "Pair must be specified"), null);
+        }
+    }
+
+    /**
+     * Create new trade feed without pairs, pairs are added by {@link #poll(Collection)}
+     *
+     * @param api      api
+     * @param minLimit min request limit
+     * @param maxLimit max request limit
+     * @throws IllegalArgumentException if limits are invalid
+     */
+    TradeFeed(PublicApiV3 api, int minLimit, int maxLimit) {
+        this.api = requireNonNull(api, "Api must be specified");
+        checkArgument(minLimit > 0 && minLimit <= maxLimit && maxLimit <= MAX_LIMIT, "Invalid limits: %s, %s", minLimit, maxLimit);
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        limit = minLimit;
+    }
+
+    /**
+     * Get trades made since previous poll
+     *
+     * @return new trades mapped to pair, oldest first
+     * @throws BTCEException if was any error during execution
+     */
+    public synchronized Map<Pair, List<Trade>> poll() throws BTCEException {
+        return poll(lastTids.keySet());
+    }
+
+    /**
+     * Get trades of some pairs made since their previous poll. Pairs not polled before are added to the feed
+     *
+     * @param pairs pairs to poll
+     * @return new trades mapped to pair, oldest first
+     * @throws BTCEException if was any error during execution
+     */
+    synchronized Map<Pair, List<Trade>> poll(Collection<Pair> pairs) throws BTCEException {
+        Map<Pair, Long> request = new EnumMap<>(Pair.class);
+        pairs.forEach(pair -> request.put(pair, lastTids.get(pair)));
+        Map<Pair, List<Trade>> trades = api.getTradesAfter(limit, request);
+
+        int observed = 0;
+        boolean gap = false;
+        for (Map.Entry<Pair, List<Trade>> entry : trades.entrySet()) {
+            List<Trade> pairTrades = entry.getValue();
+            if (pairTrades.isEmpty()) {
+                continue;
+            }
+            lastTids.put(entry.getKey(), pairTrades.get(0).getId());
+            if (polled.contains(entry.getKey())) {
+                observed = Math.max(observed, pairTrades.size());
+                gap |= pairTrades.size() >= limit;
+            }
+            Collections.reverse(pairTrades);
+        }
+        polled.addAll(request.keySet());
+
+        adapt(observed, gap);
+        return trades;
+    }
+
+    /**
+     * Forget highest trade id seen, next poll of the pair is the first one
+     *
+     * @param pair pair
+     */
+    synchronized void reset(Pair pair) {
+        lastTids.remove(pair);
+        polled.remove(pair);
+    }
+
+    /**
+     * @return request limit of next poll
+     */
+    public synchronized int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @param pair pair
+     * @return highest trade id seen, null if no trades seen
+     */
+    public synchronized Long getLastTid(Pair pair) {
+        return lastTids.get(pair);
+    }
+
+    /**
+     * @return polls where some trades may have been missed, because all returned trades were new
+     */
+    public synchronized long getGaps() {
+        return gaps;
+    }
+
+    private void adapt(int observed, boolean gap) {
+        rate = RATE_WEIGHT * observed + (1 - RATE_WEIGHT) * rate;
+        int target = (int) Math.ceil(Math.max(rate, observed) * HEADROOM);
+        if (gap) {
+            gaps++;
+            target = Math.max(target, limit * 2);
+        }
+        limit = Math.max(minLimit, Math.min(maxLimit, target));
+    }
+}
@@ -13,10 +13,14 @@ import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.Assert.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.Answers.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.*;
 
 /**
  * Created by isador
@@ -28,7 +32,8 @@ public class AbstractApiTest {
     @Rule
     public ExpectedException thrown = ExpectedException.none();
 
-    @Mock
+    // streaming default methods delegate to stubbed string methods
+    @Mock(answer = CALLS_REAL_METHODS)
     private Connector connector;
 
     private SimpleApi api;
@@ -78,6 +83,35 @@ public class AbstractApiTest {
         api.processServerResponse(connector -> connector.get("https://btc-e.com/", headers));
     }
 
+    @Test
+    public void testProcessStreamResponseEmpty() {
+        thrown.expect(BTCEException.class);
+        thrown.expectMessage("Invalid server response. Null or empty response");
+        when(connector.get("https://btc-e.com/", headers)).thenReturn("");
+
+        api.processServerResponse((connector, handler) -> connector.get("https://btc-e.com/", headers, handler));
+    }
+
+    @Test
+    public void testProcessStreamResponseInvalidJson() {
+        thrown.expect(BTCEException.class);
+        thrown.expectMessage("Not a JSON Object");
+        when(connector.get("https://btc-e.com/", headers)).thenReturn("{bla bla bla");
+
+        api.processServerResponse((connector, handler) -> connector.get("https://btc-e.com/", headers, handler));
+    }
+
+    @Test
+    public void testProcessStreamResponse() {
+        JsonObject expected = new JsonObject();
+        expected.addProperty("btc_usd", 0.2);
+        when(connector.get("https://btc-e.com/", headers)).thenReturn("{\"btc_usd\":0.2}");
+
+        JsonElement actual = api.processServerResponse((connector, handler) -> connector.get("https://btc-e.com/", headers, handler));
+
+        assertEquals("Actual json doesn't match", expected, actual);
+    }
+
     @Test
     public void testServerProvider() {
         when(connector.get("https://btc-e.com/", headers)).thenThrow(new ConnectorException(new IOException()));
@@ -89,6 +123,208 @@ public class AbstractApiTest {
         assertEquals("Actual json doesn't match", expected, actual);
     }
 
+    @Test
+    public void testRetryExhausted() {
+        ServerProvider provider = mockServerProvider();
+        api.setRetryPolicy(new RetryPolicy(3, 0, 0, 10_000));
+        when(connector.get("https://btc-e.com/", headers)).thenThrow(new ConnectorException(new IOException()));
+
+        try {
+            api.processServerResponse(connector -> connector.get(api.createUrl(""), headers));
+            fail("Call must fail after all attempts");
+        } catch (BTCEException e) {
+            assertEquals("Invalid message", "Request failed after 3 attempts", e.getMessage());
+            assertTrue("Connector exception must be the cause", e.getCause() instanceof ConnectorException);
+        }
+
+        verify(provider, times(2)).nextMirror("https://btc-e.com/");
+        RetryStats stats = api.getRetryStats();
+        assertEquals("Calls count doesn't match", 1, stats.getCalls());
+        assertEquals("Failures count doesn't match", 1, stats.getFailures());
+        assertEquals("Call must be counted with 2 retries", 1, stats.getCalls(2));
+    }
+
+    @Test
+    public void testRetrySucceeded() {
+        mockServerProvider();
+        api.setRetryPolicy(new RetryPolicy(3, 0, 0, 10_000));
+        when(connector.get("https://btc-e.com/", headers))
+                .thenThrow(new ConnectorException(new IOException()))
+                .thenReturn("1");
+
+        JsonElement actual = api.processServerResponse(connector -> connector.get(api.createUrl(""), headers));
+
+        assertEquals("Actual json doesn't match", new JsonPrimitive(1), actual);
+        RetryStats stats = api.getRetryStats();
+        assertEquals("Failures count doesn't match", 0, stats.getFailures());
+        assertEquals("Call must be counted with 1 retry", 1, stats.getCalls(1));
+        assertEquals("Retries count doesn't match", 1, stats.getRetries());
+    }
+
+    @Test
+    public void testWithRetryPolicy() {
+        ServerProvider provider = mockServerProvider();
+        when(connector.get("https://btc-e.com/", headers)).thenThrow(new ConnectorException(new IOException()));
+
+        try {
+            api.withRetryPolicy(RetryPolicy.NO_RETRY, () -> api.processServerResponse(connector -> connector.get(api.createUrl(""), headers)));
+            fail("Call must fail after first attempt");
+        } catch (BTCEException e) {
+            assertEquals("Invalid message", "Request failed after 1 attempts", e.getMessage());
+        }
+
+        verify(provider, never()).nextMirror(anyString());
+        assertEquals("Api policy must not change", RetryPolicy.DEFAULT, api.getRetryPolicy());
+    }
+
+    @Test
+    public void testNotIdempotentCallNotRetried() {
+        ServerProvider provider = mockServerProvider();
+        api.setRetryPolicy(new RetryPolicy(3, 0, 0, 10_000));
+        when(connector.post("https://btc-e.com/", "body", headers)).thenThrow(new ConnectorException(new IOException()));
+
+        try {
+            api.processServerResponse((connector, handler) -> connector.post(api.createUrl(""), "body", headers, handler),
+                    api::parseResponse, api.getRetryPolicy(), false);
+            fail("Call must fail after first attempt");
+        } catch (BTCEException e) {
+            assertEquals("Invalid message", "Request failed after 1 attempts", e.getMessage());
+        }
+
+        verify(connector, times(1)).post("https://btc-e.com/", "body", headers);
+        verify(provider, never()).nextMirror(anyString());
+    }
+
+    @Test
+    public void testRetryWithoutServerProvider() {
+        api.setServer(null);
+        api.setRetryPolicy(new RetryPolicy(2, 0, 0, 10_000));
+        when(connector.get("https://btc-e.com/", headers))
+                .thenThrow(new ConnectorException(new IOException()))
+                .thenReturn("1");
+
+        JsonElement actual = api.processServerResponse(connector -> connector.get("https://btc-e.com/", headers));
+
+        assertEquals("Actual json doesn't match", new JsonPrimitive(1), actual);
+    }
+
+    @Test
+    public void testHandlerErrorCounted() {
+        mockServerProvider();
+        when(connector.get("https://btc-e.com/", headers)).thenThrow(new BTCEException("Handler error"));
+
+        try {
+            api.processServerResponse(connector -> connector.get(api.createUrl(""), headers));
+            fail("Handler error must fail call");
+        } catch (BTCEException e) {
+            assertEquals("Invalid message", "Handler error", e.getMessage());
+        }
+
+        RetryStats stats = api.getRetryStats();
+        assertEquals("Calls count doesn't match", 1, stats.getCalls());
+        assertEquals("Failures count doesn't match", 1, stats.getFailures());
+    }
+
+    @Test
+    public void testAsyncHandlerErrorCounted() throws Exception {
+        mockServerProvider();
+        AsyncConnector asyncConnector = mock(AsyncConnector.class);
+        when(asyncConnector.get(eq("https://btc-e.com/"), eq(headers), any()))
+                .thenReturn(failed(new BTCEException("Handler error")));
+
+        CompletableFuture<JsonElement> actual = api.processServerResponseAsync(asyncConnector,
+                (connector, handler) -> connector.get(api.createUrl(""), headers, handler), api::parseResponse,
+                api.getRetryPolicy(), true);
+
+        try {
+            actual.get(5, TimeUnit.SECONDS);
+            fail("Handler error must fail call");
+        } catch (ExecutionException e) {
+            assertEquals("Invalid message", "Handler error", e.getCause().getMessage());
+        }
+        RetryStats stats = api.getRetryStats();
+        assertEquals("Calls count doesn't match", 1, stats.getCalls());
+        assertEquals("Failures count doesn't match", 1, stats.getFailures());
+        verify(asyncConnector, times(1)).get(eq("https://btc-e.com/"), eq(headers), any());
+    }
+
+    @Test
+    public void testAsyncRetrySucceeded() throws Exception {
+        ServerProvider provider = mockServerProvider();
+        api.setRetryPolicy(new RetryPolicy(3, 10, 10, 10_000));
+        AsyncConnector asyncConnector = mock(AsyncConnector.class);
+        when(asyncConnector.get(eq("https://btc-e.com/"), eq(headers), any()))
+                .thenReturn(failed(new ConnectorException(new IOException())))
+                .thenReturn(CompletableFuture.completedFuture(new JsonPrimitive(1)));
+
+        JsonElement actual = api.processServerResponseAsync(asyncConnector,
+                (connector, handler) -> connector.get(api.createUrl(""), headers, handler), api::parseResponse,
+                api.getRetryPolicy(), true).get(5, TimeUnit.SECONDS);
+
+        assertEquals("Actual json doesn't match", new JsonPrimitive(1), actual);
+        verify(provider).nextMirror("https://btc-e.com/");
+        assertEquals("Call must be counted with 1 retry", 1, api.getRetryStats().getCalls(1));
+    }
+
+    @Test
+    public void testAsyncRetryExhausted() throws Exception {
+        mockServerProvider();
+        api.setRetryPolicy(new RetryPolicy(2, 0, 0, 10_000));
+        AsyncConnector asyncConnector = mock(AsyncConnector.class);
+        when(asyncConnector.get(eq("https://btc-e.com/"), eq(headers), any()))
+                .thenReturn(failed(new ConnectorException(new IOException())));
+
+        CompletableFuture<JsonElement> actual = api.processServerResponseAsync(asyncConnector,
+                (connector, handler) -> connector.get(api.createUrl(""), headers, handler), api::parseResponse,
+                api.getRetryPolicy(), true);
+
+        try {
+            actual.get(5, TimeUnit.SECONDS);
+            fail("Call must fail after all attempts");
+        } catch (ExecutionException e) {
+            assertTrue("Invalid exception", e.getCause() instanceof BTCEException);
+            assertEquals("Invalid message", "Request failed after 2 attempts", e.getCause().getMessage());
+        }
+        verify(asyncConnector, times(2)).get(eq("https://btc-e.com/"), eq(headers), any());
+        assertEquals("Failures count doesn't match", 1, api.getRetryStats().getFailures());
+    }
+
+    @Test
+    public void testAsyncNotIdempotentCallNotRetried() throws Exception {
+        ServerProvider provider = mockServerProvider();
+        api.setRetryPolicy(new RetryPolicy(3, 0, 0, 10_000));
+        AsyncConnector asyncConnector = mock(AsyncConnector.class);
+        when(asyncConnector.post(eq("https://btc-e.com/"), eq("body"), eq(headers), any()))
+                .thenReturn(failed(new ConnectorException(new IOException())));
+
+        CompletableFuture<JsonElement> actual = api.processServerResponseAsync(asyncConnector,
+                (connector, handler) -> connector.post(api.createUrl(""), "body", headers, handler), api::parseResponse,
+                api.getRetryPolicy(), false);
+
+        assertTrue("Future must be completed exceptionally", actual.isCompletedExceptionally());
+        verify(asyncConnector, times(1)).post(eq("https://btc-e.com/"), eq("body"), eq(headers), any());
+        verify(provider, never()).nextMirror(anyString());
+    }
+
+    @Test
+    public void testCurrentRetryPolicy() {
+        assertEquals("Api policy expected", RetryPolicy.DEFAULT, api.currentRetryPolicy());
+        assertEquals("Call policy expected", RetryPolicy.NO_RETRY, api.withRetryPolicy(RetryPolicy.NO_RETRY, api::currentRetryPolicy));
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable e) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(e);
+        return future;
+    }
+
+    private ServerProvider mockServerProvider() {
+        ServerProvider provider = mock(ServerProvider.class);
+        when(provider.getCurrentServer()).thenReturn("https://btc-e.com/");
+        api.setServer(provider);
+        return provider;
+    }
+
     private static class SimpleApi extends AbstractApi {
         public SimpleApi() {
         }
@@ -0,0 +1,118 @@
+package com.isador.trade.jbtce;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Created by isador
+ * on 17.06.17
+ */
+public class CoalescerTest {
+
+    private ExecutorService executor;
+    private Coalescer<String, String> coalescer;
+
+    @Before
+    public void setUp() throws Exception {
+        executor = Executors.newCachedThreadPool();
+        coalescer = new Coalescer<>();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testConcurrentCallsCoalesced() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        Future<String> leader = executor.submit(() -> coalescer.execute("ticker", () -> {
+            executions.incrementAndGet();
+            started.countDown();
+            await(release);
+            return "ok";
+        }));
+        started.await();
+
+        List<Future<String>> followers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            followers.add(executor.submit(() -> coalescer.execute("ticker", () -> {
+                executions.incrementAndGet();
+                return "own";
+            })));
+        }
+        while (coalescer.getCoalesced() < 3) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        assertEquals("Invalid leader result", "ok", leader.get());
+        for (Future<String> follower : followers) {
+            assertEquals("Follower must get shared result", "ok", follower.get());
+        }
+        assertEquals("Call must be executed once", 1, executions.get());
+        assertEquals("Coalesced calls count doesn't match", 3, coalescer.getCoalesced());
+        assertEquals("Invalid coalescing ratio", 0.75, coalescer.getCoalescingRatio(), 0.0001);
+    }
+
+    @Test
+    public void testFailureShared() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        Future<String> leader = executor.submit(() -> coalescer.execute("ticker", () -> {
+            started.countDown();
+            await(release);
+            throw new BTCEException("Some error");
+        }));
+        started.await();
+        Future<String> follower = executor.submit(() -> coalescer.execute("ticker", () -> "own"));
+        while (coalescer.getCoalesced() < 1) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        for (Future<String> call : new Future[]{leader, follower}) {
+            try {
+                call.get();
+                fail("Call must fail");
+            } catch (ExecutionException e) {
+                assertTrue("Leader failure must be shared", e.getCause() instanceof BTCEException);
+                assertEquals("Invalid message", "Some error", e.getCause().getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testSequentialCallsNotCoalesced() {
+        assertEquals("Invalid result", "1", coalescer.execute("ticker", () -> "1"));
+        assertEquals("Completed call must not be reused", "2", coalescer.execute("ticker", () -> "2"));
+        assertEquals("No calls must be coalesced", 0, coalescer.getCoalesced());
+    }
+
+    @Test
+    public void testDifferentKeys() {
+        assertEquals("Invalid result", "1", coalescer.execute("ticker", () -> "1"));
+        assertEquals("Invalid result", "2", coalescer.execute("depth", () -> "2"));
+        assertEquals("Calls count doesn't match", 2, coalescer.getCalls());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
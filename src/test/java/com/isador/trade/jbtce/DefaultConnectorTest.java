@@ -90,6 +90,18 @@ public class DefaultConnectorTest {
         assertEquals("Invalid request was created", response, "ok");
     }
 
+    @Test
+    public void testGetStream() {
+        server.when(request()
+                .withMethod("GET"))
+                .respond(response()
+                        .withStatusCode(200)
+                        .withBody("{\n\"btc_usd\":0.2\n}"));
+
+        String response = connector.get("http://localhost:7071", null, DefaultConnector::readString);
+        assertEquals("Response must be passed as is", "{\n\"btc_usd\":0.2\n}", response);
+    }
+
     @Test(expected = ConnectorException.class)
     public void testGetInvalidUrl() {
         connector.get("invalid bla bla bla", null);
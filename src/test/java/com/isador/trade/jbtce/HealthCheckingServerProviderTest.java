@@ -0,0 +1,137 @@
+package com.isador.trade.jbtce;
+
+import com.isador.trade.jbtce.HealthCheckingServerProvider.ServerHealth;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by isador
+ * on 15.06.17
+ */
+public class HealthCheckingServerProviderTest {
+
+    private final Map<String, Long> latencies = new ConcurrentHashMap<>();
+    private HealthCheckingServerProvider provider;
+
+    @Before
+    public void setUp() throws Exception {
+        latencies.put("1", 50L);
+        latencies.put("2", 10L);
+        latencies.put("3", -1L);
+        provider = create("1", "2", "3");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        provider.close();
+    }
+
+    @Test
+    public void testRanking() {
+        provider.probeAll();
+
+        assertEquals("Fastest server must be current", "2", provider.getCurrentServer());
+        assertArrayEquals("Unhealthy server must be the last", new String[]{"1", "3"}, provider.getMirrors());
+
+        List<ServerHealth> health = provider.getHealth();
+        assertEquals("Invalid latency", 10, health.get(0).getLatency(), 0.001);
+        assertTrue("Server must be healthy", health.get(0).isHealthy());
+        assertFalse("Server must be unhealthy", health.get(2).isHealthy());
+        assertEquals("Invalid error rate", 1, health.get(2).getErrorRate(), 0.001);
+    }
+
+    @Test
+    public void testLatencyChanged() {
+        provider.probeAll();
+        latencies.put("1", 1L);
+        for (int i = 0; i < 10; i++) {
+            provider.probeAll();
+        }
+
+        assertEquals("Faster server must become current", "1", provider.getCurrentServer());
+    }
+
+    @Test
+    public void testNextMirror() {
+        provider.probeAll();
+        provider.nextMirror();
+
+        assertEquals("Next ranked server must become current", "1", provider.getCurrentServer());
+        assertArrayEquals("Failed server must be demoted", new String[]{"2", "3"}, provider.getMirrors());
+    }
+
+    @Test
+    public void testFailedServerNotRestoredByNextProbe() {
+        provider.probeAll();
+        provider.nextMirror();
+        provider.probeAll();
+
+        assertEquals("Server failed request must stay demoted", "1", provider.getCurrentServer());
+        for (int i = 0; i < 10; i++) {
+            provider.probeAll();
+        }
+        assertEquals("Recovered server must become current", "2", provider.getCurrentServer());
+    }
+
+    @Test
+    public void testProbeNotCalledBeforeSubclassConstructed() throws Exception {
+        List<String> probed = new CopyOnWriteArrayList<>();
+        HealthCheckingServerProvider subclass = new HealthCheckingServerProvider(20, 0.3, 0.5, "1", "2") {
+            private final Map<String, Long> own = new ConcurrentHashMap<>(latencies);
+
+            @Override
+            protected long probe(String server) {
+                if (own == null) {
+                    probed.add("unconstructed");
+                    return -1;
+                }
+                probed.add(server);
+                return own.get(server);
+            }
+        };
+        try {
+            Thread.sleep(200);
+
+            assertFalse("Servers must be probed", probed.isEmpty());
+            assertFalse("Subclass must be constructed before probes", probed.contains("unconstructed"));
+            assertEquals("Fastest server must be current", "2", subclass.getCurrentServer());
+        } finally {
+            subclass.close();
+        }
+    }
+
+    @Test
+    public void testNextMirrorSingleServer() {
+        HealthCheckingServerProvider single = create("1");
+        try {
+            single.nextMirror();
+            fail("Single server provider has no mirrors");
+        } catch (ServerProviderException e) {
+            assertEquals("Invalid message", "No valid server found", e.getMessage());
+        } finally {
+            single.close();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoServers() {
+        new HealthCheckingServerProvider();
+    }
+
+    private HealthCheckingServerProvider create(String... servers) {
+        return new HealthCheckingServerProvider(Long.MAX_VALUE, 0.3, 0.5, servers) {
+            @Override
+            protected long probe(String server) {
+                return latencies.get(server);
+            }
+        };
+    }
+}
@@ -0,0 +1,103 @@
+package com.isador.trade.jbtce;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created by isador
+ * on 16.06.17
+ */
+public class HedgingTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private ExecutorService executor;
+    private Hedging hedging;
+
+    @Before
+    public void setUp() throws Exception {
+        executor = Executors.newCachedThreadPool();
+        hedging = new Hedging(executor, 0.95, 50);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testFastPrimary() {
+        String result = hedging.execute(() -> "primary", () -> "hedge");
+
+        assertEquals("Primary result expected", "primary", result);
+        assertEquals("Calls count doesn't match", 1, hedging.getCalls());
+        assertEquals("Hedge must not be fired", 0, hedging.getHedgesFired());
+    }
+
+    @Test
+    public void testSlowPrimary() {
+        String result = hedging.execute(() -> sleep(5_000, "primary"), () -> "hedge");
+
+        assertEquals("Hedge result expected", "hedge", result);
+        assertEquals("Hedge must be fired", 1, hedging.getHedgesFired());
+        assertEquals("Hedge must win", 1, hedging.getHedgesWon());
+    }
+
+    @Test
+    public void testFailedHedge() {
+        String result = hedging.execute(() -> sleep(200, "primary"), () -> {
+            throw new BTCEException("hedge failed");
+        });
+
+        assertEquals("Primary result expected", "primary", result);
+        assertEquals("Hedge must be fired", 1, hedging.getHedgesFired());
+        assertEquals("Hedge must not win", 0, hedging.getHedgesWon());
+    }
+
+    @Test
+    public void testBothFailed() {
+        thrown.expect(BTCEException.class);
+        thrown.expectMessage("primary failed");
+
+        hedging.execute(() -> {
+            sleep(100, null);
+            throw new BTCEException("primary failed");
+        }, () -> {
+            throw new BTCEException("hedge failed");
+        });
+    }
+
+    @Test
+    public void testNoMirror() {
+        assertEquals("Primary result expected", "primary", hedging.execute(() -> "primary", null));
+    }
+
+    @Test
+    public void testDelayPercentile() {
+        assertEquals("Initial delay expected", 50, hedging.getDelay());
+        for (int i = 0; i < 20; i++) {
+            hedging.execute(() -> "primary", null);
+        }
+
+        assertTrue("Delay must follow observed latencies", hedging.getDelay() < 50);
+    }
+
+    private static <T> T sleep(long millis, T result) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,238 @@
+package com.isador.trade.jbtce;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockserver.integration.ClientAndServer;
+import org.mockserver.model.Delay;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.isA;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockserver.integration.ClientAndServer.startClientAndServer;
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+/**
+ * Created by isador
+ * on 13.06.17
+ */
+public class NioConnectorTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+    private static ClientAndServer server;
+
+    private NioConnector connector;
+
+    @BeforeClass
+    public static void startServer() throws Exception {
+        server = startClientAndServer(7075);
+    }
+
+    @AfterClass
+    public static void stopServer() throws Exception {
+        server.stop();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        connector = new NioConnector(1, 2, Runnable::run);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        connector.close();
+        server.reset();
+    }
+
+    @Test
+    public void testGet() {
+        server.when(request()
+                .withMethod("GET")
+                .withPath("/api/3/ticker/btc_usd")
+                .withHeader("key1", "val1"))
+                .respond(response()
+                        .withStatusCode(200)
+                        .withBody("ok"));
+
+        String response = connector.get("http://localhost:7075/api/3/ticker/btc_usd", ImmutableMap.of("key1", "val1")).join();
+        assertEquals("Invalid request was created", "ok", response);
+    }
+
+    @Test
+    public void testPostWithBody() {
+        server.when(request()
+                .withMethod("POST")
+                .withHeader("Content-Type", "application/x-www-form-urlencoded")
+                .withBody("someBody"))
+                .respond(response()
+                        .withStatusCode(200)
+                        .withBody("ok"));
+
+        String response = connector.post("http://localhost:7075", "someBody", null).join();
+        assertEquals("Invalid request was created", "ok", response);
+    }
+
+    @Test
+    public void testConcurrentRequests() {
+        server.when(request()
+                .withMethod("GET"))
+                .respond(response()
+                        .withStatusCode(200)
+                        .withBody("{\"btc_usd\":0.2}"));
+
+        List<CompletableFuture<String>> responses = IntStream.range(0, 20)
+                .mapToObj(i -> connector.get("http://localhost:7075/" + i, null))
+                .collect(Collectors.toList());
+
+        responses.forEach(response -> assertEquals("Invalid response", "{\"btc_usd\":0.2}", response.join()));
+    }
+
+    @Test
+    public void testHandler() {
+        server.when(request()
+                .withMethod("GET"))
+                .respond(response()
+                        .withStatusCode(200)
+                        .withBody("{\"btc_usd\":0.2}"));
+
+        int first = connector.get("http://localhost:7075/", null, InputStream::read).join();
+        assertEquals("Invalid first byte", '{', first);
+    }
+
+    @Test
+    public void testErrorStatus() {
+        server.when(request()
+                .withMethod("GET"))
+                .respond(response()
+                        .withStatusCode(404));
+
+        try {
+            connector.get("http://localhost:7075/", null).join();
+        } catch (CompletionException e) {
+            assertTrue("Connector exception expected", e.getCause() instanceof ConnectorException);
+            assertTrue("IO exception expected", e.getCause().getCause() instanceof IOException);
+            return;
+        }
+        throw new AssertionError("Request must fail");
+    }
+
+    @Test
+    public void testAdapter() {
+        thrown.expect(ConnectorException.class);
+        thrown.expectCause(isA(IOException.class));
+        server.when(request()
+                .withMethod("GET"))
+                .respond(response()
+                        .withStatusCode(500));
+
+        new AsyncConnectorAdapter(connector).get("http://localhost:7075/", null);
+    }
+
+    @Test
+    public void testAdapterGet() {
+        server.when(request()
+                .withMethod("GET"))
+                .respond(response()
+                        .withStatusCode(200)
+                        .withBody("ok"));
+
+        assertEquals("Invalid response", "ok", new AsyncConnectorAdapter(connector).get("http://localhost:7075/", null));
+    }
+
+    @Test
+    public void testAdapterWaitInterrupted() {
+        server.when(request().withMethod("GET"))
+                .respond(response()
+                        .withStatusCode(200)
+                        .withDelay(new Delay(TimeUnit.SECONDS, 2))
+                        .withBody("ok"));
+        thrown.expect(BTCEException.class);
+        thrown.expectMessage("Interrupted while waiting for response");
+
+        Thread.currentThread().interrupt();
+        try {
+            new AsyncConnectorAdapter(connector).get("http://localhost:7075/", null);
+        } finally {
+            assertTrue("Interrupt status must be kept", Thread.interrupted());
+        }
+    }
+
+    @Test
+    public void testCancelAbortsRequest() throws Exception {
+        try (ServerSocket silent = new ServerSocket(0)) {
+            silent.setSoTimeout(1000);
+            CompletableFuture<String> future = connector.get("http://localhost:" + silent.getLocalPort() + "/", null);
+            try (Socket socket = silent.accept()) {
+                socket.setSoTimeout(1000);
+                InputStream in = socket.getInputStream();
+                assertTrue("Request expected", in.read() >= 0);
+
+                future.cancel(false);
+
+                while (in.read() >= 0) {
+                    // rest of request
+                }
+            } catch (SocketTimeoutException e) {
+                fail("Connection of cancelled request must be closed");
+            }
+        }
+    }
+
+    @Test(expected = ConnectorException.class)
+    public void testGetInvalidUrl() {
+        new AsyncConnectorAdapter(connector).get("invalid bla bla bla", null);
+    }
+
+    @Test(expected = ConnectorException.class)
+    public void testClosed() {
+        connector.close();
+        new AsyncConnectorAdapter(connector).get("http://localhost:7075/", null);
+    }
+
+    @Test
+    public void testRequestsSubmittedWhileClosingComplete() throws Exception {
+        List<CompletableFuture<String>> futures = new CopyOnWriteArrayList<>();
+        CountDownLatch started = new CountDownLatch(1);
+        Thread submitter = new Thread(() -> {
+            for (int i = 0; i < 1000; i++) {
+                futures.add(connector.get("http://localhost:7075/", null));
+                started.countDown();
+            }
+        });
+        submitter.start();
+        started.await();
+        connector.close();
+        submitter.join();
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .handle((r, e) -> null)
+                .get(5, TimeUnit.SECONDS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCreateInvalidLimits() {
+        new NioConnector(0, 1, Runnable::run);
+    }
+}
@@ -0,0 +1,263 @@
+package com.isador.trade.jbtce;
+
+import com.google.common.collect.ImmutableMap;
+import com.isador.trade.jbtce.PooledConnector.PoolStats;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockserver.integration.ClientAndServer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.isA;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockserver.integration.ClientAndServer.startClientAndServer;
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+/**
+ * Created by isador
+ * on 12.06.17
+ */
+public class PooledConnectorTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+    private static ClientAndServer server;
+
+    private PooledConnector connector;
+
+    @BeforeClass
+    public static void startServer() throws Exception {
+        server = startClientAndServer(7074);
+    }
+
+    @AfterClass
+    public static void stopServer() throws Exception {
+        server.stop();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        connector = new PooledConnector(2, 4, 10_000);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        connector.close();
+        server.reset();
+    }
+
+    @Test
+    public void testGet() {
+        server.when(request()
+                .withMethod("GET")
+                .withPath("/api/3/ticker/btc_usd")
+                .withHeader("key1", "val1"))
+                .respond(response()
+                        .withStatusCode(200)
+                        .withBody("ok"));
+
+        String response = connector.get("http://localhost:7074/api/3/ticker/btc_usd", ImmutableMap.of("key1", "val1"));
+        assertEquals("Invalid request was created", "ok", response);
+    }
+
+    @Test
+    public void testPost() {
+        server.when(request()
+                .withMethod("POST"))
+                .respond(response()
+                        .withStatusCode(200)
+                        .withBody("ok"));
+
+        String response = connector.post("http://localhost:7074", null, null);
+        assertEquals("Invalid request was created", "ok", response);
+    }
+
+    @Test
+    public void testPostWithBody() {
+        server.when(request()
+                .withMethod("POST")
+                .withHeader("Content-Type", "application/x-www-form-urlencoded")
+                .withBody("someBody"))
+                .respond(response()
+                        .withStatusCode(200)
+                        .withBody("ok"));
+
+        String response = connector.post("http://localhost:7074", "someBody", null);
+        assertEquals("Invalid request was created", "ok", response);
+    }
+
+    @Test
+    public void testConnectionReused() {
+        server.when(request()
+                .withMethod("GET"))
+                .respond(response()
+                        .withStatusCode(200)
+                        .withBody("ok"));
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals("Invalid response", "ok", connector.get("http://localhost:7074/", null));
+        }
+
+        PoolStats stats = connector.getStats();
+        assertEquals("Requests count doesn't match", 5, stats.getRequests());
+        assertEquals("Only one connection must be opened", 1, stats.getConnectionsCreated());
+        assertEquals("Connection must be reused", 4, stats.getConnectionsReused());
+        assertEquals("No connections must be leased", 0, stats.getLeased());
+        assertEquals("Connection must be returned to pool", 1, stats.getIdle());
+    }
+
+    @Test
+    public void testPartiallyReadStream() {
+        server.when(request()
+                .withMethod("GET"))
+                .respond(response()
+                        .withStatusCode(200)
+                        .withBody("{\"btc_usd\":0.2}"));
+
+        int first = connector.get("http://localhost:7074/", null, InputStream::read);
+        String second = connector.get("http://localhost:7074/", null);
+
+        assertEquals("Invalid first byte", '{', first);
+        assertEquals("Unread body must not leak into next response", "{\"btc_usd\":0.2}", second);
+        assertEquals("Connection must be reused", 1, connector.getStats().getConnectionsReused());
+    }
+
+    @Test
+    public void testCloseIdleConnections() throws Exception {
+        connector.close();
+        connector = new PooledConnector(2, 4, 1);
+        server.when(request()
+                .withMethod("GET"))
+                .respond(response()
+                        .withStatusCode(200)
+                        .withBody("ok"));
+
+        connector.get("http://localhost:7074/", null);
+        Thread.sleep(20);
+        connector.closeIdleConnections();
+
+        PoolStats stats = connector.getStats();
+        assertEquals("Idle connection must be evicted", 1, stats.getConnectionsEvicted());
+        assertEquals("Pool must be empty", 0, stats.getIdle());
+    }
+
+    @Test
+    public void testErrorStatus() {
+        thrown.expect(ConnectorException.class);
+        thrown.expectCause(isA(IOException.class));
+        server.when(request()
+                .withMethod("GET"))
+                .respond(response()
+                        .withStatusCode(404));
+
+        connector.get("http://localhost:7074/", null);
+    }
+
+    @Test
+    public void testStaleConnectionGetRetried() throws Exception {
+        try (ClosingServer closing = new ClosingServer()) {
+            String url = "http://localhost:" + closing.getPort() + "/";
+            connector.get(url, null);
+            Thread.sleep(50);
+
+            assertEquals("Invalid response", "ok", connector.get(url, null));
+            assertEquals("Request must be sent again on fresh connection", 2, connector.getStats().getConnectionsCreated());
+        }
+    }
+
+    @Test
+    public void testStaleConnectionPostNotRetried() throws Exception {
+        try (ClosingServer closing = new ClosingServer()) {
+            String url = "http://localhost:" + closing.getPort() + "/";
+            connector.post(url, "body", null);
+            Thread.sleep(50);
+
+            try {
+                connector.post(url, "body", null);
+                fail("Post must not be sent again");
+            } catch (ConnectorException e) {
+                assertEquals("Only one connection must be opened", 1, connector.getStats().getConnectionsCreated());
+                assertEquals("Post must be received once", 1, closing.requests.get());
+            }
+        }
+    }
+
+    @Test(expected = ConnectorException.class)
+    public void testGetInvalidUrl() {
+        connector.get("invalid bla bla bla", null);
+    }
+
+    @Test(expected = ConnectorException.class)
+    public void testPostInvalidUrl() {
+        connector.post("invalid bla bla bla", null, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCreateInvalidLimits() {
+        new PooledConnector(0, 1, 1);
+    }
+
+    /**
+     * Answers one request per connection as kept-alive, then closes connection
+     */
+    private static final class ClosingServer implements AutoCloseable {
+
+        private final ServerSocket socket = new ServerSocket(0);
+        private final AtomicInteger requests = new AtomicInteger();
+
+        ClosingServer() throws IOException {
+            Thread thread = new Thread(this::serve, "closing-server");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        int getPort() {
+            return socket.getLocalPort();
+        }
+
+        private void serve() {
+            while (!socket.isClosed()) {
+                try (Socket client = socket.accept()) {
+                    BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), US_ASCII));
+                    int length = 0;
+                    String line;
+                    while ((line = in.readLine()) != null && !line.isEmpty()) {
+                        if (line.toLowerCase().startsWith("content-length:")) {
+                            length = Integer.parseInt(line.substring(15).trim());
+                        }
+                    }
+                    if (line == null) {
+                        continue;
+                    }
+                    in.skip(length);
+                    requests.incrementAndGet();
+                    OutputStream out = client.getOutputStream();
+                    out.write("HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nok".getBytes(US_ASCII));
+                    out.flush();
+                } catch (IOException e) {
+                    // closed
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.isador.trade.jbtce;
+
+import nl.jqno.equalsverifier.EqualsVerifier;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created by isador
+ * on 14.06.17
+ */
+public class RetryPolicyTest {
+
+    @Test
+    public void testBackoff() {
+        RetryPolicy policy = new RetryPolicy(10, 100, 1000, 30_000);
+
+        for (int i = 0; i < 100; i++) {
+            long first = policy.backoff(1);
+            long third = policy.backoff(3);
+            long last = policy.backoff(10);
+
+            assertTrue("First backoff out of range: " + first, first >= 50 && first <= 100);
+            assertTrue("Third backoff out of range: " + third, third >= 200 && third <= 400);
+            assertTrue("Backoff must be capped: " + last, last >= 500 && last <= 1000);
+        }
+    }
+
+    @Test
+    public void testNoBackoff() {
+        assertEquals("Backoff must be zero", 0, RetryPolicy.NO_RETRY.backoff(1));
+        assertEquals("Backoff must be zero", 0, new RetryPolicy(100, 0, 0, 1).backoff(99));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidAttempts() {
+        new RetryPolicy(0, 100, 1000, 30_000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidBackoff() {
+        new RetryPolicy(3, 1000, 100, 30_000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidDeadline() {
+        new RetryPolicy(3, 100, 1000, 0);
+    }
+
+    @Test
+    public void testEquals() {
+        EqualsVerifier.forClass(RetryPolicy.class).verify();
+    }
+}
@@ -5,6 +5,14 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.mockserver.integration.ClientAndServer;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.mockserver.integration.ClientAndServer.startClientAndServer;
@@ -119,6 +127,59 @@ public class ServerProviderTest {
         }
     }
 
+    @Test
+    public void testNextMirrorAlreadySwitched() {
+        ServerProvider actual = reachableProvider(new AtomicInteger(), "1", "2", "3");
+
+        actual.nextMirror("1");
+        actual.nextMirror("1");
+
+        assertServerEquals("2", new String[]{"3", "1"}, actual);
+    }
+
+    @Test
+    public void testNextMirrorSingleFlight() throws Exception {
+        AtomicInteger probes = new AtomicInteger();
+        ServerProvider actual = reachableProvider(probes, "1", "2", "3");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+
+        try {
+            List<Future<?>> calls = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                calls.add(executor.submit(() -> {
+                    start.await();
+                    actual.nextMirror("1");
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> call : calls) {
+                call.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals("Only one thread must probe mirrors", 1, probes.get());
+        assertServerEquals("2", new String[]{"3", "1"}, actual);
+    }
+
+    private ServerProvider reachableProvider(AtomicInteger probes, String currentServer, String... mirrors) {
+        return new ServerProvider(currentServer, mirrors) {
+            @Override
+            protected boolean isServerReachable(String server) {
+                probes.incrementAndGet();
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+        };
+    }
+
     private void assertServerEquals(String expectedCurrentServer, String[] expectedMirrors, ServerProvider actual) {
         assertEquals("Invalid current server", expectedCurrentServer, actual.getCurrentServer());
         assertArrayEquals("Invalid server mirror list", expectedMirrors, actual.getMirrors());
@@ -0,0 +1,134 @@
+package com.isador.trade.jbtce.privateapi;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.isador.trade.jbtce.AsyncConnector;
+import com.isador.trade.jbtce.BTCEException;
+import com.isador.trade.jbtce.ResponseHandler;
+import com.isador.trade.jbtce.ServerProvider;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.isador.trade.jbtce.TestUtils.getJson;
+import static com.isador.trade.jbtce.constants.Pair.BTC_USD;
+import static com.isador.trade.jbtce.constants.TradeType.BUY;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Created by isador
+ * on 14.06.17
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class AsyncPrivateApiTest {
+
+    @Mock
+    private AsyncConnector connector;
+
+    @Mock
+    private ServerProvider serverProvider;
+
+    private AsyncPrivateApi api;
+
+    @Before
+    public void setUp() throws Exception {
+        when(serverProvider.getCurrentServer()).thenReturn("https://btc-e.com/");
+        api = new AsyncPrivateApi(new PrivateApi("1", "1", serverProvider, null,
+                new NonceDispatcher(new SequentialNonceSource())), connector);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testCreateNullConnector() {
+        new AsyncPrivateApi(api.getApi(), null);
+    }
+
+    @Test
+    public void testTrade() throws Exception {
+        when(connector.post(eq("https://btc-e.com/tapi"), contains("method=Trade"), anyMap(), any()))
+                .thenAnswer(invocation -> handle(invocation.getArgument(3), getJson("tradeResult.json")));
+
+        TradeResult actual = api.trade(BTC_USD, BUY, 0.001, 1).get(5, TimeUnit.SECONDS);
+
+        assertTrue("Trade must be complete", actual.isTradeComplete());
+    }
+
+    @Test
+    public void testTradeRejectedByValidator() throws Exception {
+        api.getApi().setOrderValidator(new OrderValidator(() -> {
+            throw new BTCEException("No info");
+        }, OrderValidator.Mode.REJECT));
+
+        CompletableFuture<TradeResult> actual = api.trade(BTC_USD, BUY, 0.001, 1);
+
+        try {
+            actual.get(5, TimeUnit.SECONDS);
+            fail("Exception expected");
+        } catch (ExecutionException e) {
+            assertThat("Invalid exception", e.getCause(), instanceOf(BTCEException.class));
+        }
+        verifyZeroInteractions(connector);
+    }
+
+    @Test
+    public void testInvalidArgumentsFailFuture() throws Exception {
+        assertFailedWith(IllegalArgumentException.class, api.trade(BTC_USD, BUY, 0, 1));
+        assertFailedWith(NullPointerException.class, api.trade(null, BUY, 0.001, 1));
+        assertFailedWith(IllegalArgumentException.class, api.cancelOrder(0));
+        verifyZeroInteractions(connector);
+    }
+
+    @Test
+    public void testCallsSentOneByOne() throws Exception {
+        CompletableFuture<Object> first = new CompletableFuture<>();
+        when(connector.post(eq("https://btc-e.com/tapi"), contains("method=ActiveOrders"), anyMap(), any()))
+                .thenReturn(first)
+                .thenAnswer(invocation -> handle(invocation.getArgument(3), getJson("activeOrders.json")));
+
+        CompletableFuture<List<Order>> firstOrders = api.getActiveOrders(BTC_USD);
+        CompletableFuture<List<Order>> secondOrders = api.getActiveOrders(BTC_USD);
+
+        verify(connector, after(100).times(1)).post(anyString(), anyString(), anyMap(), any());
+        assertFalse("Second call must wait for the first one", secondOrders.isDone());
+
+        first.complete(getOrders());
+        assertFalse("Orders expected", secondOrders.get(5, TimeUnit.SECONDS).isEmpty());
+        assertFalse("Orders expected", firstOrders.get(5, TimeUnit.SECONDS).isEmpty());
+        verify(connector, times(2)).post(anyString(), anyString(), anyMap(), any());
+    }
+
+    private static void assertFailedWith(Class<? extends Throwable> expected, CompletableFuture<?> future) throws Exception {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("Exception expected");
+        } catch (ExecutionException e) {
+            assertThat("Invalid exception", e.getCause(), instanceOf(expected));
+        }
+    }
+
+    private static JsonElement getOrders() {
+        return new JsonParser().parse(getJson("activeOrders.json"));
+    }
+
+    private static <T> CompletableFuture<T> handle(ResponseHandler<T> handler, String json) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            future.complete(handler.handle(new ByteArrayInputStream(json.getBytes(UTF_8))));
+        } catch (IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+}
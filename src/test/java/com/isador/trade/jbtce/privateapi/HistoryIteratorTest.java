@@ -0,0 +1,108 @@
+package com.isador.trade.jbtce.privateapi;
+
+import com.isador.trade.jbtce.BTCEException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+/**
+ * Created by isador
+ * on 27.06.17
+ */
+public class HistoryIteratorTest {
+
+    private static final Executor DIRECT = Runnable::run;
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private final List<Long> requests = new CopyOnWriteArrayList<>();
+
+    @Test
+    public void testAllPagesNewestFirst() {
+        HistoryIterator<Long> iterator = iterator(25, 10);
+
+        List<Long> ids = new ArrayList<>();
+        iterator.forEachRemaining(ids::add);
+
+        assertEquals("Invalid records", LongStream.rangeClosed(1, 25).boxed()
+                .sorted((a, b) -> Long.compare(b, a)).collect(Collectors.toList()), ids);
+        assertEquals("Pages must be requested below previous page", asList(null, 15L, 5L), requests);
+    }
+
+    @Test
+    public void testNextPagePrefetched() {
+        Iterator<Long> iterator = iterator(25, 10);
+
+        assertEquals("Invalid first record", 25, iterator.next().longValue());
+
+        assertEquals("Next page must be prefetched", asList(null, 15L), requests);
+    }
+
+    @Test
+    public void testLazy() {
+        List<Long> ids = iterator(1000, 10).stream().limit(5).collect(Collectors.toList());
+
+        assertEquals("Invalid records count", 5, ids.size());
+        assertTrue("Only needed pages must be requested", requests.size() <= 2);
+    }
+
+    @Test
+    public void testEmpty() {
+        assertFalse("Empty history expected", iterator(0, 10).hasNext());
+    }
+
+    @Test
+    public void testPageError() {
+        thrown.expect(BTCEException.class);
+        thrown.expectMessage("Some error");
+
+        new HistoryIterator<Long>((endId, count) -> {
+            throw new BTCEException("Some error");
+        }, Long::longValue, 10, DIRECT).hasNext();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPageSize() {
+        iterator(10, 0);
+    }
+
+    @Test
+    public void testPageSizeAboveServerLimit() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("Invalid page size: 1001, must be in [1, 1000]");
+
+        iterator(10, HistoryIterator.MAX_PAGE_SIZE + 1);
+    }
+
+    @Test
+    public void testMaxPageSize() {
+        List<Long> records = new ArrayList<>();
+        iterator(2500, HistoryIterator.MAX_PAGE_SIZE).forEachRemaining(records::add);
+
+        assertEquals("Invalid records count", 2500, records.size());
+        assertEquals("Invalid requests", asList(null, 1500L, 500L), requests);
+    }
+
+    /**
+     * History of records 1..size, pages served oldest first
+     */
+    private HistoryIterator<Long> iterator(long size, int pageSize) {
+        return new HistoryIterator<>((endId, count) -> {
+            requests.add(endId);
+            long last = endId == null ? size : Math.min(endId, size);
+            return LongStream.rangeClosed(Math.max(1, last - count + 1), last).boxed().collect(Collectors.toList());
+        }, Long::longValue, pageSize, DIRECT);
+    }
+}
@@ -0,0 +1,88 @@
+package com.isador.trade.jbtce.privateapi;
+
+import org.apache.commons.codec.binary.Hex;
+import org.junit.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Created by isador
+ * on 23.06.17
+ */
+public class HmacSignerTest {
+
+    private static final String SECRET = "secret";
+
+    @Test
+    public void testSign() throws Exception {
+        HmacSigner signer = new HmacSigner(SECRET);
+        String body = "nonce=1&method=getInfo";
+
+        assertEquals("Invalid signature", expected(body), signer.sign(body));
+        assertEquals("Signature must not depend on previous call", expected(body), signer.sign(body));
+    }
+
+    @Test
+    public void testSignNonAscii() throws Exception {
+        HmacSigner signer = new HmacSigner(SECRET);
+        String body = "nonce=1&comment=привет";
+
+        assertEquals("Invalid signature", expected(body), signer.sign(body));
+    }
+
+    @Test
+    public void testSignLongBody() throws Exception {
+        HmacSigner signer = new HmacSigner(SECRET);
+        StringBuilder body = new StringBuilder("nonce=1");
+        for (int i = 0; i < 100; i++) {
+            body.append("&param").append(i).append('=').append(i);
+        }
+
+        assertEquals("Invalid signature", expected(body.toString()), signer.sign(body.toString()));
+        assertEquals("Invalid short signature", expected("nonce=2"), signer.sign("nonce=2"));
+    }
+
+    @Test
+    public void testSignConcurrently() throws Exception {
+        HmacSigner signer = new HmacSigner(SECRET);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        String body = "nonce=" + (thread * 1000 + i) + "&method=Trade";
+                        assertEquals("Invalid signature", expected(body), signer.sign(body));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCreateWithEmptySecret() {
+        new HmacSigner("");
+    }
+
+    private static String expected(String body) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA512");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA512"));
+        return Hex.encodeHexString(mac.doFinal(body.getBytes(StandardCharsets.UTF_8)));
+    }
+}
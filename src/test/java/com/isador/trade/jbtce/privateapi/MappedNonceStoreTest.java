@@ -0,0 +1,144 @@
+package com.isador.trade.jbtce.privateapi;
+
+import com.isador.trade.jbtce.BTCEException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by isador
+ * on 26.06.17
+ */
+public class MappedNonceStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void testNewStoreStartsFromEpochSecond() throws Exception {
+        long now = System.currentTimeMillis() / 1000;
+        try (MappedNonceStore store = new MappedNonceStore(folder.newFile().toPath(), 10)) {
+            long first = store.next();
+
+            assertTrue("Store must start from epoch second", first >= now);
+            assertEquals("Nonces must grow by one", first + 1, store.next());
+            assertEquals("Invalid reserved block", first + 10, store.getReserved());
+        }
+    }
+
+    @Test
+    public void testResumeAfterClose() throws Exception {
+        Path file = folder.newFile().toPath();
+        long last;
+        try (MappedNonceStore store = new MappedNonceStore(file, 10)) {
+            store.next();
+            last = store.next();
+        }
+
+        try (MappedNonceStore store = new MappedNonceStore(file, 10)) {
+            assertEquals("Closed store must resume from next nonce", last + 1, store.next());
+        }
+    }
+
+    @Test
+    public void testResumeAfterCrash() throws Exception {
+        Path file = folder.newFile().toPath();
+        Path crashed = folder.getRoot().toPath().resolve("crashed");
+        long last = 0;
+        try (MappedNonceStore store = new MappedNonceStore(file, 10)) {
+            for (int i = 0; i < 25; i++) {
+                last = store.next();
+            }
+            // file state of process killed now
+            Files.copy(file, crashed);
+        }
+
+        try (MappedNonceStore store = new MappedNonceStore(crashed, 10)) {
+            long next = store.next();
+            assertTrue("Store must not reuse nonces: " + next, next > last);
+            assertTrue("Store must skip at most one block: " + next, next <= last + 10);
+        }
+    }
+
+    @Test
+    public void testTornSlotIgnored() throws Exception {
+        Path file = folder.newFile().toPath();
+        long reserved;
+        try (MappedNonceStore store = new MappedNonceStore(file, 10)) {
+            for (int i = 0; i < 15; i++) {
+                store.next();
+            }
+            reserved = store.getReserved();
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(8);
+            raf.writeLong(0);
+        }
+
+        try (MappedNonceStore store = new MappedNonceStore(file, 10)) {
+            assertTrue("Valid slot must be used", store.next() >= reserved - 10);
+        }
+    }
+
+    @Test
+    public void testAdvance() throws Exception {
+        try (MappedNonceStore store = new MappedNonceStore(folder.newFile().toPath(), 10)) {
+            long first = store.next();
+
+            store.advance(first + 100);
+
+            assertEquals("Store must continue from advanced nonce", first + 100, store.next());
+            assertEquals("Block must be reserved from advanced nonce", first + 110, store.getReserved());
+        }
+    }
+
+    @Test
+    public void testLocked() throws Exception {
+        Path file = folder.newFile().toPath();
+        try (MappedNonceStore ignored = new MappedNonceStore(file)) {
+            thrown.expect(BTCEException.class);
+            thrown.expectMessage("Can't open nonce store");
+
+            new MappedNonceStore(file);
+        }
+    }
+
+    @Test
+    public void testClosed() throws Exception {
+        MappedNonceStore store = new MappedNonceStore(folder.newFile().toPath(), 1);
+        store.close();
+        thrown.expect(IllegalStateException.class);
+        thrown.expectMessage("Nonce store is closed");
+
+        store.next();
+        store.next();
+    }
+
+    @Test
+    public void testNextAfterCloseWithinBlock() throws Exception {
+        Path file = folder.newFile().toPath();
+        MappedNonceStore store = new MappedNonceStore(file, 10);
+        long last = store.next();
+        store.close();
+
+        try {
+            store.next();
+            fail("Closed store must not return nonces");
+        } catch (IllegalStateException e) {
+            assertEquals("Invalid exception message", "Nonce store is closed", e.getMessage());
+        }
+        try (MappedNonceStore reopened = new MappedNonceStore(file, 10)) {
+            assertEquals("Reopened store must resume after last returned nonce", last + 1, reopened.next());
+        }
+    }
+}
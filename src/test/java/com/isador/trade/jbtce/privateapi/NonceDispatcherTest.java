@@ -0,0 +1,180 @@
+package com.isador.trade.jbtce.privateapi;
+
+import com.isador.trade.jbtce.BTCEException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+/**
+ * Created by isador
+ * on 24.06.17
+ */
+public class NonceDispatcherTest {
+
+    private static final String INVALID_NONCE = "invalid nonce parameter; on key:99, you sent:'%s', you should send:100";
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void testConcurrentCallsSentInNonceOrder() throws Exception {
+        NonceDispatcher dispatcher = new NonceDispatcher(new SequentialNonceSource(1));
+        List<Long> sent = new CopyOnWriteArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 100; i++) {
+                        long nonce = dispatcher.execute(n -> {
+                            sent.add(n);
+                            return n;
+                        });
+                        assertTrue("Result of own call expected", sent.contains(nonce));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals("Invalid calls count", 800, sent.size());
+        for (int i = 0; i < sent.size(); i++) {
+            assertEquals("Calls must be sent in nonce order", i + 1, sent.get(i).longValue());
+        }
+    }
+
+    @Test
+    public void testInvalidNonceRetried() {
+        NonceDispatcher dispatcher = new NonceDispatcher(new SequentialNonceSource(1));
+        List<Long> sent = new ArrayList<>();
+
+        String result = dispatcher.execute(nonce -> {
+            sent.add(nonce);
+            if (nonce < 100) {
+                throw new BTCEException(String.format(INVALID_NONCE, nonce));
+            }
+            return "ok";
+        });
+
+        assertEquals("Invalid result", "ok", result);
+        assertEquals("Call must be retried with expected nonce", asList(1L, 100L), sent);
+        assertEquals("Source must continue from expected nonce", 101, dispatcher.getNonceSource().next());
+    }
+
+    @Test
+    public void testInvalidNonceRetriesExhausted() {
+        thrown.expect(BTCEException.class);
+        thrown.expectMessage("invalid nonce");
+        NonceDispatcher dispatcher = new NonceDispatcher(new SequentialNonceSource(1), 0);
+
+        dispatcher.execute(nonce -> {
+            throw new BTCEException(String.format(INVALID_NONCE, nonce));
+        });
+    }
+
+    @Test
+    public void testOtherErrorNotRetried() {
+        NonceDispatcher dispatcher = new NonceDispatcher(new SequentialNonceSource(1));
+        List<Long> sent = new ArrayList<>();
+
+        CompletableFuture<Object> future = dispatcher.submit(nonce -> {
+            sent.add(nonce);
+            throw new BTCEException("Some error");
+        });
+
+        assertTrue("Future must fail", future.handle((r, e) -> e != null).join());
+        assertEquals("Call must not be retried", 1, sent.size());
+        assertEquals("Next call must get next nonce", 2L, dispatcher.execute(nonce -> nonce).longValue());
+    }
+
+    @Test
+    public void testInvalidNonceOfNotIdempotentCallNotRetried() {
+        NonceDispatcher dispatcher = new NonceDispatcher(new SequentialNonceSource(1));
+        List<Long> sent = new CopyOnWriteArrayList<>();
+
+        try {
+            dispatcher.execute(nonce -> {
+                sent.add(nonce);
+                throw new BTCEException(String.format(INVALID_NONCE, nonce));
+            }, false);
+            fail("Call must fail");
+        } catch (BTCEException e) {
+            assertTrue("Invalid nonce error expected", e.getMessage().startsWith("invalid nonce"));
+        }
+
+        assertEquals("Call must not be sent again", asList(1L), sent);
+    }
+
+    @Test
+    public void testCallsRunOnSenderThread() {
+        NonceDispatcher dispatcher = new NonceDispatcher(new SequentialNonceSource(1));
+        Thread.currentThread().interrupt();
+        try {
+            String thread = dispatcher.submit(nonce -> Thread.currentThread().isInterrupted()
+                    ? "interrupted" : Thread.currentThread().getName()).join();
+
+            assertEquals("Call must run on sender thread", "jbtce-nonce-dispatcher", thread);
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    public void testAsyncCallsSentOneByOne() {
+        NonceDispatcher dispatcher = new NonceDispatcher(new SequentialNonceSource(1));
+        CompletableFuture<String> response = new CompletableFuture<>();
+        List<Long> sent = new CopyOnWriteArrayList<>();
+
+        CompletableFuture<Long> first = dispatcher.submitAsync(nonce -> {
+            sent.add(nonce);
+            return response.thenApply(ignored -> nonce);
+        }, true);
+        CompletableFuture<Long> second = dispatcher.submitAsync(nonce -> {
+            sent.add(nonce);
+            return CompletableFuture.completedFuture(nonce);
+        }, true);
+
+        assertFalse("Second call must wait for the first one", second.isDone());
+        response.complete("ok");
+
+        assertEquals("Invalid first nonce", 1L, first.join().longValue());
+        assertEquals("Invalid second nonce", 2L, second.join().longValue());
+        assertEquals("Calls must be sent in order", asList(1L, 2L), sent);
+    }
+
+    @Test
+    public void testExpectedNonce() {
+        assertEquals("Invalid nonce", 100, NonceDispatcher.expectedNonce(String.format(INVALID_NONCE, 1)));
+        assertEquals("Not an invalid nonce error", -1, NonceDispatcher.expectedNonce("Some error"));
+        assertEquals("Not an invalid nonce error", -1, NonceDispatcher.expectedNonce(null));
+    }
+
+    @Test
+    public void testAdvanceNeverMovesBack() {
+        NonceSource source = new SequentialNonceSource(10);
+
+        source.advance(5);
+
+        assertEquals("Source must not move back", 10, source.next());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCreateInvalidRetries() {
+        new NonceDispatcher(new SequentialNonceSource(1), -1);
+    }
+}
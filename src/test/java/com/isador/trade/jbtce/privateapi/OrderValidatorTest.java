@@ -0,0 +1,140 @@
+package com.isador.trade.jbtce.privateapi;
+
+import com.isador.trade.jbtce.BTCEException;
+import com.isador.trade.jbtce.publicapi.BTCEInfo;
+import com.isador.trade.jbtce.publicapi.PairInfo;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.isador.trade.jbtce.constants.Pair.BTC_RUR;
+import static com.isador.trade.jbtce.constants.Pair.BTC_USD;
+import static com.isador.trade.jbtce.constants.TradeType.BUY;
+import static com.isador.trade.jbtce.constants.TradeType.SELL;
+import static com.isador.trade.jbtce.privateapi.OrderValidator.Mode.REJECT;
+import static com.isador.trade.jbtce.privateapi.OrderValidator.Mode.ROUND;
+import static org.junit.Assert.*;
+
+/**
+ * Created by isador
+ * on 30.06.17
+ */
+public class OrderValidatorTest {
+
+    private static final BTCEInfo INFO = new BTCEInfo(LocalDateTime.of(2017, 6, 30, 0, 0),
+            Arrays.asList(new PairInfo(3, 0.1, 400000, 0.001, 0, 0.2, BTC_USD)));
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void testValidOrder() {
+        OrderValidator validator = new OrderValidator(() -> INFO, REJECT);
+
+        OrderValidator.Result result = validator.validate(BTC_USD, BUY, 2500.125, 0.1);
+
+        assertEquals("Invalid rate", 2500.125, result.getRate(), 0);
+        assertEquals("Invalid amount", 0.1, result.getAmount(), 0);
+        assertFalse("Order must not be rounded", result.isRounded());
+        assertEquals("Invalid saved round trips", 0, validator.getSavedRoundTrips());
+    }
+
+    @Test
+    public void testRejectDecimalPlaces() {
+        OrderValidator validator = new OrderValidator(() -> INFO, REJECT);
+        thrown.expect(BTCEException.class);
+        thrown.expectMessage("Invalid rate 2500.1255, max decimal places: 3");
+
+        try {
+            validator.validate(BTC_USD, BUY, 2500.1255, 0.1);
+        } finally {
+            assertEquals("Invalid rejected count", 1, validator.getRejectedCount());
+        }
+    }
+
+    @Test
+    public void testRoundDecimalPlaces() {
+        OrderValidator validator = new OrderValidator(() -> INFO, ROUND);
+
+        OrderValidator.Result buy = validator.validate(BTC_USD, BUY, 2500.1255, 0.123456789);
+        OrderValidator.Result sell = validator.validate(BTC_USD, SELL, 2500.1251, 0.1);
+
+        assertEquals("Buy rate must be rounded down", 2500.125, buy.getRate(), 0);
+        assertEquals("Amount must be rounded down", 0.12345678, buy.getAmount(), 0);
+        assertEquals("Sell rate must be rounded up", 2500.126, sell.getRate(), 0);
+        assertTrue("Order must be rounded", buy.isRounded());
+        assertEquals("Invalid rounded count", 2, validator.getRoundedCount());
+        assertEquals("Invalid saved round trips", 2, validator.getSavedRoundTrips());
+    }
+
+    @Test
+    public void testRejectPriceRange() {
+        OrderValidator validator = new OrderValidator(() -> INFO, ROUND);
+        thrown.expect(BTCEException.class);
+        thrown.expectMessage("Invalid rate 500000.0, must be in [0.1, 400000.0]");
+
+        validator.validate(BTC_USD, SELL, 500000, 0.1);
+    }
+
+    @Test
+    public void testRejectMinAmount() {
+        OrderValidator validator = new OrderValidator(() -> INFO, ROUND);
+        thrown.expect(BTCEException.class);
+        thrown.expectMessage("Invalid amount 9.0E-4, min amount: 0.001");
+
+        validator.validate(BTC_USD, BUY, 2500, 0.0009);
+    }
+
+    @Test
+    public void testUnknownPairNotChecked() {
+        OrderValidator validator = new OrderValidator(() -> INFO, REJECT);
+
+        OrderValidator.Result result = validator.validate(BTC_RUR, BUY, 0.00001, 0.00001);
+
+        assertEquals("Invalid rate", 0.00001, result.getRate(), 0);
+    }
+
+    @Test
+    public void testLimitsRebuiltOnNewInfo() {
+        AtomicInteger calls = new AtomicInteger();
+        BTCEInfo updated = new BTCEInfo(LocalDateTime.of(2017, 7, 1, 0, 0),
+                Arrays.asList(new PairInfo(3, 0.1, 400000, 1, 0, 0.2, BTC_USD)));
+        OrderValidator validator = new OrderValidator(() -> calls.getAndIncrement() == 0 ? INFO : updated, REJECT);
+        validator.validate(BTC_USD, BUY, 2500, 0.1);
+        thrown.expect(BTCEException.class);
+        thrown.expectMessage("min amount: 1.0");
+
+        validator.validate(BTC_USD, BUY, 2500, 0.1);
+    }
+
+    @Test
+    public void testRound() {
+        assertEquals("Exact value must be kept", 0.3, OrderValidator.round(0.1 + 0.2, 8, false), 1e-15);
+        assertEquals("Invalid round down", 1.23, OrderValidator.round(1.239, 2, false), 0);
+        assertEquals("Invalid round up", 1.24, OrderValidator.round(1.231, 2, true), 0);
+        assertEquals("Invalid zero places", 3, OrderValidator.round(3.5, 0, false), 0);
+    }
+
+    @Test
+    public void testRoundLargeAmounts() {
+        assertEquals("Invalid round down", 10.12345678, OrderValidator.round(10.123456789, 8, false), 0);
+        assertEquals("Invalid round down", 4.99999999, OrderValidator.round(4.999999999, 8, false), 0);
+        assertEquals("Invalid round up", 5, OrderValidator.round(4.999999999, 8, true), 0);
+        assertEquals("Invalid round down", 12345.12345678, OrderValidator.round(12345.123456789, 8, false), 0);
+        assertEquals("Exact value must be kept", 12345.12345678, OrderValidator.round(12345.12345678, 8, false), 0);
+        assertEquals("Exact value must be kept", 4.99999999, OrderValidator.round(4.99999999, 8, true), 0);
+    }
+
+    @Test
+    public void testRejectLargeAmountDecimalPlaces() {
+        OrderValidator validator = new OrderValidator(() -> INFO, REJECT);
+        thrown.expect(BTCEException.class);
+        thrown.expectMessage("Invalid amount 10.123456789, max decimal places: 8");
+
+        validator.validate(BTC_USD, BUY, 2500, 10.123456789);
+    }
+}
@@ -0,0 +1,112 @@
+package com.isador.trade.jbtce.privateapi;
+
+import com.google.common.collect.ImmutableMap;
+import com.isador.trade.jbtce.Connector;
+import com.isador.trade.jbtce.ServerProvider;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static com.isador.trade.jbtce.constants.Pair.BTC_RUR;
+import static com.isador.trade.jbtce.constants.Pair.BTC_USD;
+import static com.isador.trade.jbtce.constants.TradeType.BUY;
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Answers.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.*;
+
+/**
+ * Created by isador
+ * on 25.06.17
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class PrivateApiPoolTest {
+
+    @Mock
+    private PrivateApi first;
+
+    @Mock
+    private PrivateApi second;
+
+    @Mock(answer = CALLS_REAL_METHODS)
+    private Connector connector;
+
+    @Mock
+    private ServerProvider serverProvider;
+
+    @Before
+    public void setUp() {
+        when(serverProvider.getCurrentServer()).thenReturn("https://btc-e.com/");
+    }
+
+    @Test
+    public void testReadCallsSpread() {
+        PrivateApiPool pool = new PrivateApiPool(Arrays.asList(first, second), false);
+
+        for (int i = 0; i < 4; i++) {
+            pool.getUserInfo();
+            pool.getActiveOrders(BTC_USD);
+            pool.getTradeHistory(null, null, null, null, null, null, null, null);
+        }
+
+        verify(first, times(2)).getUserInfo();
+        verify(second, times(2)).getUserInfo();
+        verify(first, times(2)).getActiveOrders(BTC_USD);
+        verify(second, times(2)).getActiveOrders(BTC_USD);
+        verify(first, times(2)).getTradeHistory(null, null, null, null, null, null, null, null);
+        verify(second, times(2)).getTradeHistory(null, null, null, null, null, null, null, null);
+    }
+
+    @Test
+    public void testPairsPinned() {
+        PrivateApiPool pool = new PrivateApiPool(Arrays.asList(first, second), true);
+        PrivateApi usd = pool.getApi(BTC_USD);
+        PrivateApi rur = pool.getApi(BTC_RUR);
+
+        for (int i = 0; i < 3; i++) {
+            pool.trade(BTC_USD, BUY, 1, 1);
+            pool.cancelOrder(BTC_USD, i + 1);
+        }
+
+        verify(usd, times(3)).trade(BTC_USD, BUY, 1, 1);
+        verify(usd, times(3)).cancelOrder(anyLong());
+        assertSame("Pinned pair must always get one key", usd, pool.getApi(BTC_USD));
+        assertNotSame("Pairs must be spread across keys", usd, rur);
+    }
+
+    @Test
+    public void testPairsNotPinned() {
+        PrivateApiPool pool = new PrivateApiPool(Arrays.asList(first, second), false);
+
+        pool.trade(BTC_USD, BUY, 1, 1);
+        pool.trade(BTC_USD, BUY, 1, 1);
+
+        verify(first).trade(BTC_USD, BUY, 1, 1);
+        verify(second).trade(BTC_USD, BUY, 1, 1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testKeysHaveOwnNonces() {
+        when(connector.post(eq("https://btc-e.com/tapi"), anyString(), nullable(Map.class)))
+                .thenReturn("{\"success\":1,\"return\":{}}");
+        PrivateApiPool pool = new PrivateApiPool(ImmutableMap.of("1", "1", "2", "2"), serverProvider, connector, false);
+
+        assertEquals("Invalid size", 2, pool.size());
+        assertNotSame("Keys must have own dispatchers", pool.getApi(0).getDispatcher(), pool.getApi(1).getDispatcher());
+        long firstNonce = pool.getApi(0).getDispatcher().getNonceSource().next();
+        pool.getApi(1).getActiveOrders(BTC_USD);
+        assertEquals("Nonce of other key must not move", firstNonce + 1, pool.getApi(0).getDispatcher().getNonceSource().next());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCreateEmpty() {
+        new PrivateApiPool(Collections.emptyList(), false);
+    }
+}
@@ -2,10 +2,14 @@ package com.isador.trade.jbtce.privateapi;
 
 import com.isador.trade.jbtce.BTCEException;
 import com.isador.trade.jbtce.Connector;
+import com.isador.trade.jbtce.ConnectorException;
 import com.isador.trade.jbtce.DefaultConnector;
+import com.isador.trade.jbtce.RetryPolicy;
 import com.isador.trade.jbtce.ServerProvider;
 import com.isador.trade.jbtce.constants.Currency;
 import com.isador.trade.jbtce.constants.Sort;
+import com.isador.trade.jbtce.publicapi.BTCEInfo;
+import com.isador.trade.jbtce.publicapi.PairInfo;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -14,9 +18,12 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import static com.isador.trade.jbtce.LocalDateTimeDeserializer.deserialize;
 import static com.isador.trade.jbtce.TestUtils.getErrorJson;
@@ -28,7 +35,11 @@ import static com.isador.trade.jbtce.privateapi.TransactionStatus.SUCCESSFUL;
 import static com.isador.trade.jbtce.privateapi.TransactionType.CREDIT;
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.junit.Assert.*;
+import static org.mockito.AdditionalMatchers.and;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Answers.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -41,7 +52,8 @@ public class PrivateApiTest {
     @Rule
     public ExpectedException thrown = ExpectedException.none();
 
-    @Mock
+    // streaming default methods delegate to stubbed string methods
+    @Mock(answer = CALLS_REAL_METHODS)
     private Connector connector;
 
     @Mock
@@ -87,6 +99,16 @@ public class PrivateApiTest {
         assertThat("Default connector should be DefaultConnector", api.getConnector(), instanceOf(DefaultConnector.class));
     }
 
+    @Test
+    public void testDefaultDispatcherPerKey() {
+        NonceDispatcher dispatcher = new PrivateApi("key1", "1", serverProvider, connector).getDispatcher();
+
+        assertSame("Instances of one key must share dispatcher", dispatcher,
+                new PrivateApi("key1", "1", serverProvider, connector).getDispatcher());
+        assertNotSame("Different keys must not share dispatcher", dispatcher,
+                new PrivateApi("key2", "1", serverProvider, connector).getDispatcher());
+    }
+
     @Test
     @SuppressWarnings("unchecked")
     public void testGetUserInfoInvalidResponseNoSuccess() {
@@ -143,6 +165,60 @@ public class PrivateApiTest {
         assertFunds(expected.getFunds(), actual.getFunds());
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGetUserInfoInvalidNonceRetried() {
+        PrivateApi api = new PrivateApi("1", "1", serverProvider, connector, new NonceDispatcher(new SequentialNonceSource(1)));
+        when(connector.post(eq("https://btc-e.com/tapi"), anyString(), nullable(Map.class)))
+                .thenReturn("{\"success\":0,\"error\":\"invalid nonce parameter; on key:41, you sent:'1', you should send:42\"}")
+                .thenReturn(getJson("info.json"));
+
+        assertNotNull("User info must be not null", api.getUserInfo());
+        verify(connector).post(eq("https://btc-e.com/tapi"), contains("nonce=42"), nullable(Map.class));
+    }
+
+    @Test
+    public void testTradeInvalidNonceNotRetried() {
+        PrivateApi api = new PrivateApi("1", "1", serverProvider, connector, new NonceDispatcher(new SequentialNonceSource(1)));
+        when(connector.post(eq("https://btc-e.com/tapi"), anyString(), anyMap()))
+                .thenReturn("{\"success\":0,\"error\":\"invalid nonce parameter; on key:41, you sent:'1', you should send:42\"}");
+
+        try {
+            api.trade(BTC_USD, BUY, 1, 1);
+            fail("Order must not be placed again");
+        } catch (BTCEException e) {
+            assertTrue("Invalid nonce error expected", e.getMessage().startsWith("invalid nonce"));
+        }
+        verify(connector, times(1)).post(eq("https://btc-e.com/tapi"), anyString(), anyMap());
+    }
+
+    @Test
+    public void testTradeConnectionErrorNotRetried() {
+        when(connector.post(eq("https://btc-e.com/tapi"), anyString(), anyMap())).thenThrow(new ConnectorException(new IOException()));
+
+        try {
+            api.trade(BTC_USD, BUY, 1, 1);
+            fail("Order must not be placed again");
+        } catch (BTCEException e) {
+            assertEquals("Invalid message", "Request failed after 1 attempts", e.getMessage());
+        }
+        verify(connector, times(1)).post(eq("https://btc-e.com/tapi"), anyString(), anyMap());
+    }
+
+    @Test
+    public void testCallerRetryPolicyUsedByDispatcher() {
+        api.setRetryPolicy(new RetryPolicy(3, 0, 0, 10_000));
+        when(connector.post(eq("https://btc-e.com/tapi"), anyString(), nullable(Map.class))).thenThrow(new ConnectorException(new IOException()));
+
+        try {
+            api.withRetryPolicy(RetryPolicy.NO_RETRY, api::getUserInfo);
+            fail("Call must fail");
+        } catch (BTCEException e) {
+            assertEquals("Invalid message", "Request failed after 1 attempts", e.getMessage());
+        }
+        verify(connector, times(1)).post(eq("https://btc-e.com/tapi"), anyString(), nullable(Map.class));
+    }
+
     @Test
     public void testTradeNullPair() {
         thrown.expect(NullPointerException.class);
@@ -211,6 +287,25 @@ public class PrivateApiTest {
         api.trade(BTC_USD, BUY, 1, 1);
     }
 
+    @Test
+    public void testTradeRejectedByValidator() {
+        OrderValidator validator = new OrderValidator(() -> new BTCEInfo(deserialize(0),
+                Collections.singletonList(new PairInfo(3, 0.1, 400000, 0.01, 0, 0.2, BTC_USD))), OrderValidator.Mode.ROUND);
+        api.setOrderValidator(validator);
+
+        try {
+            api.trade(BTC_USD, BUY, 1, 0.001);
+            fail("Order must be rejected");
+        } catch (BTCEException e) {
+            assertEquals("Invalid error", "Invalid amount 0.001, min amount: 0.01", e.getMessage());
+        }
+        when(connector.post(eq("https://btc-e.com/tapi"), anyString(), anyMap())).thenReturn(getJson("tradeResult.json"));
+        api.trade(BTC_USD, BUY, 1.23456, 1);
+
+        verify(connector).post(eq("https://btc-e.com/tapi"), matches(".*rate=1\\.234(&.*)?"), anyMap());
+        assertEquals("Invalid saved round trips", 2, validator.getSavedRoundTrips());
+    }
+
     @Test
     public void testTrade() {
         double amount = 0.001;
@@ -467,6 +562,26 @@ public class PrivateApiTest {
         assertEquals("Actual order timestamp doesn't match", expectedOrder.getTimestampCreated(), actualOrder.getTimestampCreated());
     }
 
+    @Test
+    public void testStreamTradeHistory() {
+        when(connector.post(eq("https://btc-e.com/tapi"), anyString(), anyMap())).thenReturn(getJson("tradeHistory.json"));
+
+        List<TradeHistory> trades = api.streamTradeHistory(null, BTC_USD, 1000, Runnable::run).collect(Collectors.toList());
+
+        assertEquals("Invalid trades count", api.getTradeHistory(null, null, null, null, null, null, null, null).size(), trades.size());
+        for (int i = 1; i < trades.size(); i++) {
+            assertTrue("Trades must be newest first", trades.get(i - 1).getId() > trades.get(i).getId());
+        }
+        verify(connector).post(eq("https://btc-e.com/tapi"), and(contains("count=1000"), contains("order=DESC")), anyMap());
+    }
+
+    @Test
+    public void testStreamTransactionsEmpty() {
+        when(connector.post(eq("https://btc-e.com/tapi"), anyString(), anyMap())).thenReturn("{\"success\":0,\"error\":\"no trades\"}");
+
+        assertFalse("Transactions must be empty", api.iterateTransactions(null, 100, Runnable::run).hasNext());
+    }
+
     @Test
     public void testGetTradeHistoryListInvalidResponseNoSuccess() {
         thrown.expect(BTCEException.class);
@@ -0,0 +1,205 @@
+package com.isador.trade.jbtce.privateapi.store;
+
+import com.isador.trade.jbtce.BTCEException;
+import com.isador.trade.jbtce.constants.Currency;
+import com.isador.trade.jbtce.privateapi.PrivateApi;
+import com.isador.trade.jbtce.privateapi.TradeHistory;
+import com.isador.trade.jbtce.privateapi.Transaction;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static com.isador.trade.jbtce.LocalDateTimeDeserializer.deserialize;
+import static com.isador.trade.jbtce.constants.Pair.BTC_RUR;
+import static com.isador.trade.jbtce.constants.Pair.BTC_USD;
+import static com.isador.trade.jbtce.constants.Sort.ASC;
+import static com.isador.trade.jbtce.constants.TradeType.BUY;
+import static com.isador.trade.jbtce.constants.TradeType.SELL;
+import static com.isador.trade.jbtce.privateapi.TransactionStatus.SUCCESSFUL;
+import static com.isador.trade.jbtce.privateapi.TransactionType.DEPOSIT;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Created by isador
+ * on 28.06.17
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class HistoryStoreTest {
+
+    private static final int PAGE_SIZE = 10;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Mock
+    private PrivateApi api;
+
+    private final List<TradeHistory> serverTrades = new CopyOnWriteArrayList<>();
+    private final List<Transaction> serverTransactions = new CopyOnWriteArrayList<>();
+    private Path directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = folder.getRoot().toPath().resolve("history");
+        when(api.getTradeHistory(isNull(), anyInt(), anyLong(), isNull(), eq(ASC), isNull(), isNull(), isNull()))
+                .thenAnswer(invocation -> serverTrades.stream()
+                        .filter(trade -> trade.getId() >= (Long) invocation.getArgument(2))
+                        .limit((Integer) invocation.getArgument(1))
+                        .collect(Collectors.toList()));
+        when(api.getTransactionsList(isNull(), anyInt(), anyLong(), isNull(), eq(ASC), isNull(), isNull()))
+                .thenAnswer(invocation -> {
+                    List<Transaction> page = serverTransactions.stream()
+                            .filter(transaction -> transaction.getId() >= (Long) invocation.getArgument(2))
+                            .limit((Integer) invocation.getArgument(1))
+                            .collect(Collectors.toList());
+                    if (page.isEmpty()) {
+                        throw new BTCEException("no transactions");
+                    }
+                    return page;
+                });
+    }
+
+    @Test
+    public void testSyncFetchesOnlyNewRecords() {
+        addTrades(1, 25);
+        try (HistoryStore store = new HistoryStore(directory, 4096, PAGE_SIZE)) {
+            assertEquals("Invalid records added", 25, store.sync(api));
+            assertEquals("Invalid last trade id", 25, store.getLastTradeId());
+
+            addTrades(26, 27);
+            assertEquals("Only new records must be added", 2, store.sync(api));
+        }
+
+        for (long fromId : new long[]{1, 11, 21, 26}) {
+            verify(api).getTradeHistory(null, PAGE_SIZE, fromId, null, ASC, null, null, null);
+        }
+    }
+
+    @Test
+    public void testReopen() {
+        addTrades(1, 50);
+        serverTransactions.add(new Transaction(DEPOSIT, 1.5, Currency.USD, SUCCESSFUL, deserialize(1000), 7, "Deposit"));
+        serverTransactions.add(new Transaction(null, 2, null, null, deserialize(2000), 8, null));
+        // small segments, records span several files
+        try (HistoryStore store = new HistoryStore(directory, 256, PAGE_SIZE)) {
+            store.sync(api);
+        }
+
+        try (HistoryStore store = new HistoryStore(directory, 256, PAGE_SIZE)) {
+            assertEquals("Invalid trades count", 50, store.getTradesCount());
+            assertEquals("Invalid transactions count", 2, store.getTransactionsCount());
+            assertEquals("Invalid last transaction id", 8, store.getLastTransactionId());
+
+            TradeHistory trade = store.getTrade(33);
+            assertEquals("Invalid trade", serverTrades.get(32), trade);
+            assertEquals("Invalid trade pair", serverTrades.get(32).getPair(), trade.getPair());
+            assertEquals("Invalid trade type", serverTrades.get(32).getType(), trade.getType());
+            assertEquals("Invalid trade rate", serverTrades.get(32).getRate(), trade.getRate(), 0);
+            assertEquals("Invalid trade time", serverTrades.get(32).getTimestamp(), trade.getTimestamp());
+            assertTrue("Invalid trade order flag", trade.isYourOrder());
+
+            Transaction transaction = store.getTransaction(7);
+            assertEquals("Invalid description", "Deposit", transaction.getDescription());
+            assertEquals("Invalid type", DEPOSIT, transaction.getType());
+            assertEquals("Invalid status", SUCCESSFUL, transaction.getStatus());
+            assertEquals("Invalid currency", Currency.USD, transaction.getCurrency());
+            assertNull("Invalid null description", store.getTransaction(8).getDescription());
+            assertNull("Missing record expected", store.getTrade(51));
+        }
+        assertTrue("Several segments expected", Files.exists(directory.resolve("trades-000001.seg")));
+    }
+
+    @Test
+    public void testCorruptedRecordIgnoredOnReopen() throws Exception {
+        addTrades(1, 10);
+        try (HistoryStore store = new HistoryStore(directory, 4096, PAGE_SIZE)) {
+            store.sync(api);
+        }
+        // length of 6th record reached disk, its payload didn't
+        Path segment = directory.resolve("trades-000000.seg");
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(segment));
+        int offset = 0;
+        for (int i = 0; i < 5; i++) {
+            offset += 8 + data.getInt(offset);
+        }
+        data.put(offset + 8, (byte) (data.get(offset + 8) ^ 1));
+        Files.write(segment, data.array());
+
+        try (HistoryStore store = new HistoryStore(directory, 4096, PAGE_SIZE)) {
+            assertEquals("Records after corrupted one must be ignored", 5, store.getTradesCount());
+            assertEquals("Invalid last trade id", 5, store.getLastTradeId());
+
+            assertEquals("Ignored records must be synced again", 5, store.sync(api));
+            assertEquals("Invalid trade", serverTrades.get(5), store.getTrade(6));
+        }
+        try (HistoryStore store = new HistoryStore(directory, 4096, PAGE_SIZE)) {
+            assertEquals("Invalid trades count", 10, store.getTradesCount());
+        }
+    }
+
+    @Test
+    public void testQueryByPairAndTime() {
+        addTrades(1, 20);
+        try (HistoryStore store = new HistoryStore(directory, 4096, PAGE_SIZE)) {
+            store.sync(api);
+
+            List<TradeHistory> trades = store.getTrades(BTC_USD, deserialize(1005), deserialize(1015));
+
+            assertEquals("Invalid trades", serverTrades.stream()
+                    .filter(trade -> trade.getPair() == BTC_USD)
+                    .filter(trade -> trade.getId() >= 5 && trade.getId() < 15)
+                    .collect(Collectors.toList()), trades);
+            assertEquals("Invalid all pairs trades", 20, store.getTrades(null, null, null).size());
+            assertTrue("Empty range expected", store.getTrades(BTC_RUR, deserialize(2000), null).isEmpty());
+        }
+    }
+
+    @Test
+    public void testTimeIndexOutOfIdOrder() {
+        serverTrades.add(trade(1, deserialize(3000)));
+        serverTrades.add(trade(2, deserialize(1000)));
+        serverTrades.add(trade(3, deserialize(2000)));
+        try (HistoryStore store = new HistoryStore(directory, 4096, PAGE_SIZE)) {
+            store.sync(api);
+
+            List<Long> ids = store.getTrades(null, null, null).stream().map(TradeHistory::getId).collect(Collectors.toList());
+
+            assertEquals("Trades must be ordered by time", asList(2L, 3L, 1L), ids);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCreateInvalidPageSize() {
+        new HistoryStore(directory, 4096, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCreatePageSizeOverServerLimit() {
+        new HistoryStore(directory, 4096, PrivateApi.MAX_HISTORY_PAGE_SIZE + 1);
+    }
+
+    private void addTrades(long from, long to) {
+        for (long id = from; id <= to; id++) {
+            serverTrades.add(trade(id, deserialize(1000 + id)));
+        }
+    }
+
+    private static TradeHistory trade(long id, LocalDateTime time) {
+        return new TradeHistory(id % 2 == 0 ? BTC_USD : BTC_RUR, id % 3 == 0 ? SELL : BUY, id, 100 + id, id * 10, 1, time, id);
+    }
+}
@@ -0,0 +1,139 @@
+package com.isador.trade.jbtce.publicapi;
+
+import com.isador.trade.jbtce.AsyncConnector;
+import com.isador.trade.jbtce.BTCEException;
+import com.isador.trade.jbtce.ConnectorException;
+import com.isador.trade.jbtce.ResponseHandler;
+import com.isador.trade.jbtce.RetryPolicy;
+import com.isador.trade.jbtce.ServerProvider;
+import com.isador.trade.jbtce.constants.Pair;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static com.isador.trade.jbtce.TestUtils.getErrorJson;
+import static com.isador.trade.jbtce.TestUtils.getJson;
+import static com.isador.trade.jbtce.constants.Pair.BTC_RUR;
+import static com.isador.trade.jbtce.constants.Pair.BTC_USD;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * Created by isador
+ * on 14.06.17
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class AsyncPublicApiV3Test {
+
+    @Mock
+    private AsyncConnector connector;
+
+    @Mock
+    private ServerProvider serverProvider;
+
+    private PublicApiV3 syncApi;
+    private AsyncPublicApiV3 api;
+    private Map<String, String> headers = Collections.singletonMap("User-Agent", "jBTCEv2");
+
+    @Before
+    public void setUp() throws Exception {
+        when(serverProvider.getCurrentServer()).thenReturn("https://btc-e.com/");
+        syncApi = new PublicApiV3(serverProvider, null);
+        api = new AsyncPublicApiV3(syncApi, connector);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testCreateNullConnector() {
+        new AsyncPublicApiV3(syncApi, null);
+    }
+
+    @Test
+    public void testGetTicks() throws Exception {
+        respond("https://btc-e.com/api/3/ticker/btc_usd-btc_rur", getJson("v3/ticker.json"));
+
+        Map<Pair, Tick> actual = api.getTicks(BTC_USD, BTC_RUR).get();
+
+        assertEquals("Actual map size doesn't match", 2, actual.size());
+        assertNotNull("Tick must be not null", actual.get(BTC_USD));
+    }
+
+    @Test
+    public void testGetDepths() throws Exception {
+        respond("https://btc-e.com/api/3/depth/btc_usd-btc_rur?limit=15", getJson("v3/depth.json"));
+
+        Map<Pair, Depth> actual = api.getDepths(15, BTC_USD, BTC_RUR).get();
+
+        assertEquals("Actual map size doesn't match", 2, actual.size());
+        assertTrue("Asks must be parsed", actual.get(BTC_USD).getAsks().length > 0);
+    }
+
+    @Test
+    public void testGetTicksError() throws Exception {
+        respond("https://btc-e.com/api/3/ticker/btc_usd", getErrorJson());
+
+        CompletableFuture<Map<Pair, Tick>> actual = api.getTicks(BTC_USD);
+
+        assertTrue("Future must be completed exceptionally", actual.isCompletedExceptionally());
+        try {
+            actual.get();
+            fail("Exception expected");
+        } catch (ExecutionException e) {
+            assertThat("Invalid exception", e.getCause(), instanceOf(BTCEException.class));
+            assertEquals("Invalid exception message", "Some error", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void testInvalidArgumentFailsFuture() throws Exception {
+        CompletableFuture<Map<Pair, Tick>> actual = api.getTicks(BTC_USD, null);
+
+        try {
+            actual.get();
+            fail("Exception expected");
+        } catch (ExecutionException e) {
+            assertThat("Invalid exception", e.getCause(), instanceOf(NullPointerException.class));
+        }
+    }
+
+    @Test
+    public void testConnectionErrorRetried() throws Exception {
+        syncApi.setRetryPolicy(new RetryPolicy(2, 0, 0, 10_000));
+        CompletableFuture<Object> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new ConnectorException(new IOException()));
+        when(connector.get(eq("https://btc-e.com/api/3/fee/btc_usd"), eq(headers), any()))
+                .thenReturn(failed)
+                .thenAnswer(invocation -> handle(invocation.getArgument(2), getJson("v3/fee.json")));
+
+        Map<Pair, Double> actual = api.getFees(BTC_USD).get();
+
+        assertNotNull("Fee must be not null", actual.get(BTC_USD));
+        assertEquals("Call must be counted with 1 retry", 1, syncApi.getRetryStats().getCalls(1));
+    }
+
+    private void respond(String url, String json) {
+        when(connector.get(eq(url), eq(headers), any())).thenAnswer(invocation -> handle(invocation.getArgument(2), json));
+    }
+
+    private static <T> CompletableFuture<T> handle(ResponseHandler<T> handler, String json) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            future.complete(handler.handle(new ByteArrayInputStream(json.getBytes(UTF_8))));
+        } catch (IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+}
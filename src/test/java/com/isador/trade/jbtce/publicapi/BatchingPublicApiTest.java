@@ -0,0 +1,146 @@
+package com.isador.trade.jbtce.publicapi;
+
+import com.isador.trade.jbtce.BTCEException;
+import com.isador.trade.jbtce.Connector;
+import com.isador.trade.jbtce.ServerProvider;
+import com.isador.trade.jbtce.TestUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static com.isador.trade.jbtce.TestUtils.getErrorJson;
+import static com.isador.trade.jbtce.constants.Pair.BTC_RUR;
+import static com.isador.trade.jbtce.constants.Pair.BTC_USD;
+import static org.junit.Assert.*;
+import static org.mockito.Answers.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.*;
+
+/**
+ * Created by isador
+ * on 18.06.17
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class BatchingPublicApiTest {
+
+    // streaming default methods delegate to stubbed string methods
+    @Mock(answer = CALLS_REAL_METHODS)
+    private Connector connector;
+
+    @Mock
+    private ServerProvider serverProvider;
+
+    private BatchingPublicApi api;
+    private Map<String, String> headers = Collections.singletonMap("User-Agent", "jBTCEv2");
+
+    @Before
+    public void setUp() throws Exception {
+        when(serverProvider.getCurrentServer()).thenReturn("https://btc-e.com/");
+        api = new BatchingPublicApi(new PublicApiV3(serverProvider, connector), 50, 10, Runnable::run);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        api.close();
+    }
+
+    @Test
+    public void testTicksBatched() throws Exception {
+        when(connector.get("https://btc-e.com/api/3/ticker/btc_usd-btc_rur", headers)).thenReturn(TestUtils.getJson("v3/ticker.json"));
+
+        CompletableFuture<Tick> usd = api.getTick(BTC_USD);
+        CompletableFuture<Tick> rur = api.getTick(BTC_RUR);
+        CompletableFuture<Tick> usdAgain = api.getTick(BTC_USD);
+
+        assertEquals("Invalid tick", 1424, usd.get().getBuy(), 0.0001);
+        assertEquals("Invalid tick", 78614.60518, rur.get().getBuy(), 0.0001);
+        assertSame("Same pair must share result", usd.get(), usdAgain.get());
+        assertEquals("Requests count doesn't match", 3, api.getRequests());
+        assertEquals("One combined call expected", 1, api.getBatches());
+        verify(connector).get("https://btc-e.com/api/3/ticker/btc_usd-btc_rur", headers);
+    }
+
+    @Test
+    public void testMaxBatchSize() throws Exception {
+        api.close();
+        api = new BatchingPublicApi(new PublicApiV3(serverProvider, connector), 60_000, 2, Runnable::run);
+        when(connector.get("https://btc-e.com/api/3/depth/btc_usd-btc_rur?limit=15", headers)).thenReturn(TestUtils.getJson("v3/depth.json"));
+
+        CompletableFuture<Depth> usd = api.getDepth(15, BTC_USD);
+        CompletableFuture<Depth> rur = api.getDepth(15, BTC_RUR);
+
+        assertTrue("Full batch must be sent without waiting", usd.isDone());
+        assertNotNull("Depth must be not null", usd.get());
+        assertNotNull("Depth must be not null", rur.get());
+    }
+
+    @Test
+    public void testSamePairWaitersGetOwnCopies() throws Exception {
+        when(connector.get("https://btc-e.com/api/3/depth/btc_usd-btc_rur?limit=15", headers)).thenReturn(TestUtils.getJson("v3/depth.json"));
+        when(connector.get("https://btc-e.com/api/3/trades/btc_usd-btc_rur?limit=15", headers)).thenReturn(TestUtils.getJson("v3/trades.json"));
+
+        CompletableFuture<Depth> depth = api.getDepth(15, BTC_USD);
+        CompletableFuture<Depth> depthAgain = api.getDepth(15, BTC_USD);
+        api.getDepth(15, BTC_RUR);
+        CompletableFuture<List<Trade>> trades = api.getTrades(15, BTC_USD);
+        CompletableFuture<List<Trade>> tradesAgain = api.getTrades(15, BTC_USD);
+        api.getTrades(15, BTC_RUR);
+
+        assertNotSame("Waiters must not share depth", depth.get(), depthAgain.get());
+        assertNotSame("Waiters must not share orders", depth.get().getAsks(), depthAgain.get().getAsks());
+        assertArrayEquals("Copies must be equal", depth.get().getAsks(), depthAgain.get().getAsks());
+        assertNotSame("Waiters must not share trades", trades.get(), tradesAgain.get());
+        assertEquals("Copies must be equal", trades.get(), tradesAgain.get());
+        assertEquals("Two combined calls expected", 2, api.getBatches());
+    }
+
+    @Test
+    public void testDifferentLimitsNotBatched() throws Exception {
+        when(connector.get("https://btc-e.com/api/3/depth/btc_usd-btc_rur?limit=15", headers)).thenReturn(TestUtils.getJson("v3/depth.json"));
+        when(connector.get("https://btc-e.com/api/3/depth/btc_usd", headers)).thenReturn(TestUtils.getJson("v3/depth.json"));
+
+        api.getDepth(15, BTC_USD);
+        api.getDepth(15, BTC_RUR);
+        api.getDepth(null, BTC_USD).get();
+
+        assertEquals("Two combined calls expected", 2, api.getBatches());
+    }
+
+    @Test
+    public void testErrorShared() throws Exception {
+        when(connector.get("https://btc-e.com/api/3/ticker/btc_usd-btc_rur", headers)).thenReturn(getErrorJson());
+
+        CompletableFuture<Tick> usd = api.getTick(BTC_USD);
+        CompletableFuture<Tick> rur = api.getTick(BTC_RUR);
+
+        for (CompletableFuture<Tick> tick : new CompletableFuture[]{usd, rur}) {
+            try {
+                tick.get();
+                fail("Error must be passed to all callers");
+            } catch (ExecutionException e) {
+                assertTrue("Invalid exception", e.getCause() instanceof BTCEException);
+                assertEquals("Invalid message", "Some error", e.getCause().getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testClosed() {
+        api.close();
+
+        assertTrue("Closed api must reject requests", api.getTick(BTC_USD).isCompletedExceptionally());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidBatchSize() {
+        new BatchingPublicApi(new PublicApiV3(serverProvider, connector), 10, 0, Runnable::run);
+    }
+}
@@ -0,0 +1,132 @@
+package com.isador.trade.jbtce.publicapi;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableMap;
+import com.isador.trade.jbtce.BTCEException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.isador.trade.jbtce.constants.Pair.BTC_RUR;
+import static com.isador.trade.jbtce.constants.Pair.BTC_USD;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Created by isador
+ * on 29.06.17
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class CachingPublicApiTest {
+
+    private static final long TTL = 1000;
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Mock
+    private PublicApiV3 api;
+
+    private final BTCEInfo first = new BTCEInfo(LocalDateTime.of(2017, 6, 29, 0, 0), Collections.emptyList());
+    private final BTCEInfo second = new BTCEInfo(LocalDateTime.of(2017, 6, 30, 0, 0), Collections.emptyList());
+    private final Queue<Runnable> refreshes = new ArrayDeque<>();
+    private final AtomicLong nanos = new AtomicLong();
+    private CachingPublicApi cache;
+
+    @Before
+    public void setUp() {
+        Ticker ticker = new Ticker() {
+            @Override
+            public long read() {
+                return nanos.get();
+            }
+        };
+        cache = new CachingPublicApi(api, TTL, refreshes::add, ticker);
+    }
+
+    @Test
+    public void testInfoCached() {
+        when(api.getInfo()).thenReturn(first);
+
+        assertSame("Invalid info", first, cache.getInfo());
+        assertSame("Invalid cached info", first, cache.getInfo());
+
+        verify(api, times(1)).getInfo();
+        assertEquals("Invalid hits", 1, cache.getInfoStats().hitCount());
+        assertEquals("Invalid misses", 1, cache.getInfoStats().missCount());
+    }
+
+    @Test
+    public void testExpiredInfoRefreshedInBackground() {
+        when(api.getInfo()).thenReturn(first, second);
+        cache.getInfo();
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(TTL + 1));
+
+        assertSame("Caller must get previous info while refreshing", first, cache.getInfo());
+        assertEquals("Refresh must be scheduled", 1, refreshes.size());
+
+        refreshes.poll().run();
+
+        assertSame("Refreshed info expected", second, cache.getInfo());
+        verify(api, times(2)).getInfo();
+    }
+
+    @Test
+    public void testFailedRefreshKeepsPreviousInfo() {
+        when(api.getInfo()).thenReturn(first).thenThrow(new BTCEException("Some error"));
+        cache.getInfo();
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(TTL + 1));
+
+        cache.getInfo();
+        refreshes.poll().run();
+
+        assertSame("Previous info must be kept", first, cache.getInfo());
+    }
+
+    @Test
+    public void testInvalidateInfo() {
+        when(api.getInfo()).thenReturn(first, second);
+        cache.getInfo();
+
+        cache.invalidateInfo();
+
+        assertSame("Info must be loaded again", second, cache.getInfo());
+    }
+
+    @Test
+    public void testFeesLoadedInOneCall() {
+        when(api.getFees(BTC_USD, BTC_RUR)).thenReturn(ImmutableMap.of(BTC_USD, 0.2, BTC_RUR, 0.1));
+
+        assertEquals("Invalid fees", ImmutableMap.of(BTC_USD, 0.2, BTC_RUR, 0.1), cache.getFees(BTC_USD, BTC_RUR));
+        assertEquals("Invalid cached fee", Collections.singletonMap(BTC_USD, 0.2), cache.getFees(BTC_USD));
+
+        verify(api, times(1)).getFees(BTC_USD, BTC_RUR);
+        verifyNoMoreInteractions(api);
+        assertEquals("Invalid hits", 1, cache.getFeesStats().hitCount());
+    }
+
+    @Test
+    public void testLoadError() {
+        thrown.expect(BTCEException.class);
+        thrown.expectMessage("Some error");
+        when(api.getInfo()).thenThrow(new BTCEException("Some error"));
+
+        cache.getInfo();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCreateInvalidTtl() {
+        new CachingPublicApi(api, 0, Runnable::run);
+    }
+}
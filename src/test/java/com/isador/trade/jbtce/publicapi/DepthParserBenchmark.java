@@ -0,0 +1,85 @@
+package com.isador.trade.jbtce.publicapi;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.isador.trade.jbtce.TestUtils;
+import com.isador.trade.jbtce.constants.Pair;
+import com.isador.trade.jbtce.publicapi.Depth.SimpleOrder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Depth parsing: json tree vs streaming parser vs order book scanner.
+ * Not a unit test, run with main method. Add {@code -prof gc} to compare allocation rate.
+ * <p>
+ * Created by isador
+ * on 16.06.17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class DepthParserBenchmark {
+
+    private static final Pair[] PAIRS = {Pair.BTC_USD, Pair.BTC_RUR};
+
+    private String response;
+    private Gson gson;
+    private DepthStreamParser parser;
+    private byte[] responseBytes;
+    private OrderBookScanner scanner;
+    private Map<Pair, OrderBook> books;
+
+    @Setup
+    public void setUp() {
+        response = TestUtils.getJson("v3/depth.json");
+        gson = new GsonBuilder().registerTypeAdapter(SimpleOrder.class, new SimpleOrderDeserializer()).create();
+        parser = new DepthStreamParser(PAIRS);
+        responseBytes = response.getBytes(StandardCharsets.UTF_8);
+        scanner = new OrderBookScanner();
+        books = new EnumMap<>(Pair.class);
+        for (Pair pair : PAIRS) {
+            books.put(pair, new OrderBook());
+        }
+    }
+
+    @Benchmark
+    public Map<Pair, Depth> tree() {
+        JsonObject json = new JsonParser().parse(response).getAsJsonObject();
+        Map<Pair, Depth> depths = new EnumMap<>(Pair.class);
+        for (Pair pair : PAIRS) {
+            depths.put(pair, gson.fromJson(json.get(pair.getName()), Depth.class));
+        }
+        return depths;
+    }
+
+    @Benchmark
+    public Map<Pair, Depth> stream() throws IOException {
+        return parser.parse(new StringReader(response));
+    }
+
+    @Benchmark
+    public Map<Pair, OrderBook> books() throws IOException {
+        return scanner.scan(new ByteArrayInputStream(responseBytes), books);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DepthParserBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,101 @@
+package com.isador.trade.jbtce.publicapi;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.isador.trade.jbtce.BTCEException;
+import com.isador.trade.jbtce.constants.Pair;
+import com.isador.trade.jbtce.publicapi.Depth.SimpleOrder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static com.isador.trade.jbtce.TestUtils.getErrorJson;
+import static com.isador.trade.jbtce.TestUtils.getJson;
+import static com.isador.trade.jbtce.constants.Pair.BTC_RUR;
+import static com.isador.trade.jbtce.constants.Pair.BTC_USD;
+import static com.isador.trade.jbtce.publicapi.Asserts.assertDepthsEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created by isador
+ * on 16.06.17
+ */
+public class DepthStreamParserTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void testSameAsTree() throws IOException {
+        String response = getJson("v3/depth.json");
+        Gson gson = new GsonBuilder().registerTypeAdapter(SimpleOrder.class, new SimpleOrderDeserializer()).create();
+        JsonObject json = new JsonParser().parse(response).getAsJsonObject();
+
+        Map<Pair, Depth> actual = new DepthStreamParser(BTC_USD, BTC_RUR).handle(new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals("Actual map size doesn't match", 2, actual.size());
+        for (Pair pair : actual.keySet()) {
+            assertDepthsEquals(gson.fromJson(json.get(pair.getName()), Depth.class), actual.get(pair));
+        }
+    }
+
+    @Test
+    public void testSkipNotRequested() throws IOException {
+        Map<Pair, Depth> actual = new DepthStreamParser(BTC_RUR).parse(new StringReader(getJson("v3/depth.json")));
+
+        assertEquals("Actual map size doesn't match", 1, actual.size());
+        assertTrue("Requested depth missed", actual.containsKey(BTC_RUR));
+    }
+
+    @Test
+    public void testNullOrders() throws IOException {
+        Depth depth = new DepthStreamParser(BTC_USD).parse(new StringReader("{\"btc_usd\":{\"asks\":null,\"bids\":[[1.5,2,3]]}}")).get(BTC_USD);
+
+        assertNull("Asks must be null", depth.getAsks());
+        assertEquals("Invalid bids count", 1, depth.getBids().length);
+        assertEquals("Invalid bid price", 1.5, depth.getBids()[0].getPrice(), 0);
+        assertEquals("Invalid bid amount", 2, depth.getBids()[0].getAmount(), 0);
+    }
+
+    @Test
+    public void testPairMissed() throws IOException {
+        thrown.expect(BTCEException.class);
+        thrown.expectMessage("Invalid server response. \"btc_rur\" field missed.");
+
+        new DepthStreamParser(BTC_USD, BTC_RUR).parse(new StringReader("{\"btc_usd\":{\"asks\":[],\"bids\":[]}}"));
+    }
+
+    @Test
+    public void testError() throws IOException {
+        thrown.expect(BTCEException.class);
+        thrown.expectMessage("Some error");
+
+        new DepthStreamParser(BTC_USD).parse(new StringReader(getErrorJson()));
+    }
+
+    @Test
+    public void testEmptyResponse() throws IOException {
+        thrown.expect(BTCEException.class);
+        thrown.expectMessage("Invalid server response. Null or empty response");
+
+        new DepthStreamParser(BTC_USD).parse(new StringReader(""));
+    }
+
+    @Test
+    public void testNotJsonObject() throws IOException {
+        thrown.expect(BTCEException.class);
+        thrown.expectMessage("Not a JSON Object");
+
+        new DepthStreamParser(BTC_USD).parse(new StringReader("[1, 2]"));
+    }
+}
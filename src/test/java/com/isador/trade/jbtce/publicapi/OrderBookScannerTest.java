@@ -0,0 +1,172 @@
+package com.isador.trade.jbtce.publicapi;
+
+import com.isador.trade.jbtce.BTCEException;
+import com.isador.trade.jbtce.constants.Pair;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static com.isador.trade.jbtce.TestUtils.getErrorJson;
+import static com.isador.trade.jbtce.TestUtils.getJson;
+import static com.isador.trade.jbtce.constants.Pair.BTC_RUR;
+import static com.isador.trade.jbtce.constants.Pair.BTC_USD;
+import static com.isador.trade.jbtce.publicapi.Asserts.assertDepthsEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Created by isador
+ * on 18.06.17
+ */
+public class OrderBookScannerTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private OrderBookScanner scanner;
+    private Map<Pair, OrderBook> books;
+
+    @Before
+    public void setUp() {
+        scanner = new OrderBookScanner();
+        books = new EnumMap<>(Pair.class);
+        books.put(BTC_USD, new OrderBook());
+    }
+
+    @Test
+    public void testSameAsDepth() throws IOException {
+        books.put(BTC_RUR, new OrderBook());
+        Map<Pair, Depth> expected = new DepthStreamParser(BTC_USD, BTC_RUR).parse(new StringReader(getJson("v3/depth.json")));
+
+        scanner.scan(stream(getJson("v3/depth.json")), books);
+
+        assertEquals("Actual map size doesn't match", 2, books.size());
+        books.forEach((pair, book) -> assertDepthsEquals(expected.get(pair), book.toDepth()));
+    }
+
+    @Test
+    public void testRefilled() throws IOException {
+        OrderBook book = books.get(BTC_USD);
+
+        scanner.scan(stream(getJson("v3/depth.json")), books);
+        scanner.scan(stream("{\"btc_usd\":{\"asks\":[[2,1]],\"bids\":[]}}"), books);
+
+        assertSame("Book must be reused", book, books.get(BTC_USD));
+        assertEquals("Invalid asks count", 1, book.getAsks().size());
+        assertEquals("Invalid best ask", 2, book.bestAsk(), 0);
+        assertTrue("Bids must be empty", book.getBids().isEmpty());
+    }
+
+    @Test
+    public void testSkipUnknown() throws IOException {
+        scanner.scan(stream("{\"ltc_usd\":{\"asks\":[[1,2]]},\"x\":[{\"y\":\"]}\\\"\"},null,true],"
+                + "\"btc_usd\":{\"asks\":null,\"z\":{},\"bids\":[[1.5,2,[3]]]}}"), books);
+
+        OrderBook book = books.get(BTC_USD);
+        assertTrue("Asks must be empty", book.getAsks().isEmpty());
+        assertEquals("Invalid bids count", 1, book.getBids().size());
+        assertEquals("Invalid bid price", 1.5, book.bestBid(), 0);
+    }
+
+    @Test
+    public void testNumbers() throws IOException {
+        scanner.scan(stream("{\"btc_usd\":{\"asks\":[[-0.5,1e2],[\"78614.60518\",2.5E-3],"
+                + "[12345678901234567890,0.1234567890123456789],[1e-30,0]]}}"), books);
+
+        OrderBook.Side asks = books.get(BTC_USD).getAsks();
+        assertEquals("Invalid negative price", -0.5, asks.getPrice(0), 0);
+        assertEquals("Invalid exponent", 100, asks.getAmount(0), 0);
+        assertEquals("Invalid quoted price", 78614.60518, asks.getPrice(1), 0);
+        assertEquals("Invalid negative exponent", 2.5E-3, asks.getAmount(1), 0);
+        assertEquals("Invalid long price", 12345678901234567890d, asks.getPrice(2), 0);
+        assertEquals("Invalid long amount", 0.1234567890123456789, asks.getAmount(2), 0);
+        assertEquals("Invalid small price", 1e-30, asks.getPrice(3), 0);
+    }
+
+    @Test
+    public void testInvalidNumber() throws IOException {
+        thrown.expect(BTCEException.class);
+        thrown.expectMessage("Not a JSON Object");
+
+        scanner.scan(stream("{\"btc_usd\":{\"asks\":[[1.2.3,1]]}}"), books);
+    }
+
+    @Test
+    public void testPairMissed() throws IOException {
+        thrown.expect(BTCEException.class);
+        thrown.expectMessage("Invalid server response. \"btc_usd\" field missed.");
+
+        scanner.scan(stream("{\"btc_rur\":{\"asks\":[],\"bids\":[]}}"), books);
+    }
+
+    @Test
+    public void testError() throws IOException {
+        thrown.expect(BTCEException.class);
+        thrown.expectMessage("Some error");
+
+        scanner.scan(stream(getErrorJson()), books);
+    }
+
+    @Test
+    public void testErrorMissed() throws IOException {
+        thrown.expect(BTCEException.class);
+        thrown.expectMessage("Invalid server response. \"error\" field missed.");
+
+        scanner.scan(stream("{\"success\": 0}"), books);
+    }
+
+    @Test
+    public void testEmptyResponse() throws IOException {
+        thrown.expect(BTCEException.class);
+        thrown.expectMessage("Invalid server response. Null or empty response");
+
+        scanner.scan(stream(" "), books);
+    }
+
+    @Test
+    public void testTruncatedResponse() throws IOException {
+        thrown.expect(BTCEException.class);
+        thrown.expectMessage("Not a JSON Object");
+
+        scanner.scan(stream("{\"btc_usd\":{\"asks\":[[1,2],"), books);
+    }
+
+    @Test
+    public void testSteadyStateAllocation() throws IOException {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue("Allocation counter is not supported", threads instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        books.put(BTC_RUR, new OrderBook());
+        InputStream response = stream(getJson("v3/depth.json"));
+        for (int i = 0; i < 1000; i++) {
+            response.reset();
+            scanner.scan(response, books);
+        }
+
+        long id = Thread.currentThread().getId();
+        long before = allocations.getThreadAllocatedBytes(id);
+        for (int i = 0; i < 1000; i++) {
+            response.reset();
+            scanner.scan(response, books);
+        }
+        long perScan = (allocations.getThreadAllocatedBytes(id) - before) / 1000;
+
+        assertTrue("Scan must not allocate per order, allocated " + perScan + " bytes per scan", perScan < 64);
+    }
+
+    private static InputStream stream(String response) {
+        return new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,100 @@
+package com.isador.trade.jbtce.publicapi;
+
+import com.isador.trade.jbtce.publicapi.Depth.SimpleOrder;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created by isador
+ * on 17.06.17
+ */
+public class OrderBookTest {
+
+    private OrderBook book;
+
+    @Before
+    public void setUp() {
+        book = new OrderBook(1);
+        book.getAsks().add(10, 1);
+        book.getAsks().add(11, 2);
+        book.getAsks().add(12, 3);
+        book.getBids().add(9, 4);
+        book.getBids().add(8, 5);
+    }
+
+    @Test
+    public void testBest() {
+        assertEquals("Invalid best ask", 10, book.bestAsk(), 0);
+        assertEquals("Invalid best bid", 9, book.bestBid(), 0);
+    }
+
+    @Test
+    public void testEmpty() {
+        book.clear();
+
+        assertTrue("Asks must be empty", book.getAsks().isEmpty());
+        assertTrue("Best ask must be NaN", Double.isNaN(book.bestAsk()));
+        assertTrue("Best bid must be NaN", Double.isNaN(book.bestBid()));
+        assertEquals("Invalid volume", 0, book.getBids().getVolume(10), 0);
+    }
+
+    @Test
+    public void testLevels() {
+        assertEquals("Invalid asks count", 3, book.getAsks().size());
+        assertEquals("Invalid price", 11, book.getAsks().getPrice(1), 0);
+        assertEquals("Invalid amount", 5, book.getBids().getAmount(1), 0);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testLevelOutOfRange() {
+        book.getBids().getPrice(2);
+    }
+
+    @Test
+    public void testVolume() {
+        assertEquals("Invalid asks volume", 3, book.getAsks().getVolume(2), 0);
+        assertEquals("Invalid all asks volume", 6, book.getAsks().getVolume(100), 0);
+        assertEquals("Invalid asks volume to price", 3, book.getAsks().getVolumeTo(11.5), 0);
+        assertEquals("Invalid bids volume to price", 9, book.getBids().getVolumeTo(8), 0);
+        assertEquals("Invalid bids volume to high price", 0, book.getBids().getVolumeTo(10), 0);
+    }
+
+    @Test
+    public void testForEach() {
+        List<Double> prices = new ArrayList<>();
+        book.getBids().forEach((price, amount) -> prices.add(price));
+
+        assertEquals("Invalid iterated levels", 2, prices.size());
+        assertEquals("Invalid iteration order", 9, prices.get(0), 0);
+    }
+
+    @Test
+    public void testToDepth() {
+        Depth depth = book.toDepth();
+
+        assertArrayEquals("Invalid bids", new SimpleOrder[]{new SimpleOrder(9, 4), new SimpleOrder(8, 5)}, depth.getBids());
+        assertEquals("Invalid asks count", 3, depth.getAsks().length);
+    }
+
+    @Test
+    public void testCopyFrom() {
+        OrderBook copy = new OrderBook(0).copyFrom(book);
+        book.clear();
+
+        assertEquals("Invalid asks count", 3, copy.getAsks().size());
+        assertEquals("Invalid bids volume", 9, copy.getBids().getVolume(2), 0);
+        assertTrue("Copy must be refilled", copy.copyFrom(new Depth(null, new SimpleOrder[0])).getAsks().isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCreateInvalidCapacity() {
+        new OrderBook(-1);
+    }
+}
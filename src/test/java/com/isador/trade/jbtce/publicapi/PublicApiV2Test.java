@@ -27,6 +27,7 @@ import static com.isador.trade.jbtce.constants.Pair.BTC_USD;
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.junit.Assert.*;
+import static org.mockito.Answers.CALLS_REAL_METHODS;
 import static org.mockito.Mockito.when;
 
 /**
@@ -39,7 +40,8 @@ public class PublicApiV2Test {
     @Rule
     public ExpectedException thrown = ExpectedException.none();
 
-    @Mock
+    // streaming default methods delegate to stubbed string methods
+    @Mock(answer = CALLS_REAL_METHODS)
     private Connector connector;
 
     @Mock
@@ -12,7 +12,12 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Stream;
 
 import static com.isador.trade.jbtce.LocalDateTimeDeserializer.deserialize;
@@ -27,6 +32,9 @@ import static java.util.stream.Collectors.toMap;
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.Matchers.isIn;
 import static org.junit.Assert.*;
+import static org.mockito.Answers.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -39,7 +47,8 @@ public class PublicApiV3Test {
     @Rule
     public ExpectedException thrown = ExpectedException.none();
 
-    @Mock
+    // streaming default methods delegate to stubbed string methods
+    @Mock(answer = CALLS_REAL_METHODS)
     private Connector connector;
 
     @Mock
@@ -117,6 +126,39 @@ public class PublicApiV3Test {
         });
     }
 
+    @Test
+    public void testGetTradesAfter() {
+        when(connector.get("https://btc-e.com/api/3/trades/btc_usd-btc_rur?limit=15", headers)).thenReturn(TestUtils.getJson("v3/trades.json"));
+        Map<Pair, Long> lastTids = new EnumMap<>(Pair.class);
+        lastTids.put(BTC_USD, 99673977L);
+        lastTids.put(BTC_RUR, null);
+
+        Map<Pair, List<Trade>> actual = api.getTradesAfter(15, lastTids);
+
+        assertEquals("Only newer trades expected", 1, actual.get(BTC_USD).size());
+        assertTradesEquals(new Trade(deserialize(1493365526), 1304.679, 0.905, 99673985, BTC_USD.getSec(), BTC_USD.getPrim(), BUY), actual.get(BTC_USD).get(0));
+        assertEquals("All trades expected", 150, actual.get(BTC_RUR).size());
+        assertTradesEquals(new Trade(deserialize(1493365545), 72850, 0.00350568, 99673997, BTC_RUR.getSec(), BTC_RUR.getPrim(), SELL), actual.get(BTC_RUR).get(0));
+    }
+
+    @Test
+    public void testGetTradesAfterAllSeen() {
+        when(connector.get("https://btc-e.com/api/3/trades/btc_usd?limit=15", headers)).thenReturn(TestUtils.getJson("v3/trades.json"));
+
+        Map<Pair, List<Trade>> actual = api.getTradesAfter(15, Collections.singletonMap(BTC_USD, 99673985L));
+
+        assertTrue("No trades expected", actual.get(BTC_USD).isEmpty());
+    }
+
+    @Test
+    public void testGetTradesAfterError() {
+        thrown.expect(BTCEException.class);
+        thrown.expectMessage("Some error");
+        when(connector.get("https://btc-e.com/api/3/trades/btc_usd?limit=15", headers)).thenReturn(getErrorJson());
+
+        api.getTradesAfter(15, Collections.singletonMap(BTC_USD, 1L));
+    }
+
     @Test
     public void testGetTicksNullPairs() {
         thrown.expect(BTCEException.class);
@@ -169,6 +211,70 @@ public class PublicApiV3Test {
         });
     }
 
+    @Test
+    public void testGetTicksHedged() throws Exception {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            api.setHedging(new Hedging(executor, 0.95, 10));
+            when(serverProvider.getMirrors()).thenReturn(new String[]{"https://btc-e.nz/"});
+            when(connector.get("https://btc-e.com/api/3/ticker/btc_usd-btc_rur", headers)).thenAnswer(invocation -> {
+                Thread.sleep(5_000);
+                return TestUtils.getJson("v3/ticker.json");
+            });
+            when(connector.get("https://btc-e.nz/api/3/ticker/btc_usd-btc_rur", headers)).thenReturn(TestUtils.getJson("v3/ticker.json"));
+
+            Map<Pair, Tick> actual = api.getTicks(BTC_USD, BTC_RUR);
+
+            assertEquals("Actual map size doesn't match", 2, actual.size());
+            assertEquals("Hedge must win", 1, api.getHedging().getHedgesWon());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testHedgeSentToOtherServer() throws Exception {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            api.setHedging(new Hedging(executor, 0.95, 10));
+            // ranked mirrors may still list the server primary call uses
+            when(serverProvider.getMirrors()).thenReturn(new String[]{"https://btc-e.com/", "https://btc-e.nz/"});
+            when(connector.get("https://btc-e.com/api/3/ticker/btc_usd", headers)).thenAnswer(invocation -> {
+                Thread.sleep(5_000);
+                return TestUtils.getJson("v3/ticker.json");
+            });
+            when(connector.get("https://btc-e.nz/api/3/ticker/btc_usd", headers)).thenReturn(TestUtils.getJson("v3/ticker.json"));
+
+            api.getTicks(BTC_USD);
+
+            verify(connector).get("https://btc-e.nz/api/3/ticker/btc_usd", headers);
+            assertEquals("Hedge must win", 1, api.getHedging().getHedgesWon());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testHedgedCallKeepsCallerRetryPolicy() throws Exception {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            api.setHedging(new Hedging(executor, 0.95, 10_000));
+            when(serverProvider.getMirrors()).thenReturn(new String[]{"https://btc-e.nz/"});
+            when(connector.get("https://btc-e.com/api/3/ticker/btc_usd", headers)).thenThrow(new ConnectorException(new IOException()));
+
+            try {
+                api.withRetryPolicy(RetryPolicy.NO_RETRY, () -> api.getTicks(BTC_USD));
+                fail("Call must fail");
+            } catch (BTCEException e) {
+                assertEquals("Invalid message", "Request failed after 1 attempts", e.getMessage());
+            }
+
+            verify(connector, times(1)).get("https://btc-e.com/api/3/ticker/btc_usd", headers);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     @Test
     public void testGetDepthsNullPairs() {
         thrown.expect(BTCEException.class);
@@ -220,6 +326,61 @@ public class PublicApiV3Test {
         });
     }
 
+    @Test
+    public void testCoalescedDepthsCopiedPerCaller() throws Exception {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            api.setCoalescing(true);
+            CountDownLatch release = new CountDownLatch(1);
+            when(connector.get("https://btc-e.com/api/3/depth/btc_usd-btc_rur?limit=15", headers)).thenAnswer(invocation -> {
+                release.await();
+                return TestUtils.getJson("v3/depth.json");
+            });
+
+            Future<Map<Pair, Depth>> first = executor.submit(() -> api.getDepths(15, BTC_USD, BTC_RUR));
+            Future<Map<Pair, Depth>> second = executor.submit(() -> api.getDepths(15, BTC_USD, BTC_RUR));
+            while (api.getCoalescer().getCoalesced() < 1) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            Depth firstDepth = first.get().get(BTC_USD);
+            Depth secondDepth = second.get().get(BTC_USD);
+            assertNotSame("Callers must not share result map", first.get(), second.get());
+            assertNotSame("Callers must not share orders", firstDepth.getAsks(), secondDepth.getAsks());
+            assertDepthsEquals(firstDepth, secondDepth);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testGetOrderBooks() {
+        Map<Pair, Depth> expected = getExpectedDepths();
+        when(connector.get("https://btc-e.com/api/3/depth/btc_usd-btc_rur?limit=15", headers)).thenReturn(TestUtils.getJson("v3/depth.json"));
+
+        Map<Pair, OrderBook> actual = api.getOrderBooks(15, BTC_USD, BTC_RUR);
+
+        assertEquals("Actual map size doesn't match", 2, actual.size());
+        actual.forEach((pair, book) -> assertDepthsEquals(expected.get(pair), book.toDepth()));
+    }
+
+    @Test
+    public void testGetOrderBooksCallerOwned() {
+        Map<Pair, Depth> expected = getExpectedDepths();
+        when(connector.get("https://btc-e.com/api/3/depth/btc_usd-btc_rur?limit=15", headers)).thenReturn(TestUtils.getJson("v3/depth.json"));
+        Map<Pair, OrderBook> books = new EnumMap<>(Pair.class);
+        OrderBook book = new OrderBook();
+        books.put(BTC_USD, book);
+        books.put(BTC_RUR, new OrderBook());
+
+        api.getOrderBooks(15, books);
+        Map<Pair, OrderBook> actual = api.getOrderBooks(15, books);
+
+        assertSame("Books must be filled in place", books, actual);
+        assertSame("Book must be reused", book, actual.get(BTC_USD));
+        actual.forEach((pair, b) -> assertDepthsEquals(expected.get(pair), b.toDepth()));
+    }
 
     @Test
     public void testGetFeesNullPairs() {
@@ -0,0 +1,279 @@
+package com.isador.trade.jbtce.publicapi.feed;
+
+import com.isador.trade.jbtce.constants.Pair;
+import com.isador.trade.jbtce.publicapi.PublicApiV3;
+import com.isador.trade.jbtce.publicapi.Tick;
+import com.isador.trade.jbtce.publicapi.Trade;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.isador.trade.jbtce.constants.Pair.BTC_RUR;
+import static com.isador.trade.jbtce.constants.Pair.BTC_USD;
+import static com.isador.trade.jbtce.constants.TradeType.BUY;
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.when;
+
+/**
+ * Created by isador
+ * on 21.06.17
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class MarketDataPollerTest {
+
+    @Mock
+    private PublicApiV3 api;
+
+    private MarketDataPoller poller;
+    private final AtomicLong updated = new AtomicLong(1000);
+    private volatile boolean changing;
+    private final List<Set<Pair>> tickCalls = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setUp() {
+        when(api.getTicks(any())).thenAnswer(invocation -> {
+            Map<Pair, Tick> ticks = new EnumMap<>(Pair.class);
+            if (changing) {
+                updated.incrementAndGet();
+            }
+            for (Object pair : invocation.getArguments()) {
+                ticks.put((Pair) pair, tick(updated.get()));
+            }
+            tickCalls.add(ticks.keySet());
+            return ticks;
+        });
+        poller = new MarketDataPoller(api, 10, 80, 10, Runnable::run);
+    }
+
+    @After
+    public void tearDown() {
+        poller.close();
+    }
+
+    @Test
+    public void testPairsGrouped() throws Exception {
+        TestSubscriber<Tick> usd = new TestSubscriber<>(Long.MAX_VALUE);
+        TestSubscriber<Tick> rur = new TestSubscriber<>(Long.MAX_VALUE);
+        poller.subscribeTicks(BTC_USD, usd);
+        poller.subscribeTicks(BTC_RUR, rur);
+
+        assertNotNull("Tick expected", usd.items.poll(1, TimeUnit.SECONDS));
+        assertNotNull("Tick expected", rur.items.poll(1, TimeUnit.SECONDS));
+        Thread.sleep(300);
+
+        assertTrue("Pairs must be polled together", tickCalls.stream().anyMatch(pairs -> pairs.size() == 2));
+    }
+
+    @Test
+    public void testUnchangedNotDelivered() throws Exception {
+        TestSubscriber<Tick> subscriber = new TestSubscriber<>(Long.MAX_VALUE);
+        poller.subscribeTicks(BTC_USD, subscriber);
+
+        assertNotNull("Tick expected", subscriber.items.poll(1, TimeUnit.SECONDS));
+        assertNull("Unchanged tick must not be delivered", subscriber.items.poll(200, TimeUnit.MILLISECONDS));
+
+        updated.incrementAndGet();
+        assertEquals("Changed tick expected", tick(updated.get()), subscriber.items.poll(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testIntervalAdapts() throws Exception {
+        poller.subscribeTicks(BTC_USD, new TestSubscriber<>(Long.MAX_VALUE));
+        Thread.sleep(500);
+
+        assertEquals("Unchanged pair must be polled rarely", 80, poller.getInterval(FeedType.TICKER, BTC_USD));
+
+        changing = true;
+        Thread.sleep(500);
+        assertEquals("Changing pair must be polled often", 10, poller.getInterval(FeedType.TICKER, BTC_USD));
+    }
+
+    @Test
+    public void testConflated() throws Exception {
+        TestSubscriber<Tick> subscriber = new TestSubscriber<>(0);
+        poller.subscribeTicks(BTC_USD, subscriber);
+        for (int i = 0; i < 5; i++) {
+            updated.incrementAndGet();
+            Thread.sleep(50);
+        }
+        assertNull("Nothing must be delivered without demand", subscriber.items.poll(50, TimeUnit.MILLISECONDS));
+
+        subscriber.subscription.request(1);
+
+        assertEquals("Latest tick expected", tick(updated.get()), subscriber.items.poll(1, TimeUnit.SECONDS));
+        assertNull("Only one tick expected", subscriber.items.poll(50, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testTrades() throws Exception {
+        List<Trade> server = serveTrades();
+        server.add(trade(1));
+        TestSubscriber<Trade> subscriber = new TestSubscriber<>(Long.MAX_VALUE);
+        poller.subscribeTrades(BTC_USD, subscriber);
+        Thread.sleep(100);
+
+        server.add(trade(2));
+        server.add(trade(3));
+
+        assertEquals("Invalid first trade", 2, subscriber.items.poll(1, TimeUnit.SECONDS).getId());
+        assertEquals("Invalid second trade", 3, subscriber.items.poll(1, TimeUnit.SECONDS).getId());
+        assertNull("Trade must be delivered once", subscriber.items.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testTradesGapCounted() throws Exception {
+        List<Trade> server = serveTrades();
+        TestSubscriber<Trade> subscriber = new TestSubscriber<>(Long.MAX_VALUE);
+        poller.subscribeTrades(BTC_USD, subscriber);
+        Thread.sleep(100);
+
+        List<Trade> burst = new ArrayList<>();
+        for (int tid = 1; tid <= TradeFeed.DEFAULT_MIN_LIMIT * 2; tid++) {
+            burst.add(trade(tid));
+        }
+        server.addAll(burst);
+        Thread.sleep(300);
+
+        assertEquals("Poll cut by limit must be counted as gap", 1, poller.getTradeGaps());
+        assertEquals("Invalid first delivered trade", TradeFeed.DEFAULT_MIN_LIMIT + 1,
+                subscriber.items.poll(1, TimeUnit.SECONDS).getId());
+    }
+
+    @Test
+    public void testNoSignalsBeforeOnSubscribe() throws Exception {
+        List<String> signals = new CopyOnWriteArrayList<>();
+        poller.subscribeTicks(BTC_USD, new TestSubscriber<Tick>(Long.MAX_VALUE) {
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                super.onSubscribe(subscription);
+                poller.close();
+                signals.add("subscribe");
+            }
+
+            @Override
+            public void onComplete() {
+                signals.add("complete");
+                super.onComplete();
+            }
+        });
+
+        assertEquals("Complete must follow subscribe", Arrays.asList("subscribe", "complete"), signals);
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        TestSubscriber<Tick> subscriber = new TestSubscriber<>(Long.MAX_VALUE);
+        poller.subscribeTicks(BTC_USD, subscriber);
+        assertNotNull("Tick expected", subscriber.items.poll(1, TimeUnit.SECONDS));
+
+        subscriber.subscription.cancel();
+
+        assertEquals("Pair must not be polled", -1, poller.getInterval(FeedType.TICKER, BTC_USD));
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        TestSubscriber<Tick> subscriber = new TestSubscriber<>(Long.MAX_VALUE);
+        poller.subscribeTicks(BTC_USD, subscriber);
+
+        poller.close();
+
+        assertTrue("Subscriber must be completed", subscriber.completed.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testInvalidRequest() throws Exception {
+        TestSubscriber<Tick> subscriber = new TestSubscriber<>(0);
+        poller.subscribeTicks(BTC_USD, subscriber);
+
+        subscriber.subscription.request(0);
+
+        assertTrue("Subscriber must fail", subscriber.completed.await(1, TimeUnit.SECONDS));
+        assertTrue("Invalid error", subscriber.error instanceof IllegalArgumentException);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCreateInvalidIntervals() {
+        new MarketDataPoller(api, 100, 10, 1, Runnable::run);
+    }
+
+    /**
+     * Server keeps trades newest first and cuts them by limit
+     */
+    @SuppressWarnings("unchecked")
+    private List<Trade> serveTrades() {
+        List<Trade> server = new CopyOnWriteArrayList<>();
+        when(api.getTradesAfter(anyInt(), anyMap())).thenAnswer(invocation -> {
+            int limit = invocation.getArgument(0);
+            Long lastTid = ((Map<Pair, Long>) invocation.getArgument(1)).get(BTC_USD);
+            List<Trade> trades = new ArrayList<>();
+            for (int i = server.size() - 1; i >= 0 && trades.size() < limit
+                    && (lastTid == null || server.get(i).getId() > lastTid); i--) {
+                trades.add(server.get(i));
+            }
+            return Collections.singletonMap(BTC_USD, trades);
+        });
+        return server;
+    }
+
+    private static Tick tick(long updated) {
+        LocalDateTime time = LocalDateTime.of(2017, 6, 21, 0, 0).plusSeconds(updated);
+        return new Tick(1, 1, 1, 1, 1, 1, time, time, 1, 1);
+    }
+
+    private static Trade trade(long tid) {
+        return new Trade(LocalDateTime.now(), 1, 1, tid, BTC_USD.getSec(), BTC_USD.getPrim(), BUY);
+    }
+
+    private static class TestSubscriber<T> implements Subscriber<T> {
+
+        private final long initialRequest;
+        private final BlockingQueue<T> items = new LinkedBlockingQueue<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile Subscription subscription;
+        private volatile Throwable error;
+
+        TestSubscriber(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            if (initialRequest > 0) {
+                subscription.request(initialRequest);
+            }
+        }
+
+        @Override
+        public void onNext(T item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            completed.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+    }
+}
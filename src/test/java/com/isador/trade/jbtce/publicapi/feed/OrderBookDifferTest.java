@@ -0,0 +1,117 @@
+package com.isador.trade.jbtce.publicapi.feed;
+
+import com.isador.trade.jbtce.publicapi.Depth;
+import com.isador.trade.jbtce.publicapi.Depth.SimpleOrder;
+import com.isador.trade.jbtce.publicapi.OrderBook;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.isador.trade.jbtce.constants.Pair.BTC_RUR;
+import static com.isador.trade.jbtce.constants.Pair.BTC_USD;
+import static com.isador.trade.jbtce.constants.TradeType.BUY;
+import static com.isador.trade.jbtce.constants.TradeType.SELL;
+import static com.isador.trade.jbtce.publicapi.feed.OrderBookDiff.Change.DELETE;
+import static com.isador.trade.jbtce.publicapi.feed.OrderBookDiff.Change.INSERT;
+import static com.isador.trade.jbtce.publicapi.feed.OrderBookDiff.Change.UPDATE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created by isador
+ * on 19.06.17
+ */
+public class OrderBookDifferTest {
+
+    private OrderBookDiffer differ;
+
+    @Before
+    public void setUp() {
+        differ = new OrderBookDiffer();
+        differ.update(BTC_USD, depth(orders(10, 1, 11, 2, 12, 3), orders(9, 4, 8, 5)));
+    }
+
+    @Test
+    public void testFirstSnapshot() {
+        OrderBookDiff diff = differ.update(BTC_RUR, depth(orders(10, 1), orders(9, 4, 8, 5)));
+
+        assertEquals("Invalid changes count", 3, diff.size());
+        assertEquals("Invalid pair", BTC_RUR, diff.getPair());
+        for (int i = 0; i < diff.size(); i++) {
+            assertEquals("All levels must be inserted", INSERT, diff.getChange(i));
+        }
+        assertEquals("Asks must go first", SELL, diff.getSide(0));
+        assertEquals("Invalid bid price", 8, diff.getPrice(2), 0);
+    }
+
+    @Test
+    public void testNotChanged() {
+        OrderBookDiff diff = differ.update(BTC_USD, depth(orders(10, 1, 11, 2, 12, 3), orders(9, 4, 8, 5)));
+
+        assertTrue("Diff must be empty", diff.isEmpty());
+    }
+
+    @Test
+    public void testChanges() {
+        OrderBookDiff diff = differ.update(BTC_USD, depth(orders(10.5, 1, 11, 2.5, 12, 3), orders(9, 4, 8.5, 1)));
+
+        assertEquals("Invalid changes count", 5, diff.size());
+        assertChange(diff, 0, DELETE, SELL, 10, 0);
+        assertChange(diff, 1, INSERT, SELL, 10.5, 1);
+        assertChange(diff, 2, UPDATE, SELL, 11, 2.5);
+        assertChange(diff, 3, INSERT, BUY, 8.5, 1);
+        assertChange(diff, 4, DELETE, BUY, 8, 0);
+    }
+
+    @Test
+    public void testEmptySide() {
+        OrderBookDiff diff = differ.update(BTC_USD, depth(null, orders(9, 4, 8, 5)));
+
+        assertEquals("Invalid changes count", 3, diff.size());
+        for (int i = 0; i < diff.size(); i++) {
+            assertChange(diff, i, DELETE, SELL, 10 + i, 0);
+        }
+    }
+
+    @Test
+    public void testSnapshot() {
+        OrderBook book = new OrderBook();
+        book.copyFrom(depth(orders(1, 1), orders()));
+        differ.update(BTC_USD, book);
+
+        OrderBook snapshot = differ.getSnapshot(BTC_USD);
+        book.copyFrom(depth(orders(), orders()));
+
+        assertEquals("Snapshot must be a copy", 1, snapshot.getAsks().size());
+        assertNull("Unknown pair must have no snapshot", differ.getSnapshot(BTC_RUR));
+    }
+
+    @Test
+    public void testReset() {
+        differ.reset(BTC_USD);
+
+        OrderBookDiff diff = differ.update(BTC_USD, depth(orders(10, 1), orders()));
+
+        assertEquals("Invalid changes count", 1, diff.size());
+        assertEquals("Level must be inserted", INSERT, diff.getChange(0));
+    }
+
+    private static void assertChange(OrderBookDiff diff, int index, OrderBookDiff.Change change, Object side, double price, double amount) {
+        assertEquals("Invalid change type", change, diff.getChange(index));
+        assertEquals("Invalid side", side, diff.getSide(index));
+        assertEquals("Invalid price", price, diff.getPrice(index), 0);
+        assertEquals("Invalid amount", amount, diff.getAmount(index), 0);
+    }
+
+    private static Depth depth(SimpleOrder[] asks, SimpleOrder[] bids) {
+        return new Depth(asks, bids);
+    }
+
+    private static SimpleOrder[] orders(double... levels) {
+        SimpleOrder[] orders = new SimpleOrder[levels.length / 2];
+        for (int i = 0; i < orders.length; i++) {
+            orders[i] = new SimpleOrder(levels[2 * i], levels[2 * i + 1]);
+        }
+        return orders;
+    }
+}
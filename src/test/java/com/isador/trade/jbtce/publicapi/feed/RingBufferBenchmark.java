@@ -0,0 +1,174 @@
+package com.isador.trade.jbtce.publicapi.feed;
+
+import com.isador.trade.jbtce.publicapi.Tick;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import static com.isador.trade.jbtce.constants.Pair.BTC_USD;
+
+/**
+ * Market data fan-out to several consumers: ring buffer with reused slots vs blocking queue per consumer with
+ * event allocated per update.
+ * Not a unit test, run with main method. Add {@code -prof gc} to compare allocation rate.
+ * <p>
+ * Created by isador
+ * on 22.06.17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class RingBufferBenchmark {
+
+    private static final int CONSUMERS = 4;
+    private static final int EVENTS = 10_000;
+    private static final int CAPACITY = 1024;
+
+    private Tick tick;
+    private Consumer<MarketEvent> translator;
+    private RingBuffer<MarketEvent> ring;
+    private List<EventProcessor<MarketEvent>> processors;
+    private List<Thread> threads;
+    private AtomicLong[] consumed;
+    private long published;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime time = LocalDateTime.now();
+        tick = new Tick(1, 1, 1, 1, 1, 1, time, time, 1, 1);
+        translator = event -> event.setTick(BTC_USD, tick);
+        consumed = new AtomicLong[CONSUMERS];
+        threads = new ArrayList<>();
+
+        ring = new RingBuffer<>(CAPACITY, MarketEvent::new);
+        processors = new ArrayList<>();
+        for (int i = 0; i < CONSUMERS; i++) {
+            AtomicLong counter = consumed[i] = new AtomicLong();
+            EventProcessor<MarketEvent> processor = ring.addHandler((event, sequence, endOfBatch) -> {
+                if (endOfBatch) {
+                    counter.lazySet(sequence + 1);
+                }
+            });
+            processors.add(processor);
+            start(processor);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        processors.forEach(EventProcessor::halt);
+        threads.forEach(Thread::interrupt);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void ringBuffer() {
+        for (int i = 0; i < EVENTS; i++) {
+            ring.publishEvent(translator);
+        }
+        published += EVENTS;
+        awaitConsumed(published);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void blockingQueues(QueueState state) throws InterruptedException {
+        for (int i = 0; i < EVENTS; i++) {
+            for (BlockingQueue<MarketEvent> queue : state.queues) {
+                MarketEvent event = new MarketEvent();
+                event.setTick(BTC_USD, tick);
+                queue.put(event);
+            }
+        }
+        state.published += EVENTS;
+        state.awaitConsumed();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RingBufferBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    private void start(Runnable consumer) {
+        Thread thread = new Thread(consumer, "jbtce-bench-consumer");
+        thread.setDaemon(true);
+        thread.start();
+        threads.add(thread);
+    }
+
+    private void awaitConsumed(long count) {
+        for (AtomicLong counter : consumed) {
+            while (counter.get() < count) {
+                LockSupport.parkNanos(1);
+            }
+        }
+    }
+
+    /**
+     * Queue per consumer, the way plain executor hand-off fans out updates
+     */
+    @State(Scope.Benchmark)
+    public static class QueueState {
+
+        private final List<BlockingQueue<MarketEvent>> queues = new ArrayList<>();
+        private final List<Thread> threads = new ArrayList<>();
+        private final AtomicLong[] consumed = new AtomicLong[CONSUMERS];
+        private long published;
+
+        @Setup
+        public void setUp() {
+            for (int i = 0; i < CONSUMERS; i++) {
+                BlockingQueue<MarketEvent> queue = new ArrayBlockingQueue<>(CAPACITY);
+                AtomicLong counter = consumed[i] = new AtomicLong();
+                queues.add(queue);
+                Thread thread = new Thread(() -> {
+                    try {
+                        while (true) {
+                            queue.take();
+                            counter.lazySet(counter.get() + 1);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }, "jbtce-bench-consumer");
+                thread.setDaemon(true);
+                thread.start();
+                threads.add(thread);
+            }
+        }
+
+        @TearDown
+        public void tearDown() throws InterruptedException {
+            threads.forEach(Thread::interrupt);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+
+        void awaitConsumed() {
+            for (AtomicLong counter : consumed) {
+                while (counter.get() < published) {
+                    LockSupport.parkNanos(1);
+                }
+            }
+        }
+    }
+}
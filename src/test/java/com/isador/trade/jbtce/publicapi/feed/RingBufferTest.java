@@ -0,0 +1,183 @@
+package com.isador.trade.jbtce.publicapi.feed;
+
+import com.isador.trade.jbtce.publicapi.Depth;
+import com.isador.trade.jbtce.publicapi.Depth.SimpleOrder;
+import com.isador.trade.jbtce.publicapi.Tick;
+import com.isador.trade.jbtce.publicapi.Trade;
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.isador.trade.jbtce.constants.Pair.BTC_USD;
+import static com.isador.trade.jbtce.constants.TradeType.SELL;
+import static org.junit.Assert.*;
+
+/**
+ * Created by isador
+ * on 22.06.17
+ */
+public class RingBufferTest {
+
+    private final List<Thread> threads = new ArrayList<>();
+    private final List<EventProcessor<?>> processors = new ArrayList<>();
+
+    @After
+    public void tearDown() throws Exception {
+        processors.forEach(EventProcessor::halt);
+        for (Thread thread : threads) {
+            thread.join(1000);
+        }
+    }
+
+    @Test
+    public void testEveryConsumerSeesEveryEventInOrder() throws Exception {
+        RingBuffer<AtomicLong> ring = new RingBuffer<>(8, AtomicLong::new);
+        int events = 1000;
+        List<List<Long>> received = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            List<Long> values = new ArrayList<>();
+            received.add(values);
+            start(ring.addHandler((event, sequence, endOfBatch) -> {
+                values.add(event.get());
+                if (values.size() == events) {
+                    done.countDown();
+                }
+            }));
+        }
+
+        for (long i = 0; i < events; i++) {
+            long value = i;
+            ring.publishEvent(event -> event.set(value));
+        }
+
+        assertTrue("Consumers must receive all events", done.await(5, TimeUnit.SECONDS));
+        for (List<Long> values : received) {
+            for (int i = 0; i < events; i++) {
+                assertEquals("Invalid event order", i, values.get(i).longValue());
+            }
+        }
+        assertEquals("Invalid cursor", events - 1, ring.getCursor());
+    }
+
+    @Test
+    public void testSlotsReused() {
+        RingBuffer<AtomicLong> ring = new RingBuffer<>(4, AtomicLong::new);
+
+        assertSame("Slot must be reused after wrap", ring.get(1), ring.get(5));
+        assertNotSame("Slots must differ", ring.get(1), ring.get(2));
+    }
+
+    @Test
+    public void testProducerWaitsForSlowConsumer() throws Exception {
+        RingBuffer<AtomicLong> ring = new RingBuffer<>(4, AtomicLong::new);
+        CountDownLatch release = new CountDownLatch(1);
+        EventProcessor<AtomicLong> processor = ring.addHandler((event, sequence, endOfBatch) -> await(release));
+        start(processor);
+
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 10; i++) {
+                ring.publishEvent(event -> event.incrementAndGet());
+            }
+        });
+        producer.start();
+        threads.add(producer);
+        Thread.sleep(200);
+
+        assertTrue("Producer must wait for consumer", producer.isAlive());
+        assertTrue("Producer must not wrap past consumer", ring.getCursor() <= processor.getSequence() + ring.getSize());
+
+        release.countDown();
+        producer.join(1000);
+        assertFalse("Producer must finish", producer.isAlive());
+    }
+
+    @Test
+    public void testHaltReleasesProducer() throws Exception {
+        RingBuffer<AtomicLong> ring = new RingBuffer<>(2, AtomicLong::new);
+        EventProcessor<AtomicLong> processor = ring.addHandler((event, sequence, endOfBatch) -> {
+        });
+
+        for (int i = 0; i < 2; i++) {
+            ring.publishEvent(event -> event.incrementAndGet());
+        }
+        processor.halt();
+        ring.publishEvent(event -> event.incrementAndGet());
+
+        assertEquals("Invalid cursor", 2, ring.getCursor());
+    }
+
+    @Test
+    public void testHandlerFailureSkipped() throws Exception {
+        RingBuffer<AtomicLong> ring = new RingBuffer<>(4, AtomicLong::new);
+        CountDownLatch done = new CountDownLatch(1);
+        start(ring.addHandler((event, sequence, endOfBatch) -> {
+            if (sequence == 0) {
+                throw new IllegalStateException("Some error");
+            }
+            done.countDown();
+        }));
+
+        ring.publishEvent(event -> event.set(1));
+        ring.publishEvent(event -> event.set(2));
+
+        assertTrue("Next event must be processed", done.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCreateInvalidSize() {
+        new RingBuffer<>(6, AtomicLong::new);
+    }
+
+    @Test
+    public void testSinkPublishesEvents() throws Exception {
+        RingBuffer<MarketEvent> ring = new RingBuffer<>(4, MarketEvent::new);
+        MarketEventSink sink = new MarketEventSink(ring);
+        LocalDateTime time = LocalDateTime.of(2017, 6, 22, 0, 0);
+
+        sink.ticks(BTC_USD).onNext(new Tick(2, 3, 4, 5, 6, 7, time, time, 8, 9));
+        sink.trades(BTC_USD).onNext(new Trade(time, 10, 11, 12, BTC_USD.getSec(), BTC_USD.getPrim(), SELL));
+        sink.depths(BTC_USD).onNext(new Depth(new SimpleOrder[]{new SimpleOrder(101, 1)},
+                new SimpleOrder[]{new SimpleOrder(99, 2)}));
+
+        MarketEvent tick = ring.get(0);
+        assertEquals("Invalid type", FeedType.TICKER, tick.getType());
+        assertEquals("Invalid pair", BTC_USD, tick.getPair());
+        assertEquals("Invalid last", 5, tick.getLast(), 0);
+        assertEquals("Invalid updated", time, tick.getUpdated());
+
+        MarketEvent trade = ring.get(1);
+        assertEquals("Invalid type", FeedType.TRADES, trade.getType());
+        assertEquals("Invalid tid", 12, trade.getTid());
+        assertEquals("Invalid price", 10, trade.getPrice(), 0);
+        assertEquals("Invalid side", SELL, trade.getSide());
+
+        MarketEvent depth = ring.get(2);
+        assertEquals("Invalid type", FeedType.DEPTH, depth.getType());
+        assertEquals("Invalid best ask", 101, depth.getOrderBook().bestAsk(), 0);
+        assertEquals("Invalid best bid", 99, depth.getOrderBook().bestBid(), 0);
+        assertEquals("Invalid cursor", 2, ring.getCursor());
+    }
+
+    private void start(EventProcessor<?> processor) {
+        processors.add(processor);
+        Thread thread = new Thread(processor);
+        thread.setDaemon(true);
+        thread.start();
+        threads.add(thread);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
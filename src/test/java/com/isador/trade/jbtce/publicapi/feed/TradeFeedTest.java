@@ -0,0 +1,147 @@
+package com.isador.trade.jbtce.publicapi.feed;
+
+import com.isador.trade.jbtce.constants.Pair;
+import com.isador.trade.jbtce.publicapi.PublicApiV3;
+import com.isador.trade.jbtce.publicapi.Trade;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.isador.trade.jbtce.constants.Pair.BTC_USD;
+import static com.isador.trade.jbtce.constants.TradeType.BUY;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.when;
+
+/**
+ * Created by isador
+ * on 20.06.17
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class TradeFeedTest {
+
+    @Mock
+    private PublicApiV3 api;
+
+    private List<Long> serverTids;
+    private List<Integer> limits;
+    private TradeFeed feed;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        serverTids = new ArrayList<>();
+        limits = new ArrayList<>();
+        // server keeps trades newest first and cuts them by limit
+        when(api.getTradesAfter(anyInt(), anyMap())).thenAnswer(invocation -> {
+            int limit = invocation.getArgument(0);
+            Long lastTid = ((Map<Pair, Long>) invocation.getArgument(1)).get(BTC_USD);
+            limits.add(limit);
+            List<Trade> trades = new ArrayList<>();
+            for (int i = serverTids.size() - 1; i >= 0 && trades.size() < limit; i--) {
+                if (lastTid != null && serverTids.get(i) <= lastTid) {
+                    break;
+                }
+                trades.add(trade(serverTids.get(i)));
+            }
+            Map<Pair, List<Trade>> result = new EnumMap<>(Pair.class);
+            result.put(BTC_USD, trades);
+            return result;
+        });
+        feed = new TradeFeed(api, 2, 100, BTC_USD);
+    }
+
+    @Test
+    public void testOnlyNewTrades() {
+        trades(1, 2);
+        assertEquals("Invalid first poll", 2, feed.poll().get(BTC_USD).size());
+
+        trades(3);
+        List<Trade> trades = feed.poll().get(BTC_USD);
+
+        assertEquals("Only new trade expected", 1, trades.size());
+        assertEquals("Invalid trade", 3, trades.get(0).getId());
+        assertEquals("Invalid last tid", 3, feed.getLastTid(BTC_USD).longValue());
+        assertTrue("No new trades expected", feed.poll().get(BTC_USD).isEmpty());
+    }
+
+    @Test
+    public void testOldestFirst() {
+        trades(1, 2, 3);
+        feed.poll();
+        trades(4, 5);
+
+        List<Trade> trades = feed.poll().get(BTC_USD);
+
+        assertEquals("Invalid first trade", 4, trades.get(0).getId());
+        assertEquals("Invalid second trade", 5, trades.get(1).getId());
+    }
+
+    @Test
+    public void testLimitGrowsOnGap() {
+        trades(1);
+        feed.poll();
+        trades(2, 3, 4, 5, 6, 7, 8, 9);
+
+        feed.poll();
+
+        assertEquals("Gap expected", 1, feed.getGaps());
+        assertTrue("Limit must grow", feed.getLimit() >= 4);
+    }
+
+    @Test
+    public void testLimitFollowsRate() {
+        trades(1);
+        feed.poll();
+        for (int i = 0; i < 10; i++) {
+            trades(10 * i + 2, 10 * i + 3, 10 * i + 4, 10 * i + 5, 10 * i + 6);
+            feed.poll();
+        }
+        int busy = feed.getLimit();
+        for (int i = 0; i < 20; i++) {
+            feed.poll();
+        }
+
+        assertEquals("Invalid busy limit", 10, busy);
+        assertEquals("Limit must shrink to min", 2, feed.getLimit());
+        assertEquals("Limit must be used in requests", Integer.valueOf(2), limits.get(limits.size() - 1));
+    }
+
+    @Test
+    public void testNoTradesSeen() {
+        assertNull("Last tid must be unknown", feed.getLastTid(BTC_USD));
+        assertTrue("No trades expected", feed.poll().get(BTC_USD).isEmpty());
+        assertNull("Last tid must be unknown", feed.getLastTid(BTC_USD));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCreateInvalidLimits() {
+        new TradeFeed(api, 10, 5, BTC_USD);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCreateNoPairs() {
+        new TradeFeed(api);
+    }
+
+    private void trades(long... tids) {
+        for (long tid : tids) {
+            serverTids.add(tid);
+        }
+    }
+
+    private static Trade trade(long tid) {
+        return new Trade(LocalDateTime.now(), 1, 1, tid, BTC_USD.getSec(), BTC_USD.getPrim(), BUY);
+    }
+}